@@ -0,0 +1,307 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// generates and solves a run of mazes with consecutive seeds on a pool of worker threads,
+// writing each maze and its solution path, and a report of the run, to a directory
+// the mazes are the Maze the worlds show, solved by its own traversers, which are part of
+// the headless core, so it runs on machines without a display or javalib
+// every worker takes the next seed from a shared counter until the run is done and
+// records into histograms of its own, which are added together at the end; the mazes and
+// their automatic searches all tell one CountingMazeMetrics about themselves
+// a maze is written as a LayeredMaze of one level, and dijkstra searches terrain
+// generated from the maze's seed, so a run can be repeated exactly
+// usage: BatchSolver [--count 1000] [--rows 100] [--columns 100] [--bias 0]
+//   [--first-seed 1] [--traverser bfs|dfs|dijkstra] [--threads N] [--out directory]
+// without --out nothing is written, and only the throughput is reported
+class BatchSolver {
+
+  // the int every path file starts with: "PT", then the version of the format
+  static final int PATH_FORMAT = 0x50540001;
+
+  // the number of mazes, their dimensions and bias, and the seed of the first one
+  private final int count;
+  private final int rows;
+  private final int columns;
+  private final double bias;
+  private final long firstSeed;
+
+  // the name of the traverser every maze is solved with
+  private final String traverser;
+
+  // told about every maze generated and every automatic search of one
+  final CountingMazeMetrics metrics;
+
+  // the number of worker threads
+  private final int threads;
+
+  // the directory the mazes, paths and report are written to, or null to write nothing
+  private final File directory;
+
+  // constructor
+  BatchSolver(int count, int rows, int columns, double bias, long firstSeed,
+      String traverser, int threads, File directory) {
+    if (count < 1) {
+      throw new IllegalArgumentException("There must be at least one maze.");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("The number of threads must be at least 1.");
+    }
+    // checked here so bad dimensions or a bad traverser are reported before any thread
+    // starts
+    Maze.checkShape(rows, columns, bias);
+    Maze.checkTraverser(traverser);
+    this.count = count;
+    this.rows = rows;
+    this.columns = columns;
+    this.bias = bias;
+    this.firstSeed = firstSeed;
+    this.traverser = traverser;
+    this.metrics = new CountingMazeMetrics();
+    this.threads = threads;
+    this.directory = directory;
+  }
+
+  // the cells of the given solution path, numbered as in a LayeredMaze of one level with
+  // the given number of columns, from the target back to the start
+  static int[] cellsOf(SearchResult result, int columns) {
+    ArrayList<GridPosn> positions = result.getSolutionPath();
+    int[] cells = new int[positions.size()];
+    for (int i = 0; i < cells.length; i += 1) {
+      cells[i] = positions.get(i).y * columns + positions.get(i).x;
+    }
+    return cells;
+  }
+
+  // the file the maze with the given seed is written to, in the given directory
+  static File mazeFile(File directory, long seed) {
+    return new File(directory, "maze-" + seed + ".bin");
+  }
+
+  // the file the solution path of the maze with the given seed is written to
+  static File pathFile(File directory, long seed) {
+    return new File(directory, "path-" + seed + ".bin");
+  }
+
+  // EFFECT: generates and solves every maze on the worker threads, writing them if there's
+  // a directory, and writes the report there too
+  // returns the report of the run
+  BenchmarkReport run() throws IOException {
+    if (this.directory != null) {
+      this.directory.mkdirs();
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    AtomicLong nextSeed = new AtomicLong(this.firstSeed);
+    ArrayList<BatchWorker> workers = new ArrayList<BatchWorker>();
+    for (int i = 0; i < this.threads; i += 1) {
+      workers.add(new BatchWorker(this, nextSeed));
+    }
+    long began = System.nanoTime();
+    try {
+      for (Future<Void> done : pool.invokeAll(workers)) {
+        done.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("The batch was interrupted.", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new RuntimeException("A maze couldn't be solved.", e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+    double seconds = (System.nanoTime() - began) / 1e9;
+
+    LatencyHistogram generateNanos = new LatencyHistogram();
+    LatencyHistogram solveNanos = new LatencyHistogram();
+    LatencyHistogram writeNanos = new LatencyHistogram();
+    LatencyHistogram pathLengths = new LatencyHistogram();
+    for (BatchWorker worker : workers) {
+      generateNanos.addAll(worker.generateNanos);
+      solveNanos.addAll(worker.solveNanos);
+      writeNanos.addAll(worker.writeNanos);
+      pathLengths.addAll(worker.pathLengths);
+    }
+    BenchmarkReport report = new BenchmarkReport("batch");
+    report.addValue("mazes", "mazes", this.count);
+    report.addValue("seconds", "s", seconds);
+    report.addValue("mazesPerSecond", "mazes/s", this.count / seconds);
+    report.addValue("cellsPerSecond", "cells/s",
+        (double) this.count * this.rows * this.columns / seconds);
+    report.addHistogram("generate", "ns", generateNanos);
+    report.addHistogram("solve " + this.traverser, "ns", solveNanos);
+    if (this.directory != null) {
+      report.addHistogram("write", "ns", writeNanos);
+    }
+    report.addHistogram("pathLength", "cells", pathLengths);
+    this.metrics.addTo(report);
+    if (this.directory != null) {
+      report.write(new File(this.directory, "metrics.json"));
+    }
+    return report;
+  }
+
+  // is the given seed one of this run's?
+  boolean includes(long seed) {
+    return seed - this.firstSeed < this.count;
+  }
+
+  // a new maze with this run's dimensions and bias, made from the given seed, which tells
+  // this run's metrics about itself
+  Maze generate(long seed) {
+    return new Maze(this.rows, this.columns, this.bias, new Random(seed), this.metrics);
+  }
+
+  // the result of this run's traverser searching the given maze, made from the given
+  // seed, to completion
+  SearchResult solve(Maze maze, long seed) {
+    IMazeTraverser search = maze.traverserFor(this.traverser, seed);
+    while (!search.searchComplete()) {
+      new OnTickTraverser().apply(search);
+    }
+    return search.result();
+  }
+
+  // EFFECT: writes the given maze, made from the given seed, and the given solution path
+  // through it, if this run has a directory
+  void write(long seed, Maze maze, SearchResult result) throws IOException {
+    if (this.directory == null) {
+      return;
+    }
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(BatchSolver.mazeFile(this.directory, seed))));
+    try {
+      LayeredMaze.of(maze).writeTo(out);
+    } finally {
+      out.close();
+    }
+    BatchSolver.writePath(BatchSolver.cellsOf(result, this.columns),
+        BatchSolver.pathFile(this.directory, seed));
+  }
+
+  // EFFECT: writes the given path, from the target back to the start, to the given file:
+  // PATH_FORMAT, the number of cells, then the cells from the start to the target
+  static void writePath(int[] path, File file) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file)));
+    try {
+      out.writeInt(PATH_FORMAT);
+      out.writeInt(path.length);
+      for (int i = path.length - 1; i >= 0; i -= 1) {
+        out.writeInt(path[i]);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  // the cells of the path written to the given file, from the start to the target
+  // throws an error if the file doesn't hold one
+  static int[] readPath(File file) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(file)));
+    try {
+      if (in.readInt() != PATH_FORMAT) {
+        throw new IOException("This isn't a path, or was written by another version.");
+      }
+      int[] path = new int[in.readInt()];
+      for (int i = 0; i < path.length; i += 1) {
+        path[i] = in.readInt();
+      }
+      return path;
+    } finally {
+      in.close();
+    }
+  }
+
+  // the maze written to the given file
+  static LayeredMaze readMaze(File file) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(file)));
+    try {
+      return LayeredMaze.readFrom(in);
+    } finally {
+      in.close();
+    }
+  }
+
+  // runs a batch with the given options and prints its throughput
+  public static void main(String[] args) throws IOException {
+    BenchmarkArgs options = new BenchmarkArgs(args);
+    BatchSolver batch = new BatchSolver(options.integer("count", 1000),
+        options.integer("rows", 100), options.integer("columns", 100),
+        options.number("bias", 0), options.longInteger("first-seed", 1),
+        options.string("traverser", "bfs"),
+        options.integer("threads", Runtime.getRuntime().availableProcessors()),
+        options.file("out"));
+    BenchmarkReport report = batch.run();
+    System.out.println(String.format("Solved %d mazes in %.3f s: %.1f mazes/s, %.0f cells/s",
+        batch.count, report.get("seconds").get("value"),
+        report.get("mazesPerSecond").get("value"), report.get("cellsPerSecond").get("value")));
+    for (String line : report.summaryLines("p50")) {
+      System.out.println(line);
+    }
+  }
+}
+
+// generates, solves and writes mazes for a BatchSolver, taking seeds from the shared
+// counter until they run out
+// its histograms are only touched by its own thread until the batch is over
+class BatchWorker implements Callable<Void> {
+
+  // the batch being run
+  private final BatchSolver batch;
+
+  // the next seed no worker has taken yet
+  private final AtomicLong nextSeed;
+
+  // the time each maze took to generate, solve and write, and the cells on its path
+  final LatencyHistogram generateNanos;
+  final LatencyHistogram solveNanos;
+  final LatencyHistogram writeNanos;
+  final LatencyHistogram pathLengths;
+
+  // constructor
+  BatchWorker(BatchSolver batch, AtomicLong nextSeed) {
+    this.batch = batch;
+    this.nextSeed = nextSeed;
+    this.generateNanos = new LatencyHistogram();
+    this.solveNanos = new LatencyHistogram();
+    this.writeNanos = new LatencyHistogram();
+    this.pathLengths = new LatencyHistogram();
+  }
+
+  // EFFECT: generates, solves and writes mazes until every seed has been taken
+  public Void call() throws IOException {
+    for (long seed = this.nextSeed.getAndIncrement(); this.batch.includes(seed);
+        seed = this.nextSeed.getAndIncrement()) {
+      long began = System.nanoTime();
+      Maze maze = this.batch.generate(seed);
+      long generated = System.nanoTime();
+      SearchResult result = this.batch.solve(maze, seed);
+      long solved = System.nanoTime();
+      this.batch.write(seed, maze, result);
+      long written = System.nanoTime();
+      this.generateNanos.record(generated - began);
+      this.solveNanos.record(solved - generated);
+      this.writeNanos.record(written - solved);
+      this.pathLengths.record(result.getSolutionPath().size());
+    }
+    return null;
+  }
+}
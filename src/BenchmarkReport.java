@@ -0,0 +1,342 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// the results of one run of a benchmark harness, written as JSON so that a later run can
+// be compared against it as a baseline
+// each result is one JSON object on its own line, named by what was measured, with its
+// unit and its numbers, so the files diff cleanly and can be read back without a JSON
+// library
+class BenchmarkReport {
+
+  // matches each "key": value pair of a result line, where the value is a string or a
+  // number
+  private static final Pattern FIELD = Pattern.compile(
+      "\"(\\w+)\": (\"[^\"]*\"|-?[0-9.Ee+-]+)");
+
+  // the name of the benchmark, like "generation"
+  private final String benchmark;
+
+  // the numbers of every result by its name, in the order they were added
+  private final LinkedHashMap<String, LinkedHashMap<String, Double>> results;
+
+  // the unit of every result by its name
+  private final HashMap<String, String> units;
+
+  // constructor with no results
+  BenchmarkReport(String benchmark) {
+    this.benchmark = benchmark;
+    this.results = new LinkedHashMap<String, LinkedHashMap<String, Double>>();
+    this.units = new HashMap<String, String>();
+  }
+
+  // EFFECT: adds the given numbers as the result with the given name and unit, replacing
+  // any result with the same name
+  void add(String name, String unit, LinkedHashMap<String, Double> numbers) {
+    this.results.put(name, numbers);
+    this.units.put(name, unit);
+  }
+
+  // EFFECT: adds the count, mean, median, 99th percentile and largest of the values in
+  // the given histogram as the result with the given name and unit
+  void addHistogram(String name, String unit, LatencyHistogram values) {
+    LinkedHashMap<String, Double> numbers = new LinkedHashMap<String, Double>();
+    numbers.put("samples", (double) values.count());
+    numbers.put("mean", values.mean());
+    numbers.put("p50", (double) values.valueAtPercentile(50));
+    numbers.put("p99", (double) values.valueAtPercentile(99));
+    numbers.put("max", (double) values.max());
+    this.add(name, unit, numbers);
+  }
+
+  // EFFECT: adds the single given value as the result with the given name and unit
+  void addValue(String name, String unit, double value) {
+    LinkedHashMap<String, Double> numbers = new LinkedHashMap<String, Double>();
+    numbers.put("value", value);
+    this.add(name, unit, numbers);
+  }
+
+  // the numbers of the result with the given name, or null if there isn't one
+  LinkedHashMap<String, Double> get(String name) {
+    return this.results.get(name);
+  }
+
+  // the number of results
+  int size() {
+    return this.results.size();
+  }
+
+  // this report as JSON, one result to a line
+  String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"benchmark\": \"").append(this.benchmark).append("\",\n");
+    json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+    json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors())
+        .append(",\n");
+    json.append("  \"results\": [\n");
+    int written = 0;
+    for (Map.Entry<String, LinkedHashMap<String, Double>> result : this.results.entrySet()) {
+      json.append("    {\"name\": \"").append(result.getKey()).append("\", \"unit\": \"")
+          .append(this.units.get(result.getKey())).append("\"");
+      for (Map.Entry<String, Double> number : result.getValue().entrySet()) {
+        json.append(", \"").append(number.getKey()).append("\": ")
+            .append(this.formatNumber(number.getValue()));
+      }
+      written += 1;
+      json.append(written < this.results.size() ? "},\n" : "}\n");
+    }
+    json.append("  ]\n");
+    json.append("}\n");
+    return json.toString();
+  }
+
+  // the given number as JSON, without a fraction if it's a whole number
+  // always with a '.' before the fraction, whatever the default locale
+  String formatNumber(double value) {
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return Long.toString((long) value);
+    }
+    return String.format(Locale.ROOT, "%.3f", value);
+  }
+
+  // EFFECT: writes this report to the given file, replacing anything already in it
+  void write(File file) throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    Files.write(file.toPath(), this.toJson().getBytes(StandardCharsets.UTF_8));
+  }
+
+  // the report written to the given file by write
+  // only reads files in the form this class writes: the benchmark name and every result
+  // line; anything else in the file is ignored
+  static BenchmarkReport read(File file) throws IOException {
+    BenchmarkReport report = null;
+    for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+      Matcher field = FIELD.matcher(line);
+      String name = null;
+      String unit = "";
+      LinkedHashMap<String, Double> numbers = new LinkedHashMap<String, Double>();
+      while (field.find()) {
+        String key = field.group(1);
+        String value = field.group(2);
+        if (value.startsWith("\"")) {
+          value = value.substring(1, value.length() - 1);
+          if (key.equals("benchmark")) {
+            report = new BenchmarkReport(value);
+          } else if (key.equals("name")) {
+            name = value;
+          } else if (key.equals("unit")) {
+            unit = value;
+          }
+        } else if (name != null) {
+          numbers.put(key, Double.parseDouble(value));
+        }
+      }
+      if (name != null && report != null) {
+        report.add(name, unit, numbers);
+      }
+    }
+    if (report == null) {
+      throw new IOException("The file isn't a benchmark report: " + file.getPath());
+    }
+    return report;
+  }
+
+  // a line for every result also in the given baseline, comparing the given number of
+  // each, like "sort 100x100 bias=0: p50 1200 ns, baseline 1000 ns (+20.0%)"
+  ArrayList<String> compareTo(BenchmarkReport baseline, String number) {
+    ArrayList<String> lines = new ArrayList<String>();
+    for (Map.Entry<String, LinkedHashMap<String, Double>> result : this.results.entrySet()) {
+      LinkedHashMap<String, Double> before = baseline.get(result.getKey());
+      Double now = result.getValue().get(number);
+      if (before == null || now == null || before.get(number) == null) {
+        continue;
+      }
+      double then = before.get(number);
+      String unit = this.units.get(result.getKey());
+      String change = then == 0 ? "n/a"
+          : String.format(Locale.ROOT, "%+.1f%%", 100.0 * (now - then) / then);
+      lines.add(String.format(Locale.ROOT, "%s: %s %s %s, baseline %s %s (%s)",
+          result.getKey(), number, this.formatNumber(now), unit, this.formatNumber(then), unit,
+          change));
+    }
+    return lines;
+  }
+
+  // a line for every result, giving the given number of each
+  ArrayList<String> summaryLines(String number) {
+    ArrayList<String> lines = new ArrayList<String>();
+    for (Map.Entry<String, LinkedHashMap<String, Double>> result : this.results.entrySet()) {
+      Double value = result.getValue().get(number);
+      if (value != null) {
+        lines.add(String.format(Locale.ROOT, "%-48s %s %s %s", result.getKey(), number,
+            this.formatNumber(value), this.units.get(result.getKey())));
+      }
+    }
+    return lines;
+  }
+
+  // EFFECT: prints the median and the value of every result, writes this report to the
+  // given file, and prints how it compares to the report in the given baseline file
+  // either file may be null, to skip writing or comparing
+  void publish(File out, File baseline) throws IOException {
+    for (String line : this.summaryLines("p50")) {
+      System.out.println(line);
+    }
+    for (String line : this.summaryLines("value")) {
+      System.out.println(line);
+    }
+    if (out != null) {
+      this.write(out);
+      System.out.println("Wrote " + this.size() + " results to " + out.getPath());
+    }
+    if (baseline != null) {
+      System.out.println("Compared to " + baseline.getPath() + ":");
+      for (String line : this.compareTo(BenchmarkReport.read(baseline), "p50")) {
+        System.out.println(line);
+      }
+    }
+  }
+}
+
+// the options given to a benchmark harness on the command line, as "--name value" pairs
+class BenchmarkArgs {
+
+  // the value of every option by its name, without the dashes
+  private final HashMap<String, String> options;
+
+  // constructor reads the given arguments
+  // throws an error if an option is missing its value or an argument isn't an option
+  BenchmarkArgs(String[] args) {
+    this.options = new HashMap<String, String>();
+    for (int i = 0; i < args.length; i += 2) {
+      if (!args[i].startsWith("--") || i + 1 >= args.length) {
+        throw new IllegalArgumentException("Options must be given as --name value pairs.");
+      }
+      this.options.put(args[i].substring(2), args[i + 1]);
+    }
+  }
+
+  // was the option with the given name given?
+  boolean has(String name) {
+    return this.options.containsKey(name);
+  }
+
+  // the option with the given name, or the given default if it wasn't given
+  String string(String name, String otherwise) {
+    return this.options.getOrDefault(name, otherwise);
+  }
+
+  // the option with the given name as a whole number, or the given default
+  int integer(String name, int otherwise) {
+    return this.has(name) ? Integer.parseInt(this.options.get(name)) : otherwise;
+  }
+
+  // the option with the given name as a whole number that may not fit in an int, or the
+  // given default
+  long longInteger(String name, long otherwise) {
+    return this.has(name) ? Long.parseLong(this.options.get(name)) : otherwise;
+  }
+
+  // the option with the given name as a number, or the given default
+  double number(String name, double otherwise) {
+    return this.has(name) ? Double.parseDouble(this.options.get(name)) : otherwise;
+  }
+
+  // the option with the given name as a comma-separated list of whole numbers, or the
+  // given default
+  int[] integers(String name, int[] otherwise) {
+    if (!this.has(name)) {
+      return otherwise;
+    }
+    String[] parts = this.options.get(name).split(",");
+    int[] values = new int[parts.length];
+    for (int i = 0; i < parts.length; i += 1) {
+      values[i] = Integer.parseInt(parts[i].trim());
+    }
+    return values;
+  }
+
+  // the option with the given name as a comma-separated list of numbers, or the given
+  // default
+  double[] numbers(String name, double[] otherwise) {
+    if (!this.has(name)) {
+      return otherwise;
+    }
+    String[] parts = this.options.get(name).split(",");
+    double[] values = new double[parts.length];
+    for (int i = 0; i < parts.length; i += 1) {
+      values[i] = Double.parseDouble(parts[i].trim());
+    }
+    return values;
+  }
+
+  // the option with the given name as a file, or null if it wasn't given
+  File file(String name) {
+    return this.has(name) ? new File(this.options.get(name)) : null;
+  }
+}
+
+// one case of a benchmark, like generating a maze of one size, that a BenchmarkHarness
+// runs over and over, keeping what it measures from the timed runs
+interface IBenchmarkCase {
+
+  // EFFECT: runs the case once, as the given run counted from 0, and records what it
+  // measured if the run is timed, rather than one of the warmups
+  void run(int run, boolean timed);
+}
+
+// runs the cases of a benchmark the same way: a few untimed warmups first, so the JIT has
+// compiled the code being measured, then timed runs until there have been enough of them
+// or the case has run out of time
+class BenchmarkHarness {
+
+  // the number of untimed runs of every case before the timed ones
+  final int warmups;
+
+  // the number of timed runs of every case, unless it runs out of time first
+  final int iterations;
+
+  // the time a case may take before it stops after its current run, in nanoseconds
+  final long maxNanosPerCase;
+
+  // the seed the mazes of every case are made from
+  final long seed;
+
+  // constructor
+  // throws an error if there are negative warmups or no timed iterations
+  BenchmarkHarness(int warmups, int iterations, double maxSeconds, long seed) {
+    if (warmups < 0 || iterations < 1) {
+      throw new IllegalArgumentException("There must be at least one timed iteration.");
+    }
+    this.warmups = warmups;
+    this.iterations = iterations;
+    this.maxNanosPerCase = (long) (maxSeconds * 1e9);
+    this.seed = seed;
+  }
+
+  // EFFECT: runs the given case through the warmups, then the timed runs
+  // returns the number of timed runs
+  int measure(IBenchmarkCase measured) {
+    long started = System.nanoTime();
+    for (int run = 0; run < this.warmups + this.iterations; run += 1) {
+      boolean timed = run >= this.warmups;
+      measured.run(run, timed);
+      if (timed && System.nanoTime() - started > this.maxNanosPerCase) {
+        return run - this.warmups + 1;
+      }
+    }
+    return this.iterations;
+  }
+}
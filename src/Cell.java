@@ -3,23 +3,46 @@ import java.util.Comparator;
 import java.util.NoSuchElementException;
 import java.util.Random;
 
-import javalib.worldimages.Posn;
-
 // represents a single square of a maze grid
 class Cell {
 
   // the coordinates of the cell, in grid coordinates (not pixel)
-  private final Posn position;
+  private final GridPosn position;
+
+  // the same coordinates packed into a long, for comparing positions without a GridPosn
+  private final long packedPosition;
+
+  // this cell's index in the maze that owns it, (row * columns + column), so that
+  // per-cell data can live in arrays indexed by it; -1 until a maze assigns it
+  private int id;
 
   // the edges connecting this cell to adjacent cells with no wall in between
   private final ArrayList<Edge> connections;
 
+  // the edge to the adjacent cell in each direction, indexed by Direction.ordinal(),
+  // or null where there is a wall
+  // kept alongside connections so that neighbor queries are a single array read
+  private final Edge[] edgeSlots;
+
+  // the adjacent cell in each direction, indexed by Direction.ordinal(), or null where
+  // there is a wall
+  private final Cell[] neighborSlots;
+
   // constructor
   // initializes the cell with the given position and no connections to adjacent
   // cells
-  Cell(Posn position) {
+  Cell(GridPosn position) {
+    this(position, -1);
+  }
+
+  // constructor for a cell with the given id in the maze that owns it
+  Cell(GridPosn position, int id) {
     this.position = position;
+    this.packedPosition = PackedPosn.of(position.x, position.y);
+    this.id = id;
     this.connections = new ArrayList<>();
+    this.edgeSlots = new Edge[4];
+    this.neighborSlots = new Cell[4];
   }
 
   // add an edge to this cell's list of edges to adjacent cells
@@ -30,6 +53,12 @@ class Cell {
     }
     else {
       this.connections.add(e);
+      Cell other = e.findOther(this);
+      Direction d = this.directionTo(other);
+      if (d != null) {
+        this.edgeSlots[d.ordinal()] = e;
+        this.neighborSlots[d.ordinal()] = other;
+      }
     }
   }
 
@@ -40,57 +69,78 @@ class Cell {
       throw new NoSuchElementException("This cell does not have the given edge.");
     }
     this.connections.remove(e);
+    for (Direction d : Direction.ALL) {
+      if (this.edgeSlots[d.ordinal()] == e) {
+        this.edgeSlots[d.ordinal()] = null;
+        this.neighborSlots[d.ordinal()] = null;
+      }
+    }
+  }
+
+  // the direction of the given cell from this one, or null if it isn't adjacent
+  Direction directionTo(Cell other) {
+    long displacement = PackedPosn.subtract(other.packedPosition, this.packedPosition);
+    return Direction.ofDisplacement(PackedPosn.x(displacement), PackedPosn.y(displacement));
   }
 
   // determines if this cell is connected to a neighbor at the given displacement
-  boolean hasNeighbor(Posn displacement) {
-    Posn target = new Utils().addPosn(this.position, displacement);
-    for (Edge e : this.connections) {
-      if (e.connectedCellPositions().contains(target)) {
-        return true;
-      }
-    }
-    return false;
+  boolean hasNeighbor(GridPosn displacement) {
+    Direction d = Direction.ofDisplacement(displacement.x, displacement.y);
+    return d != null && this.hasNeighbor(d);
+  }
+
+  // determines if this cell is connected to a neighbor in the given direction
+  boolean hasNeighbor(Direction d) {
+    return this.neighborSlots[d.ordinal()] != null;
   }
 
   // returns the adjacent cell neighbor at the given displacement if there is one
   // throws an exception if there is not a neighbor in that direction
   // used for moving the player cell during manual traversal of the maze
-  Cell getNeighbor(Posn displacement) {
-    Posn target = new Utils().addPosn(this.position, displacement);
-    for (Edge e : this.connections) {
-      if (e.connectedCellPositions().contains(target)) {
-        return e.findOther(this);
-      }
+  Cell getNeighbor(GridPosn displacement) {
+    Direction d = Direction.ofDisplacement(displacement.x, displacement.y);
+    if (d == null || !this.hasNeighbor(d)) {
+      throw new IllegalArgumentException(
+          "The cell doesn't have a neighbor at the given displacement.");
     }
-    throw new IllegalArgumentException(
-        "The cell doesn't have a neighbor at the given displacement.");
-  }
-
-  // Two Cells are equal if they are at the same position and have neighbors in the same direction
-  // Does not verify that the neighbors themselves correspond
-  public boolean equals(Object o) {
-    if (! (o instanceof Cell)) {
-      return false;
-    } else {
-      Utils u = new Utils();
-      Cell other = (Cell) o;
-
-      return other.getPosition().equals(this.getPosition())
-          && ((this.hasNeighbor(u.directionToDisplacement("up"))) 
-              == other.hasNeighbor(u.directionToDisplacement("up")))
-          && ((this.hasNeighbor(u.directionToDisplacement("down"))) 
-              == other.hasNeighbor(u.directionToDisplacement("down")))
-          && ((this.hasNeighbor(u.directionToDisplacement("left"))) 
-              == other.hasNeighbor(u.directionToDisplacement("left")))
-          && ((this.hasNeighbor(u.directionToDisplacement("right"))) 
-              == other.hasNeighbor(u.directionToDisplacement("right")));
+    return this.neighborSlots[d.ordinal()];
+  }
+
+  // returns the adjacent cell neighbor in the given direction if there is one
+  // throws an exception if there is not a neighbor in that direction
+  Cell getNeighbor(Direction d) {
+    Cell neighbor = this.neighborSlots[d.ordinal()];
+    if (neighbor == null) {
+      throw new IllegalArgumentException(
+          "The cell doesn't have a neighbor at the given displacement.");
     }
+    return neighbor;
+  }
+
+  // returns the adjacent cell in the given direction, or null if there is a wall there
+  // used when expanding a cell during a search, which checks every direction anyway
+  Cell neighborOrNull(Direction d) {
+    return this.neighborSlots[d.ordinal()];
   }
 
-  // The hash code of the cell is just the hash code of its position
-  public int hashCode() {
-    return this.position.hashCode();
+  // returns the edge to the adjacent cell in the given direction, or null if there is a
+  // wall there
+  Edge edgeOrNull(Direction d) {
+    return this.edgeSlots[d.ordinal()];
+  }
+
+  // Cells are compared by identity, which is all the searches and collections need since
+  // every maze has exactly one Cell per position; CellStructureComparator compares them by
+  // position and walls instead
+
+  // this cell's index in the maze that owns it, or -1 if it doesn't belong to one yet
+  int getId() {
+    return this.id;
+  }
+
+  // EFFECT: records this cell's index in the maze that owns it
+  void assignId(int id) {
+    this.id = id;
   }
 
   // returns this cell's list of edge connections to adjacent cells
@@ -102,25 +152,22 @@ class Cell {
 
   //returns this' position
   // used as keys for the union/find representatives to avoid gratuitous dispatch
-  Posn getPosition() {
+  GridPosn getPosition() {
     return this.position;
   }
+
+  // returns this' position packed into a long
+  long getPackedPosition() {
+    return this.packedPosition;
+  }
   
   // is the given neighboring cell directly above or directly below this cell?
   boolean neighborsVerticallyWith(Cell other) {
-    Utils u = new Utils();
-    Posn displacementToOther = u.subtractPosn(this.position, other.getPosition());
-    // horizontally related (to the left or to the right)
-    if (displacementToOther.equals(u.directionToDisplacement("left"))
-        || displacementToOther.equals(u.directionToDisplacement("right"))) {
-      return false;
-    } else if (displacementToOther.equals(u.directionToDisplacement("up"))
-        || displacementToOther.equals(u.directionToDisplacement("down"))) {
-      return true;
-    } else {
+    Direction d = this.directionTo(other);
+    if (d == null) {
       throw new IllegalArgumentException("The given cell is not a neighbor of this cell.");
     }
-    
+    return d.isVertical();
   }
 }
 
@@ -136,12 +183,17 @@ class Edge implements Comparable<Edge> {
   // TODO: make private
   final double weight;
 
+  // this edge's index among all the edges a maze started with, so that per-edge data can
+  // live in arrays indexed by it; -1 until a maze assigns it
+  private int id;
+
   // convenience constructor for testing edge weights 
   // creates an edge with a specified weight between the two given cells
   // EFFECT: adds this edge to the given cells
   Edge(Cell cell1, Cell cell2, double weight) {
     this.cells = new Pair<Cell>(cell1, cell2);
     this.weight = weight;
+    this.id = -1;
 
     cell1.addNeighbor(this);
     cell2.addNeighbor(this);
@@ -187,9 +239,9 @@ class Edge implements Comparable<Edge> {
   // used to reconstruct the solution path from BFS and DFS, generate the minimum
   // spanning tree
   // of the maze, and visually knock down walls
-  Pair<Posn> connectedCellPositions() {
+  Pair<GridPosn> connectedCellPositions() {
     // Pair is like Posn, allowing field of field
-    return new Pair<Posn>(this.cells.first.getPosition(), this.cells.second.getPosition());
+    return new Pair<GridPosn>(this.cells.first.getPosition(), this.cells.second.getPosition());
   }
 
   // EFFECT: removes this edge from the maze grid by removing it from both of the
@@ -202,7 +254,14 @@ class Edge implements Comparable<Edge> {
 
   // given a cell, finds the other cell that this edge connects
   // throws an error if the given cell isn't connected by this edge
+  // the given cell is almost always one of this edge's own cells, so they are checked by
+  // identity before falling back to equality
   Cell findOther(Cell c) {
+    if (this.cells.first == c) {
+      return this.cells.second;
+    } else if (this.cells.second == c) {
+      return this.cells.first;
+    }
     return this.cells.getOther(c);
   }
 
@@ -211,24 +270,17 @@ class Edge implements Comparable<Edge> {
     return this.cells;
   }
 
-  // Two edges are equal if they have the same weight and if they have the same cells in 
-  // either order in the pair
-  public boolean equals(Object o) {
-    if (! (o instanceof Edge)) {
-      return false;
-    } else {
-      Edge other = (Edge) o;
-      return other.weightDifference(this.weight) == 0
-          && other.getConnectedCells().contains(this.getConnectedCells().first)
-          && other.getConnectedCells().contains(this.getConnectedCells().second);
-    }
+  // Edges are compared by identity, since each connection between two cells is made
+  // once; EdgeStructureComparator compares them by weight and cells instead
+
+  // this edge's index among all the edges its maze started with, or -1 if none
+  int getId() {
+    return this.id;
   }
 
-  // Hash code must be commutative such that it does not matter which cell is in 
-  // which position of the pair
-  public int hashCode() {
-    return this.connectedCellPositions().first.hashCode() 
-        + this.connectedCellPositions().second.hashCode();
+  // EFFECT: records this edge's index among all the edges its maze started with
+  void assignId(int id) {
+    this.id = id;
   }
 }
   
@@ -277,3 +329,55 @@ class EdgeWeightComparator implements Comparator<Edge> {
     return left.compareTo(right);
   }
 }
+
+// a function object that orders cells by position, then by which directions they have
+// neighbors in, so two cells compare as 0 exactly when they are at the same position with
+// the same walls
+// used by tests, which need structural comparison now that Cell.equals is identity
+class CellStructureComparator implements Comparator<Cell> {
+  public int compare(Cell left, Cell right) {
+    GridPosn leftPosn = left.getPosition();
+    GridPosn rightPosn = right.getPosition();
+    if (leftPosn.y != rightPosn.y) {
+      return Integer.compare(leftPosn.y, rightPosn.y);
+    }
+    if (leftPosn.x != rightPosn.x) {
+      return Integer.compare(leftPosn.x, rightPosn.x);
+    }
+    for (Direction d : Direction.ALL) {
+      if (left.hasNeighbor(d) != right.hasNeighbor(d)) {
+        return left.hasNeighbor(d) ? 1 : -1;
+      }
+    }
+    return 0;
+  }
+}
+
+// a function object that orders edges by weight, then by the cells they connect in
+// either order, so two edges compare as 0 exactly when they have the same weight and
+// structurally equal cells
+// used by tests, which need structural comparison now that Edge.equals is identity
+class EdgeStructureComparator implements Comparator<Edge> {
+  public int compare(Edge left, Edge right) {
+    int byWeight = Double.compare(left.weight, right.weight);
+    if (byWeight != 0) {
+      return byWeight;
+    }
+    CellStructureComparator cells = new CellStructureComparator();
+    Pair<Cell> leftCells = this.ordered(left.getConnectedCells(), cells);
+    Pair<Cell> rightCells = this.ordered(right.getConnectedCells(), cells);
+    int byFirst = cells.compare(leftCells.first, rightCells.first);
+    if (byFirst != 0) {
+      return byFirst;
+    }
+    return cells.compare(leftCells.second, rightCells.second);
+  }
+
+  // the given cells, smallest first
+  Pair<Cell> ordered(Pair<Cell> pair, CellStructureComparator cells) {
+    if (cells.compare(pair.first, pair.second) <= 0) {
+      return pair;
+    }
+    return new Pair<Cell>(pair.second, pair.first);
+  }
+}
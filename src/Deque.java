@@ -1,3 +1,7 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 import tester.*;
 
 // an abstract node in a Deque
@@ -33,6 +37,14 @@ abstract class ANode<T> {
   // this ANode is a Node or a Sentinel
   abstract int incElements();
 
+  // does this ANode hold data? (false only for the Sentinel)
+  // lets the iterative loops below stop at the end of the Deque without recursion
+  abstract boolean hasData();
+
+  // EFFECT: clears this ANode and hands it to the given pool if there is room, so that
+  // a later insertion can reuse it instead of allocating
+  abstract void release(ArrayList<Node<T>> pool, int poolCapacity);
+
   // return this ANode if it matches the given predicate
   // otherwise, continue searching the Deque
   // if this is a Sentinel, return this
@@ -41,11 +53,6 @@ abstract class ANode<T> {
   // EFFECT: removes this ANode from the Deque
   abstract void remove();
 
-  // EFFECT: adds a node after the this ANode
-  public void addAfter(T t) {
-    new Node<>(t, this.next, this);
-  }
-
   // get the data stored in this ANode before removing it
   // if this node is a Sentinel, error
   abstract T getData();
@@ -66,6 +73,12 @@ class Node<T> extends ANode<T> {
 
   // convenience constructor
   Node(T data, ANode<T> next, ANode<T> prev) {
+    this.link(data, next, prev);
+  }
+
+  // EFFECT: stores the given data in this Node and splices it in between the given nodes
+  // used both by the constructor and when a pooled Node is reused
+  void link(T data, ANode<T> next, ANode<T> prev) {
     if (next == null || prev == null) {
       throw new IllegalArgumentException("The given nodes can't be null.");
     } else {
@@ -77,18 +90,40 @@ class Node<T> extends ANode<T> {
     }
   }
 
-  // increment the count of the running total number of elements in a Deque
+  // count the number of Nodes from this one up to the end of the Deque
+  // iterative so that long Deques can't overflow the stack
   int incElements() {
-    return 1 + this.next.incElements();
+    int count = 0;
+    ANode<T> curr = this;
+    while (curr.hasData()) {
+      count += 1;
+      curr = curr.getNext();
+    }
+    return count;
   }
 
-  // return this Node's data matches the given predicate
-  // otherwise, continue searching the Deque
+  // return the first Node from this one onward whose data matches the given predicate
+  // or the Sentinel if none match
   ANode<T> findMatch(IPred<T> pred) {
-    if (pred.apply(this.data)) {
-      return this;
-    } else {
-      return this.next.findMatch(pred);
+    ANode<T> curr = this;
+    while (curr.hasData() && !pred.apply(curr.getData())) {
+      curr = curr.getNext();
+    }
+    return curr;
+  }
+
+  // a Node always holds data
+  boolean hasData() {
+    return true;
+  }
+
+  // EFFECT: drops this Node's references and adds it to the pool if the pool isn't full
+  void release(ArrayList<Node<T>> pool, int poolCapacity) {
+    this.data = null;
+    this.next = null;
+    this.prev = null;
+    if (pool.size() < poolCapacity) {
+      pool.add(this);
     }
   }
 
@@ -125,6 +160,16 @@ class Sentinel<T> extends ANode<T> {
     return this;
   }
 
+  // a Sentinel never holds data
+  boolean hasData() {
+    return false;
+  }
+
+  // the Sentinel belongs to its Deque and is never pooled
+  void release(ArrayList<Node<T>> pool, int poolCapacity) {
+    // does nothing because this Sentinel should never be reused
+  }
+
   // EFFECT: remove this Sentinel from the deque
   void remove() {
     // does nothing because this Sentinel should never be removed
@@ -138,58 +183,133 @@ class Sentinel<T> extends ANode<T> {
 }
 
 // a circular (in both directions) list of nodes
-class Deque<T> {
+// keeps a running count of its nodes, and can optionally recycle removed nodes so that
+// a Deque used as a steady-state work queue doesn't allocate on every add
+class Deque<T> implements Iterable<T> {
   
   // the header node for this Deque
   Sentinel<T> header;
-  //  Iterator<T> iterator;
+
+  // the number of non-sentinel nodes in this Deque
+  private int size;
+
+  // removed nodes kept around for reuse, never more than poolCapacity of them
+  private final ArrayList<Node<T>> pool;
+
+  // the maximum number of removed nodes to keep for reuse (0 means no pooling)
+  private final int poolCapacity;
 
   // constructor
   Deque() {
+    this(0);
+  }
+
+  // constructor for a Deque that keeps up to the given number of removed nodes for reuse
+  Deque(int poolCapacity) {
+    if (poolCapacity < 0) {
+      throw new IllegalArgumentException("The pool capacity can't be negative.");
+    }
     this.header = new Sentinel<T>();
-    //    this.iterator = new ForwardDequeIterator<T>(this.header);
+    this.size = 0;
+    this.pool = new ArrayList<Node<T>>();
+    this.poolCapacity = poolCapacity;
   }
 
   // convenience constructor
   Deque(Sentinel<T> header) {
     this.header = header;
+    this.size = header.getNext().incElements();
+    this.pool = new ArrayList<Node<T>>();
+    this.poolCapacity = 0;
   }
 
   // return the total number of non-sentinel nodes in this Deque
   int size() {
-    return this.header.getNext().incElements();
+    return this.size;
+  }
+
+  // does this Deque contain no nodes?
+  boolean isEmpty() {
+    return this.size == 0;
   }
 
   // EFFECT: add the given data into a new node at the beginning of this Deque
   void addAtHead(T t) {
-    this.header.addAfter(t);
+    this.insertAfter(this.header, t);
   }
 
   // EFFECT: add the given data into a new node at the end of this Deque
   void addAtTail(T t) {
-    // new Node<>(t, this.header, this.header.getPrev());
-    // this.add(t, this.header.getPrev());
-    this.header.getPrev().addAfter(t);
+    this.insertAfter(this.header.getPrev(), t);
+  }
+
+  // EFFECT: add the given data into a new node just after the given node of this Deque
+  void addAfter(ANode<T> node, T t) {
+    this.insertAfter(node, t);
+  }
+
+  // EFFECT: add every item of the given collection to the end of this Deque, in order
+  void addAll(Iterable<? extends T> items) {
+    for (T item : items) {
+      this.addAtTail(item);
+    }
+  }
+
+  // EFFECT: splices a node holding the given data in after the given node, reusing
+  // a pooled node if one is available
+  private void insertAfter(ANode<T> prev, T t) {
+    if (this.pool.isEmpty()) {
+      new Node<T>(t, prev.getNext(), prev);
+    } else {
+      this.pool.remove(this.pool.size() - 1).link(t, prev.getNext(), prev);
+    }
+    this.size += 1;
   }
 
   // EFFECT: remove the first node in this Deque and return the data that it
   // contained
   // error if this Deque is empty
   T removeFromHead() {
-    T data = this.header.getNext().getData();
-    this.header.getNext().remove();
-    return data;
+    return this.removeData(this.header.getNext());
   }
 
   // EFFECT: remove the last node in this Deque and return the data that it
   // contained
   // error if this Deque is empty
   T removeFromTail() {
-    T data = this.header.getPrev().getData();
-    this.header.getPrev().remove();
+    return this.removeData(this.header.getPrev());
+  }
+
+  // EFFECT: unlinks the given node and recycles it, returning the data it contained
+  // error if the given node is the Sentinel
+  private T removeData(ANode<T> node) {
+    T data = node.getData();
+    node.remove();
+    node.release(this.pool, this.poolCapacity);
+    this.size -= 1;
     return data;
   }
 
+  // EFFECT: removes every node from this Deque, returning their data from head to tail
+  ArrayList<T> drain() {
+    ArrayList<T> result = new ArrayList<T>(this.size);
+    while (!this.isEmpty()) {
+      result.add(this.removeFromHead());
+    }
+    return result;
+  }
+
+  // EFFECT: removes every node from this Deque
+  // only walks the nodes while there is room left in the pool for them
+  void clear() {
+    while (!this.isEmpty() && this.pool.size() < this.poolCapacity) {
+      this.removeFromHead();
+    }
+    this.header.updateNext(this.header);
+    this.header.updatePrev(this.header);
+    this.size = 0;
+  }
+
   // find the first node in this Deque that matches the given predicate
   // if no node matches, return the predicate
   ANode<T> find(IPred<T> pred) {
@@ -198,7 +318,41 @@ class Deque<T> {
 
   // EFFECT: removes the given node from this Deque
   void removeNode(ANode<T> node) {
-    node.remove();
+    if (node.hasData()) {
+      node.remove();
+      this.size -= 1;
+    }
+  }
+
+  // an iterator over the data in this Deque from head to tail
+  public Iterator<T> iterator() {
+    return new ForwardDequeIterator<T>(this.header);
+  }
+}
+
+// iterates over the data of a Deque from head to tail
+class ForwardDequeIterator<T> implements Iterator<T> {
+  // the node whose data will be returned next
+  private ANode<T> curr;
+
+  // constructor starts at the first node after the given Sentinel
+  ForwardDequeIterator(Sentinel<T> header) {
+    this.curr = header.getNext();
+  }
+
+  // is there another node before the Sentinel?
+  public boolean hasNext() {
+    return this.curr.hasData();
+  }
+
+  // returns the data of the current node and moves on to the next one
+  public T next() {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException("No more elements in the deque.");
+    }
+    T data = this.curr.getData();
+    this.curr = this.curr.getNext();
+    return data;
   }
 }
 
@@ -333,19 +487,28 @@ class ExamplesDeque {
 
   }
 
-  // test the addAfter method in class ANode
+  // test the addAfter method in class Deque
   void testAddAfter(Tester t) {
     this.initData();
 
     t.checkExpect(this.deque2.header.getNext().getData(), "abc");
+    t.checkExpect(this.deque2.size(), 4);
 
-    this.deque2.header.addAfter("hello");
+    this.deque2.addAfter(this.deque2.header, "hello");
+
+    t.checkExpect(this.deque2.size(), 5);
+    t.checkExpect(this.deque2.isEmpty(), false);
 
     t.checkExpect(this.deque2.header.getNext().getData(), "hello");
     t.checkExpect(this.deque2.header.getNext().getNext().getData(), "abc");
     t.checkExpect(this.deque2.header.getNext().getNext().getPrev(), this.deque2.header.getNext());
     t.checkExpect(this.deque2.header.getNext().getPrev(), this.deque2.header);
 
+    this.deque1.addAfter(this.deque1.header, true);
+    t.checkExpect(this.deque1.size(), 1);
+    t.checkExpect(this.deque1.isEmpty(), false);
+    t.checkExpect(this.deque1.removeFromTail(), true);
+    t.checkExpect(this.deque1.isEmpty(), true);
   }
 
   // test the getData method in class ANode
@@ -494,4 +657,99 @@ class ExamplesDeque {
     t.checkExpect(this.deque3.header.getNext().getData(), 2);
     t.checkExpect(this.deque3.header.getNext().getPrev(), this.deque3.header);
   }
+
+  // test that size is kept as a running count
+  void testSizeCounter(Tester t) {
+    this.initData();
+
+    this.deque2.addAtHead("aaa");
+    t.checkExpect(this.deque2.size(), 5);
+    this.deque2.removeFromTail();
+    this.deque2.removeFromTail();
+    t.checkExpect(this.deque2.size(), 3);
+    this.deque2.removeNode(this.deque2.header);
+    t.checkExpect(this.deque2.size(), 3);
+    this.deque2.removeNode(this.deque2.header.getNext());
+    t.checkExpect(this.deque2.size(), 2);
+    t.checkExpect(this.deque1.isEmpty(), true);
+    t.checkExpect(this.deque2.isEmpty(), false);
+
+    Sentinel<String> s = new Sentinel<>();
+    new Node<String>("x", s, s);
+    t.checkExpect(new Deque<String>(s).size(), 1);
+  }
+
+  // test that size, find and incElements don't overflow the stack on long deques
+  void testLongDeque(Tester t) {
+    Deque<Integer> longDeque = new Deque<Integer>();
+    for (int i = 0; i < 200000; i += 1) {
+      longDeque.addAtTail(i * 2);
+    }
+    t.checkExpect(longDeque.size(), 200000);
+    t.checkExpect(longDeque.header.getNext().incElements(), 200000);
+    t.checkExpect(longDeque.find(new Odd()), longDeque.header);
+    t.checkExpect(longDeque.removeFromTail(), 399998);
+  }
+
+  // test iterating over a Deque
+  void testIterator(Tester t) {
+    this.initData();
+
+    ArrayList<String> seen = new ArrayList<String>();
+    for (String s : this.deque2) {
+      seen.add(s);
+    }
+    t.checkExpect(seen.size(), 4);
+    t.checkExpect(seen.get(0), "abc");
+    t.checkExpect(seen.get(3), "def");
+    t.checkExpect(this.deque1.iterator().hasNext(), false);
+    t.checkException(new NoSuchElementException("No more elements in the deque."),
+        this.deque1.iterator(), "next");
+  }
+
+  // test addAll, drain and clear in class Deque
+  void testBulkOperations(Tester t) {
+    this.initData();
+
+    ArrayList<String> items = new ArrayList<String>();
+    items.add("efg");
+    items.add("fgh");
+    this.deque2.addAll(items);
+    t.checkExpect(this.deque2.size(), 6);
+    t.checkExpect(this.deque2.header.getPrev().getData(), "fgh");
+
+    ArrayList<String> drained = this.deque2.drain();
+    t.checkExpect(drained.size(), 6);
+    t.checkExpect(drained.get(0), "abc");
+    t.checkExpect(drained.get(5), "fgh");
+    t.checkExpect(this.deque2.size(), 0);
+    t.checkExpect(this.deque2.header.getNext(), this.deque2.header);
+
+    this.deque3.clear();
+    t.checkExpect(this.deque3.isEmpty(), true);
+    t.checkExpect(this.deque3.header.getPrev(), this.deque3.header);
+    this.deque3.addAtHead(3);
+    t.checkExpect(this.deque3.size(), 1);
+  }
+
+  // test that a pooled Deque reuses removed nodes
+  void testNodePool(Tester t) {
+    Deque<Integer> pooled = new Deque<Integer>(2);
+    pooled.addAtTail(1);
+    ANode<Integer> first = pooled.header.getNext();
+    t.checkExpect(pooled.removeFromHead(), 1);
+    pooled.addAtTail(2);
+    t.checkExpect(pooled.header.getNext() == first, true);
+    t.checkExpect(pooled.header.getNext().getData(), 2);
+
+    Deque<Integer> unpooled = new Deque<Integer>();
+    unpooled.addAtTail(1);
+    ANode<Integer> other = unpooled.header.getNext();
+    unpooled.removeFromHead();
+    unpooled.addAtTail(2);
+    t.checkExpect(unpooled.header.getNext() == other, false);
+
+    t.checkConstructorException(
+        new IllegalArgumentException("The pool capacity can't be negative."), "Deque", -1);
+  }
 }
\ No newline at end of file
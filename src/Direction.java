@@ -0,0 +1,71 @@
+// one of the four ways to step from a cell of the maze grid to an adjacent cell
+// each cell keeps its connections in a slot per direction, indexed by ordinal()
+enum Direction {
+  UP(0, -1), DOWN(0, 1), LEFT(-1, 0), RIGHT(1, 0);
+
+  // every direction, in slot order
+  // values() copies its array on every call, so loops over the slots use this instead
+  static final Direction[] ALL = Direction.values();
+
+  // the change in column and row when stepping this way
+  final int dx;
+  final int dy;
+
+  // constructor
+  Direction(int dx, int dy) {
+    this.dx = dx;
+    this.dy = dy;
+  }
+
+  // the direction that steps back the way this one came
+  Direction opposite() {
+    switch (this) {
+      case UP:
+        return DOWN;
+      case DOWN:
+        return UP;
+      case LEFT:
+        return RIGHT;
+      default:
+        return LEFT;
+    }
+  }
+
+  // does stepping this way move up or down, rather than left or right?
+  boolean isVertical() {
+    return this.dx == 0;
+  }
+
+  // the direction named by the given arrow key: "up", "down", "left" or "right"
+  // throws an error for any other key
+  static Direction fromKey(String key) {
+    switch (key) {
+      case "up":
+        return UP;
+      case "down":
+        return DOWN;
+      case "left":
+        return LEFT;
+      case "right":
+        return RIGHT;
+      default:
+        throw new IllegalArgumentException("Direction is not one of: up, down, left, right");
+    }
+  }
+
+  // the direction of the given change in column and row, or null if it isn't a single
+  // step to an adjacent cell
+  static Direction ofDisplacement(int dx, int dy) {
+    if (dx == 0 && dy == -1) {
+      return UP;
+    } else if (dx == 0 && dy == 1) {
+      return DOWN;
+    } else if (dx == -1 && dy == 0) {
+      return LEFT;
+    } else if (dx == 1 && dy == 0) {
+      return RIGHT;
+    } else {
+      return null;
+    }
+  }
+}
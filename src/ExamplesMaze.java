@@ -1,9 +1,34 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import javalib.impworld.WorldScene;
 import javalib.worldimages.AboveImage;
 import javalib.worldimages.BesideImage;
+import javalib.worldimages.ComputedPixelImage;
 import javalib.worldimages.EmptyImage;
 import javalib.worldimages.Posn;
 import javalib.worldimages.WorldImage;
@@ -13,7 +38,7 @@ class ExamplesMaze {
 
   public static void main(String[] args) {
     MazeWorld mw = new MazeWorld(10, 10);
-    mw.bigBang(55 * IConstant.CELL_WIDTH, 55 * IConstant.CELL_WIDTH, .01);
+    mw.bigBang(IConstant.VIEWPORT_WIDTH, IConstant.VIEWPORT_HEIGHT, .01);
   }
 
 //  void testGeneration(Tester t) {
@@ -22,50 +47,78 @@ class ExamplesMaze {
 //  }
 
   void testFindRepresentative(Tester t) {
-    HashMap<Posn, Posn> reps = new HashMap<Posn,Posn>();
     Maze m = new Maze(4, 4);
-    Posn p0 = new Posn(0, 0);
-    Posn p1 = new Posn(1, 1);
-    Posn p2 = new Posn(2, 2);
-    Posn p3 = new Posn(3, 3);
-    Posn p4 = new Posn(4, 4);
-    reps.put(p0, p0);
-    reps.put(p1, p1);
-    reps.put(p2, p1);
-    reps.put(p3, p2);
-    reps.put(p4, p0);
-    t.checkExpect(m.findRepresentative(p0, reps), p0);
-    t.checkExpect(m.findRepresentative(p1, reps), p1);
-    t.checkExpect(m.findRepresentative(p2, reps), p1);
-    t.checkExpect(m.findRepresentative(p3, reps), p1);
-    t.checkExpect(m.findRepresentative(p4, reps), p0);
+    int[] reps = m.initialRepresentatives();
+    t.checkExpect(reps.length, 16);
+    t.checkExpect(reps[9], 9);
+    reps[10] = 5;
+    reps[15] = 10;
+    reps[3] = 0;
+    t.checkExpect(m.findRepresentative(0, reps), 0);
+    t.checkExpect(m.findRepresentative(5, reps), 5);
+    t.checkExpect(m.findRepresentative(10, reps), 5);
+    t.checkExpect(m.findRepresentative(15, reps), 5);
+    t.checkExpect(m.findRepresentative(3, reps), 0);
+  }
+
+  void testPackedPosn(Tester t) {
+    long p = PackedPosn.of(3, 7);
+    t.checkExpect(PackedPosn.x(p), 3);
+    t.checkExpect(PackedPosn.y(p), 7);
+    long back = PackedPosn.of(-1, -2);
+    t.checkExpect(PackedPosn.x(back), -1);
+    t.checkExpect(PackedPosn.y(back), -2);
+    t.checkExpect(PackedPosn.add(p, back), PackedPosn.of(2, 5));
+    t.checkExpect(PackedPosn.subtract(p, back), PackedPosn.of(4, 9));
+    t.checkExpect(PackedPosn.indexIn(p, 10), 73);
+    t.checkExpect(new Cell(new GridPosn(3, 7)).getPackedPosition(), p);
+  }
+
+  // test searching cells built outside a maze, which have no ids
+  void testSearchCellsWithoutIds(Tester t) {
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
+    new Edge(c00, c10, 0.1);
+    new Edge(c10, c11, 0.2);
+    new Edge(c00, c01, 0.3);
+    new Edge(c01, c11, 0.4);
+    t.checkExpect(c11.getId(), -1);
+    AutomaticSearch bfs = new AutomaticSearch(c00, new Queue<Cell>(), new GridPosn(1, 1));
+    while (!bfs.searchComplete()) {
+      bfs.incrementSearch();
+    }
+    t.checkExpect(bfs.reconstructSolutionPath(), new ArrayList<GridPosn>(Arrays.asList(
+        new GridPosn(1, 1), new GridPosn(1, 0), new GridPosn(0, 0))));
+    t.checkExpect(bfs.wrongMoves(), 1);
   }
 
 //  void testEdgeRemoval(Tester t) {
 //    // Four cells connected in a square
-//    Cell c00 = new Cell(new Posn(0, 0));
-//    Cell c10 = new Cell(new Posn(1, 0));
-//    Cell c01 = new Cell(new Posn(0, 1));
-//    Cell c11 = new Cell(new Posn(1, 1));
+//    Cell c00 = new Cell(new GridPosn(0, 0));
+//    Cell c10 = new Cell(new GridPosn(1, 0));
+//    Cell c01 = new Cell(new GridPosn(0, 1));
+//    Cell c11 = new Cell(new GridPosn(1, 1));
 //    Edge e1 = new Edge(c00, c10);
 //    Edge e2 = new Edge(c00, c01);
 //    Edge e3 = new Edge(c10, c11);
 //    Edge e4 = new Edge(c01, c11);
 //
 //    // Top-left should have neighbor to the right
-//    t.checkExpect(c00.hasNeighbor(new Posn(1, 0)), true);
+//    t.checkExpect(c00.hasNeighbor(new GridPosn(1, 0)), true);
 //    // Top-right should have neighbor to the left
-//    t.checkExpect(c10.hasNeighbor(new Posn(0, 1)), true);
-//    t.checkExpect(c11.hasNeighbor(new Posn(0, -1)), true);
+//    t.checkExpect(c10.hasNeighbor(new GridPosn(0, 1)), true);
+//    t.checkExpect(c11.hasNeighbor(new GridPosn(0, -1)), true);
 //
-//    t.checkExpect(c11.hasNeighbor(new Posn(0, 1)), false);
-//    t.checkExpect(c10.hasNeighbor(new Posn(-1, 0)), true);
+//    t.checkExpect(c11.hasNeighbor(new GridPosn(0, 1)), false);
+//    t.checkExpect(c10.hasNeighbor(new GridPosn(-1, 0)), true);
 //    e1.removeSelf();
-//    t.checkExpect(c00.hasNeighbor(new Posn(1, 0)), false);
-//    t.checkExpect(c10.hasNeighbor(new Posn(-1, 0)), false);
+//    t.checkExpect(c00.hasNeighbor(new GridPosn(1, 0)), false);
+//    t.checkExpect(c10.hasNeighbor(new GridPosn(-1, 0)), false);
 //    e3.removeSelf();
-//    t.checkExpect(c10.hasNeighbor(new Posn(0, 1)), false);
-//    t.checkExpect(c11.hasNeighbor(new Posn(0, -1)), false);
+//    t.checkExpect(c10.hasNeighbor(new GridPosn(0, 1)), false);
+//    t.checkExpect(c11.hasNeighbor(new GridPosn(0, -1)), false);
 //  }
 
   void testGetOther(Tester t) {
@@ -126,7 +179,7 @@ class ExamplesMaze {
         // Begin a new depth-first search (could be bfs) at the top-left, with corresponding
         // target
         AutomaticSearch as = new AutomaticSearch(mz.getStart(), new Stack<Cell>(),
-            new Posn(targetX, targetY));
+            new GridPosn(targetX, targetY));
         // Allow the search to run maximum 100 times
         for (int numSteps = 0; numSteps < testSize * testSize; numSteps += 1) {
           if (! as.searchComplete()) {
@@ -149,20 +202,21 @@ class ExamplesMaze {
     // Square maze initialized
     Maze mz = new Maze(2, 2);
 
-    t.checkInexact(mz.makeScene().width * 1.0, 2 * IConstant.CELL_WIDTH * 1.0, .1);
-    t.checkInexact(mz.makeScene().height * 1.0, 2 * IConstant.CELL_WIDTH * 1.0, .1);
+    WorldScene mzScene = new MazeRenderer(mz).makeScene();
+    t.checkInexact(mzScene.width * 1.0, 2 * IConstant.CELL_WIDTH * 1.0, .1);
+    t.checkInexact(mzScene.height * 1.0, 2 * IConstant.CELL_WIDTH * 1.0, .1);
 
     WorldImage backgroundImg = new EmptyImage();
-    WorldImage row = new BesideImage(new BesideImage(backgroundImg, IConstant.CELL_IMG), 
-        IConstant.CELL_IMG);
+    WorldImage row = new BesideImage(new BesideImage(backgroundImg, ISprite.CELL_IMG), 
+        ISprite.CELL_IMG);
     WorldImage grid = new AboveImage(new AboveImage(backgroundImg, row), row);
-    t.checkExpect(mz.drawBackground(), grid);
+    t.checkExpect(new ReferenceRenderer(mz).drawBackground(), grid);
 
     // Four cells connected in a square
-    Cell c00 = new Cell(new Posn(0, 0));
-    Cell c10 = new Cell(new Posn(1, 0));
-    Cell c01 = new Cell(new Posn(0, 1));
-    Cell c11 = new Cell(new Posn(1, 1));
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
     ArrayList<Edge> initialEdges = new ArrayList<Edge>();
     Edge e1 = new Edge(c00, c10, 50);
     Edge e2 = new Edge(c00, c01, 40);
@@ -190,32 +244,35 @@ class ExamplesMaze {
     // |__|__| 
 
     // Ensuring that the only edge removed corresponds to text image above
-    t.checkExpect(c01.hasNeighbor(new Posn(1, 0)), false);
-    t.checkExpect(c01.hasNeighbor(new Posn(0, -1)), true);
+    t.checkExpect(c01.hasNeighbor(new GridPosn(1, 0)), false);
+    t.checkExpect(c01.hasNeighbor(new GridPosn(0, -1)), true);
 
     WorldScene smallScene = new WorldScene(2 * IConstant.CELL_WIDTH, 2 * IConstant.CELL_WIDTH);
     // Initialize background
-    smallScene.placeImageXY(small.drawBackground(), IConstant.CELL_WIDTH, IConstant.CELL_WIDTH);
+    smallScene.placeImageXY(new ReferenceRenderer(small).drawBackground(), IConstant.CELL_WIDTH,
+        IConstant.CELL_WIDTH);
     // Manually 'knocking down' the walls
-    smallScene.placeImageXY(IConstant.BLANK_CELL_IMG, IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH);
-    smallScene.placeImageXY(IConstant.BLANK_CELL_IMG, IConstant.CELL_WIDTH, IConstant.CELL_WIDTH / 2);
-    smallScene.placeImageXY(IConstant.BLANK_CELL_IMG, 3 * (IConstant.CELL_WIDTH / 2), IConstant.CELL_WIDTH);
-    t.checkExpect(small.initializeBackground(), smallScene);
+    smallScene.placeImageXY(ISprite.BLANK_CELL_IMG, IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH);
+    smallScene.placeImageXY(ISprite.BLANK_CELL_IMG, IConstant.CELL_WIDTH, IConstant.CELL_WIDTH / 2);
+    smallScene.placeImageXY(ISprite.BLANK_CELL_IMG, 3 * (IConstant.CELL_WIDTH / 2), IConstant.CELL_WIDTH);
+    t.checkExpect(new ReferenceRenderer(small).initializeBackground(), smallScene);
 
     // Adding squares for start and end positions
-    smallScene.placeImageXY(IConstant.START_IMG, IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH / 2);
-    smallScene.placeImageXY(IConstant.END_IMG, 3 * (IConstant.CELL_WIDTH / 2), 3 * (IConstant.CELL_WIDTH / 2));
-    t.checkExpect(small.makeScene(), smallScene);
+    smallScene.placeImageXY(ISprite.START_IMG, IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH / 2);
+    smallScene.placeImageXY(ISprite.END_IMG, 3 * (IConstant.CELL_WIDTH / 2), 3 * (IConstant.CELL_WIDTH / 2));
+    t.checkExpect(new ReferenceRenderer(small).makeScene(), smallScene);
+    t.checkExpect(this.samePixels(this.pixelsOf(new MazeRenderer(small).makeScene()),
+        this.pixelsOf(smallScene)), true);
   }
 
   void testBFSandDrawing(Tester t) {
     //GOAL: Test BFS drawing (same principle for DFS)
     // Implicitly tests the workings of BFS
     // Four cells connected in a square
-    Cell c00 = new Cell(new Posn(0, 0));
-    Cell c10 = new Cell(new Posn(1, 0));
-    Cell c01 = new Cell(new Posn(0, 1));
-    Cell c11 = new Cell(new Posn(1, 1));
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
     ArrayList<Edge> initialEdges = new ArrayList<Edge>();
     Edge e1 = new Edge(c00, c10, 50);
     Edge e2 = new Edge(c00, c01, 40);
@@ -243,57 +300,57 @@ class ExamplesMaze {
     // |     |
     // |__|__|
 
-    WorldScene smallSceneActual = small.makeScene();
-    WorldScene smallSceneExpected = small.makeScene();
+    WorldScene smallSceneActual = new MazeRenderer(small).makeScene();
+    WorldScene smallSceneExpected = new MazeRenderer(small).makeScene();
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Initial search should not display anything
     IMazeTraverser imt = small.initializeAutomaticSearch(true);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
 
     t.checkExpect(smallSceneActual, smallSceneExpected);
     // Tick the search
     new OnTickTraverser().apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now, top-left should have a blue square
-    smallSceneExpected.placeImageXY(IConstant.AUTO_PATH_TRAVERSED, 
+    smallSceneExpected.placeImageXY(ISprite.AUTO_PATH_TRAVERSED, 
         IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Tick the search
     new OnTickTraverser().apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now, top-right should also have a blue square
-    smallSceneExpected.placeImageXY(IConstant.AUTO_PATH_TRAVERSED, 
+    smallSceneExpected.placeImageXY(ISprite.AUTO_PATH_TRAVERSED, 
         (3 * IConstant.CELL_WIDTH) / 2, IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Tick the search
     new OnTickTraverser().apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now, bottom-left should also have a blue square
-    smallSceneExpected.placeImageXY(IConstant.AUTO_PATH_TRAVERSED, 
+    smallSceneExpected.placeImageXY(ISprite.AUTO_PATH_TRAVERSED, 
         IConstant.CELL_WIDTH / 2, (3 * IConstant.CELL_WIDTH) / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Ensure that if 'viewVisited' is false, only the most recently visited is shown
     // rather than the entire path
-    WorldScene noViewVisitedActual = small.makeScene();
-    imt.drawOntoScene(noViewVisitedActual, false);
-    WorldScene noViewVisitedExpected = small.makeScene();
-    noViewVisitedExpected.placeImageXY(IConstant.AUTO_PATH_TRAVERSED, 
+    WorldScene noViewVisitedActual = new MazeRenderer(small).makeScene();
+    new DrawTraverser(noViewVisitedActual, false).apply(imt);
+    WorldScene noViewVisitedExpected = new MazeRenderer(small).makeScene();
+    noViewVisitedExpected.placeImageXY(ISprite.AUTO_PATH_TRAVERSED, 
         IConstant.CELL_WIDTH / 2, (3 * IConstant.CELL_WIDTH) / 2);
     t.checkExpect(noViewVisitedActual, noViewVisitedExpected);
 
     // Tick the search
     new OnTickTraverser().apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Solution found, path should receive different color
-    smallSceneExpected.placeImageXY(IConstant.SEARCH_SOLUTION, 
+    smallSceneExpected.placeImageXY(ISprite.SEARCH_SOLUTION, 
         IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH / 2);
-    smallSceneExpected.placeImageXY(IConstant.SEARCH_SOLUTION, 
+    smallSceneExpected.placeImageXY(ISprite.SEARCH_SOLUTION, 
         (3 * IConstant.CELL_WIDTH) / 2, IConstant.CELL_WIDTH / 2);
-    smallSceneExpected.placeImageXY(IConstant.SEARCH_SOLUTION, 
+    smallSceneExpected.placeImageXY(ISprite.SEARCH_SOLUTION, 
         (3 * IConstant.CELL_WIDTH) / 2, (3 * IConstant.CELL_WIDTH) / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
   }
@@ -301,10 +358,10 @@ class ExamplesMaze {
   void testDFS(Tester t) {
     //GOAL: Test details of DFS workings for a tiny maze
     // Four cells connected in a square
-    Cell c00 = new Cell(new Posn(0, 0));
-    Cell c10 = new Cell(new Posn(1, 0));
-    Cell c01 = new Cell(new Posn(0, 1));
-    Cell c11 = new Cell(new Posn(1, 1));
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
     ArrayList<Edge> initialEdges = new ArrayList<Edge>();
     Edge e1 = new Edge(c00, c10, 50);
     Edge e2 = new Edge(c00, c01, 40);
@@ -332,40 +389,40 @@ class ExamplesMaze {
     // |   __|
     // |__ __|
 
-    WorldScene smallSceneActual = small.makeScene();
-    WorldScene smallSceneExpected = small.makeScene();
+    WorldScene smallSceneActual = new MazeRenderer(small).makeScene();
+    WorldScene smallSceneExpected = new MazeRenderer(small).makeScene();
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Initial search should not display anything
     IMazeTraverser imt = small.initializeAutomaticSearch(false);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
 
     t.checkExpect(smallSceneActual, smallSceneExpected);
     // Tick the search
     new OnTickTraverser().apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now, top-left should have a blue square
-    smallSceneExpected.placeImageXY(IConstant.AUTO_PATH_TRAVERSED, 
+    smallSceneExpected.placeImageXY(ISprite.AUTO_PATH_TRAVERSED, 
         IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Tick the search
     new OnTickTraverser().apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now, bottom-left should also have a blue square
-    smallSceneExpected.placeImageXY(IConstant.AUTO_PATH_TRAVERSED, 
+    smallSceneExpected.placeImageXY(ISprite.AUTO_PATH_TRAVERSED, 
         IConstant.CELL_WIDTH / 2, (3 * IConstant.CELL_WIDTH) / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Tick the search
     new OnTickTraverser().apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Solution found, path should receive different color
-    smallSceneExpected.placeImageXY(IConstant.SEARCH_SOLUTION, 
+    smallSceneExpected.placeImageXY(ISprite.SEARCH_SOLUTION, 
         IConstant.CELL_WIDTH / 2, IConstant.CELL_WIDTH / 2);
-    smallSceneExpected.placeImageXY(IConstant.SEARCH_SOLUTION, 
+    smallSceneExpected.placeImageXY(ISprite.SEARCH_SOLUTION, 
         IConstant.CELL_WIDTH / 2, (3 * IConstant.CELL_WIDTH) / 2);
-    smallSceneExpected.placeImageXY(IConstant.SEARCH_SOLUTION, 
+    smallSceneExpected.placeImageXY(ISprite.SEARCH_SOLUTION, 
         (3 * IConstant.CELL_WIDTH) / 2, (3 * IConstant.CELL_WIDTH) / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
@@ -388,9 +445,9 @@ class ExamplesMaze {
         // Begin a new depth-first search (could be bfs) at the top-left, with corresponding 
         // target
         AutomaticSearch bfs = new AutomaticSearch(mz.getStart(), new Stack<Cell>(), 
-            new Posn(targetX, targetY));
+            new GridPosn(targetX, targetY));
         AutomaticSearch dfs = new AutomaticSearch(mz.getStart(), new Queue<Cell>(), 
-            new Posn(targetX, targetY));
+            new GridPosn(targetX, targetY));
         // Allow the search to run maximum 100 times
         for (int numSteps = 0; numSteps < testSize * testSize; numSteps += 1) {
           if (! bfs.searchComplete()) {
@@ -420,10 +477,10 @@ class ExamplesMaze {
     // GOAL: Test that player makes only valid moves
     // and that path is drawn correctly
     // Four cells connected in a square
-    Cell c00 = new Cell(new Posn(0, 0));
-    Cell c10 = new Cell(new Posn(1, 0));
-    Cell c01 = new Cell(new Posn(0, 1));
-    Cell c11 = new Cell(new Posn(1, 1));
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
     ArrayList<Edge> initialEdges = new ArrayList<Edge>();
     Edge e1 = new Edge(c00, c10, 50);
     Edge e2 = new Edge(c00, c01, 40);
@@ -453,77 +510,77 @@ class ExamplesMaze {
 
     IMazeTraverser imt = small.initializeManualSearch();
 
-    WorldScene smallSceneActual = small.makeScene();
-    WorldScene smallSceneExpected = small.makeScene();
+    WorldScene smallSceneActual = new MazeRenderer(small).makeScene();
+    WorldScene smallSceneExpected = new MazeRenderer(small).makeScene();
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Initial search should not display anything
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_IMG, IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_IMG, IConstant.CELL_WIDTH / 2, 
         IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Attempt illegal move upward
     new OnKeyTraverser("up").apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // No change should occur
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     new OnKeyTraverser("down").apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Player in bottom-left, path visited shows in top-left as well
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_IMG, IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_IMG, IConstant.CELL_WIDTH / 2, 
         3 * IConstant.CELL_WIDTH / 2);
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
         IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Attempt illegal move to the right
     new OnKeyTraverser("right").apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // No change should occur
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     // Tick the search
     new OnKeyTraverser("up").apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now player back at top with bottom-left visited
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
         3 * IConstant.CELL_WIDTH / 2);
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_IMG, IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_IMG, IConstant.CELL_WIDTH / 2, 
         IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     new OnKeyTraverser("right").apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now player back at top-right, entire left side visited
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_IMG, 3 * IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_IMG, 3 * IConstant.CELL_WIDTH / 2, 
         IConstant.CELL_WIDTH / 2);
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
         3 * IConstant.CELL_WIDTH / 2);
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_VISITED_PATH, IConstant.CELL_WIDTH / 2, 
         IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
 
     new OnKeyTraverser("down").apply(imt);
-    imt.drawOntoScene(smallSceneActual, true);
+    new DrawTraverser(smallSceneActual, true).apply(imt);
     // Now player has reached end, show player image at end with solution path colored (excludes bottom-left)
     smallSceneExpected.placeImageXY(
-        IConstant.PLAYER_IMG, 3 * IConstant.CELL_WIDTH / 2, 
+        ISprite.PLAYER_IMG, 3 * IConstant.CELL_WIDTH / 2, 
         3 * IConstant.CELL_WIDTH / 2);
     smallSceneExpected.placeImageXY(
-        IConstant.SEARCH_SOLUTION, 3 * IConstant.CELL_WIDTH / 2, 
+        ISprite.SEARCH_SOLUTION, 3 * IConstant.CELL_WIDTH / 2, 
         IConstant.CELL_WIDTH / 2);
     smallSceneExpected.placeImageXY(
-        IConstant.SEARCH_SOLUTION, IConstant.CELL_WIDTH / 2, 
+        ISprite.SEARCH_SOLUTION, IConstant.CELL_WIDTH / 2, 
         IConstant.CELL_WIDTH / 2);
     t.checkExpect(smallSceneActual, smallSceneExpected);
   }
@@ -567,5 +624,1926 @@ class ExamplesMaze {
 
   }
 
+  // test the ordering and decrease-key of the indexed heap used by weighted search
+  void testIndexedMinHeap(Tester t) {
+    IndexedMinHeap heap = new IndexedMinHeap(10);
+    t.checkExpect(heap.isEmpty(), true);
+    heap.insert(3, 30);
+    heap.insert(7, 10);
+    heap.insert(1, 20);
+    heap.insert(9, 40);
+    heap.insert(0, 50);
+    heap.insert(5, 60);
+    t.checkExpect(heap.size(), 6);
+    t.checkExpect(heap.contains(9), true);
+    t.checkExpect(heap.contains(2), false);
+
+    heap.decreaseKey(5, 5);
+    t.checkExpect(heap.keyOf(5), 5L);
+    t.checkExpect(heap.pollMin(), 5);
+    t.checkExpect(heap.pollMin(), 7);
+    t.checkExpect(heap.pollMin(), 1);
+    t.checkExpect(heap.contains(1), false);
+    heap.decreaseKey(0, 35);
+    t.checkExpect(heap.pollMin(), 3);
+    t.checkExpect(heap.pollMin(), 0);
+    t.checkExpect(heap.pollMin(), 9);
+    t.checkExpect(heap.isEmpty(), true);
+
+    t.checkException(new NoSuchElementException("No more elements in the heap."),
+        heap, "pollMin");
+    heap.insert(4, 10);
+    t.checkException(new IllegalArgumentException("The item is already in the heap."),
+        heap, "insert", 4, 3L);
+    t.checkException(
+        new IllegalArgumentException("The new key can't be larger than the current one."),
+        heap, "decreaseKey", 4, 11L);
+  }
+
+  // test generating and assigning terrain costs
+  void testTerrain(Tester t) {
+    Maze mz = new Maze(3, 4);
+    t.checkExpect(mz.getTerrainCost(new GridPosn(2, 1)), 1);
+
+    Maze other = new Maze(3, 4);
+    mz.generateTerrain(42, 5);
+    other.generateTerrain(42, 5);
+    boolean allInRange = true;
+    boolean allSame = true;
+    for (int y = 0; y < 3; y += 1) {
+      for (int x = 0; x < 4; x += 1) {
+        int cost = mz.getTerrainCost(new GridPosn(x, y));
+        allInRange = allInRange && cost >= 1 && cost <= 5;
+        allSame = allSame && cost == other.getTerrainCost(new GridPosn(x, y));
+      }
+    }
+    t.checkExpect(allInRange, true);
+    t.checkExpect(allSame, true);
+
+    int[] costs = new int[12];
+    for (int i = 0; i < 12; i += 1) {
+      costs[i] = i + 1;
+    }
+    mz.assignTerrain(costs);
+    t.checkExpect(mz.getTerrainCost(new GridPosn(3, 2)), 12);
+    t.checkException(new IllegalArgumentException("There must be exactly one cost per cell."),
+        mz, "assignTerrain", new int[3]);
+    t.checkException(new IllegalArgumentException("Every terrain cost must be at least 1."),
+        mz, "assignTerrain", new int[12]);
+  }
+
+  // test that the weighted search goes around expensive terrain
+  void testDijkstraSearch(Tester t) {
+    // Four cells connected in a square, with every wall down so there are two routes
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
+    new Edge(c00, c10, 50);
+    new Edge(c00, c01, 40);
+    new Edge(c10, c11, 30);
+    new Edge(c01, c11, 100);
+
+    // the top-right cell is slow, so the cheapest route goes through the bottom-left
+    int[] costs = new int[] {1, 9, 2, 1};
+    DijkstraSearch ds = new DijkstraSearch(c00, new GridPosn(1, 1), costs, 2);
+    t.checkExpect(ds.searchComplete(), false);
+    for (int step = 0; step < 4 && !ds.searchComplete(); step += 1) {
+      new OnTickTraverser().apply(ds);
+    }
+    t.checkExpect(ds.searchComplete(), true);
+    ArrayList<GridPosn> expectedPath = new ArrayList<GridPosn>();
+    expectedPath.add(new GridPosn(1, 1));
+    expectedPath.add(new GridPosn(0, 1));
+    expectedPath.add(new GridPosn(0, 0));
+    t.checkExpect(ds.reconstructSolutionPath(), expectedPath);
+    t.checkExpect(ds.solutionCost(), 3L);
+    // the start, bottom-left and target were settled; the top-right never was
+    t.checkExpect(ds.wrongMoves(), 0);
+
+    // drawing shades the settled cells by cost, then draws the solution over them
+    WorldScene actual = new WorldScene(20, 20);
+    new DrawTraverser(actual, true).apply(ds);
+    WorldScene expected = new WorldScene(20, 20);
+    expected.placeImageXY(ISprite.TERRAIN_TRAVERSED[0], 5, 5);
+    expected.placeImageXY(ISprite.TERRAIN_TRAVERSED[1], 5, 15);
+    expected.placeImageXY(ISprite.TERRAIN_TRAVERSED[0], 15, 15);
+    expected.placeImageXY(ISprite.SEARCH_SOLUTION, 15, 15);
+    expected.placeImageXY(ISprite.SEARCH_SOLUTION, 5, 15);
+    expected.placeImageXY(ISprite.SEARCH_SOLUTION, 5, 5);
+    t.checkExpect(actual, expected);
+  }
+
+  // test that on a uniform terrain the weighted search finds the same path as BFS
+  void testDijkstraMatchesBFS(Tester t) {
+    Maze mz = new Maze(12, 9);
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    IMazeTraverser ds = mz.initializeDijkstraSearch();
+    for (int step = 0; step < 12 * 9; step += 1) {
+      new OnTickTraverser().apply(bfs);
+      new OnTickTraverser().apply(ds);
+    }
+    t.checkExpect(ds.searchComplete(), true);
+    t.checkExpect(ds.reconstructSolutionPath(), bfs.reconstructSolutionPath());
+    t.checkExpect(ds.reset(mz.getStart()).searchComplete(), false);
+
+    MazeWorld mw = new MazeWorld(3, 3);
+    mw.onKeyEvent("w");
+    t.checkExpect(mw.getTraverser() instanceof DijkstraSearch, true);
+  }
+
+  // test that a completed search takes its snapshot once and the world reuses its end screen
+  void testCompletedSnapshot(Tester t) {
+    Maze mz = new Maze(6, 5);
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    t.checkException(new RuntimeException("The search hasn't been completed yet."),
+        bfs, "result");
+    for (int step = 0; step < 6 * 5; step += 1) {
+      new OnTickTraverser().apply(bfs);
+    }
+    SearchResult result = bfs.result();
+    t.checkExpect(bfs.result() == result, true);
+    t.checkExpect(bfs.reconstructSolutionPath() == result.getSolutionPath(), true);
+    t.checkExpect(bfs.wrongMoves(), result.getWrongMoves());
+    t.checkExpect(result.getWrongMoves() >= 0, true);
+
+    // a square with the bottom wall up, so the route is right then down
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
+    new Edge(c00, c10, 50);
+    new Edge(c00, c01, 40);
+    new Edge(c10, c11, 30);
+    IMazeTraverser manual = new ManualSearch(c00, new GridPosn(1, 1));
+    new OnKeyTraverser("down").apply(manual);
+    new OnKeyTraverser("up").apply(manual);
+    new OnKeyTraverser("right").apply(manual);
+    new OnKeyTraverser("down").apply(manual);
+    t.checkExpect(manual.searchComplete(), true);
+    t.checkExpect(manual.result().getSolutionPath().size(), 3);
+    t.checkExpect(manual.wrongMoves(), 1);
+
+    MazeWorld mw = new MazeWorld(2, 2);
+    mw.onKeyEvent("b");
+    WorldScene running = mw.makeScene();
+    t.checkExpect(mw.makeScene() == running, false);
+    for (int step = 0; step < 4; step += 1) {
+      mw.onTick();
+    }
+    WorldScene end = mw.makeScene();
+    t.checkExpect(mw.makeScene() == end, true);
+    mw.onKeyEvent("n");
+    t.checkExpect(mw.makeScene() == end, false);
+  }
+
+  // test that the raster renderer draws exactly the same pixels as the nested javalib images
+  void testRasterRenderer(Tester t) {
+    Maze mz = new Maze(7, 5);
+    MazeRenderer renderer = new MazeRenderer(mz);
+    WorldScene scene = renderer.makeScene();
+    t.checkExpect(scene.width, 5 * IConstant.CELL_WIDTH);
+    t.checkExpect(scene.height, 7 * IConstant.CELL_WIDTH);
+    BufferedImage reference = this.pixelsOf(new ReferenceRenderer(mz).makeScene());
+    t.checkExpect(this.samePixels(this.pixelsOf(scene), reference), true);
+    t.checkExpect(this.samePixels(renderer.getStaticLayer().getImage(), reference), true);
+
+    // overlays drawn by the traversers look the same drawn either way
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    for (int step = 0; step < 10; step += 1) {
+      new OnTickTraverser().apply(bfs);
+    }
+    WorldScene full = new ReferenceRenderer(mz).makeScene();
+    new DrawTraverser(full, true).apply(bfs);
+    WorldScene fromRaster = renderer.makeScene();
+    new DrawTraverser(fromRaster, true).apply(bfs);
+    BufferedImage expected = this.pixelsOf(full);
+    t.checkExpect(this.samePixels(this.pixelsOf(fromRaster), expected), true);
+    t.checkExpect(this.samePixels(renderer.renderFrame(bfs, true).getImage(), expected), true);
+    // the frame is drawn into a copy, so the static layer is untouched
+    t.checkExpect(this.samePixels(renderer.getStaticLayer().getImage(), reference), true);
+  }
+
+  // test copying tiles into a frame buffer
+  void testFrameBuffer(Tester t) {
+    TileAtlas atlas = new TileAtlas();
+    Tile player = atlas.tileFor(ISprite.PLAYER_IMG);
+    t.checkExpect(atlas.tileFor(ISprite.PLAYER_IMG) == player, true);
+    int cell = IConstant.CELL_WIDTH;
+    FrameBuffer frame = new FrameBuffer(2 * cell, cell);
+    t.checkExpect(frame.getPixel(cell / 2, cell / 2), 0);
+    // tiles hanging off any edge are clipped rather than wrapping around
+    frame.blit(player, -cell / 2, -cell / 2);
+    frame.blit(player, 3 * cell / 2, cell / 2);
+    t.checkExpect(frame.getPixel(0, 0), Color.ORANGE.getRGB());
+    t.checkExpect(frame.getPixel(2 * cell - 1, cell - 1), Color.ORANGE.getRGB());
+    t.checkExpect(frame.getPixel(cell, 0), 0);
+    t.checkExpect(frame.getPixel(0, cell - 1), 0);
+
+    FrameBuffer copy = new FrameBuffer(2 * cell, cell);
+    copy.copyFrom(frame);
+    t.checkExpect(this.samePixels(copy.getImage(), frame.getImage()), true);
+    t.checkException(new IllegalArgumentException("The buffers must be the same size."),
+        new FrameBuffer(cell, cell), "copyFrom", frame);
+  }
+
+  // test that frames drawn one change at a time match frames drawn from scratch
+  void testIncrementalFrames(Tester t) {
+    Maze mz = new Maze(6, 8);
+    mz.generateTerrain(3, IConstant.MAX_TERRAIN_COST);
+    MazeRenderer renderer = new MazeRenderer(mz);
+    String[] moves = new String[] {"right", "down", "down", "left", "right", "up", "right"};
+    boolean[] views = new boolean[] {true, false};
+    for (boolean viewVisited : views) {
+      IMazeTraverser[] traversers = new IMazeTraverser[] {mz.initializeAutomaticSearch(true),
+          mz.initializeAutomaticSearch(false), mz.initializeDijkstraSearch(),
+          mz.initializeManualSearch()};
+      for (IMazeTraverser traverser : traversers) {
+        boolean matched = true;
+        int step = 0;
+        while (!traverser.searchComplete() && step < 60) {
+          renderer.updateFrame(traverser, viewVisited);
+          matched = matched && this.samePixels(renderer.getLiveFrame().getImage(),
+              renderer.renderFrame(traverser, viewVisited).getImage());
+          if (traverser instanceof ManualSearch) {
+            new OnKeyTraverser(moves[step % moves.length]).apply(traverser);
+          } else {
+            new OnTickTraverser().apply(traverser);
+          }
+          step += 1;
+        }
+        renderer.updateFrame(traverser, viewVisited);
+        matched = matched && this.samePixels(renderer.getLiveFrame().getImage(),
+            renderer.renderFrame(traverser, viewVisited).getImage());
+        t.checkExpect(matched, true);
+      }
+    }
+
+    // the published javalib image matches the live frame
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    renderer.updateFrame(bfs, true);
+    for (int step = 0; step < 5; step += 1) {
+      new OnTickTraverser().apply(bfs);
+      renderer.updateFrame(bfs, true);
+    }
+    WorldScene scene = new WorldScene(8 * IConstant.CELL_WIDTH, 6 * IConstant.CELL_WIDTH);
+    scene.placeImageXY(renderer.updateFrame(bfs, true), 4 * IConstant.CELL_WIDTH,
+        3 * IConstant.CELL_WIDTH);
+    t.checkExpect(this.samePixels(this.pixelsOf(scene),
+        renderer.renderFrame(bfs, true).getImage()), true);
+  }
+
+  // test that a dirty canvas only tracks each touched cell once
+  void testDirtyCanvas(Tester t) {
+    int cell = IConstant.CELL_WIDTH;
+    FrameBuffer staticLayer = new FrameBuffer(3 * cell, 2 * cell);
+    FrameBuffer frame = new FrameBuffer(3 * cell, 2 * cell);
+    DirtyCanvas canvas = new DirtyCanvas(frame, staticLayer, new TileAtlas());
+    t.checkExpect(canvas.dirtyCount(), 0);
+    canvas.drawAtCell(ISprite.PLAYER_IMG, new GridPosn(2, 1));
+    canvas.drawAtCell(ISprite.PLAYER_VISITED_PATH, new GridPosn(2, 1));
+    canvas.drawAtCell(ISprite.PLAYER_IMG, new GridPosn(0, 0));
+    t.checkExpect(canvas.dirtyCount(), 2);
+    t.checkExpect(frame.getPixel(5 * cell / 2, 3 * cell / 2), Color.YELLOW.getRGB());
+    canvas.restoreCell(new GridPosn(2, 1));
+    t.checkExpect(frame.getPixel(5 * cell / 2, 3 * cell / 2), 0);
+    t.checkExpect(canvas.dirtyCount(), 2);
+    canvas.publish(new ComputedPixelImage(3 * cell, 2 * cell));
+    t.checkExpect(canvas.dirtyCount(), 0);
+    canvas.restoreCell(new GridPosn(2, 1));
+    t.checkExpect(canvas.dirtyCount(), 1);
+    canvas.clearDirty();
+    t.checkExpect(canvas.dirtyCount(), 0);
+  }
+
+  // test moving and zooming the camera
+  void testCamera(Tester t) {
+    int cell = IConstant.CELL_WIDTH;
+    Camera cam = new Camera(40 * cell, 20 * cell, new GridPosn(30, 10));
+    t.checkExpect(cam.getCenter(), new Posn(15 * cell, 5 * cell));
+    t.checkExpect(cam.getZoom(), 0);
+    t.checkExpect(cam.pixelsPerCell(), cell);
+    t.checkExpect(cam.showsWholeMaze(), true);
+    t.checkExpect(cam.isFollowing(), true);
+    t.checkConstructorException(
+        new IllegalArgumentException("The window must be at least 1 pixel wide and tall."),
+        "Camera", 0, 10, new GridPosn(2, 2));
+
+    cam.zoomIn();
+    t.checkExpect(cam.pixelsPerCell(), 2 * cell);
+    t.checkExpect(cam.showsWholeMaze(), false);
+    for (int step = 0; step < 10; step += 1) {
+      cam.zoomIn();
+    }
+    t.checkExpect(cam.getZoom(), IConstant.MAX_ZOOM_IN);
+    cam.fit(new GridPosn(30, 10));
+
+    // zooming out halves cells down to a single pixel, then averages squares of cells
+    cam.zoomOut();
+    t.checkExpect(cam.pixelsPerCell(), cell / 2);
+    t.checkExpect(cam.lodLevel(), 0);
+    for (int step = 1; step < cam.halvingsToOnePixel(); step += 1) {
+      cam.zoomOut();
+    }
+    t.checkExpect(cam.pixelsPerCell(), 1);
+    cam.zoomOut();
+    t.checkExpect(cam.pixelsPerCell(), 0);
+    t.checkExpect(cam.lodLevel(), 1);
+    t.checkExpect(cam.screenToWorld(3), 3 * 2 * cell);
+    for (int step = 0; step < 30; step += 1) {
+      cam.zoomOut();
+    }
+    t.checkExpect(cam.lodLevel(), IConstant.MAX_LOD_LEVEL);
+
+    // panning moves by a quarter window at a time and stops over the edge of the maze
+    cam.fit(new GridPosn(30, 10));
+    cam.zoomIn();
+    cam.pan(1, 0);
+    t.checkExpect(cam.getCenter(), new Posn(15 * cell + 5 * cell, 5 * cell));
+    t.checkExpect(cam.isFollowing(), false);
+    cam.pan(0, -4);
+    t.checkExpect(cam.getCenter(), new Posn(20 * cell, 0));
+    cam.toggleFollowing();
+    t.checkExpect(cam.isFollowing(), true);
+
+    // the camera follows the player of a manual search but no other traverser
+    Maze mz = new Maze(4, 4);
+    IMazeTraverser manual = mz.initializeManualSearch();
+    new FollowPlayer(cam).apply(manual);
+    t.checkExpect(cam.getCenter(), new Posn(cell / 2, cell / 2));
+    cam.centerOnCell(new GridPosn(3, 2));
+    new FollowPlayer(cam).apply(mz.initializeAutomaticSearch(true));
+    t.checkExpect(cam.getCenter(), new Posn(3 * cell + cell / 2, 2 * cell + cell / 2));
+  }
+
+  // test the averages of squares of cells
+  void testLodPyramid(Tester t) {
+    int[] colors = new int[] {
+        0x000000, 0x0000FF, 0x00FF00,
+        0xFF0000, 0x000004, 0x0000FF};
+    LodPyramid pyramid = new LodPyramid(3, 2, colors, IConstant.MAX_LOD_LEVEL);
+    t.checkExpect(pyramid.levels(), 3);
+    t.checkExpect(pyramid.squaresAcross(1), 2);
+    t.checkExpect(pyramid.squaresDown(1), 1);
+    t.checkExpect(pyramid.colorOf(0, 1, 1), 0x000004);
+    t.checkExpect(pyramid.colorOf(1, 0, 0), 0x3F0040);
+    // the square hanging off the right edge only averages the cells in the maze
+    t.checkExpect(pyramid.colorOf(1, 1, 0), 0x007F7F);
+    t.checkExpect(pyramid.colorOf(2, 0, 0), 0x2A2A55);
+    pyramid.setCellColor(4, 0x0000FC);
+    t.checkExpect(pyramid.colorOf(1, 0, 0), 0x3F007E);
+    t.checkExpect(pyramid.colorOf(2, 0, 0), 0x2A2A7F);
+  }
+
+  // test that the viewport draws the same pixels as the full renderer at zoom 0 and
+  // scales them up when zoomed in
+  void testViewportTiles(Tester t) {
+    int cell = IConstant.CELL_WIDTH;
+    Maze mz = new Maze(6, 8);
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    for (int step = 0; step < 12; step += 1) {
+      new OnTickTraverser().apply(bfs);
+    }
+    MazeViewport viewport = new MazeViewport(mz, 8 * cell, 6 * cell);
+    Camera cam = new Camera(8 * cell, 6 * cell, mz.getDimensions());
+    viewport.render(cam, bfs, true);
+    MazeRenderer renderer = new MazeRenderer(mz);
+    BufferedImage full = renderer.renderFrame(bfs, true).getImage();
+    t.checkExpect(this.samePixels(viewport.getScreen().getImage(), full), true);
+
+    // only the most recent cell shows once visited cells are hidden
+    viewport.render(cam, bfs, false);
+    t.checkExpect(this.samePixels(viewport.getScreen().getImage(),
+        renderer.renderFrame(bfs, false).getImage()), true);
+
+    // zoomed in, every pixel of the view is a 2x2 square
+    cam.zoomIn();
+    viewport.render(cam, bfs, true);
+    FrameBuffer screen = viewport.getScreen();
+    boolean scaled = true;
+    for (int y = 0; y < 6 * cell; y += 1) {
+      for (int x = 0; x < 8 * cell; x += 1) {
+        scaled = scaled && screen.getPixel(x, y) == full.getRGB(2 * cell + x / 2,
+            3 * cell / 2 + y / 2);
+      }
+    }
+    t.checkExpect(scaled, true);
+
+    // panned past the edge, the rest of the window is background
+    cam.pan(-4, 0);
+    viewport.render(cam, bfs, true);
+    t.checkExpect(screen.getPixel(0, 0), MazeViewport.BACKGROUND);
+    t.checkExpect(screen.getPixel(8 * cell / 2, 0), full.getRGB(0, 3 * cell / 2));
+  }
+
+  // test that zoomed out views only depend on the window size and follow the search
+  void testViewportLevelOfDetail(Tester t) {
+    Maze mz = new Maze(40, 60);
+    MazeViewport viewport = new MazeViewport(mz, 20, 10);
+    Camera cam = new Camera(20, 10, mz.getDimensions());
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    int halvings = cam.halvingsToOnePixel();
+    for (int step = 0; step < halvings + 2; step += 1) {
+      cam.zoomOut();
+    }
+    t.checkExpect(cam.lodLevel(), 2);
+    viewport.render(cam, bfs, true);
+    LodPyramid pyramid = viewport.getStates().getPyramid();
+    // the center pixel covers the square of cells at the center of the maze
+    t.checkExpect(viewport.getScreen().getPixel(10, 5),
+        0xFF000000 | pyramid.colorOf(2, 30 >> 2, 20 >> 2));
+    int before = pyramid.colorOf(2, 0, 0);
+    for (int step = 0; step < 3; step += 1) {
+      new OnTickTraverser().apply(bfs);
+    }
+    viewport.render(cam, bfs, true);
+    t.checkExpect(pyramid.colorOf(2, 0, 0) != before, true);
+    t.checkExpect(viewport.getStates().overlayTile(0),
+        new TileAtlas().tileFor(ISprite.AUTO_PATH_TRAVERSED).id);
+
+    // a new traverser starts from a clean maze
+    viewport.render(cam, mz.initializeAutomaticSearch(false), true);
+    t.checkExpect(pyramid.colorOf(2, 0, 0), before);
+
+    // small cells are drawn as squares with a wall or passage on the right and bottom
+    cam.fit(mz.getDimensions());
+    cam.zoomOut();
+    cam.centerOnCell(new GridPosn(0, 0));
+    int size = cam.pixelsPerCell();
+    viewport.render(cam, bfs, true);
+    // the center of the start cell is in the middle of the window
+    int left = 10 - (IConstant.CELL_WIDTH / 2) * size / IConstant.CELL_WIDTH;
+    int top = 5 - (IConstant.CELL_WIDTH / 2) * size / IConstant.CELL_WIDTH;
+    t.checkExpect(viewport.getScreen().getPixel(left, top),
+        new TileAtlas().tileFor(ISprite.AUTO_PATH_TRAVERSED).color);
+    t.checkExpect(viewport.getScreen().getPixel(left + size - 1, top + size - 1),
+        Color.DARK_GRAY.getRGB());
+    t.checkExpect(viewport.getScreen().getPixel(left - 1, top), MazeViewport.BACKGROUND);
+  }
+
+  // test the camera keys of a maze world
+  void testWorldCamera(Tester t) {
+    int cell = IConstant.CELL_WIDTH;
+    MazeWorld mw = new MazeWorld(6, 8, 0.0, 8 * cell, 6 * cell);
+    WorldScene whole = mw.makeScene();
+    t.checkExpect(whole.width, 8 * cell);
+    mw.onKeyEvent("=");
+    t.checkExpect(mw.getCamera().getZoom(), 1);
+    WorldScene zoomed = mw.makeScene();
+    t.checkExpect(zoomed.width, 8 * cell);
+    t.checkExpect(zoomed.height, 6 * cell);
+    // the manual search is followed, so the start is in the middle of the window
+    t.checkExpect(mw.getCamera().getCenter(), new Posn(cell / 2, cell / 2));
+    mw.onKeyEvent("l");
+    t.checkExpect(mw.getCamera().isFollowing(), false);
+    mw.onKeyEvent("f");
+    t.checkExpect(mw.getCamera().isFollowing(), true);
+    mw.onKeyEvent("-");
+    mw.onKeyEvent("-");
+    t.checkExpect(mw.getCamera().getZoom(), -1);
+    mw.onKeyEvent("0");
+    t.checkExpect(mw.getCamera().getZoom(), 0);
+    t.checkExpect(mw.getCamera().getCenter(), new Posn(4 * cell, 3 * cell));
+    // camera keys aren't mistaken for search keys
+    t.checkExpect(mw.getTraverser() instanceof ManualSearch, true);
+
+    // a maze bigger than the window is drawn through the viewport from the start
+    MazeWorld big = new MazeWorld(30, 30, 0.0, 10 * cell, 10 * cell);
+    WorldScene scene = big.makeScene();
+    t.checkExpect(scene.width, 10 * cell);
+    t.checkExpect(scene.height, 10 * cell);
+  }
+
+  // test painting images in stripes and writing them without a world
+  void testExporter(Tester t) {
+    Maze mz = new Maze(9, 7);
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    for (int step = 0; step < 15; step += 1) {
+      new OnTickTraverser().apply(bfs);
+    }
+    MazeExporter exporter = new MazeExporter(mz, true, 3);
+    new DrawTraverserChanges(exporter.getStates(), true, new DrawCursor()).apply(bfs);
+    MazeRenderer renderer = new MazeRenderer(mz);
+    t.checkExpect(this.samePixels(exporter.paint().getImage(),
+        renderer.renderFrame(bfs, true).getImage()), true);
+
+    File directory = this.tempDirectory();
+    try {
+      IMazeTraverser dfs = mz.initializeAutomaticSearch(false);
+      ArrayList<File> everyFive = exporter.export(dfs, 5, directory, "dfs");
+      int steps = dfs.result().getWrongMoves() + dfs.result().getSolutionPath().size();
+      t.checkExpect(everyFive.size(), (steps + 4) / 5);
+      t.checkExpect(everyFive.get(0).getName(), "dfs-000005.png");
+      BufferedImage last = ImageIO.read(everyFive.get(everyFive.size() - 1));
+      t.checkExpect(this.samePixels(last, renderer.renderFrame(dfs, true).getImage()),
+          true);
+
+      IMazeTraverser weighted = mz.initializeDijkstraSearch();
+      ArrayList<File> finalOnly = exporter.export(weighted, 0, directory, "weighted");
+      t.checkExpect(finalOnly.size(), 1);
+      t.checkExpect(this.samePixels(ImageIO.read(finalOnly.get(0)),
+          renderer.renderFrame(weighted, true).getImage()), true);
+
+      t.checkException(new IllegalArgumentException(
+          "Only searches that advance on ticks can be exported."), exporter, "export",
+          mz.initializeManualSearch(), 1, directory, "manual");
+      t.checkException(new IllegalArgumentException(
+          "The number of steps between images can't be negative."), exporter, "export",
+          mz.initializeAutomaticSearch(true), -1, directory, "bfs");
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      exporter.shutdown();
+      for (File written : directory.listFiles()) {
+        written.delete();
+      }
+      directory.delete();
+    }
+    t.checkConstructorException(
+        new IllegalArgumentException("The number of threads must be at least 1."),
+        "MazeExporter", mz, true, 0);
+
+    // the command line is --name value pairs, and the same seed writes the same images
+    File first = this.tempDirectory();
+    File second = this.tempDirectory();
+    try {
+      ArrayList<File> once = MazeExporter.run(new BenchmarkArgs(new String[] {"--rows", "6",
+          "--columns", "5", "--seed", "8589934592", "--traverser", "dijkstra", "--threads",
+          "2", "--out", first.getPath()}));
+      ArrayList<File> twice = MazeExporter.run(new BenchmarkArgs(new String[] {"--rows", "6",
+          "--columns", "5", "--seed", "8589934592", "--traverser", "dijkstra", "--threads",
+          "1", "--out", second.getPath()}));
+      t.checkExpect(once.size(), 1);
+      t.checkExpect(once.get(0).getName().startsWith("dijkstra-"), true);
+      t.checkExpect(this.samePixels(ImageIO.read(once.get(0)), ImageIO.read(twice.get(0))),
+          true);
+      t.checkExpect(MazeExporter.run(new BenchmarkArgs(new String[] {"--rows", "4",
+          "--columns", "4", "--every", "3", "--out", first.getPath()})).size() > 1, true);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      for (File made : new File[] {first, second}) {
+        for (File written : made.listFiles()) {
+          written.delete();
+        }
+        made.delete();
+      }
+    }
+    t.checkException(new IllegalArgumentException("The images need an --out directory."),
+        exporter, "run", new BenchmarkArgs(new String[0]));
+    t.checkException(new IllegalArgumentException("The traverser must be one of: bfs, dfs, "
+        + "dijkstra"), exporter, "run", new BenchmarkArgs(new String[] {"--traverser",
+            "weighted", "--out", "unused"}));
+  }
+
+  // a new empty directory for temporary files
+  File tempDirectory() {
+    try {
+      return Files.createTempDirectory("maze-export").toFile();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // test the buckets and percentiles of a latency histogram
+  void testLatencyHistogram(Tester t) {
+    LatencyHistogram hist = new LatencyHistogram();
+    t.checkExpect(hist.count(), 0L);
+    t.checkExpect(hist.valueAtPercentile(50), 0L);
+    t.checkExpect(hist.min(), 0L);
+    t.checkExpect(hist.mean(), 0.0);
+    // small values each have their own bucket
+    for (int value = 1; value <= 100; value += 1) {
+      hist.record(value);
+    }
+    t.checkExpect(hist.count(), 100L);
+    t.checkExpect(hist.min(), 1L);
+    t.checkExpect(hist.max(), 100L);
+    t.checkExpect(hist.valueAtPercentile(50), 50L);
+    t.checkExpect(hist.valueAtPercentile(99), 99L);
+    t.checkExpect(hist.valueAtPercentile(100), 100L);
+    t.checkInexact(hist.mean(), 50.5, 0.001);
+
+    // large values are kept to within 1 part in HALF_BUCKETS
+    t.checkExpect(hist.bucketOf(127), 127);
+    t.checkExpect(hist.bucketOf(128), 128);
+    t.checkExpect(hist.bucketOf(129), 128);
+    t.checkExpect(hist.highestValueIn(128), 129L);
+    t.checkExpect(hist.bucketOf(256), 192);
+    boolean precise = true;
+    for (long value = 130; value < 1L << 40; value = value * 3 + 7) {
+      long highest = hist.highestValueIn(hist.bucketOf(value));
+      precise = precise && highest >= value
+          && highest - value <= value / LatencyHistogram.HALF_BUCKETS;
+    }
+    t.checkExpect(precise, true);
+    hist.record(1_000_000);
+    t.checkExpect(hist.valueAtPercentile(100), 1_000_000L);
+    t.checkExpect(hist.bucketOf(Long.MAX_VALUE) < 4000, true);
+    hist.record(-5);
+    t.checkExpect(hist.min(), 0L);
+    hist.reset();
+    t.checkExpect(hist.count(), 0L);
+    t.checkExpect(hist.max(), 0L);
+  }
+
+  // test that a maze world records its ticks, frames and key presses
+  void testWorldStats(Tester t) {
+    MazeWorld mw = new MazeWorld(5, 5);
+    WorldStats stats = mw.getStats();
+    mw.onKeyEvent("b");
+    mw.makeScene();
+    mw.onTick();
+    mw.onTick();
+    mw.makeScene();
+    t.checkExpect(stats.keyNanos.count(), 1L);
+    t.checkExpect(stats.tickNanos.count(), 2L);
+    t.checkExpect(stats.sceneNanos.count(), 2L);
+    // the first frame draws the whole maze and the next only the cells that changed
+    t.checkExpect(stats.cellsDrawn.max(), 25L);
+    t.checkExpect(stats.cellsDrawn.min(), 2L);
+    t.checkExpect(stats.tickBytes.count(), stats.measuresAllocation() ? 2L : 0L);
+
+    // the stats can be drawn over the maze without being cached into the end screen
+    mw.onKeyEvent("p");
+    while (!mw.getTraverser().searchComplete()) {
+      mw.onTick();
+    }
+    WorldScene withStats = mw.makeScene();
+    t.checkExpect(mw.makeScene() == withStats, false);
+    mw.onKeyEvent("p");
+    WorldScene end = mw.makeScene();
+    t.checkExpect(mw.makeScene() == end, true);
+    t.checkExpect(stats.reportLines().length, 4);
+    t.checkExpect(stats.reportLines()[0].startsWith("onTick"), true);
+
+    File file = new File(this.tempDirectory(), "stats.txt");
+    try {
+      stats.dump(file);
+      t.checkExpect(Files.readAllLines(file.toPath()).size(), 4);
+      t.checkExpect(Files.readAllLines(file.toPath()).get(3).startsWith("cells"), true);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      file.delete();
+      file.getParentFile().delete();
+    }
+    stats.reset();
+    t.checkExpect(stats.sceneNanos.count(), 0L);
+  }
+
+  // test the four directions between adjacent cells
+  void testDirection(Tester t) {
+    t.checkExpect(Direction.fromKey("up"), Direction.UP);
+    t.checkExpect(Direction.fromKey("right"), Direction.RIGHT);
+    t.checkException(
+        new IllegalArgumentException("Direction is not one of: up, down, left, right"),
+        new Utils(), "directionToDisplacement", "north");
+    t.checkExpect(Direction.UP.opposite(), Direction.DOWN);
+    t.checkExpect(Direction.LEFT.opposite(), Direction.RIGHT);
+    t.checkExpect(Direction.RIGHT.opposite().opposite(), Direction.RIGHT);
+    t.checkExpect(Direction.DOWN.isVertical(), true);
+    t.checkExpect(Direction.LEFT.isVertical(), false);
+    t.checkExpect(Direction.ofDisplacement(0, -1), Direction.UP);
+    t.checkExpect(Direction.ofDisplacement(-1, 0), Direction.LEFT);
+    t.checkExpect(Direction.ofDisplacement(1, 1), null);
+    t.checkExpect(Direction.ofDisplacement(0, 2), null);
+    t.checkExpect(new Utils().directionToDisplacement("down"), new GridPosn(0, 1));
+    t.checkExpect(Direction.ALL.length, 4);
+    t.checkExpect(new Utils().directionToDisplacement("left"), new GridPosn(-1, 0));
+  }
+
+  // test that each cell keeps its neighbors in a slot per direction
+  void testNeighborSlots(Tester t) {
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
+    Edge right = new Edge(c00, c10, 10);
+    Edge down = new Edge(c00, c01, 20);
+    t.checkExpect(c00.hasNeighbor(Direction.RIGHT), true);
+    t.checkExpect(c00.hasNeighbor(Direction.UP), false);
+    t.checkExpect(c10.hasNeighbor(Direction.LEFT), true);
+    t.checkExpect(c00.getNeighbor(Direction.DOWN) == c01, true);
+    t.checkExpect(c01.getNeighbor(new GridPosn(0, -1)) == c00, true);
+    t.checkExpect(c00.neighborOrNull(Direction.LEFT), null);
+    t.checkExpect(c00.edgeOrNull(Direction.RIGHT) == right, true);
+    t.checkExpect(c00.directionTo(c01), Direction.DOWN);
+    t.checkExpect(c00.directionTo(c11), null);
+    t.checkExpect(c00.hasNeighbor(new GridPosn(2, 0)), false);
+    t.checkException(new IllegalArgumentException(
+        "The cell doesn't have a neighbor at the given displacement."), c10, "getNeighbor",
+        Direction.DOWN);
+    t.checkException(new IllegalArgumentException(
+        "The cell doesn't have a neighbor at the given displacement."), c10, "getNeighbor",
+        new GridPosn(1, 1));
+    t.checkExpect(c00.neighborsVerticallyWith(c01), true);
+    t.checkExpect(c10.neighborsVerticallyWith(c00), false);
+    t.checkException(
+        new IllegalArgumentException("The given cell is not a neighbor of this cell."),
+        c00, "neighborsVerticallyWith", c11);
+    t.checkExpect(right.findOther(c00) == c10, true);
+    t.checkExpect(down.findOther(c01) == c00, true);
+
+    // removing an edge empties the slots on both sides
+    down.removeSelf();
+    t.checkExpect(c00.hasNeighbor(Direction.DOWN), false);
+    t.checkExpect(c01.hasNeighbor(Direction.UP), false);
+    t.checkExpect(c00.hasNeighbor(Direction.RIGHT), true);
+  }
+
+  void testIdsAndStructure(Tester t) {
+    Maze maze = new Maze(3, 4);
+    ArrayList<ArrayList<Cell>> grid = maze.getGrid();
+    t.checkExpect(grid.get(0).get(0).getId(), 0);
+    t.checkExpect(grid.get(1).get(2).getId(), 6);
+    t.checkExpect(grid.get(2).get(3).getId(), 11);
+
+    // cells and edges are equal only to themselves
+    Cell a = new Cell(new GridPosn(0, 0));
+    Cell b = new Cell(new GridPosn(1, 0));
+    Cell twinA = new Cell(new GridPosn(0, 0));
+    Cell twinB = new Cell(new GridPosn(1, 0));
+    Edge ab = new Edge(a, b, 10);
+    Edge twinAb = new Edge(twinA, twinB, 10);
+    t.checkExpect(a.equals(twinA), false);
+    t.checkExpect(a.equals(a), true);
+    t.checkExpect(ab.equals(twinAb), false);
+    t.checkExpect(a.getId(), -1);
+
+    // while the structural comparators see them as the same
+    CellStructureComparator cells = new CellStructureComparator();
+    EdgeStructureComparator edges = new EdgeStructureComparator();
+    t.checkExpect(cells.compare(a, twinA), 0);
+    t.checkExpect(cells.compare(a, b) < 0, true);
+    t.checkExpect(cells.compare(b, a) > 0, true);
+    t.checkExpect(edges.compare(ab, twinAb), 0);
+    t.checkExpect(edges.compare(ab, new Edge(new Cell(new GridPosn(0, 0)),
+        new Cell(new GridPosn(1, 0)), 11)) < 0, true);
+    t.checkExpect(cells.compare(a, new Cell(new GridPosn(0, 0))) > 0, true);
+
+    // a maze built from a grid numbers its cells and edges
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    ArrayList<Cell> row = new ArrayList<Cell>(Arrays.asList(c00, c10));
+    Edge only = new Edge(c00, c10, 5);
+    new Maze(new ArrayList<ArrayList<Cell>>(Arrays.asList(row)),
+        new ArrayList<Edge>(Arrays.asList(only)));
+    t.checkExpect(c10.getId(), 1);
+    t.checkExpect(only.getId(), 0);
+    t.checkExpect(new Utils().withoutDuplicates(
+        new ArrayList<Cell>(Arrays.asList(c10, c00, c10))),
+        new ArrayList<Cell>(Arrays.asList(c10, c00)));
+  }
+
+  void testTopologies(Tester t) {
+    CsrGraph square = CsrGraph.of(new SquareTopology(3, 2));
+    t.checkExpect(square.vertexCount(), 6);
+    t.checkExpect(square.edgeCount(), 7);
+    t.checkExpect(square.degree(0), 2);
+    t.checkExpect(square.neighborAt(square.firstSlot(0)), 3);
+    t.checkExpect(square.neighborAt(square.firstSlot(0) + 1), 1);
+    t.checkExpect(square.degree(4), 3);
+    t.checkExpect(square.adjacent(4, 1), true);
+    t.checkExpect(square.adjacent(4, 0), false);
+
+    CsrGraph torus = CsrGraph.of(new TorusTopology(3, 3));
+    t.checkExpect(torus.edgeCount(), 18);
+    t.checkExpect(torus.degree(0), 4);
+    t.checkExpect(torus.adjacent(0, 2), true);
+    t.checkExpect(torus.adjacent(0, 6), true);
+    // a board one row tall meets itself going up or down, and two wide meets itself
+    // going left or right
+    CsrGraph thin = CsrGraph.of(new TorusTopology(2, 1));
+    t.checkExpect(thin.degree(0), 1);
+    t.checkExpect(thin.edgeCount(), 1);
+
+    CsrGraph hex = CsrGraph.of(new HexTopology(3, 3));
+    t.checkExpect(hex.degree(4), 6);
+    t.checkExpect(hex.adjacent(4, 2), true);
+    t.checkExpect(hex.adjacent(4, 8), true);
+    t.checkExpect(hex.adjacent(4, 0), false);
+    t.checkExpect(hex.degree(0), 2);
+    t.checkExpect(hex.adjacent(0, 3), true);
+
+    boolean[] ring = new boolean[] {true, true, true, true, false, true, true, true, true};
+    CsrGraph masked = CsrGraph.of(new MaskedTopology(new SquareTopology(3, 3), ring));
+    t.checkExpect(masked.includes(4), false);
+    t.checkExpect(masked.includedCount(), 8);
+    t.checkExpect(masked.degree(4), 0);
+    t.checkExpect(masked.degree(1), 2);
+    t.checkExpect(masked.edgeCount(), 8);
+    t.checkExpect(masked.firstIncluded(), 0);
+    t.checkExpect(masked.lastIncluded(), 8);
+
+    t.checkConstructorException(
+        new IllegalArgumentException("The mask must have exactly one entry per cell."),
+        "MaskedTopology", new SquareTopology(3, 3), new boolean[4]);
+    t.checkConstructorException(
+        new IllegalArgumentException("The board must have at least one row and column."),
+        "HexTopology", 0, 3);
+  }
+
+  void testCsrMaze(Tester t) {
+    CsrMaze square = new CsrMaze(new SquareTopology(6, 5), 0, 42);
+    t.checkExpect(square.passages.edgeCount(), 29);
+    t.checkExpect(new CsrMaze(new SquareTopology(6, 5), 0, 42).passages.adjacent(0, 1),
+        square.passages.adjacent(0, 1));
+    for (int v = 0; v < 30; v += 1) {
+      for (int slot = square.passages.firstSlot(v); slot < square.passages.endSlot(v);
+          slot += 1) {
+        t.checkExpect(square.board.adjacent(v, square.passages.neighborAt(slot)), true);
+      }
+    }
+    t.checkExpect(new CsrMaze(new HexTopology(7, 6), 1, 3).passages.edgeCount(), 41);
+    t.checkExpect(new CsrMaze(new TorusTopology(4, 4), -1, 5).passages.edgeCount(), 15);
+
+    // the ring around a cut-out center is spanned by all but one of its 8 passages
+    boolean[] ring = new boolean[] {true, true, true, true, false, true, true, true, true};
+    CsrMaze masked = new CsrMaze(new MaskedTopology(new SquareTopology(3, 3), ring), 0, 7);
+    t.checkExpect(masked.passages.edgeCount(), 7);
+    t.checkExpect(masked.passages.degree(4), 0);
+
+    // every search reaches the last cell, on any board
+    CsrSearch bfs = new CsrSearch(masked, true);
+    bfs.runToCompletion();
+    t.checkExpect(bfs.result().positionAt(0), PackedPosn.of(2, 2));
+    t.checkExpect(bfs.processedCount() <= 8, true);
+    CsrSearch dfs = new CsrSearch(new CsrMaze(new HexTopology(7, 6), 0, 3), false);
+    dfs.runToCompletion();
+    t.checkExpect(dfs.processedAt(0), 0);
+    t.checkExpect(dfs.result().positionAt(0), PackedPosn.of(6, 5));
+    t.checkException(new IndexOutOfBoundsException("That step hasn't been processed."),
+        dfs, "processedAt", dfs.processedCount());
+    t.checkException(new RuntimeException("The automatic search has already been completed. "
+        + "No incrementing is necessary."), dfs, "incrementSearch");
+    t.checkConstructorException(new IllegalArgumentException("The bias must be a number "
+        + "from [-1.0, 1.0]"), "CsrMaze", new SquareTopology(2, 2), 2.0, 1L);
+  }
+
+  void testCsrSearchMatchesCells(Tester t) {
+    Maze mz = new Maze(12, 9);
+    CsrGraph passages = mz.passageGraph();
+    t.checkExpect(passages.edgeCount(), 12 * 9 - 1);
+    GridPosn target = new GridPosn(8, 11);
+    AutomaticSearch bfs = new AutomaticSearch(mz.getStart(), new Queue<Cell>(), target);
+    AutomaticSearch dfs = new AutomaticSearch(mz.getStart(), new Stack<Cell>(), target);
+    CsrSearch csrBfs = new CsrSearch(passages, 0, 12 * 9 - 1, true);
+    CsrSearch csrDfs = new CsrSearch(passages, 0, 12 * 9 - 1, false);
+    while (!bfs.searchComplete()) {
+      bfs.incrementSearch();
+    }
+    while (!dfs.searchComplete()) {
+      dfs.incrementSearch();
+    }
+    csrBfs.runToCompletion();
+    csrDfs.runToCompletion();
+    t.checkExpect(SearchResult.positionsOf(csrBfs.result()), bfs.reconstructSolutionPath());
+    t.checkExpect(csrBfs.wrongMoves(), bfs.wrongMoves());
+    t.checkExpect(SearchResult.positionsOf(csrDfs.result()), dfs.reconstructSolutionPath());
+    t.checkExpect(csrDfs.wrongMoves(), dfs.wrongMoves());
+  }
+
+  void testLayeredMaze(Tester t) {
+    LayeredMaze lm = new LayeredMaze(3, 4, 5, 0, 11);
+    t.checkExpect(lm.cellCount(), 60);
+    t.checkExpect(lm.passageCount(), 59);
+    int cell = lm.cellAt(2, 1, 3);
+    t.checkExpect(cell, 48);
+    t.checkExpect(lm.levelOf(cell), 2);
+    t.checkExpect(lm.rowOf(cell), 1);
+    t.checkExpect(lm.columnOf(cell), 3);
+    t.checkExpect(lm.packedPositionOf(cell), PackedPosn.of(3, 1));
+    t.checkExpect(lm.neighbor(cell, LayeredMaze.DESCEND), lm.cellAt(1, 1, 3));
+    t.checkExpect(lm.inBounds(cell, LayeredMaze.ASCEND), false);
+    t.checkExpect(lm.inBounds(lm.start(), Direction.UP.ordinal()), false);
+
+    // every passage is open from both sides, and never off the edge of the maze
+    boolean consistent = true;
+    for (int c = 0; c < lm.cellCount(); c += 1) {
+      for (int slot = 0; slot < LayeredMaze.SLOTS; slot += 1) {
+        if (lm.hasPassage(c, slot)) {
+          consistent = consistent && lm.inBounds(c, slot)
+              && lm.hasPassage(lm.neighbor(c, slot), slot ^ 1);
+        }
+      }
+    }
+    t.checkExpect(consistent, true);
+
+    // the same seed makes the same maze
+    LayeredMaze again = new LayeredMaze(3, 4, 5, 0, 11);
+    boolean same = true;
+    for (int c = 0; c < lm.cellCount(); c += 1) {
+      same = same && lm.passagesOf(c) == again.passagesOf(c);
+    }
+    t.checkExpect(same, true);
+
+    // opening a passage sets the bits of both cells, packed ten to a long
+    LayeredMaze one = new LayeredMaze(1, 2, 2, 0, 1);
+    t.checkExpect(one.passageCount(), 3);
+    t.checkExpect(LayeredMaze.CELLS_PER_WORD, 10);
+
+    t.checkConstructorException(
+        new IllegalArgumentException("The maze must have at least one level."),
+        "LayeredMaze", 0, 4, 4, 0.0, 1L);
+    t.checkConstructorException(new IllegalArgumentException("The maze can't be less than 2x2."),
+        "LayeredMaze", 2, 1, 4, 0.0, 1L);
+    t.checkConstructorException(new IllegalArgumentException("The maze has too many cells."),
+        "LayeredMaze", 1000, 1000, 1000, 0.0, 1L);
+  }
+
+  void testLayeredSearch(Tester t) {
+    LayeredMaze lm = new LayeredMaze(4, 6, 7, 0.5, 23);
+    LayeredSearch bfs = new LayeredSearch(lm, SearchOrder.BREADTH_FIRST);
+    LayeredSearch dfs = new LayeredSearch(lm, SearchOrder.DEPTH_FIRST);
+    LayeredSearch astar = new LayeredSearch(lm, SearchOrder.A_STAR);
+    t.checkExpect(bfs.searchComplete(), false);
+    t.checkException(new RuntimeException("The search hasn't been completed yet."),
+        bfs, "result");
+    bfs.runToCompletion();
+    dfs.runToCompletion();
+    astar.runToCompletion();
+    // a tree has only one path from the start to the target
+    t.checkExpect(dfs.solution(), bfs.solution());
+    t.checkExpect(astar.solution(), bfs.solution());
+    t.checkExpect(bfs.solution()[0], lm.target());
+    t.checkExpect(bfs.solution()[bfs.solution().length - 1], lm.start());
+    t.checkExpect(bfs.processedAt(0), lm.start());
+    t.checkExpect(bfs.wrongMoves(), bfs.processedCount() - bfs.solution().length);
+    t.checkExpect(astar.result().length(), bfs.solution().length);
+    // each step along the solution goes through an open passage
+    int[] path = astar.solution();
+    boolean connected = true;
+    for (int i = 0; i + 1 < path.length; i += 1) {
+      boolean adjacent = false;
+      for (int slot = 0; slot < LayeredMaze.SLOTS; slot += 1) {
+        adjacent = adjacent || (lm.hasPassage(path[i], slot)
+            && lm.neighbor(path[i], slot) == path[i + 1]);
+      }
+      connected = connected && adjacent;
+    }
+    t.checkExpect(connected, true);
+    t.checkExpect(astar.stepsLeft(lm.start()), 6 + 5 + 3);
+    t.checkExpect(astar.stepsLeft(lm.target()), 0);
+    t.checkException(new RuntimeException("The automatic search has already been completed. "
+        + "No incrementing is necessary."), astar, "incrementSearch");
+  }
+
+  void testLevelView(Tester t) {
+    LevelView view = new LevelView(3, 4, 5, 0, 5);
+    t.checkExpect(view.getLevel(), 0);
+    t.checkExpect(view.handleKey(","), true);
+    t.checkExpect(view.getLevel(), 0);
+    view.handleKey(".");
+    view.handleKey(".");
+    view.handleKey(".");
+    t.checkExpect(view.getLevel(), 2);
+    t.checkExpect(view.handleKey("up"), false);
+    t.checkExpect(view.getSearch(), null);
+
+    // the top level shows the target, and a search drawn on it once it's done
+    view.handleKey("a");
+    for (int tick = 0; tick < 60; tick += 1) {
+      view.onTick();
+    }
+    t.checkExpect(view.getSearch().searchComplete(), true);
+    FrameBuffer frame = new FrameBuffer(5 * IConstant.CELL_WIDTH, 4 * IConstant.CELL_WIDTH);
+    view.paintLevel(frame);
+    int center = IConstant.CELL_WIDTH / 2;
+    t.checkExpect(frame.getPixel(4 * IConstant.CELL_WIDTH + center,
+        3 * IConstant.CELL_WIDTH + center), Color.BLUE.getRGB());
+    WorldScene scene = view.drawScene();
+    t.checkExpect(scene.width, 5 * IConstant.CELL_WIDTH);
+    t.checkExpect(view.cellsDrawn(), 20);
+    t.checkExpect(this.samePixels(view.getLiveFrame().getImage(), frame.getImage()), true);
+    // nothing changed, so the next scene draws nothing
+    view.drawScene();
+    t.checkExpect(view.cellsDrawn(), 0);
+
+    // the bottom level shows the start
+    view.handleKey(",");
+    view.handleKey(",");
+    view.handleKey("n");
+    t.checkExpect(view.getSearch(), null);
+    view.paintLevel(frame);
+    t.checkExpect(frame.getPixel(center, center), Color.GREEN.getRGB());
+
+    // the frame kept between scenes only draws what each tick changed, and matches the
+    // level painted from scratch on every level, with visited cells shown or not
+    LevelView live = new LevelView(3, 6, 7, 0.3, 11);
+    FrameBuffer fresh = new FrameBuffer(7 * IConstant.CELL_WIDTH, 6 * IConstant.CELL_WIDTH);
+    live.handleKey("b");
+    live.drawScene();
+    t.checkExpect(live.cellsDrawn(), 42);
+    boolean same = true;
+    boolean small = true;
+    for (int tick = 0; tick < 400; tick += 1) {
+      boolean wasComplete = live.getSearch().searchComplete();
+      live.onTick();
+      if (tick == 40) {
+        live.handleKey("v");
+      } else if (tick == 80 || tick == 100) {
+        live.handleKey(".");
+      } else if (tick == 140) {
+        live.handleKey("v");
+      } else if (tick == 150) {
+        live.handleKey("d");
+      }
+      live.drawScene();
+      // besides the scenes after a key, only the one the solution appears in draws more
+      // than the cell processed and the one it moved from
+      if (tick != 40 && tick != 80 && tick != 100 && tick != 140 && tick != 150
+          && wasComplete == live.getSearch().searchComplete()) {
+        small = small && live.cellsDrawn() <= 2;
+      }
+      live.paintLevel(fresh);
+      same = same && this.samePixels(live.getLiveFrame().getImage(), fresh.getImage());
+    }
+    t.checkExpect(live.getSearch().searchComplete(), true);
+    live.drawScene();
+    t.checkExpect(small, true);
+    t.checkExpect(same, true);
+  }
+
+  void testWorldLevels(Tester t) {
+    MazeWorld mw = new MazeWorld(6, 8);
+    t.checkExpect(mw.getLevels(), null);
+    mw.onKeyEvent("3");
+    t.checkExpect(mw.getLevels().getMaze().levels, IConstant.MAZE_LEVELS);
+    t.checkExpect(mw.getLevels().getMaze().rows, 6);
+    t.checkExpect(mw.getLevels().getMaze().columns, 8);
+    mw.onKeyEvent(".");
+    t.checkExpect(mw.getLevels().getLevel(), 1);
+    mw.onKeyEvent("b");
+    mw.onTick();
+    t.checkExpect(mw.getLevels().getSearch().processedCount(), 1);
+    t.checkExpect(mw.makeScene().width, 8 * IConstant.CELL_WIDTH);
+    // the flat maze's search doesn't move while the stacked maze is shown
+    t.checkExpect(mw.getTraverser().searchComplete(), false);
+    mw.onKeyEvent("3");
+    t.checkExpect(mw.getLevels(), null);
+
+    // a level is never larger than the window, however large the flat maze is
+    MazeWorld large = new MazeWorld(new Maze(100, 120, 0, new Random(2)), 0, 3,
+        30 * IConstant.CELL_WIDTH, 20 * IConstant.CELL_WIDTH);
+    large.onKeyEvent("3");
+    t.checkExpect(large.getLevels().getMaze().rows, 20);
+    t.checkExpect(large.getLevels().getMaze().columns, 30);
+    t.checkExpect(large.makeScene().width, 30 * IConstant.CELL_WIDTH);
+  }
+
+  void testBraid(Tester t) {
+    Maze tree = new Maze(12, 12);
+    t.checkExpect(tree.braid(0, new Random(1)), 0);
+    t.checkExpect(tree.getMazeEdges().size(), 143);
+    t.checkException(new IllegalArgumentException("The braid must be a number from [0.0, 1.0]"),
+        tree, "braid", 1.5, new Random(1));
+
+    // braiding every dead end leaves none
+    Maze mz = new Maze(12, 12);
+    int opened = mz.braid(1, new Random(4));
+    t.checkExpect(opened > 0, true);
+    t.checkExpect(mz.getMazeEdges().size(), 143 + opened);
+    boolean noDeadEnds = true;
+    for (ArrayList<Cell> row : mz.getGrid()) {
+      for (Cell cell : row) {
+        noDeadEnds = noDeadEnds && cell.getConnections().size() >= 2;
+      }
+    }
+    t.checkExpect(noDeadEnds, true);
+    t.checkExpect(mz.cellAt(3, 4), mz.getGrid().get(4).get(3));
+    t.checkExpect(mz.cellAt(12, 0), null);
+
+    // breadth first still finds a shortest route once there are loops, as the weighted
+    // search does over uniform terrain, and no cell is processed twice
+    IMazeTraverser bfs = mz.initializeAutomaticSearch(true);
+    IMazeTraverser dfs = mz.initializeAutomaticSearch(false);
+    IMazeTraverser ds = mz.initializeDijkstraSearch();
+    while (!bfs.searchComplete()) {
+      new OnTickTraverser().apply(bfs);
+    }
+    while (!dfs.searchComplete()) {
+      new OnTickTraverser().apply(dfs);
+    }
+    while (!ds.searchComplete()) {
+      new OnTickTraverser().apply(ds);
+    }
+    t.checkExpect(bfs.reconstructSolutionPath().size(), ds.reconstructSolutionPath().size());
+    t.checkExpect(dfs.reconstructSolutionPath().size() >= bfs.reconstructSolutionPath().size(),
+        true);
+    t.checkExpect(dfs.wrongMoves() >= 0, true);
+    t.checkExpect(bfs.wrongMoves() >= 0, true);
+
+    // each step of the depth first route goes through a passage
+    ArrayList<GridPosn> route = dfs.reconstructSolutionPath();
+    boolean connected = true;
+    for (int i = 0; i + 1 < route.size(); i += 1) {
+      Cell from = mz.cellAt(route.get(i).x, route.get(i).y);
+      Cell to = mz.cellAt(route.get(i + 1).x, route.get(i + 1).y);
+      connected = connected && from.directionTo(to) != null
+          && from.hasNeighbor(from.directionTo(to));
+    }
+    t.checkExpect(connected, true);
+
+    // the renderer draws the new passages just like the reference rendering
+    BufferedImage reference = this.pixelsOf(new ReferenceRenderer(mz).makeScene());
+    t.checkExpect(this.samePixels(this.pixelsOf(new MazeRenderer(mz).makeScene()), reference),
+        true);
+    t.checkExpect(mz.passageGraph().edgeCount(), 143 + opened);
+  }
+
+  void testManualLoops(Tester t) {
+    // a loop of four cells, with the target off to the right of it
+    Cell c00 = new Cell(new GridPosn(0, 0));
+    Cell c10 = new Cell(new GridPosn(1, 0));
+    Cell c20 = new Cell(new GridPosn(2, 0));
+    Cell c01 = new Cell(new GridPosn(0, 1));
+    Cell c11 = new Cell(new GridPosn(1, 1));
+    new Edge(c00, c10, 1);
+    new Edge(c10, c11, 1);
+    new Edge(c11, c01, 1);
+    new Edge(c01, c00, 1);
+    new Edge(c10, c20, 1);
+    ManualSearch manual = new ManualSearch(c00, new GridPosn(2, 0));
+    manual.incrementSearch("down");
+    manual.incrementSearch("right");
+    manual.incrementSearch("up");
+    manual.incrementSearch("left");
+    // going all the way around the loop leaves the path back at the start
+    manual.incrementSearch("right");
+    manual.incrementSearch("right");
+    t.checkExpect(manual.searchComplete(), true);
+    t.checkExpect(manual.reconstructSolutionPath(), new ArrayList<GridPosn>(Arrays.asList(
+        new GridPosn(0, 0), new GridPosn(1, 0), new GridPosn(2, 0))));
+    t.checkExpect(manual.wrongMoves(), 2);
+  }
+
+  // test that seeded mazes repeat, and the phases their generation is timed in
+  void testGenerationProfile(Tester t) {
+    Maze mz1 = new Maze(15, 20, 0, new Random(7));
+    Maze mz2 = new Maze(15, 20, 0, new Random(7));
+    t.checkExpect(mz1.getMazeEdges().size(), 15 * 20 - 1);
+    t.checkExpect(mz2.getMazeEdges().size(), 15 * 20 - 1);
+    for (int i = 0; i < mz1.getMazeEdges().size(); i += 1) {
+      t.checkExpect(mz1.getMazeEdges().get(i).connectedCellPositions(),
+          mz2.getMazeEdges().get(i).connectedCellPositions());
+    }
+
+    GenerationProfile profile = mz1.getProfile();
+    t.checkExpect(profile.cellsNanos >= 0 && profile.edgesNanos >= 0, true);
+    t.checkExpect(profile.sortNanos >= 0 && profile.unionFindNanos >= 0, true);
+    t.checkExpect(profile.totalNanos(), profile.cellsNanos + profile.edgesNanos
+        + profile.sortNanos + profile.unionFindNanos);
+
+    GenerationBenchmark benchmark = new GenerationBenchmark(0, 1, 10, 100, 3);
+    t.checkExpect(benchmark.sample(6, 1, 3, false)[5], -1L);
+    t.checkExpect(benchmark.sample(6, 1, 3, true)[6] >= 0, true);
+    t.checkExpect(GenerationBenchmark.resultName("sort", 10, -1), "sort 10x10 bias=-1");
+    BenchmarkReport report = benchmark.run(new int[] {4, 20}, new double[] {0});
+    t.checkExpect(report.get("sort 4x4 bias=0").get("samples"), 1.0);
+    t.checkExpect(report.get("drawBackground 20x20 bias=0"), null);
+    t.checkExpect(report.get("cellsPerSecond 20x20 bias=0").get("value") > 0, true);
+    t.checkConstructorException(
+        new IllegalArgumentException("There must be at least one timed iteration."),
+        "GenerationBenchmark", 0, 0, 1.0, 100L, 1L);
+  }
+
+  // test the scripted walk and the searches and work-lists the search benchmark times
+  void testSearchBenchmark(Tester t) {
+    Maze mz = new Maze(12, 9, 0, new Random(5));
+    ArrayList<String> keys = SearchBenchmark.wallFollowerKeys(mz);
+    ManualSearch manual = (ManualSearch) mz.initializeManualSearch();
+    for (String key : keys) {
+      manual.incrementSearch(key);
+    }
+    t.checkExpect(manual.searchComplete(), true);
+    t.checkExpect(SearchBenchmark.toTheLeft(Direction.UP), Direction.LEFT);
+    t.checkExpect(SearchBenchmark.toTheLeft(Direction.RIGHT), Direction.UP);
+
+    SearchBenchmark benchmark = new SearchBenchmark(0, 1, 10, 5);
+    t.checkExpect(benchmark.runSearch("manual", mz, keys), keys.size());
+    AutomaticSearch bfs = (AutomaticSearch) mz.initializeAutomaticSearch(true);
+    int steps = benchmark.runSearch("bfs", mz, keys);
+    while (!bfs.searchComplete()) {
+      bfs.incrementSearch();
+      steps -= 1;
+    }
+    t.checkExpect(steps, 0);
+    ArrayList<GridPosn> fromStart = new ArrayList<GridPosn>(bfs.reconstructSolutionPath());
+    Collections.reverse(fromStart);
+    t.checkExpect(manual.reconstructSolutionPath(), fromStart);
+    t.checkException(new IllegalStateException("The keys didn't lead to the end of the maze."),
+        benchmark, "runSearch", "manual", mz, new ArrayList<String>());
+    t.checkException(new IllegalArgumentException("The search must be one of: bfs, dfs, manual"),
+        benchmark, "runSearch", "astar", mz, keys);
+    t.checkException(
+        new IllegalArgumentException("The work-list must be one of: Deque, Stack, Queue"),
+        benchmark, "fillAndDrain", "ArrayList", 10);
+
+    // the warmups aren't recorded, and a case out of time stops after its first timed run
+    SearchCase measured = new SearchCase(benchmark, "bfs", mz, keys);
+    t.checkExpect(new BenchmarkHarness(2, 3, 10, 5).measure(measured), 3);
+    t.checkExpect(measured.times.count(), 3L);
+    t.checkExpect(measured.steps, 3L * benchmark.runSearch("bfs", mz, keys));
+    WorkListCase drained = new WorkListCase(benchmark, "Stack", 10, 4);
+    t.checkExpect(new BenchmarkHarness(1, 5, 0, 5).measure(drained), 1);
+    t.checkExpect(drained.times.count(), 1L);
+    t.checkConstructorException(
+        new IllegalArgumentException("There must be at least one timed iteration."),
+        "BenchmarkHarness", -1, 1, 1.0, 1L);
+
+    BenchmarkReport report = benchmark.run(new int[] {6}, new int[] {10});
+    t.checkExpect(report.size(), 12);
+    t.checkExpect(report.get("dfs 6x6").get("samples"), 1.0);
+    t.checkExpect(report.get("Queue opsPerSecond 10 items").get("value") > 0, true);
+  }
+
+  // test drawing scenes offscreen and the frames the render benchmark times
+  void testRenderBenchmark(Tester t) {
+    Maze mz = new Maze(6, 6, 0, new Random(2));
+    IMazeTraverser bfs = RenderBenchmark.advanced(mz.initializeAutomaticSearch(true), mz, 1);
+    t.checkExpect(bfs.searchComplete(), true);
+    IMazeTraverser halfway = RenderBenchmark.advanced(mz.initializeAutomaticSearch(true), mz,
+        0.5);
+    t.checkExpect(halfway.searchComplete(), false);
+    t.checkExpect(RenderBenchmark.stepsFor(mz, 0.5), 18L);
+    t.checkExpect(RenderBenchmark.resultName("worldScene", 6, 0.5, "build"),
+        "worldScene 6x6 at 50% build");
+
+    // the offscreen image has the pixels the scene saves with
+    WorldScene scene = new MazeRenderer(mz).makeScene();
+    new DrawTraverser(scene, true).apply(halfway);
+    BufferedImage drawn = new SceneRasterizer().rasterize(scene);
+    t.checkExpect(drawn.getWidth(), 6 * IConstant.CELL_WIDTH);
+    t.checkExpect(this.samePixels(drawn, this.pixelsOf(scene)), true);
+
+    // the world shows the given maze, so its search is as far along as the benchmark's
+    t.checkExpect(RenderBenchmark.advancedWorld(mz, 0.5).getTraverser().searchComplete(),
+        false);
+    MazeWorld world = RenderBenchmark.advancedWorld(mz, 1);
+    t.checkExpect(world.getMaze() == mz, true);
+    t.checkExpect(world.getTraverser().reconstructSolutionPath(),
+        bfs.reconstructSolutionPath());
+
+    RenderBenchmark benchmark = new RenderBenchmark(0, 2, 10, 2);
+    t.checkException(
+        new IllegalArgumentException(
+            "The scene must be one of: mazeScene, traverserScene, worldScene"),
+        benchmark, "buildScene", "viewport", new MazeRenderer(mz), halfway, null);
+    BenchmarkReport report = benchmark.run(new int[] {6}, new double[] {0.5});
+    t.checkExpect(report.get("traverserScene 6x6 at 50% frame").get("samples"), 2.0);
+    t.checkExpect(report.get("worldScene 6x6 at 50% raster").get("samples"), 2.0);
+    t.checkExpect(report.get("mazeScene 6x6 at 50% build alloc") != null,
+        new ThreadAllocations().isSupported());
+  }
+
+  // test estimating the memory held by object graphs, and the footprint report
+  void testHeapWalker(Tester t) {
+    HeapWalker walker = new HeapWalker(12, 4, 8);
+    t.checkExpect(walker.aligned(20), 24L);
+    t.checkExpect(walker.arraySize(int.class, 10), 56L);
+    t.checkExpect(walker.arraySize(long.class, 0), 16L);
+    t.checkExpect(walker.arraySize(Object.class, 3), 32L);
+    t.checkExpect(walker.instanceSize(Posn.class), 24L);
+    t.checkExpect(new HeapWalker(16, 8, 8).arraySize(long.class, 1), 32L);
+
+    HeapUsage posn = walker.measure(new Posn(1, 2));
+    t.checkExpect(posn.bytes(), 24L);
+    t.checkExpect(posn.objects(), 1L);
+
+    // shared objects are counted once, and objects already counted aren't counted again
+    Posn shared = new Posn(3, 4);
+    Pair<Posn> pair = new Pair<Posn>(shared, shared);
+    HeapUsage pairUsage = walker.measure(pair);
+    t.checkExpect(pairUsage.objects(), 2L);
+    t.checkExpect(pairUsage.bytes(), walker.instanceSize(Pair.class) + 24);
+    t.checkExpect(pairUsage.bytesByClass().get("Posn"), 24L);
+    HeapUsage outer = walker.measure(new Pair<Pair<Posn>>(pair, pair), pairUsage);
+    t.checkExpect(outer.objects(), 1L);
+
+    // a list is measured whether or not its fields can be read
+    ArrayList<Posn> list = new ArrayList<Posn>(Arrays.asList(new Posn(0, 0), new Posn(1, 1)));
+    HeapUsage listUsage = walker.measure(list);
+    t.checkExpect(listUsage.bytesByClass().get("Posn"), 48L);
+    t.checkExpect(listUsage.bytes() >= 48 + walker.instanceSize(ArrayList.class)
+        + walker.arraySize(Object.class, 2), true);
+
+    // searches are measured without the maze they search
+    Maze mz = new Maze(8, 8, 0, new Random(3));
+    mz.generateTerrain(3, IConstant.MAX_TERRAIN_COST);
+    HeapUsage mazeUsage = walker.measure(mz);
+    t.checkExpect(mazeUsage.bytesByClass().get("Cell"), 64 * walker.instanceSize(Cell.class));
+    IMazeTraverser manual = MemoryFootprint.finishedSearch("manual", mz);
+    t.checkExpect(manual.searchComplete(), true);
+    t.checkExpect(walker.measure(manual, mazeUsage).bytesByClass().get("Cell"), null);
+    t.checkExpect(MemoryFootprint.finishedSearch("dijkstra", mz).searchComplete(), true);
+    t.checkException(
+        new IllegalArgumentException("The search must be one of: bfs, dfs, dijkstra, manual"),
+        this, "finishedSearchNamed", "astar", mz);
+
+    BenchmarkReport report = new MemoryFootprint(walker, 3).run(new int[] {8});
+    t.checkExpect(report.get("maze 8x8 bytes").get("value"), (double) mazeUsage.bytes());
+    t.checkExpect(report.get("maze 8x8 bytesPerCell").get("value"),
+        Math.rint(100.0 * mazeUsage.bytes() / 64) / 100);
+    t.checkExpect(report.get("layeredBfs 8x8 objects").get("value") > 0, true);
+    t.checkExpect(report.get("layeredMaze 8x8 bytes").get("value")
+        < report.get("csrMaze 8x8 bytes").get("value"), true);
+  }
+
+  // the named search over the given maze, run to completion, for checking the errors
+  // of a static method
+  IMazeTraverser finishedSearchNamed(String search, Maze maze) {
+    return MemoryFootprint.finishedSearch(search, maze);
+  }
+
+  // test the counts generation and searching report to their metrics
+  void testMazeMetrics(Tester t) {
+    CountingMazeMetrics metrics = new CountingMazeMetrics();
+    Maze mz = new Maze(10, 12, 0, new Random(8), metrics);
+    GenerationProfile profile = mz.getProfile();
+    t.checkExpect(profile.edgesAccepted, 119L);
+    t.checkExpect(profile.edgesConsidered >= 119 && profile.edgesConsidered <= 218, true);
+    t.checkExpect(metrics.snapshot().get("mazesGenerated"), 1L);
+    t.checkExpect(metrics.snapshot().get("cellsGenerated"), 120L);
+    t.checkExpect(metrics.snapshot().get("edgesConsidered"), profile.edgesConsidered);
+    t.checkExpect(metrics.snapshot().get("unionFindSteps"), profile.unionFindSteps);
+    t.checkExpect(metrics.snapshot().get("generationNanos"), profile.totalNanos());
+
+    // searches of the maze and of the mazes made from it report to the same metrics
+    AutomaticSearch bfs = (AutomaticSearch) mz.initializeAutomaticSearch(true);
+    AutomaticSearch dfs = (AutomaticSearch) mz.initializeAutomaticSearch(false);
+    while (!bfs.searchComplete()) {
+      bfs.incrementSearch();
+    }
+    t.checkExpect(metrics.snapshot().get("searchesCompleted"), 1L);
+    t.checkExpect(bfs.getProfile().cellsExpanded,
+        (long) bfs.result().getSolutionPath().size() + bfs.wrongMoves());
+    t.checkExpect(bfs.getProfile().worklistHighWater > 0, true);
+    t.checkExpect(bfs.getProfile().solveNanos > 0, true);
+    while (!dfs.searchComplete()) {
+      dfs.incrementSearch();
+    }
+    t.checkExpect(metrics.snapshot().get("cellsExpanded"),
+        bfs.getProfile().cellsExpanded + dfs.getProfile().cellsExpanded);
+    t.checkExpect(metrics.snapshot().get("worklistHighWater"), (long) Math.max(
+        bfs.getProfile().worklistHighWater, dfs.getProfile().worklistHighWater));
+    mz.randomize(0);
+    t.checkExpect(metrics.snapshot().get("mazesGenerated"), 2L);
+    IMazeTraverser reset = bfs.reset(mz.getStart());
+    t.checkExpect(((AutomaticSearch) reset).getProfile().cellsExpanded, 0L);
+
+    // mazes generated on several threads at once are all counted
+    metrics.reset();
+    t.checkExpect(metrics.snapshot().get("mazesGenerated"), 0L);
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i += 1) {
+      threads[i] = new Thread(new MazesForMetrics(metrics, 5));
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    t.checkExpect(metrics.snapshot().get("mazesGenerated"), 20L);
+    t.checkExpect(metrics.snapshot().get("edgesAccepted"), 20L * 15);
+
+    // a maze with no metrics is told to the ones that ignore everything
+    IMazeMetrics.NONE.mazeGenerated(4, new GenerationProfile());
+    t.checkExpect(new Maze(2, 2).getProfile().edgesAccepted, 3L);
+  }
+
+  // test the events generation, searching and slow frames record to the flight recorder
+  void testFlightRecorderEvents(Tester t) {
+    Recording recording = new Recording();
+    recording.enable("maze.Generation");
+    recording.enable("maze.SearchCompleted");
+    recording.enable("maze.SlowFrame").withThreshold(Duration.ZERO);
+    recording.start();
+    Maze mz = new Maze(6, 7, 0.5, new Random(1));
+    AutomaticSearch dfs = (AutomaticSearch) mz.initializeAutomaticSearch(false);
+    while (!dfs.searchComplete()) {
+      dfs.incrementSearch();
+    }
+    MazeWorld world = new MazeWorld(3, 4);
+    world.makeScene();
+    recording.stop();
+
+    List<RecordedEvent> events;
+    try {
+      File file = new File(this.tempDirectory(), "maze.jfr");
+      recording.dump(file.toPath());
+      events = RecordingFile.readAllEvents(file.toPath());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      recording.close();
+    }
+    RecordedEvent generation = null;
+    RecordedEvent search = null;
+    RecordedEvent frame = null;
+    for (RecordedEvent event : events) {
+      String name = event.getEventType().getName();
+      if (name.equals("maze.Generation") && event.getInt("rows") == 6
+          && event.getInt("columns") == 7) {
+        generation = event;
+      } else if (name.equals("maze.SearchCompleted") && event.getString("traverser")
+          .equals("dfs")) {
+        search = event;
+      } else if (name.equals("maze.SlowFrame")) {
+        frame = event;
+      }
+    }
+    t.checkExpect(generation.getDouble("bias"), 0.5);
+    t.checkExpect(generation.getLong("edgesConsidered"), mz.getProfile().edgesConsidered);
+    t.checkExpect(generation.getDuration().isNegative(), false);
+    t.checkExpect(search.getLong("cellsExpanded"), dfs.getProfile().cellsExpanded);
+    t.checkExpect(search.getInt("pathLength"), dfs.result().getSolutionPath().size());
+    t.checkExpect(frame.getBoolean("wholeMaze"), true);
+    t.checkExpect(frame.getBoolean("levels"), false);
+    t.checkExpect(dfs.kind(), "dfs");
+    t.checkExpect(((AutomaticSearch) mz.initializeAutomaticSearch(true)).kind(), "bfs");
+  }
+
+  // test writing a benchmark report, reading it back and comparing it to a baseline
+  void testBenchmarkReport(Tester t) {
+    BenchmarkReport report = new BenchmarkReport("generation");
+    LatencyHistogram times = new LatencyHistogram();
+    times.record(100);
+    times.record(300);
+    report.addHistogram("sort 10x10 bias=0", "ns", times);
+    report.addValue("cellsPerSecond 10x10 bias=0", "cells/s", 2.5);
+    t.checkExpect(report.size(), 2);
+    t.checkExpect(report.formatNumber(-1), "-1");
+    t.checkExpect(report.formatNumber(2.5), "2.500");
+    Locale locale = Locale.getDefault();
+    Locale.setDefault(Locale.GERMANY);
+    try {
+      t.checkExpect(report.formatNumber(2.5), "2.500");
+      t.checkExpect(GenerationBenchmark.resultName("sort", 10, 0.5), "sort 10x10 bias=0.500");
+      t.checkExpect(report.summaryLines("value").get(0).endsWith(" value 2.500 cells/s"),
+          true);
+    } finally {
+      Locale.setDefault(locale);
+    }
+
+    File file = new File(this.tempDirectory(), "nested/generation.json");
+    BenchmarkReport read;
+    try {
+      report.write(file);
+      read = BenchmarkReport.read(file);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    t.checkExpect(read.size(), 2);
+    t.checkExpect(read.get("sort 10x10 bias=0"), report.get("sort 10x10 bias=0"));
+    t.checkExpect(read.get("cellsPerSecond 10x10 bias=0").get("value"), 2.5);
+    t.checkExpect(report.compareTo(read, "p50"), new ArrayList<String>(Arrays.asList(
+        "sort 10x10 bias=0: p50 100 ns, baseline 100 ns (+0.0%)")));
+    t.checkExpect(report.summaryLines("value").size(), 1);
+
+    BenchmarkArgs options = new BenchmarkArgs(new String[] {"--sizes", "10, 20", "--seed",
+        "4"});
+    t.checkExpect(options.integers("sizes", null)[1], 20);
+    t.checkExpect(options.integer("seed", 1), 4);
+    t.checkExpect(options.number("max-seconds", 2.5), 2.5);
+    t.checkExpect(options.file("out"), null);
+    t.checkConstructorException(
+        new IllegalArgumentException("Options must be given as --name value pairs."),
+        "BenchmarkArgs", (Object) new String[] {"--sizes"});
+  }
+
+  // test that the headless core makes and solves a maze in a JVM without javalib on its
+  // classpath, and never loads a class from AWT
+  void testHeadlessCore(Tester t) {
+    t.checkExpect(HeadlessCore.run(new BenchmarkArgs(new String[] {"--rows", "4",
+        "--columns", "3"})).startsWith("1x4x3 generated in "), true);
+    t.checkExpect(new LayeredSearch(new LayeredMaze(2, 3, 3, 0, 1), SearchOrder.A_STAR)
+        .searchComplete(), false);
+    t.checkExpect(HeadlessCore.run(new BenchmarkArgs(new String[] {"--model", "maze",
+        "--rows", "4", "--columns", "3", "--traverser", "dijkstra"}))
+        .startsWith("4x3 generated in "), true);
+    // a seed too large for an int is still a seed
+    t.checkExpect(HeadlessCore.run(new BenchmarkArgs(new String[] {"--model", "maze",
+        "--rows", "4", "--columns", "3", "--seed", "8589934592"}))
+        .startsWith("4x3 generated in "), true);
+    t.checkExpect(HeadlessCore.run(new BenchmarkArgs(new String[] {"--rows", "4",
+        "--columns", "3", "--seed", "-8589934592"})).startsWith("1x4x3 generated in "), true);
+    t.checkException(new IllegalArgumentException("The model must be one of: layered, maze"),
+        new HeadlessCore(), "run", new BenchmarkArgs(new String[] {"--model", "flat"}));
+    t.checkException(new IllegalArgumentException(
+        "The traverser must be one of: bfs, dfs, dijkstra"), new HeadlessCore(), "runMaze",
+        new BenchmarkArgs(new String[] {"--rows", "2", "--columns", "2", "--traverser",
+            "manual"}));
+
+    // solving either model in a JVM of its own loads neither javalib nor AWT
+    List<String> layered = this.headlessRun("--levels", "2", "--rows", "20", "--columns",
+        "20");
+    t.checkExpect(this.anyLine(layered, " LayeredSearch ", false), true);
+    t.checkExpect(this.anyLine(layered, "2x20x20 generated in ", true), true);
+    t.checkExpect(this.anyLine(layered, " java.awt.", false), false);
+    t.checkExpect(this.anyLine(layered, " javalib.", false), false);
+    List<String> flat = this.headlessRun("--model", "maze", "--rows", "20", "--columns", "20",
+        "--traverser", "bfs");
+    t.checkExpect(this.anyLine(flat, " Maze ", false), true);
+    t.checkExpect(this.anyLine(flat, " AutomaticSearch ", false), true);
+    t.checkExpect(this.anyLine(flat, "20x20 generated in ", true), true);
+    t.checkExpect(this.anyLine(flat, " java.awt.", false), false);
+    t.checkExpect(this.anyLine(flat, " javalib.", false), false);
+  }
+
+  // the lines HeadlessCore prints given the given arguments, run in a JVM of its own with
+  // only the compiled classes on its class path, along with every class the JVM loads
+  // throws an error if it doesn't exit normally
+  List<String> headlessRun(String... args) {
+    String classes = HeadlessCore.class.getProtectionDomain().getCodeSource().getLocation()
+        .getPath();
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+        + "java";
+    List<String> command = new ArrayList<String>(Arrays.asList(java, "-verbose:class",
+        "-cp", classes, "HeadlessCore"));
+    command.addAll(Arrays.asList(args));
+    ProcessBuilder builder = new ProcessBuilder(command);
+    builder.redirectErrorStream(true);
+    try {
+      Process process = builder.start();
+      List<String> lines = Arrays.asList(
+          new String(process.getInputStream().readAllBytes()).split("\n"));
+      if (process.waitFor() != 0) {
+        throw new RuntimeException("HeadlessCore failed: " + lines);
+      }
+      return lines;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // does any of the given lines contain the given text, or start with it if asked to?
+  boolean anyLine(List<String> lines, String text, boolean atStart) {
+    for (String line : lines) {
+      if (atStart ? line.startsWith(text) : line.contains(text)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // test solving a batch of mazes on several threads, and reading back what it wrote
+  void testBatchSolver(Tester t) {
+    File directory = new File(this.tempDirectory(), "batch");
+    BatchSolver batch = new BatchSolver(7, 5, 4, 0.5, 10, "bfs", 3, directory);
+    BenchmarkReport report;
+    LayeredMaze read;
+    int[] path;
+    try {
+      report = batch.run();
+      read = BatchSolver.readMaze(BatchSolver.mazeFile(directory, 16));
+      path = BatchSolver.readPath(BatchSolver.pathFile(directory, 16));
+      t.checkExpect(BenchmarkReport.read(new File(directory, "metrics.json")).size(),
+          report.size());
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    t.checkExpect(report.get("mazes").get("value"), 7.0);
+    t.checkExpect(report.get("generate").get("samples"), 7.0);
+    t.checkExpect(report.get("solve bfs").get("samples"), 7.0);
+    t.checkExpect(report.get("cellsPerSecond").get("value") > 0, true);
+    t.checkExpect(BatchSolver.mazeFile(directory, 17).exists(), false);
+
+    // every maze and search of the run told the run's metrics about itself
+    t.checkExpect(report.get("mazesGenerated").get("value"), 7.0);
+    t.checkExpect(report.get("cellsGenerated").get("value"), 140.0);
+    t.checkExpect(report.get("searchesCompleted").get("value"), 7.0);
+    t.checkExpect(batch.metrics.snapshot().get("searchesCompleted"), 7L);
+
+    // the maze read back is the one its seed makes, and its path is the one bfs finds
+    // through it, from start to target
+    Maze made = new Maze(5, 4, 0.5, new Random(16));
+    LayeredMaze flat = LayeredMaze.of(made);
+    boolean same = read.cellCount() == flat.cellCount() && read.levels == 1;
+    for (int cell = 0; same && cell < flat.cellCount(); cell += 1) {
+      same = read.passagesOf(cell) == flat.passagesOf(cell);
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(flat.passageCount(), made.getMazeEdges().size());
+    SearchResult bfs = batch.solve(made, 16);
+    int[] cells = BatchSolver.cellsOf(bfs, 4);
+    t.checkExpect(path.length, cells.length);
+    t.checkExpect(path[0], flat.start());
+    t.checkExpect(path[path.length - 1], flat.target());
+    t.checkExpect(path[path.length - 1], cells[0]);
+    LayeredSearch layered = new LayeredSearch(read, SearchOrder.BREADTH_FIRST);
+    layered.runToCompletion();
+    t.checkExpect(layered.solution().length, cells.length);
+
+    t.checkExpect(made.traverserFor("dfs", 16).searchComplete(), false);
+    // a maze has only one path, so dijkstra finds it too, through terrain made from the
+    // maze's seed as HeadlessCore makes it
+    BatchSolver cheapest = new BatchSolver(1, 3, 3, 0, 1, "dijkstra", 1, null);
+    SearchResult weighted = cheapest.solve(made, 16);
+    t.checkExpect(BatchSolver.cellsOf(weighted, 4).length, cells.length);
+    Maze again = new Maze(5, 4, 0.5, new Random(16));
+    again.generateTerrain(16, IConstant.MAX_TERRAIN_COST);
+    IMazeTraverser reference = again.initializeDijkstraSearch();
+    while (!reference.searchComplete()) {
+      new OnTickTraverser().apply(reference);
+    }
+    t.checkExpect(weighted.getWrongMoves(), reference.result().getWrongMoves());
+    t.checkExpect(Maze.checkTraverser("dijkstra"), "dijkstra");
+    t.checkException(new IllegalArgumentException("The traverser must be one of: bfs, dfs, "
+        + "dijkstra"), made, "traverserFor", "astar", 16L);
+    // the options are checked without generating a maze, however large
+    t.checkExpect(new BatchSolver(1, 100000, 100000, 0, 1, "dfs", 1, null).metrics
+        .snapshot().get("mazesGenerated"), 0L);
+    t.checkConstructorException(new IllegalArgumentException("The bias must be a number "
+        + "from [-1.0, 1.0]"), "BatchSolver", 1, 2, 2, 1.5, 1L, "bfs", 1, directory);
+    t.checkConstructorException(new IllegalArgumentException("The bias must be a number "
+        + "from [-1.0, 1.0]"), "Maze", 4, 4, Double.NaN);
+    t.checkConstructorException(new IllegalArgumentException("The number of threads must be "
+        + "at least 1."), "BatchSolver", 1, 2, 2, 0.0, 1L, "bfs", 0, directory);
+    t.checkConstructorException(new IllegalArgumentException("The maze can't be less than "
+        + "2x2."), "BatchSolver", 1, 1, 2, 0.0, 1L, "bfs", 1, directory);
+    t.checkConstructorException(new IllegalArgumentException("The traverser must be one of: "
+        + "bfs, dfs, dijkstra"), "BatchSolver", 1, 2, 2, 0.0, 1L, "manual", 1, directory);
+    t.checkExpect(new BenchmarkArgs(new String[] {"--first-seed", "8589934592"})
+        .longInteger("first-seed", 1), 8589934592L);
+    t.checkExpect(new BenchmarkArgs(new String[0]).longInteger("first-seed", 1), 1L);
+  }
+
+  // test generating, solving and reporting on mazes through the HTTP service
+  void testMazeService(Tester t) {
+    MazeService service;
+    try {
+      service = new MazeService(0, 2);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    service.start();
+    try {
+      Maze made = new Maze(6, 5, -0.5, new Random(9));
+      LayeredMaze flat = LayeredMaze.of(made);
+      byte[] bin = this.fetch(service, "/generate?rows=6&columns=5&bias=-0.5&seed=9", 200);
+      t.checkExpect(Arrays.equals(bin, MazeService.bytesOf(flat)), true);
+      t.checkExpect(Arrays.equals(this.fetch(service,
+          "/generate?rows=6&columns=5&bias=-0.5&seed=9", 200), bin), true);
+      BufferedImage png = ImageIO.read(new ByteArrayInputStream(this.fetch(service,
+          "/generate?rows=6&columns=5&seed=9&format=png", 200)));
+      t.checkExpect(png.getWidth(), 5 * IConstant.CELL_WIDTH + IConstant.BORDER_SIZE);
+      t.checkExpect(png.getHeight(), 6 * IConstant.CELL_WIDTH + IConstant.BORDER_SIZE);
+
+      IMazeTraverser bfs = made.initializeAutomaticSearch(true);
+      while (!bfs.searchComplete()) {
+        new OnTickTraverser().apply(bfs);
+      }
+      String solved = new String(this.fetch(service,
+          "/solve?rows=6&columns=5&bias=-0.5&seed=9&traverser=bfs", 200));
+      t.checkExpect(solved.startsWith("{\"traverser\": \"bfs\", \"pathLength\": "
+          + bfs.result().getSolutionPath().size() + ", \"wrongMoves\": "
+          + bfs.result().getWrongMoves() + ", "), true);
+      t.checkExpect(solved.endsWith(flat.target() + "]}\n"), true);
+
+      t.checkExpect(new String(this.fetch(service, "/solve?traverser=manual", 400)),
+          "The traverser must be one of: bfs, dfs, dijkstra\n");
+      t.checkExpect(new String(this.fetch(service, "/generate?rows=5000&columns=5000", 400)),
+          "The maze can't have more than " + MazeService.MAX_CELLS + " cells.\n");
+      t.checkExpect(new String(this.fetch(service,
+          "/generate?rows=500&columns=500&format=png", 400)),
+          "The image can't have more than " + LevelPainter.MAX_PIXELS + " pixels.\n");
+      this.fetch(service, "/generate?rows", 400);
+      // a bias that isn't a finite number is refused before a maze is made or cached
+      t.checkExpect(new String(this.fetch(service, "/generate?bias=NaN", 400)),
+          "The bias must be a number from [-1.0, 1.0]\n");
+      this.fetch(service, "/solve?bias=-Infinity", 400);
+      // so are dimensions no maze can have, without counting a lookup
+      t.checkExpect(new String(this.fetch(service, "/generate?rows=1&columns=1", 400)),
+          "The maze can't be less than 2x2.\n");
+      this.fetch(service, "/generate?rows=0&columns=4", 400);
+      this.fetch(service, "/generate?rows=-5&columns=-5", 400);
+      t.checkExpect(service.stats.requests("generate"), 10L);
+      // two mazes, the binary one solved by the same key as its generation, and one path
+      t.checkExpect(service.cache.size(), 3);
+      String metrics = new String(this.fetch(service, "/metrics", 200));
+      t.checkExpect(metrics.contains("{\"name\": \"generate failures\", \"unit\": "
+          + "\"requests\", \"value\": 7}"), true);
+      t.checkExpect(metrics.contains("\"name\": \"solve\", \"unit\": \"ns\", \"samples\": 3"),
+          true);
+      // only the lookups of mazes and paths that could be made are counted: the two 6x5
+      // mazes, the first again, and its path
+      t.checkExpect(metrics.contains("{\"name\": \"cache maze hits\", \"unit\": "
+          + "\"lookups\", \"value\": 1}"), true);
+      t.checkExpect(metrics.contains("{\"name\": \"cache maze misses\", \"unit\": "
+          + "\"lookups\", \"value\": 2}"), true);
+      t.checkExpect(metrics.contains("{\"name\": \"cache path misses\", \"unit\": "
+          + "\"lookups\", \"value\": 1}"), true);
+      // the mazes the service generated, and the one bfs search, reported to its metrics:
+      // both 6x5 mazes, and the first again to be solved; the 500x500 maze and the path by
+      // manual were refused before anything was generated
+      t.checkExpect(metrics.contains("{\"name\": \"mazesGenerated\", \"unit\": "
+          + "\"count\", \"value\": 3}"), true);
+      t.checkExpect(metrics.contains("{\"name\": \"searchesCompleted\", \"unit\": "
+          + "\"count\", \"value\": 1}"), true);
+      t.checkExpect(service.metrics.snapshot().get("cellsGenerated"), 30L + 30 + 30);
+
+      // a request that fails before it's answered is recorded as a failure, not as a 200
+      service.addEndpoint("/broken", new BrokenHandler(service));
+      boolean answered = true;
+      try {
+        this.fetch(service, "/broken", 200);
+      } catch (IOException e) {
+        answered = false;
+      }
+      t.checkExpect(answered, false);
+      t.checkExpect(service.stats.requests("broken") > 0, true);
+      t.checkExpect(service.stats.report().get("broken failures").get("value"),
+          (double) service.stats.requests("broken"));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      service.stop();
+    }
+    t.checkExpect(MazeService.optionsOf(URI.create("/solve?seed=4&traverser=b%66s"))
+        .string("traverser", null), "bfs");
+    t.checkException(new IllegalArgumentException("The maze has no level 2."), new LevelPainter(),
+        "paint", new LayeredMaze(2, 2, 2, 0, 1), 2);
+    t.checkException(new IllegalArgumentException("The image can't have more than "
+        + LevelPainter.MAX_PIXELS + " pixels."), new LevelPainter(), "paint",
+        new LayeredMaze(1, 205, 205, 0, 1), 0);
+    t.checkExpect(LevelPainter.paint(new LayeredMaze(1, 204, 204, 0, 1), 0).getWidth(),
+        204 * IConstant.CELL_WIDTH + IConstant.BORDER_SIZE);
+  }
+
+  // test caching mazes and paths within a budget, evicting the least recently used
+  void testMazeCache(Tester t) {
+    MazeKey small = new MazeKey(4, 4, 0, 3);
+    MazeKey other = new MazeKey(4, 4, 0, 4);
+    t.checkExpect(small.equals(new MazeKey(4, 4, 0.0, 3)), true);
+    t.checkExpect(small.hashCode(), new MazeKey(4, 4, 0.0, 3).hashCode());
+    t.checkExpect(small.equals(other), false);
+    t.checkExpect(small.equals(small.solvedBy("dijkstra")), false);
+    t.checkExpect(small.solvedBy("dijkstra").equals(small.solvedBy("bfs")), false);
+    t.checkExpect(small.solvedBy("bfs").equals(new MazeKey(4, 4, 0, 3, "bfs")), true);
+    // -0.0 makes the same maze as 0.0, so it has the same key
+    t.checkExpect(new MazeKey(4, 4, -0.0, 3).equals(small), true);
+    t.checkExpect(new MazeKey(4, 4, -0.0, 3).hashCode(), small.hashCode());
+    t.checkExpect(new MazeKey(4, 4, -0.5, 3).bias, -0.5);
+
+    Maze generated = new Maze(4, 4, 0, new Random(3));
+    LayeredMaze made = LayeredMaze.of(generated);
+    long mazeBytes = MazeCache.bytesOf(made);
+    t.checkExpect(mazeBytes, MazeCache.ENTRY_BYTES + 40 + 32);
+    // the estimate covers what the maze really takes on this JVM
+    t.checkExpect(new HeapWalker().measure(made).bytes() <= mazeBytes - MazeCache.ENTRY_BYTES,
+        true);
+
+    // room for two mazes: a third evicts the one used least recently
+    MazeCache cache = new MazeCache(2 * mazeBytes);
+    LayeredMaze first = cache.maze(small);
+    t.checkExpect(cache.maze(small) == first, true);
+    boolean same = true;
+    for (int cell = 0; cell < made.cellCount(); cell += 1) {
+      same = same && first.passagesOf(cell) == made.passagesOf(cell);
+    }
+    t.checkExpect(same, true);
+    cache.maze(other);
+    cache.maze(small);
+    cache.maze(new MazeKey(4, 4, 0, 5));
+    t.checkExpect(cache.contains(small), true);
+    t.checkExpect(cache.contains(other), false);
+    t.checkExpect(cache.size(), 2);
+    t.checkExpect(cache.bytes(), 2 * mazeBytes);
+
+    // a path is cached per traverser, next to its maze, and the mazes and automatic
+    // searches made for them report to the cache's metrics
+    CountingMazeMetrics metrics = new CountingMazeMetrics();
+    MazeCache roomy = new MazeCache(1 << 20, metrics);
+    MazeSolution bfs = roomy.solution(small, "bfs");
+    t.checkExpect(roomy.solution(small, "bfs") == bfs, true);
+    t.checkExpect(roomy.solution(small, "dfs") == bfs, false);
+    t.checkExpect(roomy.contains(small), true);
+    SearchResult search = new BatchSolver(1, 4, 4, 0, 3, "bfs", 1, null).solve(generated, 3);
+    t.checkExpect(bfs.cells, BatchSolver.cellsOf(search, 4));
+    t.checkExpect(bfs.wrongMoves, search.getWrongMoves());
+    t.checkExpect(roomy.size(), 3);
+    t.checkExpect(metrics.snapshot().get("mazesGenerated"), 2L);
+    t.checkExpect(metrics.snapshot().get("searchesCompleted"), 2L);
+    // a bad traverser is refused before it's looked up or its maze is generated
+    t.checkException(new IllegalArgumentException("The traverser must be one of: bfs, dfs, "
+        + "dijkstra"), roomy, "solution", small, "astar");
+    t.checkExpect(metrics.snapshot().get("mazesGenerated"), 2L);
+    t.checkException(new IllegalArgumentException("The traverser must be one of: bfs, dfs, "
+        + "dijkstra"), small, "solvedBy", "manual");
+    t.checkConstructorException(new IllegalArgumentException("The traverser must be one "
+        + "of: bfs, dfs, dijkstra"), "MazeKey", 4, 4, 0.0, 3L, "xyz");
+    BenchmarkReport report = new BenchmarkReport("service");
+    roomy.addTo(report);
+    t.checkExpect(report.get("cache path hits").get("value"), 1.0);
+    t.checkExpect(report.get("cache path misses").get("value"), 2.0);
+    t.checkExpect(report.get("cache maze hits").get("value"), 0.0);
+    t.checkExpect(report.get("cache maze misses").get("value"), 0.0);
+    roomy.maze(small);
+    roomy.maze(other);
+    BenchmarkReport again = new BenchmarkReport("service");
+    roomy.addTo(again);
+    t.checkExpect(again.get("cache maze hits").get("value"), 1.0);
+    t.checkExpect(again.get("cache maze misses").get("value"), 1.0);
+    t.checkExpect(again.get("cache path hits").get("value"), 1.0);
+    t.checkExpect(report.get("cache evictions").get("value"), 0.0);
+
+    // nothing fits in an empty budget, but lookups still work
+    MazeCache none = new MazeCache(0);
+    t.checkExpect(none.maze(small).passageCount(), 15);
+    t.checkExpect(none.size(), 0);
+    t.checkConstructorException(new IllegalArgumentException("The cache's budget can't be "
+        + "negative."), "MazeCache", -1L);
+  }
+
+  // the body of the response to a GET of the given path from the given service, which
+  // must have the given status
+  byte[] fetch(MazeService service, String path, int status) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(
+        "http://127.0.0.1:" + service.port() + path).openConnection();
+    try {
+      if (connection.getResponseCode() != status) {
+        throw new IOException(path + " answered " + connection.getResponseCode());
+      }
+      InputStream body = status == 200 ? connection.getInputStream()
+          : connection.getErrorStream();
+      try {
+        return body.readAllBytes();
+      } finally {
+        body.close();
+      }
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  // the pixels of the given scene, as drawn by javalib
+  BufferedImage pixelsOf(WorldScene scene) {
+    try {
+      File file = File.createTempFile("maze-scene", ".png");
+      file.deleteOnExit();
+      scene.saveImage(file.getPath());
+      return ImageIO.read(file);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // do the two given images have the same size and the same color at every pixel?
+  boolean samePixels(BufferedImage img1, BufferedImage img2) {
+    if (img1.getWidth() != img2.getWidth() || img1.getHeight() != img2.getHeight()) {
+      return false;
+    }
+    for (int y = 0; y < img1.getHeight(); y += 1) {
+      for (int x = 0; x < img1.getWidth(); x += 1) {
+        if (img1.getRGB(x, y) != img2.getRGB(x, y)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
 
+// generates mazes for the metrics tests on a thread of its own
+class MazesForMetrics implements Runnable {
+
+  // the metrics the mazes report to
+  private final IMazeMetrics metrics;
+
+  // the number of 4x4 mazes to generate
+  private final int mazes;
+
+  // constructor
+  MazesForMetrics(IMazeMetrics metrics, int mazes) {
+    this.metrics = metrics;
+    this.mazes = mazes;
+  }
+
+  // EFFECT: generates the mazes
+  public void run() {
+    for (int i = 0; i < this.mazes; i += 1) {
+      new Maze(4, 4, 0, new Random(i), this.metrics);
+    }
+  }
+}
+
+// fails every request it's given with an IOException before answering it, for the tests
+// of how a MazeService records failures
+class BrokenHandler extends AMazeHandler {
+
+  // constructor
+  BrokenHandler(MazeService service) {
+    super(service, "broken");
+  }
+
+  // EFFECT: throws an IOException without answering the request
+  void serve(HttpExchange exchange, BenchmarkArgs options) throws IOException {
+    throw new IOException("The connection broke.");
+  }
 }
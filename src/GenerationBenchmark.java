@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.util.Random;
+
+// times generating mazes of several sizes and biases, one phase at a time, and writes the
+// results as a BenchmarkReport that later runs can be compared against
+// every maze is made from a fixed seed, so two runs time the same mazes, and each case
+// is run a few times untimed first so the JIT has compiled the generation code
+// usage: GenerationBenchmark [--sizes 10,100,500,1000,2000] [--biases -1,0,1]
+//   [--warmups 2] [--iterations 5] [--max-seconds 20] [--max-draw-cells 10000]
+//   [--seed 1] [--out file.json] [--baseline file.json]
+// the largest sizes need a larger heap than the default, like -Xmx6g
+class GenerationBenchmark {
+
+  // the phases timed for every maze, in the order they're reported
+  static final String[] PHASES = {"initializeCells", "initializeEdges", "sort", "unionFind",
+      "generate", "drawBackground", "rasterBackground"};
+
+  // runs every case through its warmups and timed runs
+  private final BenchmarkHarness harness;
+
+  // mazes with more cells than this aren't drawn, since both backgrounds take memory in
+  // proportion to their pixels, and the nested images of drawBackground take longer per
+  // cell to draw the bigger the maze
+  private final long maxDrawCells;
+
+  // constructor
+  GenerationBenchmark(int warmups, int iterations, double maxSeconds, long maxDrawCells,
+      long seed) {
+    this.harness = new BenchmarkHarness(warmups, iterations, maxSeconds, seed);
+    this.maxDrawCells = maxDrawCells;
+  }
+
+  // the name a phase of the given case is reported under, like "sort 100x100 bias=0"
+  static String resultName(String phase, int size, double bias) {
+    return phase + " " + size + "x" + size + " bias="
+        + new BenchmarkReport("").formatNumber(bias);
+  }
+
+  // a report with every phase of every size and bias in the given lists
+  BenchmarkReport run(int[] sizes, double[] biases) {
+    BenchmarkReport report = new BenchmarkReport("generation");
+    for (int size : sizes) {
+      for (double bias : biases) {
+        this.measure(size, bias, report);
+      }
+    }
+    return report;
+  }
+
+  // EFFECT: times generating mazes of the given size and bias, and adds the times of
+  // each phase to the given report, along with the mazes generated per second
+  // a case that runs out of memory is reported as skipped instead of ending the run
+  void measure(int size, double bias, BenchmarkReport report) {
+    GenerationCase measured = new GenerationCase(this, size, bias, this.harness.seed,
+        (long) size * size <= this.maxDrawCells);
+    try {
+      this.harness.measure(measured);
+    } catch (OutOfMemoryError e) {
+      report.addValue(GenerationBenchmark.resultName("skipped", size, bias), "out of memory",
+          0);
+      return;
+    }
+    LatencyHistogram[] times = measured.times;
+    for (int phase = 0; phase < PHASES.length; phase += 1) {
+      if (times[phase].count() > 0) {
+        report.addHistogram(GenerationBenchmark.resultName(PHASES[phase], size, bias), "ns",
+            times[phase]);
+      }
+    }
+    double generate = times[4].mean();
+    report.addValue(GenerationBenchmark.resultName("cellsPerSecond", size, bias), "cells/s",
+        Math.rint((double) size * size * 1e9 / Math.max(1, generate)));
+  }
+
+  // the nanoseconds each phase took while generating one maze of the given size and bias
+  // from the given seed, in the order of PHASES, with -1 for the backgrounds if it
+  // isn't drawn
+  long[] sample(int size, double bias, long seed, boolean draw) {
+    System.gc();
+    long[] sample = new long[PHASES.length];
+    long before = System.nanoTime();
+    Maze maze = new Maze(size, size, bias, new Random(seed));
+    sample[4] = System.nanoTime() - before;
+    GenerationProfile profile = maze.getProfile();
+    sample[0] = profile.cellsNanos;
+    sample[1] = profile.edgesNanos;
+    sample[2] = profile.sortNanos;
+    sample[3] = profile.unionFindNanos;
+    sample[5] = -1;
+    sample[6] = -1;
+    if (draw) {
+      before = System.nanoTime();
+      new ReferenceRenderer(maze).drawBackground();
+      sample[5] = System.nanoTime() - before;
+      before = System.nanoTime();
+      new MazeRenderer(maze);
+      sample[6] = System.nanoTime() - before;
+    }
+    return sample;
+  }
+
+  // runs the benchmark with the given options and publishes its report
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    BenchmarkArgs options = new BenchmarkArgs(args);
+    GenerationBenchmark benchmark = new GenerationBenchmark(options.integer("warmups", 2),
+        options.integer("iterations", 5), options.number("max-seconds", 20),
+        options.integer("max-draw-cells", 10000), options.integer("seed", 1));
+    BenchmarkReport report = benchmark.run(
+        options.integers("sizes", new int[] {10, 100, 500, 1000, 2000}),
+        options.numbers("biases", new double[] {-1, 0, 1}));
+    report.publish(options.file("out"), options.file("baseline"));
+  }
+}
+
+// generating mazes of one size and bias for a GenerationBenchmark, each run from the seed
+// after the last one's, keeping the time each phase took in the timed runs
+class GenerationCase implements IBenchmarkCase {
+
+  // the benchmark the mazes are generated for
+  private final GenerationBenchmark benchmark;
+
+  // the size and bias of the mazes, the seed of the first one, and whether they're drawn
+  private final int size;
+  private final double bias;
+  private final long firstSeed;
+  private final boolean draw;
+
+  // the times of each phase, in the order of GenerationBenchmark.PHASES
+  final LatencyHistogram[] times;
+
+  // constructor
+  GenerationCase(GenerationBenchmark benchmark, int size, double bias, long firstSeed,
+      boolean draw) {
+    this.benchmark = benchmark;
+    this.size = size;
+    this.bias = bias;
+    this.firstSeed = firstSeed;
+    this.draw = draw;
+    this.times = new LatencyHistogram[GenerationBenchmark.PHASES.length];
+    for (int phase = 0; phase < this.times.length; phase += 1) {
+      this.times[phase] = new LatencyHistogram();
+    }
+  }
+
+  // EFFECT: generates a maze from the seed of the given run, and records how long each
+  // phase took if the run is timed
+  public void run(int run, boolean timed) {
+    long[] sample = this.benchmark.sample(this.size, this.bias, this.firstSeed + run,
+        this.draw);
+    if (timed) {
+      for (int phase = 0; phase < this.times.length; phase += 1) {
+        if (sample[phase] >= 0) {
+          this.times[phase].record(sample[phase]);
+        }
+      }
+    }
+  }
+}
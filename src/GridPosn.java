@@ -0,0 +1,34 @@
+// the column and row of a cell of the maze grid, in grid coordinates (not pixels)
+// the maze and its searches hand out positions as these, so they don't depend on javalib;
+// the drawing code turns them into pixels, and keeps javalib's Posn for those
+final class GridPosn {
+
+  // the column and row of the cell
+  final int x;
+  final int y;
+
+  // constructor
+  GridPosn(int x, int y) {
+    this.x = x;
+    this.y = y;
+  }
+
+  // is the given object a position with the same column and row?
+  public boolean equals(Object other) {
+    if (!(other instanceof GridPosn)) {
+      return false;
+    }
+    GridPosn that = (GridPosn) other;
+    return this.x == that.x && this.y == that.y;
+  }
+
+  // a hash code that agrees with equals
+  public int hashCode() {
+    return this.x * 31 + this.y;
+  }
+
+  // the position as "(x, y)", for messages
+  public String toString() {
+    return "(" + this.x + ", " + this.y + ")";
+  }
+}
@@ -0,0 +1,85 @@
+import java.util.Random;
+
+// generates and solves one maze without javalib or AWT, and reports how long each took
+// the headless core is every class that a program like this one, BatchSolver or
+// MazeService can use without loading anything to draw with:
+//   IConstant: the sizes and limits, without the images in ISprite
+//   ITopology, CsrGraph, CsrMaze, CsrSearch, SolvedPath: boards of any shape
+//   LayeredMaze, LayeredSearch, SearchOrder: grids stacked in levels
+//   Maze, Cell, Edge, GridPosn, Utils, ManualSearch, AutomaticSearch, DijkstraSearch,
+//     SearchResult and the visitors that step them: the maze the worlds show
+//   Direction, PackedPosn, IndexedMinHeap, IWorkList: what the searches are built
+//     from
+//   IMazeMetrics, GenerationProfile, SearchProfile, the events in MazeEvents,
+//     LatencyHistogram, ThreadAllocations, BenchmarkReport: watching them run
+// everything else draws with javalib: the renderers, the visitors that draw the
+// searches, and the worlds
+// --model layered makes and solves a LayeredMaze in the given order, and --model maze a
+// Maze with the given traverser, one of bfs, dfs and dijkstra
+// usage: HeadlessCore [--model layered] [--levels 1] [--rows 100] [--columns 100]
+//   [--bias 0] [--seed 1] [--order A_STAR] [--traverser bfs]
+class HeadlessCore {
+
+  // a line describing a maze made and solved with the given options, and how long each
+  // took
+  // throws an error if the model isn't layered or maze
+  static String run(BenchmarkArgs options) {
+    String model = options.string("model", "layered");
+    if (model.equals("layered")) {
+      return HeadlessCore.runLayered(options);
+    } else if (model.equals("maze")) {
+      return HeadlessCore.runMaze(options);
+    } else {
+      throw new IllegalArgumentException("The model must be one of: layered, maze");
+    }
+  }
+
+  // a line describing a LayeredMaze made and solved with the given options, and how long
+  // each took
+  static String runLayered(BenchmarkArgs options) {
+    int levels = options.integer("levels", 1);
+    int rows = options.integer("rows", 100);
+    int columns = options.integer("columns", 100);
+    SearchOrder order = SearchOrder.valueOf(options.string("order", "A_STAR"));
+    long began = System.nanoTime();
+    LayeredMaze maze = new LayeredMaze(levels, rows, columns, options.number("bias", 0),
+        options.longInteger("seed", 1));
+    long generated = System.nanoTime();
+    LayeredSearch search = new LayeredSearch(maze, order);
+    search.runToCompletion();
+    long solved = System.nanoTime();
+    SolvedPath path = search.result();
+    return String.format("%dx%dx%d generated in %.3f ms, solved %s in %.3f ms: "
+        + "%d cells on the path, %d wrong moves", levels, rows, columns,
+        (generated - began) / 1e6, order, (solved - generated) / 1e6, path.length(),
+        path.wrongMoves);
+  }
+
+  // a line describing a Maze made and solved with the given options, and how long each
+  // took
+  static String runMaze(BenchmarkArgs options) {
+    int rows = options.integer("rows", 100);
+    int columns = options.integer("columns", 100);
+    String traverser = Maze.checkTraverser(options.string("traverser", "bfs"));
+    long seed = options.longInteger("seed", 1);
+    long began = System.nanoTime();
+    Maze maze = new Maze(rows, columns, options.number("bias", 0), new Random(seed));
+    // the terrain dijkstra searches is generated with the maze
+    IMazeTraverser search = maze.traverserFor(traverser, seed);
+    long generated = System.nanoTime();
+    while (!search.searchComplete()) {
+      new OnTickTraverser().apply(search);
+    }
+    long solved = System.nanoTime();
+    SearchResult result = search.result();
+    return String.format("%dx%d generated in %.3f ms, solved %s in %.3f ms: "
+        + "%d cells on the path, %d wrong moves", rows, columns, (generated - began) / 1e6,
+        traverser, (solved - generated) / 1e6, result.getSolutionPath().size(),
+        result.getWrongMoves());
+  }
+
+  // makes and solves a maze with the given options and prints how it went
+  public static void main(String[] args) {
+    System.out.println(HeadlessCore.run(new BenchmarkArgs(args)));
+  }
+}
@@ -0,0 +1,37 @@
+// the sizes and limits shared by the mazes and the worlds that show them
+// only numbers and names live here, so reading them never loads anything to draw with;
+// the images cells are drawn with are in ISprite
+interface IConstant {
+
+  // the width of a square in the maze grid
+  int CELL_WIDTH = 10; // TODO: make this scalable?
+
+  // the width of a border between squares in the maze grid
+  int BORDER_SIZE = CELL_WIDTH / 10;
+
+  // the width of a square in the grid with border width taken into account
+  int INTERIOR_WIDTH = CELL_WIDTH - BORDER_SIZE;
+
+  // the largest traversal cost of a cell in a randomly generated weighted terrain
+  int MAX_TERRAIN_COST = 9;
+
+  // the size of the window a MazeWorld shows its maze through, in pixels
+  int VIEWPORT_WIDTH = 55 * CELL_WIDTH;
+  int VIEWPORT_HEIGHT = 55 * CELL_WIDTH;
+
+  // how many times the camera can double the size of a cell past CELL_WIDTH
+  int MAX_ZOOM_IN = 3;
+
+  // the coarsest level of detail: when zoomed out all the way, each pixel on screen
+  // covers a square of 2^MAX_LOD_LEVEL cells on a side
+  int MAX_LOD_LEVEL = 11;
+
+  // the number of levels in the stacked maze a MazeWorld switches to
+  int MAZE_LEVELS = 4;
+
+  // the file a MazeWorld writes its stats to when asked
+  String STATS_FILE = "maze-world-stats.txt";
+
+  // how big the text should be on the endgame screen
+  int TEXT_SIZE = CELL_WIDTH * 3 / 2; // TODO: also potentially scalable
+}
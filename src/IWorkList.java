@@ -32,7 +32,7 @@ class Stack<T> implements IWorkList<T> {
 
   // determines if this stack contains no elements
   public boolean isEmpty() {
-    return this.contents.size() == 0;
+    return this.contents.isEmpty();
   }
 
   // Removes and returns the most recent element added, throwing exception if no elements
@@ -46,9 +46,7 @@ class Stack<T> implements IWorkList<T> {
 
   // clears this stack
   public void clear() {
-    while (! this.isEmpty()) {
-      this.next();
-    }
+    this.contents.clear();
   }
 }
 
@@ -68,7 +66,7 @@ class Queue<T> implements IWorkList<T> {
 
   // determines if this queue contains no elements
   public boolean isEmpty() {
-    return this.contents.size() == 0;
+    return this.contents.isEmpty();
   }
 
   // Removes and returns the least recent element added, throwing exception if no elements
@@ -82,8 +80,6 @@ class Queue<T> implements IWorkList<T> {
 
   // clears this queue
   public void clear() {
-    while (! this.isEmpty()) {
-      this.next();
-    }
+    this.contents.clear();
   }
 }
\ No newline at end of file
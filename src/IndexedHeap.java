@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// a min-priority queue over the integers [0, capacity), each with a long priority,
+// stored as a d-ary heap with an index from item to heap slot so that the priority
+// of an item already in the heap can be lowered in place (decrease-key)
+class IndexedMinHeap {
+
+  // the number of children of every node in the heap
+  // 4 keeps the heap shallow and a node's children next to each other in memory
+  static final int ARITY = 4;
+
+  // the items in heap order; only the first 'size' slots are in use
+  private final int[] heap;
+
+  // the slot of every item in 'heap', or -1 if the item isn't in the heap
+  private final int[] slots;
+
+  // the priority of every item, valid only while the item is in the heap
+  private final long[] keys;
+
+  // the number of items in the heap
+  private int size;
+
+  // constructor creates an empty heap that can hold the items [0, capacity)
+  IndexedMinHeap(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("The capacity can't be negative.");
+    }
+    this.heap = new int[capacity];
+    this.slots = new int[capacity];
+    Arrays.fill(this.slots, -1);
+    this.keys = new long[capacity];
+    this.size = 0;
+  }
+
+  // is the heap empty?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // the number of items in the heap
+  int size() {
+    return this.size;
+  }
+
+  // is the given item currently in the heap?
+  boolean contains(int item) {
+    return this.slots[item] != -1;
+  }
+
+  // the priority of the given item
+  // error if the item isn't in the heap
+  long keyOf(int item) {
+    if (!this.contains(item)) {
+      throw new NoSuchElementException("The item is not in the heap.");
+    }
+    return this.keys[item];
+  }
+
+  // EFFECT: adds the given item with the given priority
+  // error if the item is already in the heap
+  void insert(int item, long key) {
+    if (this.contains(item)) {
+      throw new IllegalArgumentException("The item is already in the heap.");
+    }
+    this.keys[item] = key;
+    this.heap[this.size] = item;
+    this.slots[item] = this.size;
+    this.size += 1;
+    this.siftUp(this.size - 1);
+  }
+
+  // EFFECT: lowers the priority of the given item to the given key
+  // error if the item isn't in the heap or the key is larger than its current one
+  void decreaseKey(int item, long key) {
+    if (key > this.keyOf(item)) {
+      throw new IllegalArgumentException("The new key can't be larger than the current one.");
+    }
+    this.keys[item] = key;
+    this.siftUp(this.slots[item]);
+  }
+
+  // EFFECT: removes and returns the item with the smallest priority
+  // error if the heap is empty
+  int pollMin() {
+    if (this.isEmpty()) {
+      throw new NoSuchElementException("No more elements in the heap.");
+    }
+    int min = this.heap[0];
+    this.size -= 1;
+    this.slots[min] = -1;
+    if (this.size > 0) {
+      int last = this.heap[this.size];
+      this.heap[0] = last;
+      this.slots[last] = 0;
+      this.siftDown(0);
+    }
+    return min;
+  }
+
+  // EFFECT: removes every item from the heap
+  void clear() {
+    for (int i = 0; i < this.size; i += 1) {
+      this.slots[this.heap[i]] = -1;
+    }
+    this.size = 0;
+  }
+
+  // EFFECT: moves the item at the given slot up until its parent's key isn't larger
+  private void siftUp(int slot) {
+    int item = this.heap[slot];
+    long key = this.keys[item];
+    while (slot > 0) {
+      int parentSlot = (slot - 1) / ARITY;
+      int parent = this.heap[parentSlot];
+      if (this.keys[parent] <= key) {
+        break;
+      }
+      this.heap[slot] = parent;
+      this.slots[parent] = slot;
+      slot = parentSlot;
+    }
+    this.heap[slot] = item;
+    this.slots[item] = slot;
+  }
+
+  // EFFECT: moves the item at the given slot down until none of its children has a smaller key
+  private void siftDown(int slot) {
+    int item = this.heap[slot];
+    long key = this.keys[item];
+    while (true) {
+      int firstChild = slot * ARITY + 1;
+      if (firstChild >= this.size) {
+        break;
+      }
+      int lastChild = Math.min(firstChild + ARITY, this.size);
+      int minSlot = firstChild;
+      for (int child = firstChild + 1; child < lastChild; child += 1) {
+        if (this.keys[this.heap[child]] < this.keys[this.heap[minSlot]]) {
+          minSlot = child;
+        }
+      }
+      int minItem = this.heap[minSlot];
+      if (this.keys[minItem] >= key) {
+        break;
+      }
+      this.heap[slot] = minItem;
+      this.slots[minItem] = slot;
+      slot = minSlot;
+    }
+    this.heap[slot] = item;
+    this.slots[item] = slot;
+  }
+}
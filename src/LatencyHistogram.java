@@ -0,0 +1,166 @@
+import java.lang.management.ManagementFactory;
+
+// counts how many recorded values fall into each of a fixed set of buckets, in the style
+// of an HDR histogram: values below 2 * HALF_BUCKETS each get their own bucket, and above
+// that every power of two is split into HALF_BUCKETS equal buckets, so any value is
+// reported to within 1 part in HALF_BUCKETS using a fixed, small amount of memory
+// recording is a couple of shifts and an array increment, with no allocation
+class LatencyHistogram {
+
+  // the number of buckets each power of two is split into
+  static final int HALF_BUCKETS = 64;
+
+  // the number of values at the start that get a bucket each
+  static final int LINEAR_BUCKETS = 2 * HALF_BUCKETS;
+
+  // the number of bits of a value kept by its bucket
+  static final int BUCKET_BITS = 31 - Integer.numberOfLeadingZeros(LINEAR_BUCKETS);
+
+  // the count of values recorded in each bucket
+  private final long[] counts;
+
+  // the total number of values recorded
+  private long total;
+
+  // the smallest and largest values recorded
+  private long min;
+  private long max;
+
+  // the sum of every value recorded, for the mean
+  private long sum;
+
+  // constructor with nothing recorded
+  LatencyHistogram() {
+    this.counts = new long[LINEAR_BUCKETS + (63 - BUCKET_BITS) * HALF_BUCKETS];
+    this.reset();
+  }
+
+  // the bucket the given value falls into
+  int bucketOf(long value) {
+    if (value < LINEAR_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (BUCKET_BITS - 1);
+    return LINEAR_BUCKETS + (shift - 1) * HALF_BUCKETS
+        + (int) ((value >> shift) - HALF_BUCKETS);
+  }
+
+  // the largest value that falls into the given bucket
+  long highestValueIn(int bucket) {
+    if (bucket < LINEAR_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket - LINEAR_BUCKETS) / HALF_BUCKETS + 1;
+    long mantissa = (bucket - LINEAR_BUCKETS) % HALF_BUCKETS + HALF_BUCKETS;
+    return ((mantissa + 1) << shift) - 1;
+  }
+
+  // EFFECT: records the given value; negative values are recorded as 0
+  void record(long value) {
+    long clamped = Math.max(0, value);
+    this.counts[this.bucketOf(clamped)] += 1;
+    this.total += 1;
+    this.sum += clamped;
+    this.min = Math.min(this.min, clamped);
+    this.max = Math.max(this.max, clamped);
+  }
+
+  // EFFECT: records every value the given histogram has recorded, as if each had been
+  // recorded here
+  void addAll(LatencyHistogram other) {
+    for (int bucket = 0; bucket < this.counts.length; bucket += 1) {
+      this.counts[bucket] += other.counts[bucket];
+    }
+    this.total += other.total;
+    this.sum += other.sum;
+    this.min = Math.min(this.min, other.min);
+    this.max = Math.max(this.max, other.max);
+  }
+
+  // EFFECT: forgets every value recorded
+  void reset() {
+    for (int bucket = 0; bucket < this.counts.length; bucket += 1) {
+      this.counts[bucket] = 0;
+    }
+    this.total = 0;
+    this.sum = 0;
+    this.min = Long.MAX_VALUE;
+    this.max = 0;
+  }
+
+  // the number of values recorded
+  long count() {
+    return this.total;
+  }
+
+  // the smallest value recorded, or 0 if none have been
+  long min() {
+    if (this.total == 0) {
+      return 0;
+    }
+    return this.min;
+  }
+
+  // the largest value recorded, or 0 if none have been
+  long max() {
+    return this.max;
+  }
+
+  // the mean of the values recorded, or 0 if none have been
+  double mean() {
+    if (this.total == 0) {
+      return 0;
+    }
+    return (double) this.sum / this.total;
+  }
+
+  // a value that at least the given percentage of recorded values are at or below, to
+  // within the precision of a bucket, and never more than the largest value recorded
+  // 0 if nothing has been recorded
+  long valueAtPercentile(double percentile) {
+    if (this.total == 0) {
+      return 0;
+    }
+    long needed = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.total));
+    long seen = 0;
+    for (int bucket = 0; bucket < this.counts.length; bucket += 1) {
+      seen += this.counts[bucket];
+      if (seen >= needed) {
+        return Math.min(this.highestValueIn(bucket), this.max);
+      }
+    }
+    return this.max;
+  }
+}
+
+// reads how many bytes the current thread has allocated, on JVMs that can tell
+class ThreadAllocations {
+
+  // the bean that reads allocations, or null if this JVM can't
+  private final com.sun.management.ThreadMXBean allocations;
+
+  // constructor turns on counting allocations, if this JVM can
+  ThreadAllocations() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+      this.allocations = (com.sun.management.ThreadMXBean) threads;
+      this.allocations.setThreadAllocatedMemoryEnabled(true);
+    } else {
+      this.allocations = null;
+    }
+  }
+
+  // can the bytes allocated be measured on this JVM?
+  boolean isSupported() {
+    return this.allocations != null;
+  }
+
+  // the bytes allocated by the current thread so far, or 0 if they can't be measured
+  long allocatedBytes() {
+    if (this.allocations == null) {
+      return 0;
+    }
+    return this.allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
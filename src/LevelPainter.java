@@ -0,0 +1,110 @@
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+// paints one level of a LayeredMaze as an image, for a MazeService to send as a PNG
+// cells are IConstant.CELL_WIDTH pixels on a side, in the colors a MazeWorld draws them
+// in, with a mark on cells with stairs as in LevelView
+// it paints with plain pixels rather than javalib, so only AWT's images are loaded
+class LevelPainter {
+
+  // the colors of walls, passages, the start and the target, as ARGB
+  static final int WALL = 0xFF404040;
+  static final int PASSAGE = 0xFF808080;
+  static final int START = 0xFF00FF00;
+  static final int TARGET = 0xFFFF00FF;
+
+  // the colors of the marks on cells with stairs up and down
+  static final int STAIRS_UP = 0xFFFF0000;
+  static final int STAIRS_DOWN = 0xFF000000;
+
+  // the most pixels an image painted can have, so one request can't use up the heap
+  // the pixels are held twice while they're painted, four bytes each, and once more
+  // while they're encoded
+  static final int MAX_PIXELS = 1 << 22;
+
+  // a new image of the given level of the given maze
+  // throws an error if the maze has no such level, or its image would have more than
+  // MAX_PIXELS pixels
+  static BufferedImage paint(LayeredMaze maze, int level) {
+    if (level < 0 || level >= maze.levels) {
+      throw new IllegalArgumentException("The maze has no level " + level + ".");
+    }
+    LevelPainter.checkSize(maze.rows, maze.columns);
+    int scale = IConstant.CELL_WIDTH;
+    int border = IConstant.BORDER_SIZE;
+    int interior = IConstant.INTERIOR_WIDTH;
+    int mark = scale / 3;
+    int width = maze.columns * scale + border;
+    int height = maze.rows * scale + border;
+    int[] pixels = new int[width * height];
+    LevelPainter.fill(pixels, width, 0, 0, width, height, WALL);
+    for (int row = 0; row < maze.rows; row += 1) {
+      for (int column = 0; column < maze.columns; column += 1) {
+        int cell = maze.cellAt(level, row, column);
+        int left = column * scale + border;
+        int top = row * scale + border;
+        int color = PASSAGE;
+        if (cell == maze.start()) {
+          color = START;
+        } else if (cell == maze.target()) {
+          color = TARGET;
+        }
+        LevelPainter.fill(pixels, width, left, top, interior, interior, color);
+        if (maze.hasPassage(cell, Direction.RIGHT.ordinal())) {
+          LevelPainter.fill(pixels, width, left + interior, top, border, interior, PASSAGE);
+        }
+        if (maze.hasPassage(cell, Direction.DOWN.ordinal())) {
+          LevelPainter.fill(pixels, width, left, top + interior, interior, border, PASSAGE);
+        }
+        if (maze.hasPassage(cell, LayeredMaze.ASCEND)) {
+          LevelPainter.fill(pixels, width, left + border, top + border, mark, mark,
+              STAIRS_UP);
+        }
+        if (maze.hasPassage(cell, LayeredMaze.DESCEND)) {
+          LevelPainter.fill(pixels, width, left + interior - border - mark,
+              top + interior - border - mark, mark, mark, STAIRS_DOWN);
+        }
+      }
+    }
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    image.setRGB(0, 0, width, height, pixels, 0, width);
+    return image;
+  }
+
+  // throws an error if the image of a level with the given rows and columns would have
+  // more than MAX_PIXELS pixels
+  static void checkSize(int rows, int columns) {
+    long pixels = ((long) columns * IConstant.CELL_WIDTH + IConstant.BORDER_SIZE)
+        * ((long) rows * IConstant.CELL_WIDTH + IConstant.BORDER_SIZE);
+    if (pixels > MAX_PIXELS) {
+      throw new IllegalArgumentException("The image can't have more than " + MAX_PIXELS
+          + " pixels.");
+    }
+  }
+
+  // the given level of the given maze as a PNG
+  static byte[] png(LayeredMaze maze, int level) {
+    BufferedImage image = LevelPainter.paint(maze, level);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      ImageIO.write(image, "png", bytes);
+    } catch (IOException e) {
+      throw new RuntimeException("A maze couldn't be written as a PNG.", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  // EFFECT: fills the given rectangle of the given row-by-row pixels of the given width
+  // with the given color
+  static void fill(int[] pixels, int width, int left, int top, int rectWidth,
+      int rectHeight, int color) {
+    for (int y = top; y < top + rectHeight; y += 1) {
+      for (int x = left; x < left + rectWidth; x += 1) {
+        pixels[y * width + x] = color;
+      }
+    }
+  }
+}
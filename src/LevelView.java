@@ -0,0 +1,329 @@
+import java.awt.Color;
+import java.util.Random;
+
+import javalib.impworld.WorldScene;
+import javalib.worldimages.ComputedPixelImage;
+import javalib.worldimages.TextImage;
+import javalib.worldimages.WorldImage;
+
+// shows one level of a LayeredMaze and the search through it, and responds to the keys
+// that change level and start searches, for a MazeWorld to delegate to
+// like a MazeRenderer, it keeps the frame of the level between scenes and only draws the
+// cells the search changed since the last one, starting over only when the level, the
+// search, the maze or the view setting changes
+class LevelView {
+
+  // the colors of the marks on cells with a passage to the level above and below
+  static final int STAIRS_UP = Color.RED.getRGB();
+  static final int STAIRS_DOWN = Color.BLACK.getRGB();
+
+  // the maze shown
+  private LayeredMaze maze;
+
+  // the bias every new maze is made with
+  private final double bias;
+
+  // where the seeds of new mazes come from
+  private final Random seeds;
+
+  // the search through the maze, or null if none has been started
+  private LayeredSearch search;
+
+  // the end screen of the finished search, made the first time it's drawn; null until
+  // then, and whenever the search changes
+  private SearchSummary summary;
+
+  // the level shown
+  private int level;
+
+  // whether every processed cell on the level is drawn, or just the most recent one
+  private boolean viewVisited;
+
+  // the tiles cells are drawn from
+  private final TileAtlas atlas;
+
+  // the walls, passages, start, target and stairs of the level shown, painted again only
+  // when the level or the maze changes
+  private final FrameBuffer staticLayer;
+
+  // whether the static layer shows the level and maze shown now
+  private boolean staticCurrent;
+
+  // the frame kept between scenes, with the search drawn over the static layer
+  private final FrameBuffer liveFrame;
+
+  // the live frame as a javalib image, kept up to date one dirty cell at a time
+  private ComputedPixelImage liveImage;
+
+  // draws into the live frame and tracks which of its cells need publishing
+  private final DirtyCanvas liveCanvas;
+
+  // how far the search has been drawn into the live frame, or null when the live frame
+  // has to start over from the static layer
+  private DrawCursor liveCursor;
+
+  // the number of cells drawn by the last scene
+  private int cellsDrawn;
+
+  // constructor for a view of a new maze with the given dimensions and bias, made from
+  // the given seed, starting on the bottom level
+  // the frames of a level are made once here and kept for as long as the view
+  LevelView(int levels, int rows, int columns, double bias, long seed) {
+    this.seeds = new Random(seed);
+    this.bias = bias;
+    this.maze = new LayeredMaze(levels, rows, columns, bias, this.seeds.nextLong());
+    this.level = 0;
+    this.viewVisited = true;
+    this.atlas = new TileAtlas();
+    this.staticLayer = new FrameBuffer(columns * IConstant.CELL_WIDTH,
+        rows * IConstant.CELL_WIDTH);
+    this.liveFrame = new FrameBuffer(this.staticLayer.width, this.staticLayer.height);
+    this.liveCanvas = new DirtyCanvas(this.liveFrame, this.staticLayer, this.atlas);
+    this.staticCurrent = false;
+  }
+
+  // EFFECT: responds to the given key if it's one this view uses
+  // returns whether it was
+  // ',' and '.' go down and up a level, 'b', 'd' and 'a' start a breadth first, depth
+  // first and A* search, 'v' toggles whether visited cells are shown, and 'n' makes a new
+  // maze
+  // anything that changes what's shown makes the next scene start over from the static
+  // layer
+  boolean handleKey(String key) {
+    if (key.equals(",")) {
+      this.showLevel(Math.max(0, this.level - 1));
+    } else if (key.equals(".")) {
+      this.showLevel(Math.min(this.maze.levels - 1, this.level + 1));
+    } else if (key.equals("b")) {
+      this.startSearch(SearchOrder.BREADTH_FIRST);
+    } else if (key.equals("d")) {
+      this.startSearch(SearchOrder.DEPTH_FIRST);
+    } else if (key.equals("a")) {
+      this.startSearch(SearchOrder.A_STAR);
+    } else if (key.equals("v")) {
+      this.viewVisited = !this.viewVisited;
+      this.liveCursor = null;
+    } else if (key.equals("n")) {
+      this.maze = new LayeredMaze(this.maze.levels, this.maze.rows, this.maze.columns,
+          this.bias, this.seeds.nextLong());
+      this.search = null;
+      this.summary = null;
+      this.level = 0;
+      this.staticCurrent = false;
+      this.liveCursor = null;
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  // EFFECT: shows the given level, painting its static layer again if it's another one
+  private void showLevel(int level) {
+    if (level != this.level) {
+      this.level = level;
+      this.staticCurrent = false;
+      this.liveCursor = null;
+    }
+  }
+
+  // EFFECT: starts a new search through the maze in the given order
+  private void startSearch(SearchOrder order) {
+    this.search = new LayeredSearch(this.maze, order);
+    this.summary = null;
+    this.liveCursor = null;
+  }
+
+  // EFFECT: increments the search, if there is one still going
+  void onTick() {
+    if (this.search != null && !this.search.searchComplete()) {
+      this.search.incrementSearch();
+    }
+  }
+
+  // a new scene of the level shown, labelled with its number
+  // the frame under it is kept between scenes, and only the cells the search changed
+  // since the last one are drawn and republished
+  WorldScene drawScene() {
+    this.updateFrame();
+    int width = this.liveFrame.width;
+    int height = this.liveFrame.height;
+    WorldScene scene = new WorldScene(width, height);
+    scene.placeImageXY(this.liveImage, width / 2, height / 2);
+    scene.placeImageXY(new TextImage("Level " + (this.level + 1) + " of "
+        + this.maze.levels, IConstant.TEXT_SIZE * 2 / 3, Color.RED), width / 2,
+        IConstant.TEXT_SIZE);
+    if (this.search != null && this.search.searchComplete()) {
+      if (this.summary == null) {
+        this.summary = new SearchSummary(new SearchResult(this.search.result()));
+      }
+      this.summary.drawSummary(scene);
+    }
+    return scene;
+  }
+
+  // EFFECT: brings the live frame and its image up to date with the level and search
+  // shown, starting over from the static layer if what's shown has changed
+  void updateFrame() {
+    this.paintStaticIfStale();
+    if (this.liveCursor == null) {
+      this.liveFrame.copyFrom(this.staticLayer);
+      this.liveCursor = new DrawCursor();
+      this.drawChanges(this.liveCanvas, this.liveFrame, this.liveCursor);
+      this.liveCanvas.clearDirty();
+      this.liveImage = this.liveFrame.toPixelImage();
+      this.cellsDrawn = this.maze.rows * this.maze.columns;
+    } else {
+      this.drawChanges(this.liveCanvas, this.liveFrame, this.liveCursor);
+      this.cellsDrawn = this.liveCanvas.dirtyCount();
+      this.liveCanvas.publish(this.liveImage);
+    }
+  }
+
+  // EFFECT: paints the level shown into the given buffer, which is the size of a level,
+  // from scratch
+  // used for testing that the frames kept between scenes match
+  void paintLevel(FrameBuffer frame) {
+    this.paintStaticIfStale();
+    frame.copyFrom(this.staticLayer);
+    this.drawChanges(new DirtyCanvas(frame, this.staticLayer, this.atlas), frame,
+        new DrawCursor());
+  }
+
+  // EFFECT: paints the static layer of the level shown, unless it already shows it
+  private void paintStaticIfStale() {
+    if (!this.staticCurrent) {
+      this.staticLayer.fillRect(0, 0, this.staticLayer.width, this.staticLayer.height, 0);
+      this.paintStatic(this.staticLayer);
+      this.staticCurrent = true;
+    }
+  }
+
+  // EFFECT: paints the level shown, without the search, into the given buffer, which is
+  // the size of a level
+  // cells are drawn as the renderer draws a Maze: walls, then passages, then the start or
+  // target, with a mark in the corner of cells that lead to another level
+  void paintStatic(FrameBuffer frame) {
+    LayeredMaze m = this.maze;
+    int scale = IConstant.CELL_WIDTH;
+    int first = m.cellAt(this.level, 0, 0);
+    int last = m.cellAt(this.level, m.rows - 1, m.columns - 1);
+    Tile cellTile = this.atlas.tileFor(ISprite.CELL_IMG);
+    Tile blankTile = this.atlas.tileFor(ISprite.BLANK_CELL_IMG);
+    for (int cell = first; cell <= last; cell += 1) {
+      frame.blit(cellTile, m.columnOf(cell) * scale, m.rowOf(cell) * scale);
+    }
+    for (int cell = first; cell <= last; cell += 1) {
+      int x = m.columnOf(cell);
+      int y = m.rowOf(cell);
+      if (m.hasPassage(cell, Direction.RIGHT.ordinal())) {
+        frame.blit(blankTile, scale * (x + 1) - scale / 2,
+            (scale * (2 * y + 1)) / 2 - scale / 2);
+      }
+      if (m.hasPassage(cell, Direction.DOWN.ordinal())) {
+        frame.blit(blankTile, (scale * (2 * x + 1)) / 2 - scale / 2,
+            scale * (y + 1) - scale / 2);
+      }
+    }
+    if (m.levelOf(m.start()) == this.level) {
+      frame.blit(this.atlas.tileFor(ISprite.START_IMG), m.columnOf(m.start()) * scale,
+          m.rowOf(m.start()) * scale);
+    }
+    if (m.levelOf(m.target()) == this.level) {
+      frame.blit(this.atlas.tileFor(ISprite.END_IMG), m.columnOf(m.target()) * scale,
+          m.rowOf(m.target()) * scale);
+    }
+    for (int cell = first; cell <= last; cell += 1) {
+      this.paintStairs(frame, cell);
+    }
+  }
+
+  // EFFECT: draws onto the given canvas over the given frame the cells the search has
+  // processed since the given cursor, or moves the single most recently processed one if
+  // viewing visited cells is off, and the solution once the search is complete, on the
+  // level shown
+  // EFFECT: advances the cursor to the search's current state
+  private void drawChanges(IRestorableCanvas canvas, FrameBuffer frame, DrawCursor cursor) {
+    if (this.search == null) {
+      return;
+    }
+    int count = this.search.processedCount();
+    if (this.viewVisited) {
+      for (int step = cursor.drawnCount; step < count; step += 1) {
+        this.drawCell(canvas, frame, this.search.processedAt(step),
+            ISprite.AUTO_PATH_TRAVERSED);
+      }
+    } else if (count > 0 && cursor.drawnCount != count) {
+      if (cursor.highlighted != null) {
+        canvas.restoreCell(cursor.highlighted);
+      }
+      int last = this.search.processedAt(count - 1);
+      cursor.highlighted = this.maze.levelOf(last) == this.level ? this.positionOf(last)
+          : null;
+      this.drawCell(canvas, frame, last, ISprite.AUTO_PATH_TRAVERSED);
+    }
+    cursor.drawnCount = count;
+    if (this.search.searchComplete() && !cursor.solutionDrawn) {
+      for (int cell : this.search.solution()) {
+        this.drawCell(canvas, frame, cell, ISprite.SEARCH_SOLUTION);
+      }
+      cursor.solutionDrawn = true;
+    }
+  }
+
+  // EFFECT: draws the given image over the given cell and puts its stairs back on top, if
+  // it's on the level shown
+  private void drawCell(IRestorableCanvas canvas, FrameBuffer frame, int cell,
+      WorldImage img) {
+    if (this.maze.levelOf(cell) == this.level) {
+      canvas.drawAtCell(img, this.positionOf(cell));
+      this.paintStairs(frame, cell);
+    }
+  }
+
+  // EFFECT: marks the corners of the given cell that lead to the level above and below
+  private void paintStairs(FrameBuffer frame, int cell) {
+    int scale = IConstant.CELL_WIDTH;
+    int mark = Math.max(1, scale / 4);
+    int left = this.maze.columnOf(cell) * scale;
+    int top = this.maze.rowOf(cell) * scale;
+    if (this.maze.hasPassage(cell, LayeredMaze.ASCEND)) {
+      frame.fillRect(left + 2 * IConstant.BORDER_SIZE, top + 2 * IConstant.BORDER_SIZE,
+          mark, mark, STAIRS_UP);
+    }
+    if (this.maze.hasPassage(cell, LayeredMaze.DESCEND)) {
+      frame.fillRect(left + scale - 2 * IConstant.BORDER_SIZE - mark,
+          top + scale - 2 * IConstant.BORDER_SIZE - mark, mark, mark, STAIRS_DOWN);
+    }
+  }
+
+  // the column and row of the given cell on its level
+  private GridPosn positionOf(int cell) {
+    return new GridPosn(this.maze.columnOf(cell), this.maze.rowOf(cell));
+  }
+
+  // the pixels of the frame kept between scenes
+  // used for testing that it matches a level painted from scratch
+  FrameBuffer getLiveFrame() {
+    return this.liveFrame;
+  }
+
+  // the number of cells drawn by the last scene
+  int cellsDrawn() {
+    return this.cellsDrawn;
+  }
+
+  // the level shown
+  int getLevel() {
+    return this.level;
+  }
+
+  // the maze shown
+  LayeredMaze getMaze() {
+    return this.maze;
+  }
+
+  // the search through the maze, or null if none has been started
+  LayeredSearch getSearch() {
+    return this.search;
+  }
+}
@@ -1,65 +1,11 @@
-import java.awt.Color;
 import java.util.ArrayList;
-import java.util.HashMap;
-
-import javalib.impworld.WorldScene;
-import javalib.worldimages.AboveImage;
-import javalib.worldimages.BesideImage;
-import javalib.worldimages.EmptyImage;
-import javalib.worldimages.OutlineMode;
-import javalib.worldimages.OverlayImage;
-import javalib.worldimages.Posn;
-import javalib.worldimages.RectangleImage;
-import javalib.worldimages.WorldImage;
-
-// represents a randomly generated maze that can be searched to find a solution
-interface IConstant {
-
-  // the width of a square in the maze grid
-  int CELL_WIDTH = 10; // TODO: make this scalable?
-
-  // the width of a border between squares in the maze grid
-  int BORDER_SIZE = CELL_WIDTH / 10;
-
-  // the width of a square in the grid with border width taken into account
-  int INTERIOR_WIDTH = CELL_WIDTH - BORDER_SIZE;
-
-  // an image representing the interior
-  WorldImage BLANK_CELL_IMG = new Utils().makeInteriorSquare(Color.GRAY);
-
-  // an image representing a cell -> a grey square with a darker grey outline
-  // represents a cell with 4 walls
-  WorldImage CELL_IMG = new OverlayImage(BLANK_CELL_IMG,
-      new RectangleImage(CELL_WIDTH, CELL_WIDTH, OutlineMode.SOLID, Color.DARK_GRAY));
-
-  // an image representing the green starting square of the maze
-  WorldImage START_IMG = new Utils().makeInteriorSquare(Color.GREEN);
-
-  // an image representing the green starting square of the maze
-  WorldImage END_IMG = new Utils().makeInteriorSquare(Color.MAGENTA);
-
-  // an image representing a square that's been automatically traversed by a BFS
-  // or DFS searching algorithm
-  WorldImage AUTO_PATH_TRAVERSED = new Utils().makeInteriorSquare(Color.CYAN);
-
-  // an image representing the solution path to the maze 
-  WorldImage SEARCH_SOLUTION = new Utils().makeInteriorSquare(Color.BLUE);
-  
-  // an image representing the square that the player is currently at if they're manually 
-  // traversing the maze
-  WorldImage PLAYER_IMG = new Utils().makeInteriorSquare(Color.ORANGE);
-
-  WorldImage PLAYER_VISITED_PATH = new Utils().makeInteriorSquare(Color.YELLOW);
-  
-  // how big the text should be on the endgame screen
-  int TEXT_SIZE = CELL_WIDTH * 3 / 2; // TODO: also potentially scalable
-}
+import java.util.Arrays;
+import java.util.Random;
 
 // represents a randomly generated maze that can be searched to find a solution
+// it only holds the cells and passages; MazeRenderer and ReferenceRenderer draw it, so
+// generating and searching a maze never loads javalib or AWT
 class Maze {
-  // an image representing the grid of cells, with all walls intact
-  private final WorldImage background;
-
   // the grid of cells
   // each cell is at the corresponding (col, row) of the list according to their
   // grid position
@@ -71,7 +17,17 @@ class Maze {
   private final ArrayList<Edge> edges;
 
   // the dimensions of this maze, in grid coordinates (not pixels)
-  private final Posn dimensions;
+  private final GridPosn dimensions;
+
+  // the cost of entering each cell, indexed by (row * columns + column)
+  // every cell costs 1 until a terrain is generated or assigned
+  private int[] terrainCosts;
+
+  // how long each phase of generating this maze took, and how much work it did
+  private final GenerationProfile profile = new GenerationProfile();
+
+  // told about this maze once it's generated, and about every automatic search of it
+  private final IMazeMetrics metrics;
 
   // constructs a Maze with no bias
   Maze(int rows, int columns) {
@@ -83,41 +39,191 @@ class Maze {
   // bias, [-1.0, 1.0], represents whether the maze is more likely to feature horizontal or vertical passages,
   // with -1.0 being most horizontal, 0 being without bias, and 1 representing the most vertical
   Maze(int rows, int columns, double bias) {
-    // don't allow construction of a maze that's less than 2x2 in dimensions
-    if (rows < 2 || columns < 2) {
-      throw new IllegalArgumentException("The maze can't be less than 2x2.");
-    }
-    if (bias < -1 || bias > 1) {
-      throw new IllegalArgumentException("The bias must be a number from [-1.0, 1.0]");
-    }
+    this(rows, columns, bias, new Random());
+  }
+
+  // constructor initializes this as a random maze with the given dimensions and bias, as
+  // above, whose edge weights all come from the given random, so that a seeded random
+  // always makes the same maze
+  // the time each phase of generation takes is recorded in the profile
+  Maze(int rows, int columns, double bias, Random rand) {
+    this(rows, columns, bias, rand, IMazeMetrics.NONE);
+  }
+
+  // constructor initializes this as a random maze, as above, and tells the given metrics
+  // about it once it's generated, and about every automatic search of it
+  // a MazeGenerationEvent is recorded for the flight recorder
+  Maze(int rows, int columns, double bias, Random rand, IMazeMetrics metrics) {
+    Maze.checkShape(rows, columns, bias);
 
-    this.dimensions = new Posn(columns, rows);
+    this.dimensions = new GridPosn(columns, rows);
+    this.metrics = metrics;
+    MazeGenerationEvent event = new MazeGenerationEvent();
+    event.begin();
 
     // initialize the grid
+    long began = System.nanoTime();
     this.grid = new ArrayList<ArrayList<Cell>>();
     this.initializeCells();
+    long cellsDone = System.nanoTime();
+    this.profile.cellsNanos = cellsDone - began;
 
     // Initialize the edges
-    ArrayList<Edge> initialEdges = this.initializeEdges(bias);
+    ArrayList<Edge> initialEdges = this.initializeEdges(bias, rand);
+    this.profile.edgesNanos = System.nanoTime() - cellsDone;
 
     // keep only the edges that form the minimum spanning tree of the cells
     this.edges = this.generateMaze(initialEdges);
 
-    this.background = this.drawBackground();
+    this.terrainCosts = this.uniformTerrain();
+    this.metrics.mazeGenerated(rows * columns, this.profile);
+    if (event.shouldCommit()) {
+      event.rows = rows;
+      event.columns = columns;
+      event.bias = bias;
+      event.edgesConsidered = this.profile.edgesConsidered;
+      event.sortNanos = this.profile.sortNanos;
+      event.unionFindNanos = this.profile.unionFindNanos;
+    }
+    event.commit();
+  }
+
+  // throws an error if a maze can't be made with the given dimensions and bias, so that
+  // callers can check them without generating one
+  static void checkShape(int rows, int columns, double bias) {
+    // don't allow construction of a maze that's less than 2x2 in dimensions
+    if (rows < 2 || columns < 2) {
+      throw new IllegalArgumentException("The maze can't be less than 2x2.");
+    }
+    // written so that NaN, which isn't in the range either, fails it too
+    if (!(bias >= -1 && bias <= 1)) {
+      throw new IllegalArgumentException("The bias must be a number from [-1.0, 1.0]");
+    }
   }
 
   // A constructor used for testing to allow non-random edge weights
   Maze(ArrayList<ArrayList<Cell>> grid, ArrayList<Edge> initialEdges) {
-    this.dimensions = new Posn(grid.get(0).size(), grid.size());
+    this.dimensions = new GridPosn(grid.get(0).size(), grid.size());
+    this.metrics = IMazeMetrics.NONE;
     this.grid = grid;
+    for (ArrayList<Cell> row : grid) {
+      for (Cell cell : row) {
+        GridPosn position = cell.getPosition();
+        cell.assignId(position.y * this.dimensions.x + position.x);
+      }
+    }
+    for (int index = 0; index < initialEdges.size(); index += 1) {
+      initialEdges.get(index).assignId(index);
+    }
     this.edges = this.generateMaze(initialEdges);
-    this.background = this.drawBackground();
+    this.terrainCosts = this.uniformTerrain();
   }
 
   // return a new random maze with the same dimensions as this maze
-  // and the given bias for passage type
+  // and the given bias for passage type, telling the same metrics about it
   Maze randomize(double bias) {
-    return new Maze(this.dimensions.y, this.dimensions.x, bias);
+    return new Maze(this.dimensions.y, this.dimensions.x, bias, new Random(), this.metrics);
+  }
+
+  // a terrain where entering any cell costs 1
+  int[] uniformTerrain() {
+    int[] costs = new int[this.dimensions.x * this.dimensions.y];
+    for (int index = 0; index < costs.length; index += 1) {
+      costs[index] = 1;
+    }
+    return costs;
+  }
+
+  // constructor initializes this as a random maze with the given dimensions and bias, as
+  // above, then knocks down a wall of the given fraction of its dead ends so that there is
+  // more than one route through it
+  Maze(int rows, int columns, double bias, double braid) {
+    this(rows, columns, bias);
+    this.braid(braid, new Random());
+  }
+
+  // EFFECT: knocks down one wall of each dead end with the given probability, preferring
+  // a wall to a neighbor that is also a dead end so one opening removes two, and adds the
+  // new passages to this maze's edges
+  // a fraction of 0 leaves the maze a tree and 1 leaves it without dead ends; each cell
+  // is looked at once, so this takes time linear in the number of cells
+  // a renderer made for this maze before it's braided doesn't show the new passages
+  // returns the number of walls knocked down
+  int braid(double fraction, Random rand) {
+    if (fraction < 0 || fraction > 1) {
+      throw new IllegalArgumentException("The braid must be a number from [0.0, 1.0]");
+    }
+    int nextId = 0;
+    for (Edge e : this.edges) {
+      nextId = Math.max(nextId, e.getId() + 1);
+    }
+    Cell[] walled = new Cell[Direction.ALL.length];
+    int opened = 0;
+    for (ArrayList<Cell> row : this.grid) {
+      for (Cell cell : row) {
+        if (cell.getConnections().size() == 1 && rand.nextDouble() < fraction) {
+          // the neighbors behind a wall, with any dead ends first
+          int count = 0;
+          int deadEnds = 0;
+          for (Direction d : Direction.ALL) {
+            Cell other = this.cellAt(cell.getPosition().x + d.dx, cell.getPosition().y + d.dy);
+            if (other != null && !cell.hasNeighbor(d)) {
+              walled[count] = other;
+              if (other.getConnections().size() == 1) {
+                walled[count] = walled[deadEnds];
+                walled[deadEnds] = other;
+                deadEnds += 1;
+              }
+              count += 1;
+            }
+          }
+          Cell chosen = walled[rand.nextInt(deadEnds > 0 ? deadEnds : count)];
+          Edge opening = new Edge(cell, chosen, rand.nextDouble() * 50 + 25);
+          opening.assignId(nextId);
+          nextId += 1;
+          this.edges.add(opening);
+          opened += 1;
+        }
+      }
+    }
+    return opened;
+  }
+
+  // the cell at the given column and row, or null if that's outside the grid
+  Cell cellAt(int x, int y) {
+    if (x < 0 || x >= this.dimensions.x || y < 0 || y >= this.dimensions.y) {
+      return null;
+    }
+    return this.grid.get(y).get(x);
+  }
+
+  // EFFECT: replaces this maze's terrain with random costs in [1, maxCost] derived from
+  // the given seed, so the same seed always produces the same terrain
+  void generateTerrain(long seed, int maxCost) {
+    if (maxCost < 1) {
+      throw new IllegalArgumentException("The maximum terrain cost must be at least 1.");
+    }
+    Random rand = new Random(seed);
+    int[] costs = new int[this.dimensions.x * this.dimensions.y];
+    for (int index = 0; index < costs.length; index += 1) {
+      costs[index] = rand.nextInt(maxCost) + 1;
+    }
+    this.terrainCosts = costs;
+  }
+
+  // EFFECT: replaces this maze's terrain with a copy of the given costs, indexed by
+  // (row * columns + column)
+  // throws an error if there isn't exactly one positive cost per cell
+  void assignTerrain(int[] costs) {
+    if (costs.length != this.dimensions.x * this.dimensions.y) {
+      throw new IllegalArgumentException("There must be exactly one cost per cell.");
+    }
+    for (int cost : costs) {
+      if (cost < 1) {
+        throw new IllegalArgumentException("Every terrain cost must be at least 1.");
+      }
+    }
+    this.terrainCosts = costs.clone();
   }
 
   // add all the cells to the grid (with an empty list of connections to adjacent
@@ -126,7 +232,8 @@ class Maze {
     for (int ycoord = 0; ycoord < this.dimensions.y; ycoord += 1) {
       ArrayList<Cell> cellsInRow = new ArrayList<>();
       for (int xcoord = 0; xcoord < this.dimensions.x; xcoord += 1) {
-        cellsInRow.add(new Cell(new Posn(xcoord, ycoord)));
+        cellsInRow.add(new Cell(new GridPosn(xcoord, ycoord),
+            ycoord * this.dimensions.x + xcoord));
       }
       this.grid.add(cellsInRow);
     }
@@ -138,11 +245,18 @@ class Maze {
   // created edges to this' list of global edges and sorts them by increasing
   // weight
   ArrayList<Edge> initializeEdges(double bias) {
-    ArrayList<Edge> edges = new ArrayList<Edge>();
+    return this.initializeEdges(bias, new Random());
+  }
+
+  // connects every cell in the initial grid with its four neighbors, as above, with
+  // weights from the given random
+  ArrayList<Edge> initializeEdges(double bias, Random rand) {
+    ArrayList<Edge> edges = new ArrayList<Edge>(2 * this.dimensions.x * this.dimensions.y);
     // initialize the top row's horizontal edges
     ArrayList<Cell> currRow = this.grid.get(0);
     for (int xcoord = 1; xcoord < this.dimensions.x; xcoord += 1) {
-      edges.add(new Edge(bias, currRow.get(xcoord - 1), currRow.get(xcoord))); // left
+      edges.add(this.weighedEdge(currRow.get(xcoord - 1), currRow.get(xcoord), bias,
+          rand)); // left
     }
 
     // initialize all the horizontal and vertical edges for the other rows
@@ -151,34 +265,51 @@ class Maze {
       currRow = this.grid.get(ycoord);
 
       // add vertical edges to all the left column cells
-      edges.add(new Edge(bias, prevRow.get(0), currRow.get(0)));
+      edges.add(this.weighedEdge(prevRow.get(0), currRow.get(0), bias, rand));
 
       // for every cell not in the very top row or very leftmost column, create a
       // vertical edge between it and the cell above, and a horizontal edge 
       // between it and the cell to the left
       for (int xcoord = 1; xcoord < this.dimensions.x; xcoord += 1) {
-        edges.add(new Edge(bias, currRow.get(xcoord - 1), currRow.get(xcoord))); // left
-        edges.add(new Edge(bias, prevRow.get(xcoord), currRow.get(xcoord))); // up
+        edges.add(this.weighedEdge(currRow.get(xcoord - 1), currRow.get(xcoord), bias,
+            rand)); // left
+        edges.add(this.weighedEdge(prevRow.get(xcoord), currRow.get(xcoord), bias,
+            rand)); // up
       }
     }
 
+    for (int index = 0; index < edges.size(); index += 1) {
+      edges.get(index).assignId(index);
+    }
     return edges;
   }
 
+  // a new edge between the two given cells with a weight from the given random, biased as
+  // Utils.generateEdgeWeight biases it
+  // EFFECT: adds the edge to both cells
+  Edge weighedEdge(Cell cell1, Cell cell2, double bias, Random rand) {
+    return new Edge(cell1, cell2, new Utils().generateEdgeWeight(cell1, cell2, bias, rand));
+  }
+
   // set edges to a minimum spanning tree of edges connecting the cells in the
   // grid
   ArrayList<Edge> generateMaze(ArrayList<Edge> initialEdges) {
 
     // sort the edges based on weight from smallest to largest
+    long began = System.nanoTime();
     initialEdges.sort(new EdgeWeightComparator());
+    long sorted = System.nanoTime();
+    this.profile.sortNanos = sorted - began;
 
-    HashMap<Posn, Posn> reps = this.initialRepresentatives();
+    int[] reps = this.initialRepresentatives();
     ArrayList<Edge> edgesInTree = new ArrayList<Edge>();
     ArrayList<Edge> worklist = initialEdges;// all edges in graph, sorted by edge weights;
 
     // keep looping until there are enough connections to form a spanning tree
     // If the edges do not create any cycles, then exactly 'n - 1' edges are needed,
     // where 'n' is total number of cells (width * height)
+    // the worklist is walked by index rather than removed from the front, which would
+    // shift every remaining edge along on each step
 
     // TERMINATION: As long as there are fewer than 'n - 1' edges in 'edgesInTree'
     // there is at least one cell not a part of the spanning tree, so eventually
@@ -186,14 +317,17 @@ class Maze {
     // and
     // add it to 'edgesInTree'. The tree will be spanning before the worklist runs
     // out of edges
+    int nextIndex = 0;
     while (edgesInTree.size() < (this.dimensions.x * this.dimensions.y - 1)) {
-      Edge next = worklist.remove(0);
-      Pair<Posn> cellPosns = next.connectedCellPositions();
+      Edge next = worklist.get(nextIndex);
+      nextIndex += 1;
+      Pair<Cell> cells = next.getConnectedCells();
+      int firstRep = this.findRepresentative(cells.first.getId(), reps);
+      int secondRep = this.findRepresentative(cells.second.getId(), reps);
       // Determine if the edge connects two cells already connected or not
-      if (!(this.findRepresentative(cellPosns.first, reps)
-          .equals(this.findRepresentative(cellPosns.second, reps)))) {
+      if (firstRep != secondRep) {
         edgesInTree.add(next);
-        reps.replace(this.findRepresentative(cellPosns.first, reps), cellPosns.second);
+        reps[firstRep] = secondRep;
       }
       else {
         next.removeSelf();
@@ -201,9 +335,12 @@ class Maze {
     }
 
     // remove the remaining edges that are not a part of the spanning tree
-    for (Edge toRemove : worklist) {
-      toRemove.removeSelf();
+    for (int index = nextIndex; index < worklist.size(); index += 1) {
+      worklist.get(index).removeSelf();
     }
+    this.profile.unionFindNanos = System.nanoTime() - sorted;
+    this.profile.edgesConsidered = nextIndex;
+    this.profile.edgesAccepted = edgesInTree.size();
 
     // replace edges (previously all the possible connections between cells in the
     // maze grid)
@@ -212,84 +349,34 @@ class Maze {
     return edgesInTree;
   }
 
-  // find the representative of a given position in the given hashmap of
-  // representatives
-  Posn findRepresentative(Posn cellPosn, HashMap<Posn, Posn> reps) {
-    while (!reps.get(cellPosn).equals(cellPosn)) {
-      cellPosn = reps.get(cellPosn);
+  // find the representative of the cell with the given id in the given array of
+  // representatives, which is indexed by cell id
+  // EFFECT: points every other cell on the way at its grandparent (path halving), so
+  // chains of representatives stay short however the sets were joined
+  // EFFECT: counts each step up the chain in the profile
+  int findRepresentative(int cellId, int[] reps) {
+    long steps = 0;
+    while (reps[cellId] != cellId) {
+      reps[cellId] = reps[reps[cellId]];
+      cellId = reps[cellId];
+      steps += 1;
     }
-    return cellPosn;
+    this.profile.unionFindSteps += steps;
+    return cellId;
   }
 
-  // initialize a list of representatives for each position in the grid by letting
-  // each position
-  // represent itself
-  HashMap<Posn, Posn> initialRepresentatives() {
-    HashMap<Posn, Posn> representatives = new HashMap<Posn, Posn>();
-    for (int ycoord = 0; ycoord < this.dimensions.y; ycoord += 1) {
-      for (int xcoord = 0; xcoord < this.dimensions.x; xcoord += 1) {
-        representatives.put(new Posn(xcoord, ycoord), new Posn(xcoord, ycoord));
-      }
+  // initialize the representatives of every cell in the grid, indexed by cell id, by
+  // letting each cell represent itself
+  // cell ids are their packed positions, (row * columns + column), so union/find runs
+  // over one int array rather than a map of Posns
+  int[] initialRepresentatives() {
+    int[] representatives = new int[this.dimensions.x * this.dimensions.y];
+    for (int id = 0; id < representatives.length; id += 1) {
+      representatives[id] = id;
     }
     return representatives;
   }
 
-  // initialize the background of the maze by covering up connections that are
-  // part of the minimum
-  // spanning tree of the maze
-  WorldScene initializeBackground() {
-    WorldScene backgroundScene = new WorldScene(this.dimensions.x * IConstant.CELL_WIDTH,
-        this.dimensions.y * IConstant.CELL_WIDTH);
-    backgroundScene.placeImageXY(this.background, this.dimensions.x * IConstant.CELL_WIDTH / 2, 
-        this.dimensions.y * IConstant.CELL_WIDTH / 2);
-    this.removeWalls(backgroundScene);
-    return backgroundScene;
-  }
-
-  // visually remove all the walls in the maze that shouldn't be there by placing
-  // a background
-  // square over every connection in the list of edges that make up the maze's
-  // minimum spanning
-  // tree
-  void removeWalls(WorldScene backgroundScene) {
-    for (Edge edge : edges) {
-      Pair<Posn> cellPosns = edge.connectedCellPositions();
-      int wallX = (IConstant.CELL_WIDTH * (cellPosns.first.x + cellPosns.second.x + 1)) / 2;
-      int wallY = (IConstant.CELL_WIDTH * (cellPosns.first.y + cellPosns.second.y + 1)) / 2;
-      backgroundScene.placeImageXY(IConstant.BLANK_CELL_IMG, wallX, wallY);
-    }
-  }
-
-  // creates a background image of all the cells with all their walls still up
-  WorldImage drawBackground() {
-    WorldImage background = new EmptyImage();
-    for (ArrayList<Cell> row : this.grid) {
-      WorldImage rowImg = new EmptyImage();
-      for (Cell cell : row) {
-        rowImg = new BesideImage(rowImg, IConstant.CELL_IMG);
-      }
-      background = new AboveImage(background, rowImg);
-    }
-    return background;
-  }
-
-  // creates the scene representing the current state of this maze
-  WorldScene makeScene() {
-    Utils u = new Utils();
-    // make the maze by visually covering all the edges that make up the minimum
-    // spanning tree
-    WorldScene backgroundScene = this.initializeBackground();
-
-    // draw the start and end position with separate colors to visually distinguish
-    // them
-    u.drawImageAtCellCoordinates(backgroundScene, IConstant.START_IMG, new Posn(0, 0));
-
-    u.drawImageAtCellCoordinates(backgroundScene, IConstant.END_IMG,
-        u.addPosn(this.dimensions, new Posn(-1, -1)));
-
-    return backgroundScene;
-  }
-
   // create a new automatic searcher for this maze based on whether it's BFS or DFS
   IMazeTraverser initializeAutomaticSearch(boolean breadthFirst) {
     Utils u = new Utils();
@@ -302,14 +389,56 @@ class Maze {
       forSearch = new Stack<Cell>();
     }
     return new AutomaticSearch(this.getStart(), forSearch,
-        u.addPosn(this.dimensions, new Posn(-1, -1)));
+        u.addPosn(this.dimensions, new GridPosn(-1, -1)), this.metrics);
+  }
+
+  // create a new weighted search for this maze that finds the cheapest path through
+  // the terrain
+  IMazeTraverser initializeDijkstraSearch() {
+    Utils u = new Utils();
+
+    return new DijkstraSearch(this.getStart(),
+        u.addPosn(this.dimensions, new GridPosn(-1, -1)), this.terrainCosts,
+        this.dimensions.x);
+  }
+
+  // the given name of a traverser, if it's one traverserFor knows: bfs, dfs or dijkstra
+  // throws an error for any other name
+  static String checkTraverser(String traverser) {
+    switch (traverser) {
+      case "bfs":
+      case "dfs":
+      case "dijkstra":
+        return traverser;
+      default:
+        throw new IllegalArgumentException("The traverser must be one of: bfs, dfs, dijkstra");
+    }
+  }
+
+  // a new search of this maze by the named traverser: breadth first for bfs, depth first
+  // for dfs, and for dijkstra a weighted search through terrain generated from the given
+  // seed, as the worlds make it, so that it finds the cheapest path rather than the
+  // shortest
+  // EFFECT: for dijkstra, replaces this maze's terrain
+  // throws an error if the name isn't one of bfs, dfs and dijkstra
+  IMazeTraverser traverserFor(String traverser, long terrainSeed) {
+    switch (Maze.checkTraverser(traverser)) {
+      case "bfs":
+        return this.initializeAutomaticSearch(true);
+      case "dfs":
+        return this.initializeAutomaticSearch(false);
+      default:
+        this.generateTerrain(terrainSeed, IConstant.MAX_TERRAIN_COST);
+        return this.initializeDijkstraSearch();
+    }
   }
 
   // create a new manual search for this maze
   IMazeTraverser initializeManualSearch() {
     Utils u = new Utils();
 
-    return new ManualSearch(this.getStart(), u.addPosn(this.dimensions, new Posn(-1, -1)));
+    return new ManualSearch(this.getStart(),
+        u.addPosn(this.dimensions, new GridPosn(-1, -1)));
   }
 
   // return cell at the starting position of this maze
@@ -328,8 +457,47 @@ class Maze {
     return this.edges;
   }
   
+  // gets the cost of entering the cell at the given grid position
+  int getTerrainCost(GridPosn cellPosn) {
+    return this.terrainCosts[cellPosn.y * this.dimensions.x + cellPosn.x];
+  }
+
   // gets the maze's dimensions
-  Posn getDimensions() {
+  GridPosn getDimensions() {
     return this.dimensions;
   }
+
+  // the graph of this maze's passages, with each cell's neighbors in the order its
+  // connections were made, for searching it with the headless CsrSearch
+  CsrGraph passageGraph() {
+    GridPosn dimensions = this.getDimensions();
+    int vertices = dimensions.x * dimensions.y;
+    int[] offsets = new int[vertices + 1];
+    ArrayList<ArrayList<Cell>> grid = this.getGrid();
+    for (ArrayList<Cell> row : grid) {
+      for (Cell cell : row) {
+        offsets[cell.getId() + 1] = cell.getConnections().size();
+      }
+    }
+    for (int v = 0; v < vertices; v += 1) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] neighbors = new int[offsets[vertices]];
+    for (ArrayList<Cell> row : grid) {
+      for (Cell cell : row) {
+        ArrayList<Edge> connections = cell.getConnections();
+        for (int i = 0; i < connections.size(); i += 1) {
+          neighbors[offsets[cell.getId()] + i] = connections.get(i).findOther(cell).getId();
+        }
+      }
+    }
+    boolean[] included = new boolean[vertices];
+    Arrays.fill(included, true);
+    return new CsrGraph(dimensions.x, dimensions.y, offsets, neighbors, included);
+  }
+
+  // how long each phase of generating this maze took
+  GenerationProfile getProfile() {
+    return this.profile;
+  }
 }
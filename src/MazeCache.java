@@ -0,0 +1,295 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+// the mazes and solution paths a MazeService has made recently, kept within a budget of
+// bytes so that popular seeds aren't generated and solved again on every request
+// the mazes are the Maze the worlds show, solved by its own traversers, and are kept as
+// the passages of a LayeredMaze of one level, which takes a fraction of the memory
+// a maze is the same for the same dimensions, bias and seed, and a path the same for the
+// same maze and traverser, so nothing cached ever goes stale
+// entries are evicted least recently used first, through a LinkedHashMap in access order
+// every method holds the cache's lock only to look up, add or evict entries; mazes are
+// generated and solved outside it, so two threads missing the same key at once can both
+// make it, and the first one added is kept
+class MazeCache {
+
+  // the bytes an entry costs beyond its value: the map's node and its table slot, and the
+  // key, on a 64-bit JVM without compressed pointers
+  static final long ENTRY_BYTES = 112;
+
+  // the most bytes the cached values and their entries may take together
+  private final long budgetBytes;
+
+  // every cached maze and path, least recently used first
+  private final LinkedHashMap<MazeKey, CachedValue> entries;
+
+  // the bytes taken by the cached values and their entries
+  private long bytes;
+
+  // the lookups of mazes that found their maze, and the ones that had to generate it
+  private long mazeHits;
+  private long mazeMisses;
+
+  // the lookups of paths that found their path, and the ones that had to search for it
+  private long pathHits;
+  private long pathMisses;
+
+  // the entries evicted to stay within the budget
+  private long evictions;
+
+  // told about every maze generated and every automatic search of one
+  private final IMazeMetrics metrics;
+
+  // constructor for an empty cache that holds at most the given number of bytes, and
+  // tells no metrics about what it makes
+  MazeCache(long budgetBytes) {
+    this(budgetBytes, IMazeMetrics.NONE);
+  }
+
+  // constructor for an empty cache that holds at most the given number of bytes, and
+  // tells the given metrics about every maze it generates and every automatic search
+  MazeCache(long budgetBytes, IMazeMetrics metrics) {
+    if (budgetBytes < 0) {
+      throw new IllegalArgumentException("The cache's budget can't be negative.");
+    }
+    this.budgetBytes = budgetBytes;
+    this.entries = new LinkedHashMap<MazeKey, CachedValue>(16, 0.75f, true);
+    this.metrics = metrics;
+  }
+
+  // the maze with the given key, generated if it isn't cached
+  LayeredMaze maze(MazeKey key) {
+    CachedValue cached = this.lookUp(key);
+    if (cached != null) {
+      return cached.maze;
+    }
+    return this.addMaze(key, this.generate(key));
+  }
+
+  // the path the named traverser finds through the maze with the given key, found if it
+  // isn't cached
+  // the maze is generated again to be searched, and cached too if it wasn't already
+  // throws an error if the traverser isn't one of bfs, dfs and dijkstra, before anything
+  // is looked up or generated
+  MazeSolution solution(MazeKey key, String traverser) {
+    MazeKey solvedKey = key.solvedBy(traverser);
+    CachedValue cached = this.lookUp(solvedKey);
+    if (cached != null) {
+      return cached.solution;
+    }
+    Maze maze = this.generate(key);
+    long began = System.nanoTime();
+    IMazeTraverser search = maze.traverserFor(traverser, key.seed);
+    while (!search.searchComplete()) {
+      new OnTickTraverser().apply(search);
+    }
+    SearchResult result = search.result();
+    MazeSolution solution = new MazeSolution(BatchSolver.cellsOf(result, key.columns),
+        result.getWrongMoves(), System.nanoTime() - began);
+    this.addMaze(key, maze);
+    return this.add(solvedKey, new CachedValue(null, solution,
+        MazeCache.bytesOf(solution))).solution;
+  }
+
+  // a new maze made from the given key, which tells this cache's metrics about itself
+  Maze generate(MazeKey key) {
+    return new Maze(key.rows, key.columns, key.bias, new Random(key.seed), this.metrics);
+  }
+
+  // EFFECT: caches the passages of the given maze with the given key, unless another
+  // thread already has
+  // returns the passages cached with the key
+  private LayeredMaze addMaze(MazeKey key, Maze maze) {
+    LayeredMaze flat = LayeredMaze.of(maze);
+    return this.add(key, new CachedValue(flat, null, MazeCache.bytesOf(flat))).maze;
+  }
+
+  // the cached value with the given key, or null if there isn't one, counting a hit or a
+  // miss of a maze or of a path, as the key is for one or the other
+  private synchronized CachedValue lookUp(MazeKey key) {
+    CachedValue cached = this.entries.get(key);
+    if (key.traverser == null) {
+      if (cached == null) {
+        this.mazeMisses += 1;
+      } else {
+        this.mazeHits += 1;
+      }
+    } else {
+      if (cached == null) {
+        this.pathMisses += 1;
+      } else {
+        this.pathHits += 1;
+      }
+    }
+    return cached;
+  }
+
+  // EFFECT: caches the given value with the given key, unless another thread already has,
+  // evicting the least recently used entries until the cache is within its budget
+  // a value larger than the whole budget isn't cached
+  // returns the value cached with the key, or the given one if it wasn't cached
+  private synchronized CachedValue add(MazeKey key, CachedValue value) {
+    CachedValue existing = this.entries.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    if (value.bytes > this.budgetBytes) {
+      return value;
+    }
+    this.entries.put(key, value);
+    this.bytes += value.bytes;
+    Iterator<Map.Entry<MazeKey, CachedValue>> oldest = this.entries.entrySet().iterator();
+    while (this.bytes > this.budgetBytes) {
+      this.bytes -= oldest.next().getValue().bytes;
+      oldest.remove();
+      this.evictions += 1;
+    }
+    return value;
+  }
+
+  // the bytes the given maze takes in the cache, with its entry
+  static long bytesOf(LayeredMaze maze) {
+    long words = (maze.cellCount() + LayeredMaze.CELLS_PER_WORD - 1)
+        / LayeredMaze.CELLS_PER_WORD;
+    return ENTRY_BYTES + 40 + MazeCache.aligned(16 + 8 * words);
+  }
+
+  // the bytes the given solution takes in the cache, with its entry
+  static long bytesOf(MazeSolution solution) {
+    return ENTRY_BYTES + 40 + MazeCache.aligned(16 + 4L * solution.cells.length);
+  }
+
+  // the given size rounded up to a multiple of 8, as objects are laid out
+  static long aligned(long size) {
+    return (size + 7) / 8 * 8;
+  }
+
+  // the number of mazes and paths cached
+  synchronized int size() {
+    return this.entries.size();
+  }
+
+  // the bytes taken by the cached values and their entries
+  synchronized long bytes() {
+    return this.bytes;
+  }
+
+  // is there a value cached with the given key?
+  // doesn't count as a use of it
+  synchronized boolean contains(MazeKey key) {
+    return this.entries.containsKey(key);
+  }
+
+  // EFFECT: adds the cache's counts to the given report
+  synchronized void addTo(BenchmarkReport report) {
+    report.addValue("cache maze hits", "lookups", this.mazeHits);
+    report.addValue("cache maze misses", "lookups", this.mazeMisses);
+    report.addValue("cache path hits", "lookups", this.pathHits);
+    report.addValue("cache path misses", "lookups", this.pathMisses);
+    report.addValue("cache evictions", "entries", this.evictions);
+    report.addValue("cache entries", "entries", this.entries.size());
+    report.addValue("cache bytes", "bytes", this.bytes);
+  }
+}
+
+// what a maze or a solution path is cached under: the maze's dimensions, bias and seed,
+// and for a path the name of the traverser that found it
+class MazeKey {
+
+  // the dimensions, bias and seed of the maze
+  final int rows;
+  final int columns;
+  final double bias;
+  final long seed;
+
+  // the name of the traverser that searched the maze, or null for the maze itself
+  final String traverser;
+
+  // constructor for the key of a maze
+  MazeKey(int rows, int columns, double bias, long seed) {
+    this(rows, columns, bias, seed, null);
+  }
+
+  // constructor for the key of a maze or a path through it
+  // a bias of -0.0 makes the same maze as 0.0, so it's kept as 0.0 to be equal to it
+  // throws an error if the traverser isn't null or one of bfs, dfs and dijkstra
+  MazeKey(int rows, int columns, double bias, long seed, String traverser) {
+    this.rows = rows;
+    this.columns = columns;
+    this.bias = bias == 0 ? 0.0 : bias;
+    this.seed = seed;
+    this.traverser = traverser == null ? null : Maze.checkTraverser(traverser);
+  }
+
+  // the key of the path through this key's maze found by the named traverser
+  MazeKey solvedBy(String traverser) {
+    return new MazeKey(this.rows, this.columns, this.bias, this.seed, traverser);
+  }
+
+  // is the given object a key for the same maze, or the same path?
+  public boolean equals(Object other) {
+    if (!(other instanceof MazeKey)) {
+      return false;
+    }
+    MazeKey that = (MazeKey) other;
+    return this.rows == that.rows && this.columns == that.columns
+        && Double.doubleToLongBits(this.bias) == Double.doubleToLongBits(that.bias)
+        && this.seed == that.seed
+        && (this.traverser == null ? that.traverser == null
+            : this.traverser.equals(that.traverser));
+  }
+
+  // a hash code that agrees with equals
+  public int hashCode() {
+    long hash = this.rows;
+    hash = hash * 31 + this.columns;
+    hash = hash * 31 + Double.doubleToLongBits(this.bias);
+    hash = hash * 31 + this.seed;
+    hash = hash * 31 + (this.traverser == null ? -1 : this.traverser.hashCode());
+    return (int) (hash ^ (hash >>> 32));
+  }
+}
+
+// the path a search found through a maze, from the target back to the start, the cells
+// it processed that aren't on the path, and how long it took
+class MazeSolution {
+
+  // the cells on the path, from the target back to the start
+  final int[] cells;
+
+  // the number of cells processed that are not a part of the path
+  final int wrongMoves;
+
+  // the time the search took, in nanoseconds
+  final long solveNanos;
+
+  // constructor
+  MazeSolution(int[] cells, int wrongMoves, long solveNanos) {
+    this.cells = cells;
+    this.wrongMoves = wrongMoves;
+    this.solveNanos = solveNanos;
+  }
+}
+
+// a maze or a solution path in a MazeCache, and the bytes it takes there
+// exactly one of the maze and the solution is null
+class CachedValue {
+
+  // the maze cached, or null
+  final LayeredMaze maze;
+
+  // the path cached, or null
+  final MazeSolution solution;
+
+  // the bytes the value takes, with its entry
+  final long bytes;
+
+  // constructor
+  CachedValue(LayeredMaze maze, MazeSolution solution, long bytes) {
+    this.maze = maze;
+    this.solution = solution;
+    this.bytes = bytes;
+  }
+}
@@ -0,0 +1,89 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+// the events the maze records to the JDK Flight Recorder, so a recording shows what the
+// mazes were doing next to the garbage collections and other JVM events around them
+// each event is begun before the work it describes and committed after, so its duration
+// is the work's; an event made while the recorder isn't recording it costs next to
+// nothing, and isn't kept
+// none records a stack trace, since they all come from the same few places
+
+// a maze was generated
+@Name("maze.Generation")
+@Label("Maze Generation")
+@Category("Maze")
+@Description("A maze was generated, from making its cells to keeping its spanning tree")
+@StackTrace(false)
+class MazeGenerationEvent extends Event {
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Bias")
+  double bias;
+
+  @Label("Edges Considered")
+  long edgesConsidered;
+
+  @Label("Sort Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long sortNanos;
+
+  @Label("Union/Find Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long unionFindNanos;
+}
+
+// an automatic search reached its target
+// the event begins with the search's first step, so its duration includes any pauses
+// between steps, like the ticks of a world
+@Name("maze.SearchCompleted")
+@Label("Maze Search Completed")
+@Category("Maze")
+@Description("An automatic search reached the end of its maze")
+@StackTrace(false)
+class SearchCompletedEvent extends Event {
+
+  @Label("Traverser")
+  @Description("bfs, dfs, or the class of the worklist for any other")
+  String traverser;
+
+  @Label("Cells Expanded")
+  long cellsExpanded;
+
+  @Label("Path Length")
+  int pathLength;
+
+  @Label("Worklist High-Water Mark")
+  int worklistHighWater;
+}
+
+// a frame of a world took longer to make than the threshold
+// the recorder only keeps frames slower than the threshold, which a recording's settings
+// can change; the default is a little over one frame at 60 frames a second
+@Name("maze.SlowFrame")
+@Label("Slow Maze Frame")
+@Category("Maze")
+@Description("MazeWorld.makeScene took longer than the threshold")
+@StackTrace(false)
+@Threshold("20 ms")
+class SlowFrameEvent extends Event {
+
+  @Label("Cells Drawn")
+  int cellsDrawn;
+
+  @Label("Whole Maze Shown")
+  boolean wholeMaze;
+
+  @Label("Levels Shown")
+  boolean levels;
+}
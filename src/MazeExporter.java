@@ -0,0 +1,219 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+// To tell whether a traverser makes progress on a tick, and so can be run without keys
+class AdvancesOnTick implements IMazeTraverserVisitor<Boolean> {
+
+  // Apply this to the given IMazeTraverser
+  public Boolean apply(IMazeTraverser arg) {
+    return arg.accept(this);
+  }
+
+  // Manual search only moves on key presses
+  public Boolean visitManualSearch(ManualSearch ms) {
+    return false;
+  }
+
+  // Automatic search is incremented on a tick
+  public Boolean visitAutomaticSearch(AutomaticSearch as) {
+    return true;
+  }
+
+  // Weighted search is incremented on a tick
+  public Boolean visitDijkstraSearch(DijkstraSearch ds) {
+    return true;
+  }
+}
+
+// runs a search over a maze without a World or a display, writing PNG images of its
+// progress
+// each image is painted as horizontal stripes of cell rows, one task per stripe on a
+// thread pool, into buffers that only their own task touches
+class MazeExporter {
+
+  // the maze being searched
+  private final Maze maze;
+
+  // whether every visited cell is drawn, or just the most recently visited one
+  private final boolean viewVisited;
+
+  // what every cell of the maze looks like, kept up to date as the search goes
+  private final CellStates states;
+
+  // the threads stripes are painted on
+  private final ExecutorService pool;
+
+  // the number of stripes each image is split into
+  private final int stripes;
+
+  // constructor for images of the given maze, painted on the given number of threads
+  MazeExporter(Maze maze, boolean viewVisited, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("The number of threads must be at least 1.");
+    }
+    this.maze = maze;
+    this.viewVisited = viewVisited;
+    this.states = new CellStates(maze, new TileAtlas());
+    this.pool = Executors.newFixedThreadPool(threads);
+    // a few stripes per thread, so one slow stripe doesn't hold up the rest
+    this.stripes = Math.min(maze.getDimensions().y, 4 * threads);
+  }
+
+  // EFFECT: runs the given search to completion, writing an image to the given directory
+  // after every given number of steps and after the final step, or only after the final
+  // step if the number of steps is 0
+  // returns the files written, in order; each is named with the prefix and its step
+  ArrayList<File> export(IMazeTraverser traverser, int everySteps, File directory,
+      String prefix) throws IOException {
+    if (everySteps < 0) {
+      throw new IllegalArgumentException("The number of steps between images can't be negative.");
+    }
+    if (!new AdvancesOnTick().apply(traverser)) {
+      throw new IllegalArgumentException("Only searches that advance on ticks can be exported.");
+    }
+    ArrayList<File> written = new ArrayList<File>();
+    DrawCursor cursor = new DrawCursor();
+    this.states.clearOverlays();
+    int step = 0;
+    boolean wroteLast = false;
+    while (!traverser.searchComplete()) {
+      new OnTickTraverser().apply(traverser);
+      step += 1;
+      wroteLast = everySteps > 0 && step % everySteps == 0;
+      if (wroteLast) {
+        written.add(this.write(traverser, cursor, directory, prefix, step));
+      }
+    }
+    if (!wroteLast) {
+      written.add(this.write(traverser, cursor, directory, prefix, step));
+    }
+    return written;
+  }
+
+  // EFFECT: brings the cell states up to the given search's and writes them as an image
+  // returns the file written
+  private File write(IMazeTraverser traverser, DrawCursor cursor, File directory,
+      String prefix, int step) throws IOException {
+    new DrawTraverserChanges(this.states, this.viewVisited, cursor).apply(traverser);
+    File file = new File(directory, String.format("%s-%06d.png", prefix, step));
+    ImageIO.write(this.paint().getImage(), "png", file);
+    return file;
+  }
+
+  // returns a new image of the whole maze and its search as recorded in the cell states,
+  // painted one stripe per task
+  FrameBuffer paint() {
+    int columns = this.states.columns;
+    int rows = this.states.rows;
+    FrameBuffer frame = new FrameBuffer(columns * IConstant.CELL_WIDTH,
+        rows * IConstant.CELL_WIDTH);
+    ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (int stripe = 0; stripe < this.stripes; stripe += 1) {
+      int firstRow = stripe * rows / this.stripes;
+      int lastRow = (stripe + 1) * rows / this.stripes - 1;
+      tasks.add(new StripePainter(this.states, frame, firstRow, lastRow));
+    }
+    try {
+      for (Future<Void> done : this.pool.invokeAll(tasks)) {
+        done.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Painting was interrupted.", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("A stripe couldn't be painted.", e.getCause());
+    }
+    return frame;
+  }
+
+  // the cell states being painted
+  CellStates getStates() {
+    return this.states;
+  }
+
+  // EFFECT: stops the threads stripes are painted on; no more images can be painted
+  void shutdown() {
+    this.pool.shutdown();
+  }
+
+  // EFFECT: makes a maze with the given options and writes images of the named
+  // traverser searching it, for use on machines without a display
+  // the same options always write the same images: the maze and dijkstra's terrain are
+  // both made from the seed
+  // returns the files written, in order
+  // usage: MazeExporter --out directory [--rows 100] [--columns 100] [--bias 0] [--seed 1]
+  //   [--traverser bfs|dfs|dijkstra] [--every 0] [--threads N]
+  // an --every of 0 writes only the final image
+  static ArrayList<File> run(BenchmarkArgs options) throws IOException {
+    File directory = options.file("out");
+    if (directory == null) {
+      throw new IllegalArgumentException("The images need an --out directory.");
+    }
+    String name = Maze.checkTraverser(options.string("traverser", "bfs"));
+    long seed = options.longInteger("seed", 1);
+    int everySteps = options.integer("every", 0);
+    Maze maze = new Maze(options.integer("rows", 100), options.integer("columns", 100),
+        options.number("bias", 0), new Random(seed));
+    IMazeTraverser traverser = maze.traverserFor(name, seed);
+    directory.mkdirs();
+    MazeExporter exporter = new MazeExporter(maze, true,
+        options.integer("threads", Runtime.getRuntime().availableProcessors()));
+    try {
+      return exporter.export(traverser, everySteps, directory, name);
+    } finally {
+      exporter.shutdown();
+    }
+  }
+
+  // writes the images of a search with the given options and says where they went
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    BenchmarkArgs options = new BenchmarkArgs(args);
+    ArrayList<File> written = MazeExporter.run(options);
+    System.out.println("Wrote " + written.size() + " images to "
+        + options.file("out").getPath());
+  }
+}
+
+// paints one horizontal stripe of cell rows into its own buffer, then copies it into its
+// rows of the whole image, which no other stripe writes to
+class StripePainter implements Callable<Void> {
+
+  // the cell states being painted, which aren't changed while stripes are painted
+  private final CellStates states;
+
+  // the whole image
+  private final FrameBuffer frame;
+
+  // the first and last rows of cells in this stripe
+  private final int firstRow;
+  private final int lastRow;
+
+  // constructor
+  StripePainter(CellStates states, FrameBuffer frame, int firstRow, int lastRow) {
+    this.states = states;
+    this.frame = frame;
+    this.firstRow = firstRow;
+    this.lastRow = lastRow;
+  }
+
+  // EFFECT: paints this stripe into its rows of the whole image
+  public Void call() {
+    int top = this.firstRow * IConstant.CELL_WIDTH;
+    FrameBuffer stripe = new FrameBuffer(this.frame.width,
+        (this.lastRow - this.firstRow + 1) * IConstant.CELL_WIDTH);
+    this.states.paintCells(stripe, 0, top, 0, this.firstRow, this.states.columns - 1,
+        this.lastRow);
+    this.frame.pasteRows(stripe, top);
+    return null;
+  }
+}
@@ -0,0 +1,689 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+// the shape of a board: which cells of a columns x rows block exist, and which cells
+// each one is adjacent to
+// cells are numbered (row * columns + column), like the ids of a Maze's cells
+interface ITopology {
+
+  // the number of columns and rows in the block the board fits in
+  int columns();
+
+  int rows();
+
+  // is the cell at the given column and row a part of the board?
+  boolean includes(int column, int row);
+
+  // the most cells any one cell can be adjacent to
+  int maxDegree();
+
+  // EFFECT: writes the numbers of the cells on the board adjacent to the included cell at
+  // the given column and row into the start of the given array, which has room for
+  // maxDegree of them
+  // returns how many were written
+  int adjacent(int column, int row, int[] into);
+}
+
+// a rectangular board where each cell is adjacent to the cells above, below, left and
+// right of it, in Direction slot order
+class SquareTopology implements ITopology {
+
+  private final int columns;
+  private final int rows;
+
+  // constructor
+  SquareTopology(int columns, int rows) {
+    if (columns < 1 || rows < 1) {
+      throw new IllegalArgumentException("The board must have at least one row and column.");
+    }
+    this.columns = columns;
+    this.rows = rows;
+  }
+
+  public int columns() {
+    return this.columns;
+  }
+
+  public int rows() {
+    return this.rows;
+  }
+
+  // every cell in the rectangle is on the board
+  public boolean includes(int column, int row) {
+    return column >= 0 && column < this.columns && row >= 0 && row < this.rows;
+  }
+
+  public int maxDegree() {
+    return 4;
+  }
+
+  // the neighbors that aren't off an edge of the rectangle
+  public int adjacent(int column, int row, int[] into) {
+    int count = 0;
+    for (Direction d : Direction.ALL) {
+      if (this.includes(column + d.dx, row + d.dy)) {
+        into[count] = (row + d.dy) * this.columns + column + d.dx;
+        count += 1;
+      }
+    }
+    return count;
+  }
+}
+
+// a rectangular board whose edges wrap around, so that stepping off the right leads onto
+// the left and stepping off the bottom leads onto the top
+class TorusTopology implements ITopology {
+
+  private final int columns;
+  private final int rows;
+
+  // constructor
+  TorusTopology(int columns, int rows) {
+    if (columns < 1 || rows < 1) {
+      throw new IllegalArgumentException("The board must have at least one row and column.");
+    }
+    this.columns = columns;
+    this.rows = rows;
+  }
+
+  public int columns() {
+    return this.columns;
+  }
+
+  public int rows() {
+    return this.rows;
+  }
+
+  public boolean includes(int column, int row) {
+    return column >= 0 && column < this.columns && row >= 0 && row < this.rows;
+  }
+
+  public int maxDegree() {
+    return 4;
+  }
+
+  // the four neighbors with wrapping, in Direction slot order
+  // a board only 1 or 2 wide meets itself when it wraps, so a cell is never adjacent to
+  // itself and never listed twice
+  public int adjacent(int column, int row, int[] into) {
+    int self = row * this.columns + column;
+    int count = 0;
+    for (Direction d : Direction.ALL) {
+      int wrappedColumn = Math.floorMod(column + d.dx, this.columns);
+      int wrappedRow = Math.floorMod(row + d.dy, this.rows);
+      int other = wrappedRow * this.columns + wrappedColumn;
+      if (other != self && !new GraphUtils().listed(into, count, other)) {
+        into[count] = other;
+        count += 1;
+      }
+    }
+    return count;
+  }
+}
+
+// a board of hexagons in rows, with every odd row shifted right by half a hexagon, so
+// that each cell is adjacent to two cells in its own row, two above and two below
+class HexTopology implements ITopology {
+
+  private final int columns;
+  private final int rows;
+
+  // the change in column to the upper-left and upper-right (or lower-left and
+  // lower-right) neighbors, for cells in even rows and in odd rows
+  private static final int[] EVEN_ROW_SHIFTS = new int[] {-1, 0};
+  private static final int[] ODD_ROW_SHIFTS = new int[] {0, 1};
+
+  // constructor
+  HexTopology(int columns, int rows) {
+    if (columns < 1 || rows < 1) {
+      throw new IllegalArgumentException("The board must have at least one row and column.");
+    }
+    this.columns = columns;
+    this.rows = rows;
+  }
+
+  public int columns() {
+    return this.columns;
+  }
+
+  public int rows() {
+    return this.rows;
+  }
+
+  public boolean includes(int column, int row) {
+    return column >= 0 && column < this.columns && row >= 0 && row < this.rows;
+  }
+
+  public int maxDegree() {
+    return 6;
+  }
+
+  // the neighbors upper-left, upper-right, left, right, lower-left and lower-right, that
+  // aren't off an edge of the board
+  public int adjacent(int column, int row, int[] into) {
+    int[] shifts = row % 2 == 0 ? EVEN_ROW_SHIFTS : ODD_ROW_SHIFTS;
+    int count = 0;
+    count = this.addIfIncluded(column + shifts[0], row - 1, into, count);
+    count = this.addIfIncluded(column + shifts[1], row - 1, into, count);
+    count = this.addIfIncluded(column - 1, row, into, count);
+    count = this.addIfIncluded(column + 1, row, into, count);
+    count = this.addIfIncluded(column + shifts[0], row + 1, into, count);
+    return this.addIfIncluded(column + shifts[1], row + 1, into, count);
+  }
+
+  // EFFECT: writes the number of the cell at the given column and row into the given
+  // array at the given count, if it's on the board
+  // returns the new count
+  private int addIfIncluded(int column, int row, int[] into, int count) {
+    if (!this.includes(column, row)) {
+      return count;
+    }
+    into[count] = row * this.columns + column;
+    return count + 1;
+  }
+}
+
+// another board with some of its cells cut out, so that mazes can take any shape
+class MaskedTopology implements ITopology {
+
+  // the board being cut from
+  private final ITopology base;
+
+  // whether each cell is kept, indexed by (row * columns + column)
+  private final boolean[] kept;
+
+  // constructor for the cells of the given board that the given mask keeps
+  MaskedTopology(ITopology base, boolean[] kept) {
+    if (kept.length != base.columns() * base.rows()) {
+      throw new IllegalArgumentException("The mask must have exactly one entry per cell.");
+    }
+    this.base = base;
+    this.kept = kept.clone();
+  }
+
+  public int columns() {
+    return this.base.columns();
+  }
+
+  public int rows() {
+    return this.base.rows();
+  }
+
+  // a cell is on the board if it is on the base board and the mask keeps it
+  public boolean includes(int column, int row) {
+    return this.base.includes(column, row)
+        && this.kept[row * this.base.columns() + column];
+  }
+
+  public int maxDegree() {
+    return this.base.maxDegree();
+  }
+
+  // the base board's neighbors that the mask keeps
+  public int adjacent(int column, int row, int[] into) {
+    int found = this.base.adjacent(column, row, into);
+    int count = 0;
+    for (int i = 0; i < found; i += 1) {
+      if (this.kept[into[i]]) {
+        into[count] = into[i];
+        count += 1;
+      }
+    }
+    return count;
+  }
+}
+
+// helpers shared by the topologies and graphs
+class GraphUtils {
+
+  // is the given value among the first count entries of the given array?
+  boolean listed(int[] values, int count, int value) {
+    for (int i = 0; i < count; i += 1) {
+      if (values[i] == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // find the representative of the given vertex in the given union/find array, halving
+  // the path to it along the way
+  int findRepresentative(int vertex, int[] reps) {
+    while (reps[vertex] != vertex) {
+      reps[vertex] = reps[reps[vertex]];
+      vertex = reps[vertex];
+    }
+    return vertex;
+  }
+
+  // a random weight in [0, 100), lowered for vertical passages and raised for horizontal
+  // ones by a positive bias, as Utils.generateEdgeWeight does for a Maze
+  // on a hexagonal board, passages between rows count as vertical
+  double edgeWeight(boolean vertical, double bias, Random rand) {
+    double unbiasedWeight = rand.nextDouble() * 50 + 25;
+    if (vertical) {
+      return unbiasedWeight - 25 * bias;
+    } else {
+      return unbiasedWeight + 25 * bias;
+    }
+  }
+
+  // a key with the given weight in [0, 100) in its high half and the given candidate
+  // edge's number in its low half, so that sorting keys as plain longs sorts their edges
+  // by weight without boxing
+  long sortKey(double weight, int candidate) {
+    return ((long) (weight * (1 << 20)) << 32) | candidate;
+  }
+}
+
+// an undirected graph over the cells of a board in compressed sparse row form: the
+// neighbors of vertex v are neighbors[offsets[v]] up to, but not including,
+// neighbors[offsets[v + 1]]
+// two flat int arrays hold every adjacency, so walking a vertex's neighbors reads one
+// contiguous run of memory and a whole board costs a few bytes per cell and edge, rather
+// than a Cell, its lists and an Edge per connection
+class CsrGraph {
+
+  // the number of columns and rows in the block the board fits in
+  final int columns;
+  final int rows;
+
+  // where each vertex's neighbors start in neighbors, with one extra entry at the end
+  private final int[] offsets;
+
+  // every vertex's neighbors, one run per vertex
+  private final int[] neighbors;
+
+  // whether each vertex is a part of the board, as opposed to a cell cut out of it
+  private final boolean[] included;
+
+  // constructor from the arrays themselves
+  CsrGraph(int columns, int rows, int[] offsets, int[] neighbors, boolean[] included) {
+    if (offsets.length != columns * rows + 1 || included.length != columns * rows) {
+      throw new IllegalArgumentException("There must be exactly one entry per cell.");
+    }
+    this.columns = columns;
+    this.rows = rows;
+    this.offsets = offsets;
+    this.neighbors = neighbors;
+    this.included = included;
+  }
+
+  // the graph of every adjacency on the given board
+  static CsrGraph of(ITopology topology) {
+    int columns = topology.columns();
+    int vertices = columns * topology.rows();
+    boolean[] included = new boolean[vertices];
+    int[] offsets = new int[vertices + 1];
+    int[] scratch = new int[topology.maxDegree()];
+    // one pass to size each run, and another to fill them in
+    for (int v = 0; v < vertices; v += 1) {
+      included[v] = topology.includes(v % columns, v / columns);
+      int degree = included[v] ? topology.adjacent(v % columns, v / columns, scratch) : 0;
+      offsets[v + 1] = offsets[v] + degree;
+    }
+    int[] neighbors = new int[offsets[vertices]];
+    for (int v = 0; v < vertices; v += 1) {
+      if (included[v]) {
+        topology.adjacent(v % columns, v / columns, scratch);
+        System.arraycopy(scratch, 0, neighbors, offsets[v], offsets[v + 1] - offsets[v]);
+      }
+    }
+    return new CsrGraph(columns, topology.rows(), offsets, neighbors, included);
+  }
+
+  // the number of vertices, including cells cut out of the board
+  int vertexCount() {
+    return this.included.length;
+  }
+
+  // the number of vertices that are a part of the board
+  int includedCount() {
+    int count = 0;
+    for (boolean kept : this.included) {
+      if (kept) {
+        count += 1;
+      }
+    }
+    return count;
+  }
+
+  // the number of undirected edges
+  int edgeCount() {
+    return this.neighbors.length / 2;
+  }
+
+  // is the given vertex a part of the board?
+  boolean includes(int vertex) {
+    return this.included[vertex];
+  }
+
+  // the number of neighbors the given vertex has
+  int degree(int vertex) {
+    return this.offsets[vertex + 1] - this.offsets[vertex];
+  }
+
+  // where the given vertex's neighbors start and end in the neighbor run, for loops that
+  // read them with neighborAt
+  int firstSlot(int vertex) {
+    return this.offsets[vertex];
+  }
+
+  int endSlot(int vertex) {
+    return this.offsets[vertex + 1];
+  }
+
+  // the neighbor in the given slot of the neighbor run
+  int neighborAt(int slot) {
+    return this.neighbors[slot];
+  }
+
+  // are the two given vertices adjacent?
+  boolean adjacent(int vertex, int other) {
+    for (int slot = this.offsets[vertex]; slot < this.offsets[vertex + 1]; slot += 1) {
+      if (this.neighbors[slot] == other) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // the first and last vertices on the board, where mazes start and end
+  // throws an error if every cell has been cut out
+  int firstIncluded() {
+    for (int v = 0; v < this.included.length; v += 1) {
+      if (this.included[v]) {
+        return v;
+      }
+    }
+    throw new NoSuchElementException("The board has no cells.");
+  }
+
+  int lastIncluded() {
+    for (int v = this.included.length - 1; v >= 0; v -= 1) {
+      if (this.included[v]) {
+        return v;
+      }
+    }
+    throw new NoSuchElementException("The board has no cells.");
+  }
+
+  // the grid position of the given vertex packed into a long
+  long packedPositionOf(int vertex) {
+    return PackedPosn.of(vertex % this.columns, vertex / this.columns);
+  }
+}
+
+// a random maze carved out of any board, kept entirely in flat arrays
+// the passages are a minimum spanning tree of the board's adjacencies under random
+// weights, found with Kruskal's algorithm just as Maze does; a board whose cells fall
+// into separate pieces gets a separate tree for each piece
+class CsrMaze {
+
+  // every adjacency on the board, walls included
+  final CsrGraph board;
+
+  // the adjacencies with no wall in between
+  final CsrGraph passages;
+
+  // constructor for a maze on the given board, with the given bias towards vertical or
+  // horizontal passages as in Maze, whose walls are decided by the given seed
+  CsrMaze(ITopology topology, double bias, long seed) {
+    if (bias < -1 || bias > 1) {
+      throw new IllegalArgumentException("The bias must be a number from [-1.0, 1.0]");
+    }
+    this.board = CsrGraph.of(topology);
+    this.passages = this.generate(bias, new Random(seed));
+  }
+
+  // the passages of a minimum spanning forest of the board under random weights
+  CsrGraph generate(double bias, Random rand) {
+    CsrGraph graph = this.board;
+    int candidates = graph.edgeCount();
+    int[] from = new int[candidates];
+    int[] to = new int[candidates];
+    // sorting the keys as plain longs sorts the candidates by weight
+    long[] keys = new long[candidates];
+    GraphUtils u = new GraphUtils();
+    int count = 0;
+    for (int v = 0; v < graph.vertexCount(); v += 1) {
+      for (int slot = graph.firstSlot(v); slot < graph.endSlot(v); slot += 1) {
+        int other = graph.neighborAt(slot);
+        if (v < other) {
+          from[count] = v;
+          to[count] = other;
+          keys[count] = u.sortKey(u.edgeWeight(v / graph.columns != other / graph.columns,
+              bias, rand), count);
+          count += 1;
+        }
+      }
+    }
+    Arrays.sort(keys, 0, count);
+
+    int[] reps = new int[graph.vertexCount()];
+    for (int v = 0; v < reps.length; v += 1) {
+      reps[v] = v;
+    }
+    int[] treeFrom = new int[Math.max(0, graph.includedCount() - 1)];
+    int[] treeTo = new int[treeFrom.length];
+    int treeEdges = 0;
+    for (int k = 0; k < count && treeEdges < treeFrom.length; k += 1) {
+      int candidate = (int) keys[k];
+      int firstRep = u.findRepresentative(from[candidate], reps);
+      int secondRep = u.findRepresentative(to[candidate], reps);
+      if (firstRep != secondRep) {
+        reps[firstRep] = secondRep;
+        treeFrom[treeEdges] = from[candidate];
+        treeTo[treeEdges] = to[candidate];
+        treeEdges += 1;
+      }
+    }
+    return this.passagesOf(treeFrom, treeTo, treeEdges);
+  }
+
+  // the graph with just the given edges of the board
+  CsrGraph passagesOf(int[] treeFrom, int[] treeTo, int treeEdges) {
+    int vertices = this.board.vertexCount();
+    int[] offsets = new int[vertices + 1];
+    for (int e = 0; e < treeEdges; e += 1) {
+      offsets[treeFrom[e] + 1] += 1;
+      offsets[treeTo[e] + 1] += 1;
+    }
+    for (int v = 0; v < vertices; v += 1) {
+      offsets[v + 1] += offsets[v];
+    }
+    int[] filled = Arrays.copyOf(offsets, vertices);
+    int[] neighbors = new int[offsets[vertices]];
+    for (int e = 0; e < treeEdges; e += 1) {
+      neighbors[filled[treeFrom[e]]] = treeTo[e];
+      filled[treeFrom[e]] += 1;
+      neighbors[filled[treeTo[e]]] = treeFrom[e];
+      filled[treeTo[e]] += 1;
+    }
+    boolean[] included = new boolean[vertices];
+    for (int v = 0; v < vertices; v += 1) {
+      included[v] = this.board.includes(v);
+    }
+    return new CsrGraph(this.board.columns, this.board.rows, offsets, neighbors, included);
+  }
+}
+
+// the path a finished search found, from its target back to its start, as packed
+// positions, and the number of cells it processed that aren't on the path
+// the headless searches hand this back instead of a SearchResult, which builds the text
+// for the end screen
+class SolvedPath {
+
+  // the positions on the path, from the target back to the start
+  private final long[] positions;
+
+  // the number of cells processed that are not a part of the path
+  final int wrongMoves;
+
+  // constructor
+  SolvedPath(long[] positions, int wrongMoves) {
+    this.positions = positions;
+    this.wrongMoves = wrongMoves;
+  }
+
+  // the number of cells on the path, counting both ends
+  int length() {
+    return this.positions.length;
+  }
+
+  // the packed position of the given step back from the target
+  long positionAt(int step) {
+    return this.positions[step];
+  }
+}
+
+// a breadth-first or depth-first search over the passages of a CsrGraph, one vertex at a
+// time, like AutomaticSearch but with every piece of state in an int array
+// a vertex is recorded as found, along with the vertex it was found from, the first time
+// it is seen, so that it is only put on the worklist once even if the graph has cycles
+class CsrSearch {
+
+  // the passages being searched
+  private final CsrGraph passages;
+
+  // the vertices the search starts and ends at
+  private final int start;
+  private final int target;
+
+  // searches breadth first if true, depth first if false
+  private final boolean breadthFirst;
+
+  // the vertex each vertex was found from, or -1 if it hasn't been found
+  // the start is found from itself
+  private final int[] cameFrom;
+
+  // the vertices found but not yet processed: the next vertex is taken from the front
+  // for breadth first and from the back for depth first
+  private final int[] worklist;
+  private int head;
+  private int tail;
+
+  // the vertices processed so far, in order
+  private final int[] processed;
+  private int processedCount;
+
+  // the path found, taken when the target is processed
+  // null until then
+  private SolvedPath result;
+
+  // constructor for a search of the given passages from the given vertex to the other
+  CsrSearch(CsrGraph passages, int start, int target, boolean breadthFirst) {
+    if (!passages.includes(start) || !passages.includes(target)) {
+      throw new IllegalArgumentException("The search must start and end on the board.");
+    }
+    this.passages = passages;
+    this.start = start;
+    this.target = target;
+    this.breadthFirst = breadthFirst;
+    this.cameFrom = new int[passages.vertexCount()];
+    Arrays.fill(this.cameFrom, -1);
+    this.worklist = new int[passages.vertexCount()];
+    this.processed = new int[passages.vertexCount()];
+    this.cameFrom[start] = start;
+    this.worklist[0] = start;
+    this.tail = 1;
+  }
+
+  // constructor for a search from the first to the last cell of the given maze
+  CsrSearch(CsrMaze maze, boolean breadthFirst) {
+    this(maze.passages, maze.passages.firstIncluded(), maze.passages.lastIncluded(),
+        breadthFirst);
+  }
+
+  // is the search complete?
+  boolean searchComplete() {
+    return this.result != null;
+  }
+
+  // process one vertex from the worklist
+  // EFFECT: Removes the next vertex from the worklist and adds it to processed
+  // EFFECT: Adds the neighbors of the vertex not found yet to the worklist
+  void incrementSearch() {
+    if (this.searchComplete()) {
+      throw new RuntimeException("The automatic search has already been completed. "
+          + "No incrementing is necessary.");
+    }
+    if (this.head == this.tail) {
+      throw new NoSuchElementException("No more elements in worklist.");
+    }
+    int next;
+    if (this.breadthFirst) {
+      next = this.worklist[this.head];
+      this.head += 1;
+    } else {
+      this.tail -= 1;
+      next = this.worklist[this.tail];
+    }
+    this.processed[this.processedCount] = next;
+    this.processedCount += 1;
+    if (next == this.target) {
+      this.result = this.snapshot();
+      return;
+    }
+    CsrGraph graph = this.passages;
+    for (int slot = graph.firstSlot(next); slot < graph.endSlot(next); slot += 1) {
+      int neighbor = graph.neighborAt(slot);
+      if (this.cameFrom[neighbor] == -1) {
+        this.cameFrom[neighbor] = next;
+        this.worklist[this.tail] = neighbor;
+        this.tail += 1;
+      }
+    }
+  }
+
+  // EFFECT: increments the search until it completes
+  // throws an error if the target can't be reached from the start
+  void runToCompletion() {
+    while (!this.searchComplete()) {
+      this.incrementSearch();
+    }
+  }
+
+  // the number of vertices processed so far
+  int processedCount() {
+    return this.processedCount;
+  }
+
+  // the vertex processed at the given step
+  int processedAt(int step) {
+    if (step < 0 || step >= this.processedCount) {
+      throw new IndexOutOfBoundsException("That step hasn't been processed.");
+    }
+    return this.processed[step];
+  }
+
+  // the path the finished search found
+  SolvedPath result() {
+    if (!this.searchComplete()) {
+      throw new RuntimeException("The search hasn't been completed yet.");
+    }
+    return this.result;
+  }
+
+  // called only when a final solution has been found
+  // returns the total number of vertices processed that are not a part of the solution
+  int wrongMoves() {
+    return this.result().wrongMoves;
+  }
+
+  // takes the path from the target back to the start once the target has been processed
+  private SolvedPath snapshot() {
+    int length = 1;
+    for (int curr = this.target; curr != this.start; curr = this.cameFrom[curr]) {
+      length += 1;
+    }
+    long[] path = new long[length];
+    int curr = this.target;
+    for (int i = 0; i < length; i += 1) {
+      path[i] = this.passages.packedPositionOf(curr);
+      curr = this.cameFrom[curr];
+    }
+    return new SolvedPath(path, this.processedCount - length);
+  }
+}
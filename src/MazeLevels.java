@@ -0,0 +1,486 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+// a random maze of levels stacked on top of each other, each one a rows x columns grid,
+// with passages up and down between levels as well as across each level
+// cells are numbered ((level * rows + row) * columns + column), and the passages out of
+// every cell are 6 bits packed ten cells to a long, so a maze costs under a byte per cell
+// instead of a Cell and its Edges
+class LayeredMaze {
+
+  // the slot of each way out of a cell, which is also the bit of its passage
+  // the first four are the Direction slots; ASCEND leads to the level above and DESCEND
+  // to the level below
+  static final int ASCEND = 4;
+  static final int DESCEND = 5;
+
+  // the number of ways out of a cell
+  static final int SLOTS = 6;
+
+  // the change in column, row and level through each slot
+  private static final int[] DX = new int[] {0, 0, -1, 1, 0, 0};
+  private static final int[] DY = new int[] {-1, 1, 0, 0, 0, 0};
+  private static final int[] DZ = new int[] {0, 0, 0, 0, 1, -1};
+
+  // the slots candidate passages are made through: right, down and up a level, so that
+  // every pair of adjacent cells is a candidate exactly once
+  private static final int[] CANDIDATE_SLOTS = new int[] {Direction.RIGHT.ordinal(),
+      Direction.DOWN.ordinal(), ASCEND};
+
+  // how many bits each cell's passages take, and how many cells share a long
+  static final int BITS_PER_CELL = 6;
+  static final int CELLS_PER_WORD = 64 / BITS_PER_CELL;
+
+  // the int every maze written by writeTo starts with: "MZ", then the version of the
+  // format
+  static final int FORMAT = 0x4D5A0001;
+
+  // the dimensions of this maze
+  final int levels;
+  final int rows;
+  final int columns;
+
+  // the passage bits of every cell
+  private final long[] passageWords;
+
+  // constructor for a maze with the given dimensions and bias towards vertical or
+  // horizontal passages within a level, as in Maze, whose walls are decided by the seed
+  LayeredMaze(int levels, int rows, int columns, double bias, long seed) {
+    if (levels < 1) {
+      throw new IllegalArgumentException("The maze must have at least one level.");
+    }
+    if (rows < 2 || columns < 2) {
+      throw new IllegalArgumentException("The maze can't be less than 2x2.");
+    }
+    if (bias < -1 || bias > 1) {
+      throw new IllegalArgumentException("The bias must be a number from [-1.0, 1.0]");
+    }
+    // every cell makes up to 3 candidate passages, numbered in an int
+    if ((long) levels * rows * columns > Integer.MAX_VALUE / CANDIDATE_SLOTS.length) {
+      throw new IllegalArgumentException("The maze has too many cells.");
+    }
+    this.levels = levels;
+    this.rows = rows;
+    this.columns = columns;
+    int cells = levels * rows * columns;
+    this.passageWords = new long[(cells + CELLS_PER_WORD - 1) / CELLS_PER_WORD];
+    this.generate(bias, new Random(seed));
+  }
+
+  // constructor for a maze with the given dimensions and passage bits, as read back by
+  // readFrom
+  private LayeredMaze(int levels, int rows, int columns, long[] passageWords) {
+    this.levels = levels;
+    this.rows = rows;
+    this.columns = columns;
+    this.passageWords = passageWords;
+  }
+
+  // the passages of the given Maze as a maze of one level, numbered as in Maze, so that
+  // it can be written and searched like any other LayeredMaze
+  static LayeredMaze of(Maze maze) {
+    GridPosn dimensions = maze.getDimensions();
+    int cells = dimensions.x * dimensions.y;
+    LayeredMaze flat = new LayeredMaze(1, dimensions.y, dimensions.x,
+        new long[(cells + CELLS_PER_WORD - 1) / CELLS_PER_WORD]);
+    for (ArrayList<Cell> row : maze.getGrid()) {
+      for (Cell cell : row) {
+        GridPosn position = cell.getPosition();
+        int id = flat.cellAt(0, position.y, position.x);
+        if (cell.hasNeighbor(Direction.RIGHT)) {
+          flat.open(id, Direction.RIGHT.ordinal());
+        }
+        if (cell.hasNeighbor(Direction.DOWN)) {
+          flat.open(id, Direction.DOWN.ordinal());
+        }
+      }
+    }
+    return flat;
+  }
+
+  // EFFECT: opens the passages of a minimum spanning tree of every adjacency under random
+  // weights, found with Kruskal's algorithm as in Maze
+  // passages between levels are never biased
+  private void generate(double bias, Random rand) {
+    int cells = this.cellCount();
+    GraphUtils u = new GraphUtils();
+    long[] keys = new long[CANDIDATE_SLOTS.length * cells];
+    int count = 0;
+    for (int cell = 0; cell < cells; cell += 1) {
+      for (int axis = 0; axis < CANDIDATE_SLOTS.length; axis += 1) {
+        if (this.inBounds(cell, CANDIDATE_SLOTS[axis])) {
+          double weight = CANDIDATE_SLOTS[axis] == ASCEND ? u.edgeWeight(true, 0, rand)
+              : u.edgeWeight(axis == 1, bias, rand);
+          keys[count] = u.sortKey(weight, cell * CANDIDATE_SLOTS.length + axis);
+          count += 1;
+        }
+      }
+    }
+    Arrays.sort(keys, 0, count);
+
+    int[] reps = new int[cells];
+    for (int cell = 0; cell < cells; cell += 1) {
+      reps[cell] = cell;
+    }
+    int joined = 0;
+    for (int k = 0; k < count && joined < cells - 1; k += 1) {
+      int candidate = (int) keys[k];
+      int cell = candidate / CANDIDATE_SLOTS.length;
+      int slot = CANDIDATE_SLOTS[candidate % CANDIDATE_SLOTS.length];
+      int firstRep = u.findRepresentative(cell, reps);
+      int secondRep = u.findRepresentative(this.neighbor(cell, slot), reps);
+      if (firstRep != secondRep) {
+        reps[firstRep] = secondRep;
+        this.open(cell, slot);
+        joined += 1;
+      }
+    }
+  }
+
+  // the number of cells in this maze
+  int cellCount() {
+    return this.levels * this.rows * this.columns;
+  }
+
+  // the number of the cell at the given level, row and column
+  int cellAt(int level, int row, int column) {
+    return (level * this.rows + row) * this.columns + column;
+  }
+
+  // the level, row and column of the given cell
+  int levelOf(int cell) {
+    return cell / (this.rows * this.columns);
+  }
+
+  int rowOf(int cell) {
+    return cell / this.columns % this.rows;
+  }
+
+  int columnOf(int cell) {
+    return cell % this.columns;
+  }
+
+  // the position of the given cell within its own level, packed into a long
+  long packedPositionOf(int cell) {
+    return PackedPosn.of(this.columnOf(cell), this.rowOf(cell));
+  }
+
+  // the cell searches start from, at the top-left of the bottom level, and the one they
+  // look for, at the bottom-right of the top level
+  int start() {
+    return 0;
+  }
+
+  int target() {
+    return this.cellCount() - 1;
+  }
+
+  // is there a cell through the given slot of the given cell?
+  boolean inBounds(int cell, int slot) {
+    int column = this.columnOf(cell) + DX[slot];
+    int row = this.rowOf(cell) + DY[slot];
+    int level = this.levelOf(cell) + DZ[slot];
+    return column >= 0 && column < this.columns && row >= 0 && row < this.rows
+        && level >= 0 && level < this.levels;
+  }
+
+  // the cell through the given slot of the given cell, which must be in bounds
+  int neighbor(int cell, int slot) {
+    return cell + DX[slot] + DY[slot] * this.columns + DZ[slot] * this.rows * this.columns;
+  }
+
+  // the passage bits of the given cell, with bit s set if slot s is open
+  int passagesOf(int cell) {
+    return (int) (this.passageWords[cell / CELLS_PER_WORD]
+        >>> (cell % CELLS_PER_WORD * BITS_PER_CELL)) & ((1 << BITS_PER_CELL) - 1);
+  }
+
+  // is there a passage through the given slot of the given cell?
+  boolean hasPassage(int cell, int slot) {
+    return (this.passagesOf(cell) & (1 << slot)) != 0;
+  }
+
+  // EFFECT: opens the passage through the given slot of the given cell, from both sides
+  void open(int cell, int slot) {
+    this.setBit(cell, slot);
+    this.setBit(this.neighbor(cell, slot), slot ^ 1);
+  }
+
+  // EFFECT: sets the given slot's bit of the given cell
+  // slots come in opposite pairs, so slot ^ 1 is the way back
+  private void setBit(int cell, int slot) {
+    this.passageWords[cell / CELLS_PER_WORD] |=
+        1L << (cell % CELLS_PER_WORD * BITS_PER_CELL + slot);
+  }
+
+  // the number of passages in this maze
+  int passageCount() {
+    int ends = 0;
+    for (int cell = 0; cell < this.cellCount(); cell += 1) {
+      ends += Integer.bitCount(this.passagesOf(cell));
+    }
+    return ends / 2;
+  }
+
+  // EFFECT: writes this maze to the given output: FORMAT, the levels, rows and columns,
+  // the number of words of passage bits, then the words, all big-endian
+  void writeTo(DataOutput out) throws IOException {
+    out.writeInt(FORMAT);
+    out.writeInt(this.levels);
+    out.writeInt(this.rows);
+    out.writeInt(this.columns);
+    out.writeInt(this.passageWords.length);
+    for (long word : this.passageWords) {
+      out.writeLong(word);
+    }
+  }
+
+  // the maze written to the given input by writeTo
+  // throws an error if the input doesn't hold one
+  static LayeredMaze readFrom(DataInput in) throws IOException {
+    if (in.readInt() != FORMAT) {
+      throw new IOException("This isn't a maze, or was written by another version.");
+    }
+    int levels = in.readInt();
+    int rows = in.readInt();
+    int columns = in.readInt();
+    int words = in.readInt();
+    if (levels < 1 || rows < 2 || columns < 2
+        || (long) levels * rows * columns > Integer.MAX_VALUE / CANDIDATE_SLOTS.length
+        || words != (levels * rows * columns + CELLS_PER_WORD - 1) / CELLS_PER_WORD) {
+      throw new IOException("The maze's dimensions don't match its passages.");
+    }
+    long[] passageWords = new long[words];
+    for (int i = 0; i < words; i += 1) {
+      passageWords[i] = in.readLong();
+    }
+    return new LayeredMaze(levels, rows, columns, passageWords);
+  }
+}
+
+// the orders a LayeredSearch can process cells in
+enum SearchOrder {
+  BREADTH_FIRST, DEPTH_FIRST, A_STAR
+}
+
+// a search through a LayeredMaze from its start to its target, one cell at a time, with
+// every piece of state in a primitive array
+// breadth and depth first record a cell, along with the cell it was found from, the
+// first time it's seen; A* settles cells in order of the steps taken to reach them plus
+// the steps still needed if there were no walls, breaking ties towards the target
+class LayeredSearch {
+
+  // the maze being searched
+  private final LayeredMaze maze;
+
+  // the order cells are processed in
+  private final SearchOrder order;
+
+  // the cell each cell was found from, or -1 if it hasn't been found
+  // the start is found from itself
+  private final int[] cameFrom;
+
+  // the cells found but not yet processed, for breadth and depth first: the next cell is
+  // taken from the front for breadth first and from the back for depth first
+  private final int[] worklist;
+  private int head;
+  private int tail;
+
+  // the fewest steps known to reach each cell, and the cells not yet settled ordered by
+  // that plus the steps left to the target, for A*; null for the others
+  private final int[] steps;
+  private final IndexedMinHeap frontier;
+
+  // the cells processed so far, in order
+  private final int[] processed;
+  private int processedCount;
+
+  // the cells on the solution path, from the target back to the start, and their
+  // positions, both taken when the target is processed; null until then
+  private int[] solution;
+  private SolvedPath result;
+
+  // constructor for a search through the given maze in the given order
+  LayeredSearch(LayeredMaze maze, SearchOrder order) {
+    this.maze = maze;
+    this.order = order;
+    int cells = maze.cellCount();
+    this.cameFrom = new int[cells];
+    Arrays.fill(this.cameFrom, -1);
+    this.processed = new int[cells];
+    this.cameFrom[maze.start()] = maze.start();
+    if (order == SearchOrder.A_STAR) {
+      this.worklist = null;
+      this.steps = new int[cells];
+      Arrays.fill(this.steps, Integer.MAX_VALUE);
+      this.steps[maze.start()] = 0;
+      this.frontier = new IndexedMinHeap(cells);
+      this.frontier.insert(maze.start(), this.priority(maze.start(), 0));
+    } else {
+      this.worklist = new int[cells];
+      this.worklist[0] = maze.start();
+      this.tail = 1;
+      this.steps = null;
+      this.frontier = null;
+    }
+  }
+
+  // the number of steps from the given cell to the target if there were no walls, which
+  // is never more than the steps it really takes
+  int stepsLeft(int cell) {
+    int target = this.maze.target();
+    return Math.abs(this.maze.columnOf(cell) - this.maze.columnOf(target))
+        + Math.abs(this.maze.rowOf(cell) - this.maze.rowOf(target))
+        + Math.abs(this.maze.levelOf(cell) - this.maze.levelOf(target));
+  }
+
+  // the key of the given cell, reached in the given number of steps, on the A* frontier:
+  // the estimated length of a path through it, then the steps still left to break ties
+  private long priority(int cell, int stepsTaken) {
+    int left = this.stepsLeft(cell);
+    return ((long) (stepsTaken + left) << 32) | left;
+  }
+
+  // is the search complete?
+  boolean searchComplete() {
+    return this.result != null;
+  }
+
+  // process one cell
+  // EFFECT: Removes the next cell from the worklist or frontier and adds it to processed
+  // EFFECT: Adds or updates its neighbors through open passages
+  void incrementSearch() {
+    if (this.searchComplete()) {
+      throw new RuntimeException("The automatic search has already been completed. "
+          + "No incrementing is necessary.");
+    }
+    int next = this.order == SearchOrder.A_STAR ? this.nextFromFrontier()
+        : this.nextFromWorklist();
+    this.processed[this.processedCount] = next;
+    this.processedCount += 1;
+    if (next == this.maze.target()) {
+      this.result = this.snapshot();
+      return;
+    }
+    for (int slot = 0; slot < LayeredMaze.SLOTS; slot += 1) {
+      if (this.maze.hasPassage(next, slot)) {
+        int neighbor = this.maze.neighbor(next, slot);
+        if (this.order == SearchOrder.A_STAR) {
+          this.relax(next, neighbor);
+        } else if (this.cameFrom[neighbor] == -1) {
+          this.cameFrom[neighbor] = next;
+          this.worklist[this.tail] = neighbor;
+          this.tail += 1;
+        }
+      }
+    }
+  }
+
+  // EFFECT: removes and returns the next cell from the worklist
+  private int nextFromWorklist() {
+    if (this.head == this.tail) {
+      throw new NoSuchElementException("No more elements in worklist.");
+    }
+    if (this.order == SearchOrder.BREADTH_FIRST) {
+      this.head += 1;
+      return this.worklist[this.head - 1];
+    }
+    this.tail -= 1;
+    return this.worklist[this.tail];
+  }
+
+  // EFFECT: removes and returns the most promising cell from the frontier
+  private int nextFromFrontier() {
+    if (this.frontier.isEmpty()) {
+      throw new NoSuchElementException("No more elements in worklist.");
+    }
+    return this.frontier.pollMin();
+  }
+
+  // EFFECT: records the given neighbor as reached from the given cell if that's fewer
+  // steps than it was reached in before, and puts it on the frontier
+  // the steps left never overestimate and only change by one a step, so a settled cell
+  // can't be reached in fewer steps later
+  private void relax(int from, int neighbor) {
+    int throughFrom = this.steps[from] + 1;
+    if (throughFrom < this.steps[neighbor]) {
+      boolean queued = this.frontier.contains(neighbor);
+      boolean settled = this.cameFrom[neighbor] != -1 && !queued;
+      if (!settled) {
+        this.steps[neighbor] = throughFrom;
+        this.cameFrom[neighbor] = from;
+        long key = this.priority(neighbor, throughFrom);
+        if (queued) {
+          this.frontier.decreaseKey(neighbor, key);
+        } else {
+          this.frontier.insert(neighbor, key);
+        }
+      }
+    }
+  }
+
+  // EFFECT: increments the search until it completes
+  void runToCompletion() {
+    while (!this.searchComplete()) {
+      this.incrementSearch();
+    }
+  }
+
+  // the number of cells processed so far
+  int processedCount() {
+    return this.processedCount;
+  }
+
+  // the cell processed at the given step
+  int processedAt(int step) {
+    if (step < 0 || step >= this.processedCount) {
+      throw new IndexOutOfBoundsException("That step hasn't been processed.");
+    }
+    return this.processed[step];
+  }
+
+  // the cells on the solution path, from the target back to the start
+  int[] solution() {
+    this.result();
+    return this.solution;
+  }
+
+  // the path the finished search found
+  // it holds each cell's position within its own level, for the summary and for drawing
+  // a level at a time
+  SolvedPath result() {
+    if (!this.searchComplete()) {
+      throw new RuntimeException("The search hasn't been completed yet.");
+    }
+    return this.result;
+  }
+
+  // called only when a final solution has been found
+  // returns the total number of cells processed that are not a part of the solution path
+  int wrongMoves() {
+    return this.result().wrongMoves;
+  }
+
+  // takes the path once the target has been processed
+  private SolvedPath snapshot() {
+    int length = 1;
+    for (int cell = this.maze.target(); cell != this.maze.start();
+        cell = this.cameFrom[cell]) {
+      length += 1;
+    }
+    this.solution = new int[length];
+    long[] path = new long[length];
+    int cell = this.maze.target();
+    for (int i = 0; i < length; i += 1) {
+      this.solution[i] = cell;
+      path[i] = this.maze.packedPositionOf(cell);
+      cell = this.cameFrom[cell];
+    }
+    return new SolvedPath(path, this.processedCount - length);
+  }
+}
@@ -0,0 +1,187 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// told about every maze generated and every automatic search completed, with the counts
+// and times recorded while it ran, so throughput can be watched without a profiler
+// a maze and its searches call this once per maze or search, from the thread that made
+// them, after the work is done; the counts are kept in the maze's GenerationProfile and
+// the search's SearchProfile while it runs, so nothing is called from the inner loops
+interface IMazeMetrics {
+
+  // the metrics that ignore everything, used when none are given
+  IMazeMetrics NONE = new NoMazeMetrics();
+
+  // EFFECT: records that a maze with the given number of cells was generated, as
+  // described by the given profile
+  void mazeGenerated(int cells, GenerationProfile profile);
+
+  // EFFECT: records that an automatic search reached its target, as described by the
+  // given profile
+  void searchCompleted(SearchProfile profile);
+}
+
+// metrics that ignore everything
+// its methods are empty, so once the JIT sees they're the only ones called it inlines
+// them to nothing
+class NoMazeMetrics implements IMazeMetrics {
+
+  // ignores the generated maze
+  public void mazeGenerated(int cells, GenerationProfile profile) {
+    // nothing is recorded
+  }
+
+  // ignores the completed search
+  public void searchCompleted(SearchProfile profile) {
+    // nothing is recorded
+  }
+}
+
+// metrics that add up everything they're told, in LongAdders, so mazes can be generated
+// and searched on many threads at once while a dashboard reads the totals
+// the largest worklist is kept as a running maximum rather than a sum
+class CountingMazeMetrics implements IMazeMetrics {
+
+  // the totals over every maze generated
+  private final LongAdder mazesGenerated;
+  private final LongAdder cellsGenerated;
+  private final LongAdder edgesConsidered;
+  private final LongAdder edgesAccepted;
+  private final LongAdder unionFindSteps;
+  private final LongAdder generationNanos;
+
+  // the totals over every search completed
+  private final LongAdder searchesCompleted;
+  private final LongAdder cellsExpanded;
+  private final LongAdder solveNanos;
+
+  // the most cells any search has had on its worklist at once
+  private final AtomicLong worklistHighWater;
+
+  // constructor with nothing recorded
+  CountingMazeMetrics() {
+    this.mazesGenerated = new LongAdder();
+    this.cellsGenerated = new LongAdder();
+    this.edgesConsidered = new LongAdder();
+    this.edgesAccepted = new LongAdder();
+    this.unionFindSteps = new LongAdder();
+    this.generationNanos = new LongAdder();
+    this.searchesCompleted = new LongAdder();
+    this.cellsExpanded = new LongAdder();
+    this.solveNanos = new LongAdder();
+    this.worklistHighWater = new AtomicLong();
+  }
+
+  // EFFECT: adds the generated maze to the totals
+  public void mazeGenerated(int cells, GenerationProfile profile) {
+    this.mazesGenerated.increment();
+    this.cellsGenerated.add(cells);
+    this.edgesConsidered.add(profile.edgesConsidered);
+    this.edgesAccepted.add(profile.edgesAccepted);
+    this.unionFindSteps.add(profile.unionFindSteps);
+    this.generationNanos.add(profile.totalNanos());
+  }
+
+  // EFFECT: adds the completed search to the totals, and raises the largest worklist if
+  // its worklist was larger
+  public void searchCompleted(SearchProfile profile) {
+    this.searchesCompleted.increment();
+    this.cellsExpanded.add(profile.cellsExpanded);
+    this.solveNanos.add(profile.solveNanos);
+    long highest = this.worklistHighWater.get();
+    while (profile.worklistHighWater > highest
+        && !this.worklistHighWater.compareAndSet(highest, profile.worklistHighWater)) {
+      highest = this.worklistHighWater.get();
+    }
+  }
+
+  // the totals recorded so far, by name
+  // the totals are read one at a time, so ones read while mazes are still being made can
+  // be from slightly different moments
+  LinkedHashMap<String, Long> snapshot() {
+    LinkedHashMap<String, Long> totals = new LinkedHashMap<String, Long>();
+    totals.put("mazesGenerated", this.mazesGenerated.sum());
+    totals.put("cellsGenerated", this.cellsGenerated.sum());
+    totals.put("edgesConsidered", this.edgesConsidered.sum());
+    totals.put("edgesAccepted", this.edgesAccepted.sum());
+    totals.put("unionFindSteps", this.unionFindSteps.sum());
+    totals.put("generationNanos", this.generationNanos.sum());
+    totals.put("searchesCompleted", this.searchesCompleted.sum());
+    totals.put("cellsExpanded", this.cellsExpanded.sum());
+    totals.put("solveNanos", this.solveNanos.sum());
+    totals.put("worklistHighWater", this.worklistHighWater.get());
+    return totals;
+  }
+
+  // EFFECT: adds the totals recorded so far to the given report, times in nanoseconds
+  // and everything else as counts
+  void addTo(BenchmarkReport report) {
+    for (Map.Entry<String, Long> total : this.snapshot().entrySet()) {
+      report.addValue(total.getKey(), total.getKey().endsWith("Nanos") ? "ns" : "count",
+          total.getValue());
+    }
+  }
+
+  // EFFECT: forgets everything recorded
+  void reset() {
+    this.mazesGenerated.reset();
+    this.cellsGenerated.reset();
+    this.edgesConsidered.reset();
+    this.edgesAccepted.reset();
+    this.unionFindSteps.reset();
+    this.generationNanos.reset();
+    this.searchesCompleted.reset();
+    this.cellsExpanded.reset();
+    this.solveNanos.reset();
+    this.worklistHighWater.set(0);
+  }
+}
+
+// how long each phase of generating a maze took, in nanoseconds, and how much work
+// union/find did
+// a phase the maze didn't go through, like making cells for a maze built from a given
+// grid, is left at 0
+class GenerationProfile {
+
+  // making the grid of cells
+  long cellsNanos;
+
+  // connecting every pair of adjacent cells with a weighted edge
+  long edgesNanos;
+
+  // sorting the edges by weight
+  long sortNanos;
+
+  // keeping the edges of the minimum spanning tree with union/find, and removing the rest
+  long unionFindNanos;
+
+  // the edges union/find looked at before the tree was spanning, and the ones it kept
+  long edgesConsidered;
+  long edgesAccepted;
+
+  // the steps taken up chains of representatives while finding them
+  long unionFindSteps;
+
+  // the time taken by every phase together
+  long totalNanos() {
+    return this.cellsNanos + this.edgesNanos + this.sortNanos + this.unionFindNanos;
+  }
+}
+
+// the work an automatic search has done: the cells it expanded, the most cells its
+// worklist held at once, and the time from its first step to reaching the target, in
+// nanoseconds
+// the time includes any pauses between steps, like the ticks of a world
+class SearchProfile {
+
+  // the cells taken off the worklist and processed
+  long cellsExpanded;
+
+  // the most cells on the worklist at once, counting a cell once for each time it's on it
+  int worklistHighWater;
+
+  // when the first step was taken, and the time from then to reaching the target
+  long startedNanos;
+  long solveNanos;
+}
@@ -0,0 +1,929 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+import javalib.impworld.WorldScene;
+import javalib.worldimages.AboveImage;
+import javalib.worldimages.BesideImage;
+import javalib.worldimages.ComputedPixelImage;
+import javalib.worldimages.EmptyImage;
+import javalib.worldimages.OutlineMode;
+import javalib.worldimages.OverlayImage;
+import javalib.worldimages.RectangleImage;
+import javalib.worldimages.TextImage;
+import javalib.worldimages.WorldImage;
+
+// the images cells are drawn with, built the first time one is used
+// they're kept apart from IConstant so that a headless program, which only needs the
+// sizes, never loads AWT to build them
+interface ISprite {
+
+  // an image representing the interior
+  WorldImage BLANK_CELL_IMG = new DrawUtils().makeInteriorSquare(Color.GRAY);
+
+  // an image representing a cell -> a grey square with a darker grey outline
+  // represents a cell with 4 walls
+  WorldImage CELL_IMG = new OverlayImage(BLANK_CELL_IMG,
+      new RectangleImage(IConstant.CELL_WIDTH, IConstant.CELL_WIDTH, OutlineMode.SOLID,
+          Color.DARK_GRAY));
+
+  // an image representing the green starting square of the maze
+  WorldImage START_IMG = new DrawUtils().makeInteriorSquare(Color.GREEN);
+
+  // an image representing the green starting square of the maze
+  WorldImage END_IMG = new DrawUtils().makeInteriorSquare(Color.MAGENTA);
+
+  // an image representing a square that's been automatically traversed by a BFS
+  // or DFS searching algorithm
+  WorldImage AUTO_PATH_TRAVERSED = new DrawUtils().makeInteriorSquare(Color.CYAN);
+
+  // an image representing the solution path to the maze 
+  WorldImage SEARCH_SOLUTION = new DrawUtils().makeInteriorSquare(Color.BLUE);
+  
+  // an image representing the square that the player is currently at if they're manually 
+  // traversing the maze
+  WorldImage PLAYER_IMG = new DrawUtils().makeInteriorSquare(Color.ORANGE);
+
+  WorldImage PLAYER_VISITED_PATH = new DrawUtils().makeInteriorSquare(Color.YELLOW);
+
+  // images representing squares traversed by a weighted (Dijkstra) search, one per
+  // terrain cost from 1 to MAX_TERRAIN_COST, getting darker as the cost goes up
+  WorldImage[] TERRAIN_TRAVERSED = new DrawUtils().makeShadedSquares(Color.CYAN,
+      new Color(0, 70, 90), IConstant.MAX_TERRAIN_COST);
+}
+
+// helpers for drawing the maze with javalib, kept out of Utils so that the maze and its
+// searches, which use Utils, never load javalib or AWT
+class DrawUtils {
+
+  // Places the given image at the center of the cell corresponding to the given cell coordinates
+  // EFFECT: Places an image onto the given scene
+  void drawImageAtCellCoordinates(WorldScene scene, WorldImage img, GridPosn cellCoord) {
+    scene.placeImageXY(img, (int) ((cellCoord.x + .5) * IConstant.CELL_WIDTH),
+        (int) ((cellCoord.y + .5) * IConstant.CELL_WIDTH));
+  }
+
+  // Draws the given image centered at the given pixel coordinates, the same way a WorldScene
+  // draws an image placed onto it
+  // EFFECT: Draws an image with the given graphics
+  void drawImageAtPixel(Graphics2D g, WorldImage img, int x, int y) {
+    int dx = x - img.pinhole.x;
+    int dy = y - img.pinhole.y;
+    g.translate(dx, dy);
+    img.draw(g);
+    g.translate(-dx, -dy);
+  }
+
+  // Draws the given image at the center of the cell corresponding to the given cell
+  // coordinates
+  // EFFECT: Draws an image with the given graphics
+  void drawImageAtCellCoordinates(Graphics2D g, WorldImage img, GridPosn cellCoord) {
+    this.drawImageAtPixel(g, img, (int) ((cellCoord.x + .5) * IConstant.CELL_WIDTH),
+        (int) ((cellCoord.y + .5) * IConstant.CELL_WIDTH));
+  }
+
+  // Returns a solid square that fits inside one Maze Cell of the given color
+  WorldImage makeInteriorSquare(Color c) {
+    return new RectangleImage(IConstant.INTERIOR_WIDTH, IConstant.INTERIOR_WIDTH, OutlineMode.SOLID,
+        c);
+  }
+  
+  // Returns the given number of solid interior squares, shading evenly from the first
+  // given color to the second
+  WorldImage[] makeShadedSquares(Color light, Color dark, int count) {
+    WorldImage[] shades = new WorldImage[count];
+    for (int level = 0; level < count; level += 1) {
+      double fraction = count == 1 ? 0.0 : level / (count - 1.0);
+      shades[level] = this.makeInteriorSquare(new Color(
+          (int) Math.round(light.getRed() + (dark.getRed() - light.getRed()) * fraction),
+          (int) Math.round(light.getGreen() + (dark.getGreen() - light.getGreen()) * fraction),
+          (int) Math.round(light.getBlue() + (dark.getBlue() - light.getBlue()) * fraction)));
+    }
+    return shades;
+  }
+}
+
+// something that cell-sized images can be drawn onto, centered on a cell of the maze grid
+// lets the traversers be drawn onto a javalib scene or straight into a pixel buffer
+interface ICellCanvas {
+  // EFFECT: draws the given image centered on the cell at the given grid coordinates
+  void drawAtCell(WorldImage img, GridPosn cellCoord);
+}
+
+// a cell canvas that places images onto a javalib scene
+class SceneCanvas implements ICellCanvas {
+
+  // the scene that images are placed onto
+  private final WorldScene scene;
+
+  // constructor
+  SceneCanvas(WorldScene scene) {
+    this.scene = scene;
+  }
+
+  // EFFECT: places the given image onto the scene at the center of the given cell
+  public void drawAtCell(WorldImage img, GridPosn cellCoord) {
+    new DrawUtils().drawImageAtCellCoordinates(this.scene, img, cellCoord);
+  }
+}
+
+// a cell canvas that copies images into a pixel buffer as pre-rasterized tiles
+class RasterCanvas implements ICellCanvas {
+
+  // the pixel buffer that tiles are copied into
+  private final FrameBuffer frame;
+
+  // where the tile for each image comes from
+  private final TileAtlas atlas;
+
+  // constructor
+  RasterCanvas(FrameBuffer frame, TileAtlas atlas) {
+    this.frame = frame;
+    this.atlas = atlas;
+  }
+
+  // EFFECT: copies the tile of the given image over the given cell
+  public void drawAtCell(WorldImage img, GridPosn cellCoord) {
+    this.frame.blit(this.atlas.tileFor(img), cellCoord.x * IConstant.CELL_WIDTH,
+        cellCoord.y * IConstant.CELL_WIDTH);
+  }
+}
+
+// a cell canvas that is kept between frames, so a cell can also be put back the way the
+// maze looks with nothing drawn over it
+interface IRestorableCanvas extends ICellCanvas {
+  // EFFECT: puts the given cell back the way the maze looks with nothing drawn over it
+  void restoreCell(GridPosn cellCoord);
+}
+
+// a cell canvas over a persistent pixel buffer that can also put a cell back the way the
+// static layer has it, and remembers every cell touched since it was last published
+class DirtyCanvas implements IRestorableCanvas {
+
+  // the persistent pixel buffer that tiles are copied into
+  private final FrameBuffer frame;
+
+  // the pixels that a restored cell goes back to
+  private final FrameBuffer staticLayer;
+
+  // where the tile for each image comes from
+  private final TileAtlas atlas;
+
+  // the number of columns of cells in the frame
+  private final int columns;
+
+  // the index (row * columns + column) of every cell touched since the last publish,
+  // in the order they were first touched; only the first dirtyCount are meaningful
+  private final int[] dirty;
+
+  // whether each cell is already in the dirty list, by index
+  private final boolean[] marked;
+
+  // the number of cells touched since the last publish
+  private int dirtyCount;
+
+  // constructor, with no cells touched yet
+  DirtyCanvas(FrameBuffer frame, FrameBuffer staticLayer, TileAtlas atlas) {
+    this.frame = frame;
+    this.staticLayer = staticLayer;
+    this.atlas = atlas;
+    this.columns = frame.width / IConstant.CELL_WIDTH;
+    int cellCount = this.columns * (frame.height / IConstant.CELL_WIDTH);
+    this.dirty = new int[cellCount];
+    this.marked = new boolean[cellCount];
+    this.dirtyCount = 0;
+  }
+
+  // EFFECT: copies the tile of the given image over the given cell and marks it dirty
+  public void drawAtCell(WorldImage img, GridPosn cellCoord) {
+    this.frame.blit(this.atlas.tileFor(img), cellCoord.x * IConstant.CELL_WIDTH,
+        cellCoord.y * IConstant.CELL_WIDTH);
+    this.mark(cellCoord);
+  }
+
+  // EFFECT: puts the pixels of the given cell back the way the static layer has them and
+  // marks it dirty
+  public void restoreCell(GridPosn cellCoord) {
+    this.frame.copyRegion(this.staticLayer, cellCoord.x * IConstant.CELL_WIDTH,
+        cellCoord.y * IConstant.CELL_WIDTH, IConstant.CELL_WIDTH, IConstant.CELL_WIDTH);
+    this.mark(cellCoord);
+  }
+
+  // EFFECT: adds the given cell to the dirty list, unless it's already there
+  private void mark(GridPosn cellCoord) {
+    int index = cellCoord.y * this.columns + cellCoord.x;
+    if (!this.marked[index]) {
+      this.marked[index] = true;
+      this.dirty[this.dirtyCount] = index;
+      this.dirtyCount += 1;
+    }
+  }
+
+  // the number of cells touched since the last publish
+  int dirtyCount() {
+    return this.dirtyCount;
+  }
+
+  // EFFECT: copies every cell touched since the last publish into the given javalib image,
+  // and starts a new empty dirty list
+  void publish(ComputedPixelImage target) {
+    for (int i = 0; i < this.dirtyCount; i += 1) {
+      int index = this.dirty[i];
+      this.frame.publish(target, (index % this.columns) * IConstant.CELL_WIDTH,
+          (index / this.columns) * IConstant.CELL_WIDTH, IConstant.CELL_WIDTH,
+          IConstant.CELL_WIDTH);
+      this.marked[index] = false;
+    }
+    this.dirtyCount = 0;
+  }
+
+  // EFFECT: forgets every cell touched since the last publish, for when the whole frame
+  // is published at once instead
+  void clearDirty() {
+    for (int i = 0; i < this.dirtyCount; i += 1) {
+      this.marked[this.dirty[i]] = false;
+    }
+    this.dirtyCount = 0;
+  }
+}
+
+// how far a traverser's state has been drawn into a persistent frame, so that the next
+// frame only has to draw what changed since
+// a fresh cursor means nothing has been drawn yet
+class DrawCursor {
+
+  // the number of processed cells already drawn
+  int drawnCount;
+
+  // the cell drawn as the current one (the player, or the most recently visited cell when
+  // visited cells aren't shown), which must be put back when the current one moves;
+  // null if there isn't one yet
+  GridPosn highlighted;
+
+  // has the solution path been drawn?
+  boolean solutionDrawn;
+
+  // constructor, with nothing drawn
+  DrawCursor() {
+    this.drawnCount = 0;
+    this.highlighted = null;
+    this.solutionDrawn = false;
+  }
+}
+
+// the pixels of a cell-sized image, as javalib would draw it centered on a cell
+class Tile {
+
+  // the width and height of this tile in pixels
+  final int size;
+
+  // the ARGB color of every pixel, row by row
+  final int[] pixels;
+
+  // the number the atlas knows this tile by, starting from 1
+  final int id;
+
+  // the ARGB color at the center of this tile, which stands in for the whole tile when
+  // cells are drawn too small to show it
+  final int color;
+
+  // constructor rasterizes the given image centered in a square of the given size
+  Tile(WorldImage img, int size, int id) {
+    this.size = size;
+    BufferedImage raster = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = raster.createGraphics();
+    new DrawUtils().drawImageAtPixel(g, img, size / 2, size / 2);
+    g.dispose();
+    this.pixels = ((DataBufferInt) raster.getRaster().getDataBuffer()).getData();
+    this.id = id;
+    this.color = this.pixels[(size / 2) * size + size / 2];
+  }
+}
+
+// the tiles of every image drawn by a renderer, each rasterized by javalib only once
+class TileAtlas {
+
+  // the tile of every image rasterized so far, by image identity
+  // the images drawn are the IConstant sprites, so identity is all the lookup needs
+  private final IdentityHashMap<WorldImage, Tile> tiles;
+
+  // the tile of every image rasterized so far, by id; there is no tile 0
+  private final ArrayList<Tile> byId;
+
+  // constructor rasterizes the sprites every maze frame uses
+  TileAtlas() {
+    this.tiles = new IdentityHashMap<WorldImage, Tile>();
+    this.byId = new ArrayList<Tile>();
+    this.byId.add(null);
+    WorldImage[] sprites = new WorldImage[] {ISprite.CELL_IMG, ISprite.BLANK_CELL_IMG,
+        ISprite.START_IMG, ISprite.END_IMG, ISprite.AUTO_PATH_TRAVERSED,
+        ISprite.SEARCH_SOLUTION, ISprite.PLAYER_IMG, ISprite.PLAYER_VISITED_PATH};
+    for (WorldImage sprite : sprites) {
+      this.tileFor(sprite);
+    }
+    for (WorldImage sprite : ISprite.TERRAIN_TRAVERSED) {
+      this.tileFor(sprite);
+    }
+  }
+
+  // returns the tile of the given image, rasterizing it the first time it's asked for
+  Tile tileFor(WorldImage img) {
+    Tile tile = this.tiles.get(img);
+    if (tile == null) {
+      tile = new Tile(img, IConstant.CELL_WIDTH, this.byId.size());
+      this.tiles.put(img, tile);
+      this.byId.add(tile);
+    }
+    return tile;
+  }
+
+  // returns the tile with the given id
+  Tile tileById(int id) {
+    return this.byId.get(id);
+  }
+}
+
+// a rectangle of ARGB pixels that tiles are copied into directly
+class FrameBuffer {
+
+  // the width of this buffer in pixels
+  final int width;
+
+  // the height of this buffer in pixels
+  final int height;
+
+  // the image whose pixel array this buffer writes to
+  private final BufferedImage image;
+
+  // the ARGB color of every pixel, row by row
+  private final int[] pixels;
+
+  // constructor creates a fully transparent buffer of the given size
+  FrameBuffer(int width, int height) {
+    this.width = width;
+    this.height = height;
+    this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+  }
+
+  // returns the color of the pixel at the given coordinates, as ARGB
+  int getPixel(int x, int y) {
+    return this.pixels[y * this.width + x];
+  }
+
+  // EFFECT: sets the pixel at the given coordinates to the given ARGB color
+  void setPixel(int x, int y, int argb) {
+    this.pixels[y * this.width + x] = argb;
+  }
+
+  // EFFECT: sets every pixel in the given rectangle to the given ARGB color, clipping
+  // anything outside this buffer
+  void fillRect(int left, int top, int width, int height, int argb) {
+    int startX = Math.max(0, left);
+    int endX = Math.min(this.width, left + width);
+    int endY = Math.min(this.height, top + height);
+    for (int y = Math.max(0, top); y < endY; y += 1) {
+      int row = y * this.width;
+      for (int x = startX; x < endX; x += 1) {
+        this.pixels[row + x] = argb;
+      }
+    }
+  }
+
+  // returns the image backed by this buffer's pixels
+  BufferedImage getImage() {
+    return this.image;
+  }
+
+  // EFFECT: copies the given tile's pixels so that its top-left corner lands on the given
+  // pixel, skipping fully transparent pixels and anything outside this buffer
+  // the sprites are solid shapes drawn without antialiasing, so every pixel is either
+  // fully transparent or fully opaque and no blending is needed
+  void blit(Tile tile, int left, int top) {
+    int startX = Math.max(0, -left);
+    int endX = Math.min(tile.size, this.width - left);
+    int startY = Math.max(0, -top);
+    int endY = Math.min(tile.size, this.height - top);
+    for (int y = startY; y < endY; y += 1) {
+      int tileRow = y * tile.size;
+      int frameRow = (top + y) * this.width + left;
+      for (int x = startX; x < endX; x += 1) {
+        int argb = tile.pixels[tileRow + x];
+        if ((argb >>> 24) != 0) {
+          this.pixels[frameRow + x] = argb;
+        }
+      }
+    }
+  }
+
+  // EFFECT: copies every pixel of the given buffer, which must be the same size, into this one
+  void copyFrom(FrameBuffer other) {
+    if (other.width != this.width || other.height != this.height) {
+      throw new IllegalArgumentException("The buffers must be the same size.");
+    }
+    System.arraycopy(other.pixels, 0, this.pixels, 0, this.pixels.length);
+  }
+
+  // EFFECT: copies the given rectangle of the given buffer, which must be the same size,
+  // into the same place in this one
+  void copyRegion(FrameBuffer other, int left, int top, int width, int height) {
+    if (other.width != this.width || other.height != this.height) {
+      throw new IllegalArgumentException("The buffers must be the same size.");
+    }
+    for (int y = top; y < top + height; y += 1) {
+      int row = y * this.width + left;
+      System.arraycopy(other.pixels, row, this.pixels, row, width);
+    }
+  }
+
+  // EFFECT: copies every row of the given buffer, which must be as wide as this one, into
+  // this one starting at the given row
+  void pasteRows(FrameBuffer other, int top) {
+    if (other.width != this.width) {
+      throw new IllegalArgumentException("The buffers must be the same width.");
+    }
+    System.arraycopy(other.pixels, 0, this.pixels, top * this.width,
+        Math.min(other.pixels.length, (this.height - top) * this.width));
+  }
+
+  // returns a single javalib image with the same pixels as this buffer
+  ComputedPixelImage toPixelImage() {
+    ComputedPixelImage img = new ComputedPixelImage(this.width, this.height);
+    this.publish(img, 0, 0, this.width, this.height);
+    return img;
+  }
+
+  // EFFECT: copies the given rectangle of this buffer into the same place in the given
+  // javalib image, one run of same-colored pixels at a time since maze frames are
+  // mostly long solid runs
+  void publish(ComputedPixelImage target, int left, int top, int width, int height) {
+    for (int y = top; y < top + height; y += 1) {
+      int row = y * this.width;
+      int runStart = left;
+      for (int x = left + 1; x <= left + width; x += 1) {
+        if (x == left + width || this.pixels[row + x] != this.pixels[row + runStart]) {
+          target.setPixels(runStart, y, x - runStart, 1,
+              new Color(this.pixels[row + runStart], true));
+          runStart = x;
+        }
+      }
+    }
+  }
+}
+
+// draws a maze by copying tiles straight into a pixel buffer, rather than building a tree
+// of nested javalib images, and hands the result to javalib as a single image
+// a renderer shows the passages its maze had when it was made
+class MazeRenderer {
+
+  // the maze being drawn
+  private final Maze maze;
+
+  // the tiles of every sprite drawn
+  private final TileAtlas atlas;
+
+  // the walls and start and end markers of the maze, painted once
+  private final FrameBuffer staticLayer;
+
+  // the static layer as a javalib image, built the first time it's asked for;
+  // null until then
+  private ComputedPixelImage staticImage;
+
+  // the frame that is kept between calls to updateFrame, so only what changed is redrawn
+  // null until the first call
+  private FrameBuffer liveFrame;
+
+  // the live frame as a javalib image, kept up to date one dirty cell at a time
+  private ComputedPixelImage liveImage;
+
+  // draws into the live frame and tracks which of its cells need publishing
+  private DirtyCanvas liveCanvas;
+
+  // the traverser and view setting the live frame was drawn for, and how far it got
+  private IMazeTraverser liveTraverser;
+  private boolean liveViewVisited;
+  private DrawCursor liveCursor;
+
+  // the number of cells redrawn by the last call to updateFrame
+  private int cellsDrawn;
+
+  // constructor paints the static layer of the given maze
+  MazeRenderer(Maze maze) {
+    this.maze = maze;
+    this.atlas = new TileAtlas();
+    GridPosn dimensions = maze.getDimensions();
+    this.staticLayer = new FrameBuffer(dimensions.x * IConstant.CELL_WIDTH,
+        dimensions.y * IConstant.CELL_WIDTH);
+    this.paintStatic(this.staticLayer);
+  }
+
+  // EFFECT: paints every cell with all its walls up, knocks down the wall of every edge in
+  // the maze, and marks the start and end, in the same order makeScene places them
+  void paintStatic(FrameBuffer frame) {
+    GridPosn dimensions = this.maze.getDimensions();
+    Tile cellTile = this.atlas.tileFor(ISprite.CELL_IMG);
+    for (int y = 0; y < dimensions.y; y += 1) {
+      for (int x = 0; x < dimensions.x; x += 1) {
+        frame.blit(cellTile, x * IConstant.CELL_WIDTH, y * IConstant.CELL_WIDTH);
+      }
+    }
+    Tile blankTile = this.atlas.tileFor(ISprite.BLANK_CELL_IMG);
+    for (Edge edge : this.maze.getMazeEdges()) {
+      Pair<GridPosn> cellPosns = edge.connectedCellPositions();
+      int wallX = (IConstant.CELL_WIDTH * (cellPosns.first.x + cellPosns.second.x + 1)) / 2;
+      int wallY = (IConstant.CELL_WIDTH * (cellPosns.first.y + cellPosns.second.y + 1)) / 2;
+      frame.blit(blankTile, wallX - IConstant.CELL_WIDTH / 2, wallY - IConstant.CELL_WIDTH / 2);
+    }
+    RasterCanvas canvas = new RasterCanvas(frame, this.atlas);
+    canvas.drawAtCell(ISprite.START_IMG, new GridPosn(0, 0));
+    canvas.drawAtCell(ISprite.END_IMG,
+        new Utils().addPosn(dimensions, new GridPosn(-1, -1)));
+  }
+
+  // returns the static layer of the maze as a single javalib image
+  ComputedPixelImage staticImage() {
+    if (this.staticImage == null) {
+      this.staticImage = this.staticLayer.toPixelImage();
+    }
+    return this.staticImage;
+  }
+
+  // creates the scene representing the current state of the maze
+  // the walls and the start and end markers are rasterized once per maze into a single
+  // image, so each frame only places that one image before drawing what changes on top
+  WorldScene makeScene() {
+    int width = this.staticLayer.width;
+    int height = this.staticLayer.height;
+    WorldScene scene = new WorldScene(width, height);
+    scene.placeImageXY(this.staticImage(), width / 2, height / 2);
+    return scene;
+  }
+
+  // returns a new pixel buffer holding the static layer with the given traverser's state
+  // drawn over it
+  FrameBuffer renderFrame(IMazeTraverser traverser, boolean viewVisited) {
+    FrameBuffer frame = new FrameBuffer(this.staticLayer.width, this.staticLayer.height);
+    frame.copyFrom(this.staticLayer);
+    new DrawTraverser(new RasterCanvas(frame, this.atlas), viewVisited).apply(traverser);
+    return frame;
+  }
+
+  // returns the live frame as a single javalib image, brought up to date with the given
+  // traverser's state
+  // only the cells the traverser reports as changed since the last call are redrawn and
+  // republished; switching to another traverser or toggling viewVisited starts over
+  // from the static layer
+  ComputedPixelImage updateFrame(IMazeTraverser traverser, boolean viewVisited) {
+    if (this.liveFrame == null) {
+      this.liveFrame = new FrameBuffer(this.staticLayer.width, this.staticLayer.height);
+      this.liveCanvas = new DirtyCanvas(this.liveFrame, this.staticLayer, this.atlas);
+    }
+    if (traverser != this.liveTraverser || viewVisited != this.liveViewVisited) {
+      this.liveFrame.copyFrom(this.staticLayer);
+      this.liveTraverser = traverser;
+      this.liveViewVisited = viewVisited;
+      this.liveCursor = new DrawCursor();
+      new DrawTraverserChanges(this.liveCanvas, viewVisited, this.liveCursor)
+          .apply(traverser);
+      this.liveCanvas.clearDirty();
+      this.liveImage = this.liveFrame.toPixelImage();
+      GridPosn dimensions = this.maze.getDimensions();
+      this.cellsDrawn = dimensions.x * dimensions.y;
+    } else {
+      new DrawTraverserChanges(this.liveCanvas, viewVisited, this.liveCursor)
+          .apply(traverser);
+      this.cellsDrawn = this.liveCanvas.dirtyCount();
+      this.liveCanvas.publish(this.liveImage);
+    }
+    return this.liveImage;
+  }
+
+  // the number of cells redrawn by the last call to updateFrame: every cell when it started
+  // over, otherwise just the ones that changed
+  int cellsDrawn() {
+    return this.cellsDrawn;
+  }
+
+  // returns the pixels of the live frame, or null if updateFrame hasn't been called
+  // used for testing that incremental frames match full ones
+  FrameBuffer getLiveFrame() {
+    return this.liveFrame;
+  }
+
+  // returns the pixels of the static layer
+  // used for testing that the layer matches the javalib rendering
+  FrameBuffer getStaticLayer() {
+    return this.staticLayer;
+  }
+}
+
+// draws a maze the reference way, out of nested javalib images, which the raster renderer
+// is checked against; frames don't use it
+class ReferenceRenderer {
+
+  // the maze being drawn
+  private final Maze maze;
+
+  // constructor
+  ReferenceRenderer(Maze maze) {
+    this.maze = maze;
+  }
+
+  // initialize the background of the maze by covering up connections that are
+  // part of the minimum
+  // spanning tree of the maze
+  WorldScene initializeBackground() {
+    GridPosn dimensions = this.maze.getDimensions();
+    WorldScene backgroundScene = new WorldScene(dimensions.x * IConstant.CELL_WIDTH,
+        dimensions.y * IConstant.CELL_WIDTH);
+    backgroundScene.placeImageXY(this.drawBackground(),
+        dimensions.x * IConstant.CELL_WIDTH / 2,
+        dimensions.y * IConstant.CELL_WIDTH / 2);
+    this.removeWalls(backgroundScene);
+    return backgroundScene;
+  }
+
+  // visually remove all the walls in the maze that shouldn't be there by placing
+  // a background
+  // square over every connection in the list of edges that make up the maze's
+  // minimum spanning
+  // tree
+  void removeWalls(WorldScene backgroundScene) {
+    for (Edge edge : this.maze.getMazeEdges()) {
+      Pair<GridPosn> cellPosns = edge.connectedCellPositions();
+      int wallX = (IConstant.CELL_WIDTH * (cellPosns.first.x + cellPosns.second.x + 1)) / 2;
+      int wallY = (IConstant.CELL_WIDTH * (cellPosns.first.y + cellPosns.second.y + 1)) / 2;
+      backgroundScene.placeImageXY(ISprite.BLANK_CELL_IMG, wallX, wallY);
+    }
+  }
+
+  // creates a background image of all the cells with all their walls still up
+  WorldImage drawBackground() {
+    WorldImage background = new EmptyImage();
+    for (ArrayList<Cell> row : this.maze.getGrid()) {
+      WorldImage rowImg = new EmptyImage();
+      for (Cell cell : row) {
+        rowImg = new BesideImage(rowImg, ISprite.CELL_IMG);
+      }
+      background = new AboveImage(background, rowImg);
+    }
+    return background;
+  }
+
+  // creates the reference scene of the maze out of nested javalib images, with the start
+  // and end positions drawn in separate colors to visually distinguish them
+  WorldScene makeScene() {
+    DrawUtils u = new DrawUtils();
+    WorldScene backgroundScene = this.initializeBackground();
+    u.drawImageAtCellCoordinates(backgroundScene, ISprite.START_IMG, new GridPosn(0, 0));
+    u.drawImageAtCellCoordinates(backgroundScene, ISprite.END_IMG,
+        new Utils().addPosn(this.maze.getDimensions(), new GridPosn(-1, -1)));
+    return backgroundScene;
+  }
+}
+
+// draws what a path-finder has done onto a cell canvas: the cells it has visited, or
+// just the most recent one, and the solution path once it has found one
+class DrawTraverser implements IMazeTraverserVisitor<Void> {
+
+  // the canvas drawn onto
+  private final ICellCanvas canvas;
+
+  // are all the visited cells drawn, or just the most recent one?
+  private final boolean viewVisited;
+
+  // constructor
+  DrawTraverser(ICellCanvas canvas, boolean viewVisited) {
+    this.canvas = canvas;
+    this.viewVisited = viewVisited;
+  }
+
+  // convenience constructor that draws onto the given scene
+  DrawTraverser(WorldScene scene, boolean viewVisited) {
+    this(new SceneCanvas(scene), viewVisited);
+  }
+
+  // Apply this to the given IMazeTraverser
+  public Void apply(IMazeTraverser arg) {
+    return arg.accept(this);
+  }
+
+  // Draws the status of the manual traversal, with an option to view
+  // all visited cells so far or just the current cell, draws solution if search is complete
+  public Void visitManualSearch(ManualSearch ms) {
+    // Draw all visited cells if applicable
+    if (this.viewVisited) {
+      for (GridPosn visitedPosn : ms.getVisited()) {
+        this.canvas.drawAtCell(ISprite.PLAYER_VISITED_PATH, visitedPosn);
+      }
+    }
+    // Draw the solution
+    if (ms.searchComplete()) {
+      this.drawSolution(ms.result());
+    }
+
+    // Draw the player
+    this.canvas.drawAtCell(ISprite.PLAYER_IMG, ms.getPlayerPosition());
+    return null;
+  }
+
+  // draws the search based on whether viewing the previously visited positions is toggled
+  public Void visitAutomaticSearch(AutomaticSearch as) {
+    ArrayList<Cell> processed = as.getProcessed();
+    // Show path for every cell visited
+    if (this.viewVisited) {
+      for (Cell cellCovered : processed) {
+        this.canvas.drawAtCell(ISprite.AUTO_PATH_TRAVERSED, cellCovered.getPosition());
+      }
+    } else if (processed.size() > 0) {
+      // Only show on the most recently visited cell
+      this.canvas.drawAtCell(ISprite.AUTO_PATH_TRAVERSED,
+          processed.get(processed.size() - 1).getPosition());
+    }
+
+    // if the search has been completed, draw the solution path
+    if (as.searchComplete()) {
+      this.drawSolution(as.result());
+    }
+    return null;
+  }
+
+  // draws every settled cell shaded by the cost of its terrain, or only the most recently
+  // settled cell if viewing visited cells is off
+  public Void visitDijkstraSearch(DijkstraSearch ds) {
+    ArrayList<Cell> processed = ds.getProcessed();
+    if (this.viewVisited) {
+      for (Cell cellCovered : processed) {
+        this.canvas.drawAtCell(DrawTraverser.terrainImage(ds, cellCovered),
+            cellCovered.getPosition());
+      }
+    } else if (processed.size() > 0) {
+      Cell last = processed.get(processed.size() - 1);
+      this.canvas.drawAtCell(DrawTraverser.terrainImage(ds, last), last.getPosition());
+    }
+
+    if (ds.searchComplete()) {
+      this.drawSolution(ds.result());
+    }
+    return null;
+  }
+
+  // EFFECT: draws every cell on the solution path of the given result
+  void drawSolution(SearchResult result) {
+    for (GridPosn cellInSolution : result.getSolutionPath()) {
+      this.canvas.drawAtCell(ISprite.SEARCH_SOLUTION, cellInSolution);
+    }
+  }
+
+  // the shaded square for the terrain cost of the given cell in the given search
+  // costs above MAX_TERRAIN_COST share the darkest shade
+  static WorldImage terrainImage(DijkstraSearch ds, Cell c) {
+    int cost = ds.terrainCost(c);
+    return ISprite.TERRAIN_TRAVERSED[Math.min(cost, IConstant.MAX_TERRAIN_COST) - 1];
+  }
+}
+
+// draws onto a persistent canvas only the cells whose state changed since the given
+// cursor was last brought up to date, so the canvas ends up as DrawTraverser would leave
+// it over the static maze
+// EFFECT: each visit advances the cursor to the path-finder's current state
+class DrawTraverserChanges implements IMazeTraverserVisitor<Void> {
+
+  // the canvas drawn onto
+  private final IRestorableCanvas canvas;
+
+  // are all the visited cells drawn, or just the most recent one?
+  private final boolean viewVisited;
+
+  // how far the path-finder has been drawn onto the canvas
+  private final DrawCursor cursor;
+
+  // constructor
+  DrawTraverserChanges(IRestorableCanvas canvas, boolean viewVisited, DrawCursor cursor) {
+    this.canvas = canvas;
+    this.viewVisited = viewVisited;
+    this.cursor = cursor;
+  }
+
+  // Apply this to the given IMazeTraverser
+  public Void apply(IMazeTraverser arg) {
+    return arg.accept(this);
+  }
+
+  // Draws only the cells visited since the cursor, the solution once the search completes,
+  // and the player, putting back the player's old cell if visited cells aren't shown
+  public Void visitManualSearch(ManualSearch ms) {
+    ArrayList<GridPosn> visited = ms.getVisited();
+    if (this.viewVisited) {
+      // completing the search removes duplicates from the visited cells, so the cursor can
+      // be past the end; every visited cell has been drawn by then anyway
+      for (int i = this.cursor.drawnCount; i < visited.size(); i += 1) {
+        this.canvas.drawAtCell(ISprite.PLAYER_VISITED_PATH, visited.get(i));
+      }
+    } else if (this.cursor.highlighted != null) {
+      this.canvas.restoreCell(this.cursor.highlighted);
+    }
+    this.cursor.drawnCount = visited.size();
+
+    if (ms.searchComplete()) {
+      this.drawSolution(ms.result());
+    }
+
+    this.cursor.highlighted = ms.getPlayerPosition();
+    this.canvas.drawAtCell(ISprite.PLAYER_IMG, this.cursor.highlighted);
+    return null;
+  }
+
+  // draws only the cells processed since the cursor, or moves the single most recently
+  // visited cell if viewing visited cells is off, and the solution path once complete
+  public Void visitAutomaticSearch(AutomaticSearch as) {
+    ArrayList<Cell> processed = as.getProcessed();
+    int size = processed.size();
+    if (this.viewVisited) {
+      for (int i = this.cursor.drawnCount; i < size; i += 1) {
+        this.canvas.drawAtCell(ISprite.AUTO_PATH_TRAVERSED, processed.get(i).getPosition());
+      }
+    } else if (size > 0 && this.cursor.drawnCount != size) {
+      if (this.cursor.highlighted != null) {
+        this.canvas.restoreCell(this.cursor.highlighted);
+      }
+      this.cursor.highlighted = processed.get(size - 1).getPosition();
+      this.canvas.drawAtCell(ISprite.AUTO_PATH_TRAVERSED, this.cursor.highlighted);
+    }
+    this.cursor.drawnCount = size;
+
+    if (as.searchComplete()) {
+      this.drawSolution(as.result());
+    }
+    return null;
+  }
+
+  // draws only the cells settled since the cursor, or moves the single most recently
+  // settled cell if viewing visited cells is off, and the solution path once complete
+  public Void visitDijkstraSearch(DijkstraSearch ds) {
+    ArrayList<Cell> processed = ds.getProcessed();
+    int size = processed.size();
+    if (this.viewVisited) {
+      for (int i = this.cursor.drawnCount; i < size; i += 1) {
+        Cell cellCovered = processed.get(i);
+        this.canvas.drawAtCell(DrawTraverser.terrainImage(ds, cellCovered),
+            cellCovered.getPosition());
+      }
+    } else if (size > 0 && this.cursor.drawnCount != size) {
+      if (this.cursor.highlighted != null) {
+        this.canvas.restoreCell(this.cursor.highlighted);
+      }
+      Cell last = processed.get(size - 1);
+      this.cursor.highlighted = last.getPosition();
+      this.canvas.drawAtCell(DrawTraverser.terrainImage(ds, last), this.cursor.highlighted);
+    }
+    this.cursor.drawnCount = size;
+
+    if (ds.searchComplete()) {
+      this.drawSolution(ds.result());
+    }
+    return null;
+  }
+
+  // EFFECT: draws the solution path of the given result, unless the cursor says it has
+  // been drawn already
+  void drawSolution(SearchResult result) {
+    if (!this.cursor.solutionDrawn) {
+      for (GridPosn cellInSolution : result.getSolutionPath()) {
+        this.canvas.drawAtCell(ISprite.SEARCH_SOLUTION, cellInSolution);
+      }
+      this.cursor.solutionDrawn = true;
+    }
+  }
+}
+
+// the end screen text of a finished search, built once for its result so that drawing the
+// end screen doesn't build any images on every frame
+class SearchSummary {
+
+  // the result the text reports
+  final SearchResult result;
+
+  // the end screen text announcing that the search is over
+  private final WorldImage completeText;
+
+  // the end screen text reporting the number of wrong moves
+  private final WorldImage wrongMovesText;
+
+  // constructor builds the end screen text once for the given result
+  SearchSummary(SearchResult result) {
+    this.result = result;
+    this.completeText = new TextImage("Search Complete", IConstant.TEXT_SIZE, Color.BLACK);
+    this.wrongMovesText = new TextImage("Number of wrong moves: "
+        + Integer.toString(result.getWrongMoves()), IConstant.TEXT_SIZE, Color.BLACK);
+  }
+
+  // EFFECT: places the end screen text onto the given scene, centered horizontally
+  void drawSummary(WorldScene scene) {
+    scene.placeImageXY(this.completeText, scene.width / 2, scene.height / 4);
+    scene.placeImageXY(this.wrongMovesText, scene.width / 2, scene.height / 2);
+  }
+}
@@ -0,0 +1,383 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+// serves generated and solved mazes over HTTP, on the JDK's built-in server, to other
+// processes on the same machine
+// the mazes are the Maze the worlds show, searched by its own traversers, which are part
+// of the headless core, so a maze is the same for the same dimensions, bias and seed, and
+// javalib is never loaded; AWT is only loaded the first time a PNG is asked for
+// every endpoint takes its options as query parameters:
+//   GET /generate?rows=&columns=&bias=&seed=&format=bin|png
+//     the maze as written by LayeredMaze.writeTo, as a maze of one level, or as a PNG
+//   GET /solve?rows=&columns=&bias=&seed=&traverser=bfs|dfs|dijkstra
+//     the path through the maze as JSON, with the cells from the start to the target
+//   GET /metrics
+//     the requests served so far and how long they took, how well the cache is doing,
+//     and the totals of every maze generated and automatic search run, as a
+//     BenchmarkReport
+// mazes and paths are kept in a MazeCache, so popular seeds are only generated and
+// solved once while they stay in it
+// requests are served on virtual threads on a JVM that has them, and on a fixed pool of
+// the given number of threads on one that doesn't
+// usage: MazeService [--port 8080] [--threads N] [--cache-mb 64]
+class MazeService {
+
+  // the most cells a maze served can have, so one request can't use up the heap
+  // a Maze takes a few hundred bytes a cell while it's made and searched
+  static final int MAX_CELLS = 1 << 18;
+
+  // the bytes the cache may hold when no budget is given
+  static final long DEFAULT_CACHE_BYTES = 64L << 20;
+
+  // the server, listening on the loopback address only
+  private final HttpServer server;
+
+  // the threads requests are served on
+  private final ExecutorService executor;
+
+  // whether the threads are virtual
+  final boolean virtualThreads;
+
+  // the requests served so far
+  final ServiceStats stats;
+
+  // the mazes and paths made recently
+  final MazeCache cache;
+
+  // told about every maze generated and every automatic search of one
+  final CountingMazeMetrics metrics;
+
+  // constructor for a service on the given port, or any free port if it's 0, that isn't
+  // started yet, with a cache of the default size
+  MazeService(int port, int threads) throws IOException {
+    this(port, threads, DEFAULT_CACHE_BYTES);
+  }
+
+  // constructor for a service on the given port, or any free port if it's 0, that isn't
+  // started yet, caching at most the given number of bytes of mazes and paths
+  MazeService(int port, int threads, long cacheBytes) throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("The number of threads must be at least 1.");
+    }
+    ExecutorService virtual = MazeService.virtualThreadExecutor();
+    this.virtualThreads = virtual != null;
+    this.executor = this.virtualThreads ? virtual : Executors.newFixedThreadPool(threads);
+    this.stats = new ServiceStats();
+    this.metrics = new CountingMazeMetrics();
+    this.cache = new MazeCache(cacheBytes, this.metrics);
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+        port), 0);
+    this.server.setExecutor(this.executor);
+    this.addEndpoint("/generate", new GenerateHandler(this));
+    this.addEndpoint("/solve", new SolveHandler(this));
+    this.addEndpoint("/metrics", new MetricsHandler(this));
+  }
+
+  // EFFECT: answers the requests to the given path with the given handler
+  void addEndpoint(String path, AMazeHandler handler) {
+    this.server.createContext(path, handler);
+  }
+
+  // an executor that starts a virtual thread for every task, or null if this JVM doesn't
+  // have them
+  // virtual threads came after the Java this is built for, so the factory is looked up
+  // by name
+  static ExecutorService virtualThreadExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (NoSuchMethodException e) {
+      return null;
+    } catch (IllegalAccessException e) {
+      return null;
+    } catch (InvocationTargetException e) {
+      // a JVM that has them as a preview feature that isn't turned on
+      return null;
+    }
+  }
+
+  // EFFECT: starts serving requests
+  void start() {
+    this.server.start();
+  }
+
+  // EFFECT: stops serving requests, waiting up to a second for those being served
+  void stop() {
+    this.server.stop(1);
+    this.executor.shutdown();
+  }
+
+  // the port the service listens on
+  int port() {
+    return this.server.getAddress().getPort();
+  }
+
+  // the query parameters of the given request as options, like "?rows=3" as "--rows 3"
+  // throws an error if a parameter has no value
+  static BenchmarkArgs optionsOf(URI uri) {
+    ArrayList<String> args = new ArrayList<String>();
+    String query = uri.getRawQuery();
+    if (query != null && !query.isEmpty()) {
+      for (String parameter : query.split("&")) {
+        int equals = parameter.indexOf('=');
+        if (equals < 0) {
+          throw new IllegalArgumentException("Every parameter must have a value.");
+        }
+        args.add("--" + URLDecoder.decode(parameter.substring(0, equals),
+            StandardCharsets.UTF_8));
+        args.add(URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return new BenchmarkArgs(args.toArray(new String[0]));
+  }
+
+  // the key of the maze the given options describe
+  // throws an error if no maze could be made from them: if it would be less than 2x2 or
+  // larger than MAX_CELLS, or its bias isn't a finite number from [-1.0, 1.0] (a NaN bias
+  // would make every edge weight NaN), so the cache only counts lookups of real mazes
+  static MazeKey keyOf(BenchmarkArgs options) {
+    int rows = options.integer("rows", 20);
+    int columns = options.integer("columns", 20);
+    double bias = options.number("bias", 0);
+    Maze.checkShape(rows, columns, bias);
+    if ((long) rows * columns > MAX_CELLS) {
+      throw new IllegalArgumentException("The maze can't have more than " + MAX_CELLS
+          + " cells.");
+    }
+    return new MazeKey(rows, columns, bias, options.longInteger("seed", 1));
+  }
+
+  // the given maze as written by LayeredMaze.writeTo
+  static byte[] bytesOf(LayeredMaze maze) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      maze.writeTo(new DataOutputStream(bytes));
+    } catch (IOException e) {
+      throw new RuntimeException("A maze couldn't be written to memory.", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  // the given path found by the named traverser, as JSON
+  // its time is the time the search took when it was first solved
+  static String solutionJson(String traverser, MazeSolution solution) {
+    int[] path = solution.cells;
+    StringBuilder json = new StringBuilder();
+    json.append("{\"traverser\": \"").append(traverser).append("\", \"pathLength\": ")
+        .append(path.length).append(", \"wrongMoves\": ").append(solution.wrongMoves)
+        .append(", \"solveNanos\": ").append(solution.solveNanos).append(", \"path\": [");
+    for (int i = path.length - 1; i >= 0; i -= 1) {
+      json.append(path[i]).append(i > 0 ? ", " : "");
+    }
+    json.append("]}\n");
+    return json.toString();
+  }
+
+  // EFFECT: sends the given response to the given request
+  static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    OutputStream out = exchange.getResponseBody();
+    try {
+      out.write(body);
+    } finally {
+      out.close();
+    }
+  }
+
+  // starts a service with the given options, which runs until the JVM is stopped
+  public static void main(String[] args) throws IOException {
+    BenchmarkArgs options = new BenchmarkArgs(args);
+    MazeService service = new MazeService(options.integer("port", 8080),
+        options.integer("threads", Runtime.getRuntime().availableProcessors()),
+        (long) (options.number("cache-mb", 64) * (1 << 20)));
+    service.start();
+    System.out.println("Serving mazes on http://localhost:" + service.port() + "/ with "
+        + (service.virtualThreads ? "virtual threads" : "a pool of threads"));
+  }
+}
+
+// answers the requests to one endpoint of a MazeService, recording how long each took
+// a bad option is answered with 400 and its message, anything else that goes wrong with
+// 500, and any method but GET with 405
+// a request is recorded as 200 only once it has been answered; one that failed with an
+// IOException, or an Error like running out of memory, is recorded as 500
+abstract class AMazeHandler implements HttpHandler {
+
+  // the service this answers for
+  final MazeService service;
+
+  // the name the endpoint's requests are recorded under
+  private final String name;
+
+  // constructor
+  AMazeHandler(MazeService service, String name) {
+    this.service = service;
+    this.name = name;
+  }
+
+  // EFFECT: answers the given request
+  public void handle(HttpExchange exchange) throws IOException {
+    long began = System.nanoTime();
+    int status = 500;
+    try {
+      if (!exchange.getRequestMethod().equals("GET")) {
+        status = 405;
+        MazeService.respond(exchange, status, "text/plain; charset=utf-8",
+            "Only GET is supported.\n".getBytes(StandardCharsets.UTF_8));
+      } else {
+        this.serve(exchange, MazeService.optionsOf(exchange.getRequestURI()));
+        status = 200;
+      }
+    } catch (IllegalArgumentException e) {
+      status = 400;
+      MazeService.respond(exchange, status, "text/plain; charset=utf-8",
+          (e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+    } catch (RuntimeException e) {
+      status = 500;
+      MazeService.respond(exchange, status, "text/plain; charset=utf-8",
+          "The request couldn't be served.\n".getBytes(StandardCharsets.UTF_8));
+    } finally {
+      this.service.stats.record(this.name, status, System.nanoTime() - began);
+      exchange.close();
+    }
+  }
+
+  // EFFECT: answers the given GET request, with the given options, with status 200
+  // throws an IllegalArgumentException if an option is bad
+  abstract void serve(HttpExchange exchange, BenchmarkArgs options) throws IOException;
+}
+
+// answers /generate with a maze, in binary or as a PNG
+class GenerateHandler extends AMazeHandler {
+
+  // constructor
+  GenerateHandler(MazeService service) {
+    super(service, "generate");
+  }
+
+  // EFFECT: sends the maze the given options describe, in the format they ask for
+  // a PNG too large to paint is refused before its maze is generated
+  void serve(HttpExchange exchange, BenchmarkArgs options) throws IOException {
+    MazeKey key = MazeService.keyOf(options);
+    String format = options.string("format", "bin");
+    if (format.equals("bin")) {
+      MazeService.respond(exchange, 200, "application/octet-stream",
+          MazeService.bytesOf(this.service.cache.maze(key)));
+    } else if (format.equals("png")) {
+      LevelPainter.checkSize(key.rows, key.columns);
+      MazeService.respond(exchange, 200, "image/png",
+          LevelPainter.png(this.service.cache.maze(key), 0));
+    } else {
+      throw new IllegalArgumentException("The format must be one of: bin, png");
+    }
+  }
+}
+
+// answers /solve with the path through a maze found by the chosen traverser, solving it
+// only if the path isn't cached
+class SolveHandler extends AMazeHandler {
+
+  // constructor
+  SolveHandler(MazeService service) {
+    super(service, "solve");
+  }
+
+  // EFFECT: sends the path through the maze the given options describe, as JSON
+  void serve(HttpExchange exchange, BenchmarkArgs options) throws IOException {
+    String traverser = options.string("traverser", "bfs");
+    MazeSolution solution = this.service.cache.solution(MazeService.keyOf(options),
+        traverser);
+    MazeService.respond(exchange, 200, "application/json",
+        MazeService.solutionJson(traverser, solution).getBytes(StandardCharsets.UTF_8));
+  }
+}
+
+// answers /metrics with the requests served so far
+class MetricsHandler extends AMazeHandler {
+
+  // constructor
+  MetricsHandler(MazeService service) {
+    super(service, "metrics");
+  }
+
+  // EFFECT: sends the service's stats, its cache's and its metrics' as a BenchmarkReport
+  void serve(HttpExchange exchange, BenchmarkArgs options) throws IOException {
+    BenchmarkReport report = this.service.stats.report();
+    this.service.cache.addTo(report);
+    this.service.metrics.addTo(report);
+    report.addValue("virtualThreads", "boolean", this.service.virtualThreads ? 1 : 0);
+    MazeService.respond(exchange, 200, "application/json",
+        report.toJson().getBytes(StandardCharsets.UTF_8));
+  }
+}
+
+// the number of requests to each endpoint of a MazeService, the number that failed, and
+// how long they took
+// requests are recorded from many threads at once, and are few enough next to the work
+// of a maze that one lock is cheap
+class ServiceStats {
+
+  // the time taken by every request, by endpoint, in the order endpoints were first used
+  private final LinkedHashMap<String, LatencyHistogram> nanos;
+
+  // the requests that weren't answered with 200, by endpoint
+  private final LinkedHashMap<String, Long> failures;
+
+  // constructor with nothing recorded
+  ServiceStats() {
+    this.nanos = new LinkedHashMap<String, LatencyHistogram>();
+    this.failures = new LinkedHashMap<String, Long>();
+  }
+
+  // EFFECT: records a request to the named endpoint answered with the given status after
+  // the given time
+  synchronized void record(String endpoint, int status, long nanos) {
+    LatencyHistogram times = this.nanos.get(endpoint);
+    if (times == null) {
+      times = new LatencyHistogram();
+      this.nanos.put(endpoint, times);
+      this.failures.put(endpoint, 0L);
+    }
+    times.record(nanos);
+    if (status != 200) {
+      this.failures.put(endpoint, this.failures.get(endpoint) + 1);
+    }
+  }
+
+  // the number of requests recorded to the named endpoint
+  synchronized long requests(String endpoint) {
+    LatencyHistogram times = this.nanos.get(endpoint);
+    return times == null ? 0 : times.count();
+  }
+
+  // a report of every request recorded so far
+  synchronized BenchmarkReport report() {
+    BenchmarkReport report = new BenchmarkReport("service");
+    for (Map.Entry<String, LatencyHistogram> endpoint : this.nanos.entrySet()) {
+      report.addHistogram(endpoint.getKey(), "ns", endpoint.getValue());
+      report.addValue(endpoint.getKey() + " failures", "requests",
+          this.failures.get(endpoint.getKey()));
+    }
+    return report;
+  }
+}
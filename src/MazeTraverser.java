@@ -1,23 +1,18 @@
-import java.awt.Color;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.NoSuchElementException;
 
-import javalib.impworld.WorldScene;
-import javalib.worldimages.Posn;
-import javalib.worldimages.WorldImage;
-
 // To represent a path-finder that eventually reaches a solution and can operate incrementally
+// path-finders don't draw themselves; DrawTraverser and DrawTraverserChanges visit them to
+// draw what they've done, so searching never loads javalib or AWT
 interface IMazeTraverser {
   // To implement visitor pattern
   <R> R accept(IMazeTraverserVisitor<R> f);
 
-  // Draw the status of the path-finder onto the given background,
-  // draws everything visited so far or just the most recently visited cell
-  void drawOntoScene(WorldScene background, boolean viewVisited);
-
   // An in-order list of the positions of cells on the path from beginning to end
-  ArrayList<Posn> reconstructSolutionPath();
+  ArrayList<GridPosn> reconstructSolutionPath();
 
   // Has the path-finder found the target?
   boolean searchComplete();
@@ -28,26 +23,84 @@ interface IMazeTraverser {
   // called only when a final solution has been found
   // returns the total number of new cells visited that are not a part of the solution path
   int wrongMoves();
+
+  // called only when a final solution has been found
+  // returns the snapshot of the finished search, which is taken once when it completes
+  SearchResult result();
+}
+
+// a snapshot of a completed search, taken once when the search finishes so that drawing
+// the end screen doesn't rebuild the solution path on every frame
+// the end screen's text is made from it by a SearchSummary
+class SearchResult {
+
+  // the positions on the solution path, from the target back to the start
+  private final ArrayList<GridPosn> solutionPath;
+
+  // the number of cells visited that are not a part of the solution path
+  private final int wrongMoves;
+
+  // constructor for the result of a path found by a headless search
+  SearchResult(SolvedPath path) {
+    this(SearchResult.positionsOf(path), path.wrongMoves);
+  }
+
+  // constructor
+  SearchResult(ArrayList<GridPosn> solutionPath, int wrongMoves) {
+    this.solutionPath = solutionPath;
+    this.wrongMoves = wrongMoves;
+  }
+
+  // the positions on the given path, in the same order
+  static ArrayList<GridPosn> positionsOf(SolvedPath path) {
+    ArrayList<GridPosn> positions = new ArrayList<GridPosn>(path.length());
+    for (int step = 0; step < path.length(); step += 1) {
+      long packed = path.positionAt(step);
+      positions.add(new GridPosn(PackedPosn.x(packed), PackedPosn.y(packed)));
+    }
+    return positions;
+  }
+
+  // the positions on the solution path, from the target back to the start
+  ArrayList<GridPosn> getSolutionPath() {
+    return this.solutionPath;
+  }
+
+  // the number of cells visited that are not a part of the solution path
+  int getWrongMoves() {
+    return this.wrongMoves;
+  }
 }
 
 // To represent a manual search that responds to key presses
 class ManualSearch implements IMazeTraverser {  
 
   // Only the positions in order along the path to the target
-  private ArrayList<Posn> solution;
+  private ArrayList<GridPosn> solution;
 
   // Position of every cell visited so far
-  private ArrayList<Posn> processed;
+  private ArrayList<GridPosn> processed;
   private Cell currCell;
-  private final Posn targetPosition;
+  private final GridPosn targetPosition;
+
+  // the goal position packed into a long, which the current cell is compared against
+  private final long target;
+
+  // the snapshot of this search, taken when the player reaches the target
+  // null until then
+  private SearchResult result;
 
   // Constructor initializes a new manual search that has not visited any cells
-  ManualSearch(Cell start, Posn targetPosition) {
+  ManualSearch(Cell start, GridPosn targetPosition) {
     this.solution = new ArrayList<>();
     this.solution.add(start.getPosition());
     this.processed = new ArrayList<>();
     this.currCell = start;
     this.targetPosition = targetPosition;
+    this.target = PackedPosn.of(targetPosition.x, targetPosition.y);
+    if (this.searchComplete()) {
+      this.result = this.snapshot();
+    }
   }
 
   // move the player's position according to the given direction if the player is able to move
@@ -66,18 +119,19 @@ class ManualSearch implements IMazeTraverser {
     // NOTE: we allow duplicate additions to the processed list because it would be less efficient
     // to check if the list contains this position before adding it every time
 
-    Posn displacement = new Utils().directionToDisplacement(direction);
+    Direction d = Direction.fromKey(direction);
 
     // If the move is legal
-    if (this.currCell.hasNeighbor(displacement)) {
+    if (this.currCell.hasNeighbor(d)) {
       // Move to the corresponding neighboring cell
-      this.currCell = this.currCell.getNeighbor(displacement);
-
-      // If the move constitutes 'undoing' the previous move, the cell just occupied is not
-      // a part of the solution
-      if ((this.solution.size() >= 2)
-          && currCell.getPosition().equals(this.solution.get(this.solution.size() - 2))) {
-        this.solution.remove(this.solution.size() - 1);
+      this.currCell = this.currCell.getNeighbor(d);
+
+      // If the move returns to a cell already on the path, every cell on the path after
+      // it was a detour and not a part of the solution; in a maze without loops that can
+      // only be the previous cell, 'undoing' the previous move
+      int revisited = this.solution.lastIndexOf(this.currCell.getPosition());
+      if (revisited >= 0) {
+        this.solution.subList(revisited + 1, this.solution.size()).clear();
       } else {
         this.solution.add(this.currCell.getPosition());
 
@@ -85,22 +139,36 @@ class ManualSearch implements IMazeTraverser {
         if (this.searchComplete()) {
           this.processed.add(this.currCell.getPosition());
           this.processed = new Utils().withoutDuplicates(this.processed);
+          this.result = this.snapshot();
         }
       }
     }
   }
 
   // This has been keeping track of the solution the entire time
-  public ArrayList<Posn> reconstructSolutionPath() {
+  public ArrayList<GridPosn> reconstructSolutionPath() {
     if (!this.searchComplete()) {
       throw new RuntimeException("Cannot receive solution for incomplete search.");
     }
-    return this.solution;
+    return this.result.getSolutionPath();
+  }
+
+  // the snapshot of the finished search
+  public SearchResult result() {
+    if (!this.searchComplete()) {
+      throw new RuntimeException("The search hasn't been completed yet.");
+    }
+    return this.result;
+  }
+
+  // takes the snapshot of this search once the player has reached the target
+  private SearchResult snapshot() {
+    return new SearchResult(this.solution, this.processed.size() - this.solution.size());
   }
 
   // The search is complete if the current cell is at the goal position
   public boolean searchComplete() {
-    return this.currCell.getPosition().equals(this.targetPosition);
+    return this.currCell.getPackedPosition() == this.target;
   }
 
   // Returns a new manual search with the same target but the given starting cell
@@ -113,36 +181,21 @@ class ManualSearch implements IMazeTraverser {
     return f.visitManualSearch(this);
   }
 
-  // Draws the status of the manual traversal, with an option to view
-  // all visited cells so far or just the current cell, draws solution if search is complete
-  public void drawOntoScene(WorldScene background, boolean viewVisited) {
-    Utils u = new Utils();
-    // Draw all visited cells if applicable
-    if (viewVisited) {
-      for (Posn visitedPosn : this.processed) {
-        u.drawImageAtCellCoordinates(background, IConstant.PLAYER_VISITED_PATH, visitedPosn);
-      }
-    }
-    // Draw the solution
-    if (this.searchComplete()) {
-      for (Posn solutionPosn : this.solution) {
-        u.drawImageAtCellCoordinates(background, IConstant.SEARCH_SOLUTION, solutionPosn);
-      }
-    }
+  // the position of the cell the player is currently on
+  GridPosn getPlayerPosition() {
+    return this.currCell.getPosition();
+  }
 
-    // Draw the player
-    Posn currPosition = this.currCell.getPosition();
-    u.drawImageAtCellCoordinates(background, IConstant.PLAYER_IMG, currPosition);
+  // the position of every cell the player has moved from, in order, with repeats until
+  // the search is complete; read by the painters, which don't change it
+  ArrayList<GridPosn> getVisited() {
+    return this.processed;
   }
-  
+
   // called only when a final solution has been found
   // returns the total number of new cells visited that are not a part of the solution path
   public int wrongMoves() {
-    if (! this.searchComplete()) {
-      throw new RuntimeException("The search hasn't been completed yet.");
-    } else {
-      return this.processed.size() - this.solution.size();
-    }
+    return this.result().getWrongMoves();
   }
 }
 
@@ -150,8 +203,9 @@ class ManualSearch implements IMazeTraverser {
 //depending on what kind of work-list it has
 class AutomaticSearch implements IMazeTraverser {
 
-  // a map of all the positions encountered so far, and which edge led to them
-  private HashMap<Posn, Edge> cameFromEdges;
+  // the edge that led to each cell encountered so far, indexed by cell id, or null for
+  // cells not yet encountered; grown as cells with larger ids are found
+  private Edge[] cameFromEdges;
 
   // a worklist of cells left to search over
   private IWorkList<Cell> worklist;
@@ -159,8 +213,22 @@ class AutomaticSearch implements IMazeTraverser {
   // a list of cells that have already been processed
   private ArrayList<Cell> processed;
 
+  // the ids of the cells in processed, so checking whether a cell has been processed
+  // doesn't scan the list
+  private final BitSet processedIds;
+
+  // the edge that led to each encountered cell built outside a maze, which has no id to
+  // index cameFromEdges with; empty when every cell belongs to a maze
+  private final IdentityHashMap<Cell, Edge> cameFromLoose;
+
   // the goal position of this search
-  private final Posn targetPosition;
+  private final GridPosn targetPosition;
+
+  // the goal position packed into a long, which cells are compared against
+  private final long target;
+
+  // the cell at the goal position, once the search has reached it
+  private Cell targetCell;
 
   // has the search has been completed?
   private boolean searchComplete; // Recorded as a field for efficiency purposes
@@ -168,69 +236,99 @@ class AutomaticSearch implements IMazeTraverser {
   // the starting cell of the search
   private final Cell start;
 
+  // the snapshot of this search, taken when the target is reached
+  // null until then
+  private SearchResult result;
+
+  // the number of cells on the worklist, the work this search has done, and how long it
+  // took
+  private int worklistSize;
+  private final SearchProfile profile;
+
+  // told about this search once it reaches the target
+  private final IMazeMetrics metrics;
+
+  // the flight recorder event for this search, begun with its first step; null before
+  // then and once it has been committed
+  private SearchCompletedEvent event;
+
+  // constructor that tells no metrics about the search
+  AutomaticSearch(Cell start, IWorkList<Cell> worklist, GridPosn targetPosition) {
+    this(start, worklist, targetPosition, IMazeMetrics.NONE);
+  }
+
   // constructor
-  // initializes the cameFromEdges map and the processed list as empty
-  // initializes the worklist as the given one and adds the topLeft cell
-  AutomaticSearch(Cell start, IWorkList<Cell> worklist, Posn targetPosition) {
-    this.cameFromEdges = new HashMap<Posn, Edge>();
+  // initializes the cameFromEdges array and the processed list as empty
+  // initializes the worklist as the given one, which must be empty, and adds the topLeft
+  // cell
+  // cells that belong to a maze are tracked in arrays indexed by their ids, and any built
+  // outside one, which have no id, in the processed list and cameFromLoose
+  // the given metrics are told about the search once it reaches the target
+  AutomaticSearch(Cell start, IWorkList<Cell> worklist, GridPosn targetPosition,
+      IMazeMetrics metrics) {
+    this.cameFromEdges = new Edge[Math.max(1, start.getId() + 1)];
     this.worklist = worklist;
-    this.worklist.add(start);
+    this.profile = new SearchProfile();
+    this.metrics = metrics;
+    this.addToWorklist(start);
     this.processed = new ArrayList<Cell>();
+    this.processedIds = new BitSet();
+    this.cameFromLoose = new IdentityHashMap<Cell, Edge>();
     this.targetPosition = targetPosition;
+    this.target = PackedPosn.of(targetPosition.x, targetPosition.y);
     this.start = start;
-    this.searchComplete = this.start.getPosition().equals(targetPosition);
-  }
-
-  // draws the search onto the given scene based on whether viewing the previously visited 
-  // positions is toggled
-  public void drawOntoScene(WorldScene background, boolean viewVisited) {
-    Utils u = new Utils();
-    // Show path for every cell visited
-    if (viewVisited) {
-      for (Cell cellCovered : this.processed) {
-        Posn cellPos = cellCovered.getPosition();
-        u.drawImageAtCellCoordinates(background, IConstant.AUTO_PATH_TRAVERSED, cellPos);
-      }
-    } else {
-      // Only show on the most recently visited cell
-      if (this.processed.size() > 0) {
-        Posn cellPos = this.processed.get(this.processed.size() - 1).getPosition();
-        u.drawImageAtCellCoordinates(background, IConstant.AUTO_PATH_TRAVERSED, cellPos);
-      }
-    }
-
-    // if the search has been completed, draw the solution path
+    this.searchComplete = start.getPackedPosition() == this.target;
     if (this.searchComplete) {
-      for (Posn cellInSolution : this.reconstructSolutionPath()) {
-        u.drawImageAtCellCoordinates(background, IConstant.SEARCH_SOLUTION, cellInSolution);
-      }
+      this.targetCell = start;
+      this.result = this.snapshot();
+      this.reportCompletion();
     }
   }
 
-  // creates a list of all the positions in the solution path based on which edge each cell along
-  // the path came from in the cameFromEdges hashmap
-  public ArrayList<Posn> reconstructSolutionPath() {
+  // the list of all the positions in the solution path, from the target back to the start
+  // built once, when the search completed
+  public ArrayList<GridPosn> reconstructSolutionPath() {
     // throw an error if an attempt is made to reconstruct the solution path when a solution
     // hasn't been found yet
     if (!this.searchComplete) {
       throw new RuntimeException("Solution has not yet been found.");
     } else {
-      ArrayList<Posn> path = new ArrayList<Posn>(); // backwards from target
-      Posn currPosn = this.targetPosition;
-
-      // while the current position on the path isn't at the beginning of the path yet, add it to
-      // the list of positions on the path and then get the next position on the solution path
-      // based on which edge the current position came from in cameFromEdges
-      while (! currPosn.equals(this.start.getPosition())) {
-        path.add(currPosn);
-        currPosn = this.cameFromEdges.get(currPosn).connectedCellPositions().getOther(currPosn);
-      }
-      path.add(this.start.getPosition()); // add the starting position, since it's not in 
-      // the hashmap
-      return path;
+      return this.result.getSolutionPath();
     }
   }
 
+  // the snapshot of the finished search
+  public SearchResult result() {
+    if (!this.searchComplete) {
+      throw new RuntimeException("The search hasn't been completed yet.");
+    }
+    return this.result;
+  }
+
+  // takes the snapshot of this search once the target has been reached
+  private SearchResult snapshot() {
+    ArrayList<GridPosn> path = this.tracePath();
+    return new SearchResult(path, this.processed.size() - path.size());
+  }
+
+  // creates a list of all the positions in the solution path based on which edge each cell along
+  // the path came from in cameFromEdges
+  private ArrayList<GridPosn> tracePath() {
+    ArrayList<GridPosn> path = new ArrayList<GridPosn>(); // backwards from target
+    Cell curr = this.targetCell;
+
+    // while the current cell on the path isn't the beginning of the path yet, add its
+    // position to the path and then step back along the edge it was reached by
+    // the positions are the cells' own, so no GridPosn is made
+    while (curr != this.start) {
+      path.add(curr.getPosition());
+      curr = this.edgeTo(curr).findOther(curr);
+    }
+    path.add(this.start.getPosition()); // add the starting position, since it has no
+    // edge it came from
+    return path;
+  }
+
   // is the search complete?
   // used to end the world in MazeWorld
   public boolean searchComplete() {
@@ -242,7 +340,7 @@ class AutomaticSearch implements IMazeTraverser {
   public IMazeTraverser reset(Cell start) {
     
     this.worklist.clear();
-    return new AutomaticSearch(start, this.worklist, this.targetPosition);
+    return new AutomaticSearch(start, this.worklist, this.targetPosition, this.metrics);
   }
 
   // To implement the visitor pattern on automatic searches
@@ -251,52 +349,370 @@ class AutomaticSearch implements IMazeTraverser {
   }
 
   // increment the automatic search by one cell
-  // EFFECT: Removes next element from worklist
+  // EFFECT: Removes next element from worklist, along with any before it that were
+  // already processed
   // EFFECT: Adds neighbors of cell processed to worklist
-  // EFFECT: Adds neighbors and edges to the hashmap
+  // EFFECT: Records the edge each neighbor was first found through
+  // in a maze with loops a cell can be put on the worklist by more than one neighbor
+  // before it's processed; it's processed once, and keeps the edge it was found through
+  // first, so processed never has duplicates and the path traced back is a real one
   void incrementSearch() {
     // World should have ended rather than continually incrementing search
     if (this.searchComplete) {
       throw new RuntimeException("The automatic search has already been completed. "
           + "No incrementing is necessary.");
     }
-    if (this.worklist.isEmpty()) {
-      throw new NoSuchElementException("No more elements in worklist.");
+    if (this.profile.cellsExpanded == 0) {
+      this.profile.startedNanos = System.nanoTime();
+      this.event = new SearchCompletedEvent();
+      this.event.begin();
     }
-    Cell next = this.worklist.next();
+    Cell next = this.nextUnprocessed();
+    this.profile.cellsExpanded += 1;
     // Toggle search is complete since next is at the target position
-    if (next.getPosition().equals(this.targetPosition)) {
-      this.processed.add(next);
-      this.processed = new Utils().withoutDuplicates(this.processed);
+    if (next.getPackedPosition() == this.target) {
+      this.markProcessed(next);
+      this.targetCell = next;
       this.searchComplete = true;
+      this.result = this.snapshot();
+      this.profile.solveNanos = System.nanoTime() - this.profile.startedNanos;
+      this.reportCompletion();
     } else {
-      this.processed.add(next);
+      this.markProcessed(next);
       // For every cell that connects from this, add it to the worklist
-      // And add edge to HashMap
-      for (Edge e : next.getConnections()) {
+      // And record the edge it was reached by
+      // in the order the connections were made, which decides the order cells are searched
+      ArrayList<Edge> connections = next.getConnections();
+      for (int i = 0; i < connections.size(); i += 1) {
+        Edge e = connections.get(i);
         Cell neighbor = e.findOther(next);
-        if (! this.processed.contains(neighbor)) {
-          this.worklist.add(neighbor);
-          this.cameFromEdges.put(neighbor.getPosition(), e);
+        if (! this.isProcessed(neighbor)) {
+          this.addToWorklist(neighbor);
+          if (! this.isDiscovered(neighbor)) {
+            this.cameFrom(neighbor, e);
+          }
         }
       }
     }    
   }
 
+  // EFFECT: removes cells from the worklist until one that hasn't been processed
+  // returns that cell
+  // throws an error if the worklist runs out first
+  private Cell nextUnprocessed() {
+    while (! this.worklist.isEmpty()) {
+      Cell next = this.worklist.next();
+      this.worklistSize -= 1;
+      if (! this.isProcessed(next)) {
+        return next;
+      }
+    }
+    throw new NoSuchElementException("No more elements in worklist.");
+  }
+
+  // EFFECT: tells the metrics that this search has reached its target, and commits its
+  // flight recorder event
+  private void reportCompletion() {
+    this.metrics.searchCompleted(this.profile);
+    if (this.event == null) {
+      this.event = new SearchCompletedEvent();
+      this.event.begin();
+    }
+    if (this.event.shouldCommit()) {
+      this.event.traverser = this.kind();
+      this.event.cellsExpanded = this.profile.cellsExpanded;
+      this.event.pathLength = this.result.getSolutionPath().size();
+      this.event.worklistHighWater = this.profile.worklistHighWater;
+    }
+    this.event.commit();
+    this.event = null;
+  }
+
+  // the kind of search this is: "bfs" on a Queue, "dfs" on a Stack, or the name of the
+  // class of any other worklist
+  String kind() {
+    if (this.worklist instanceof Queue) {
+      return "bfs";
+    } else if (this.worklist instanceof Stack) {
+      return "dfs";
+    }
+    return this.worklist.getClass().getSimpleName();
+  }
+
+  // EFFECT: adds the given cell to the worklist, raising the largest the worklist has
+  // been if it's now larger
+  private void addToWorklist(Cell cell) {
+    this.worklist.add(cell);
+    this.worklistSize += 1;
+    this.profile.worklistHighWater = Math.max(this.profile.worklistHighWater,
+        this.worklistSize);
+  }
+
+  // EFFECT: adds the given cell to the processed cells
+  private void markProcessed(Cell cell) {
+    this.processed.add(cell);
+    if (cell.getId() >= 0) {
+      this.processedIds.set(cell.getId());
+    }
+  }
+
+  // has the given cell already been processed?
+  // a cell without an id is looked for in the processed list
+  private boolean isProcessed(Cell cell) {
+    int id = cell.getId();
+    if (id < 0) {
+      return this.processed.contains(cell);
+    }
+    return this.processedIds.get(id);
+  }
+
+  // has the given cell been found through an edge yet?
+  private boolean isDiscovered(Cell cell) {
+    return this.edgeTo(cell) != null;
+  }
+
+  // the edge the given cell was reached by, or null if it hasn't been found through one
+  private Edge edgeTo(Cell cell) {
+    int id = cell.getId();
+    if (id < 0) {
+      return this.cameFromLoose.get(cell);
+    }
+    return id < this.cameFromEdges.length ? this.cameFromEdges[id] : null;
+  }
+
+  // EFFECT: records that the given cell was reached by the given edge, growing
+  // cameFromEdges to fit its id
+  private void cameFrom(Cell cell, Edge e) {
+    int id = cell.getId();
+    if (id < 0) {
+      this.cameFromLoose.put(cell, e);
+      return;
+    }
+    if (id >= this.cameFromEdges.length) {
+      this.cameFromEdges = Arrays.copyOf(this.cameFromEdges,
+          Math.max(id + 1, 2 * this.cameFromEdges.length));
+    }
+    this.cameFromEdges[id] = e;
+  }
+
+  // the cells processed so far, in the order they were processed; read by the painters,
+  // which don't change it
+  ArrayList<Cell> getProcessed() {
+    return this.processed;
+  }
+
   // a getter method specifically to test that key presses correctly change the maze traverser
   IWorkList<Cell> getWorkList() {
     return this.worklist;
   }
+
+  // the work this search has done so far
+  SearchProfile getProfile() {
+    return this.profile;
+  }
   
   // called only when a final solution has been found
   // returns the total number of new cells visited that are not a part of the solution path
   public int wrongMoves() {
-    if (! this.searchComplete()) {
-      throw new RuntimeException("The search hasn't been completed yet.");
+    return this.result().getWrongMoves();
+  }
+}
+
+// a searcher that finds the cheapest path through a maze whose cells have different
+// traversal costs, settling cells in order of their distance from the start
+// uses an indexed heap with decrease-key rather than an IWorkList, since the next cell
+// depends on the cost so far and not just on the order cells were found in
+class DijkstraSearch implements IMazeTraverser {
+
+  // the cost of entering each cell, indexed by (row * columns + column)
+  private final int[] terrainCosts;
+
+  // the number of columns in the maze, used to turn positions into indices
+  private final int columns;
+
+  // the cheapest known cost of reaching each cell from the start
+  private final long[] distances;
+
+  // the index of the cell each cell was cheapest to reach from, or -1 if none yet
+  private final int[] cameFrom;
+
+  // whether each cell's cheapest cost is final
+  private final boolean[] settled;
+
+  // every cell found so far, by index, so that cells popped from the heap can be expanded
+  private final Cell[] discovered;
+
+  // the cells found but not yet settled, ordered by their cheapest known cost
+  private final IndexedMinHeap frontier;
+
+  // the cells that have been settled, in the order they were settled
+  private final ArrayList<Cell> processed;
+
+  // the goal position of this search
+  private final GridPosn targetPosition;
+
+  // the goal position packed into a long, which settled cells are compared against
+  private final long target;
+
+  // the starting cell of the search
+  private final Cell start;
+
+  // has the search been completed?
+  private boolean searchComplete;
+
+  // the snapshot of this search, taken when the target is settled
+  // null until then
+  private SearchResult result;
+
+  // constructor
+  // puts the start cell on the frontier with a cost of 0
+  DijkstraSearch(Cell start, GridPosn targetPosition, int[] terrainCosts, int columns) {
+    this.terrainCosts = terrainCosts;
+    this.columns = columns;
+    int cellCount = terrainCosts.length;
+    this.distances = new long[cellCount];
+    this.cameFrom = new int[cellCount];
+    for (int index = 0; index < cellCount; index += 1) {
+      this.distances[index] = Long.MAX_VALUE;
+      this.cameFrom[index] = -1;
+    }
+    this.settled = new boolean[cellCount];
+    this.discovered = new Cell[cellCount];
+    this.frontier = new IndexedMinHeap(cellCount);
+    this.processed = new ArrayList<Cell>();
+    this.targetPosition = targetPosition;
+    this.target = PackedPosn.of(targetPosition.x, targetPosition.y);
+    this.start = start;
+
+    int startIndex = this.indexOf(start.getPosition());
+    this.distances[startIndex] = 0;
+    this.discovered[startIndex] = start;
+    this.frontier.insert(startIndex, 0);
+    this.searchComplete = start.getPackedPosition() == this.target;
+    if (this.searchComplete) {
+      this.result = this.snapshot();
+    }
+  }
+
+  // the index of the given grid position in the per-cell arrays
+  int indexOf(GridPosn cellPosn) {
+    return cellPosn.y * this.columns + cellPosn.x;
+  }
+
+  // settle the cheapest cell on the frontier
+  // EFFECT: Removes the cheapest cell from the frontier and adds it to processed
+  // EFFECT: Adds or lowers the cost of each of its unsettled neighbors on the frontier
+  void incrementSearch() {
+    if (this.searchComplete) {
+      throw new RuntimeException("The weighted search has already been completed. "
+          + "No incrementing is necessary.");
+    }
+    if (this.frontier.isEmpty()) {
+      throw new NoSuchElementException("No more elements in worklist.");
+    }
+    int nextIndex = this.frontier.pollMin();
+    Cell next = this.discovered[nextIndex];
+    this.settled[nextIndex] = true;
+    this.processed.add(next);
+    if (next.getPackedPosition() == this.target) {
+      this.searchComplete = true;
+      this.result = this.snapshot();
     } else {
-      return this.processed.size() - this.reconstructSolutionPath().size();
+      ArrayList<Edge> connections = next.getConnections();
+      for (int i = 0; i < connections.size(); i += 1) {
+        Cell neighbor = connections.get(i).findOther(next);
+        int neighborIndex = PackedPosn.indexIn(neighbor.getPackedPosition(), this.columns);
+        long throughNext = this.distances[nextIndex] + this.terrainCosts[neighborIndex];
+        if (!this.settled[neighborIndex] && throughNext < this.distances[neighborIndex]) {
+          this.distances[neighborIndex] = throughNext;
+          this.cameFrom[neighborIndex] = nextIndex;
+          this.discovered[neighborIndex] = neighbor;
+          if (this.frontier.contains(neighborIndex)) {
+            this.frontier.decreaseKey(neighborIndex, throughNext);
+          } else {
+            this.frontier.insert(neighborIndex, throughNext);
+          }
+        }
+      }
     }
   }
+
+  // the cost of entering the given cell
+  int terrainCost(Cell c) {
+    return this.terrainCosts[PackedPosn.indexIn(c.getPackedPosition(), this.columns)];
+  }
+
+  // the cells settled so far, in the order they were settled; read by the painters,
+  // which don't change it
+  ArrayList<Cell> getProcessed() {
+    return this.processed;
+  }
+
+  // the list of all the positions in the cheapest path, from the target back to the start
+  // built once, when the search completed
+  public ArrayList<GridPosn> reconstructSolutionPath() {
+    if (!this.searchComplete) {
+      throw new RuntimeException("Solution has not yet been found.");
+    } else {
+      return this.result.getSolutionPath();
+    }
+  }
+
+  // the snapshot of the finished search
+  public SearchResult result() {
+    if (!this.searchComplete) {
+      throw new RuntimeException("The search hasn't been completed yet.");
+    }
+    return this.result;
+  }
+
+  // takes the snapshot of this search once the target has been settled
+  private SearchResult snapshot() {
+    ArrayList<GridPosn> path = this.tracePath();
+    return new SearchResult(path, this.processed.size() - path.size());
+  }
+
+  // creates a list of all the positions in the cheapest path, from the target back to
+  // the start, by following cameFrom
+  private ArrayList<GridPosn> tracePath() {
+    ArrayList<GridPosn> path = new ArrayList<GridPosn>(); // backwards from target
+    int currIndex = this.indexOf(this.targetPosition);
+    while (currIndex != -1) {
+      path.add(this.discovered[currIndex].getPosition());
+      currIndex = this.cameFrom[currIndex];
+    }
+    return path;
+  }
+
+  // the total terrain cost of the cheapest path found, not counting the start cell
+  // error if the search isn't complete
+  long solutionCost() {
+    if (!this.searchComplete) {
+      throw new RuntimeException("Solution has not yet been found.");
+    }
+    return this.distances[this.indexOf(this.targetPosition)];
+  }
+
+  // is the search complete?
+  public boolean searchComplete() {
+    return this.searchComplete;
+  }
+
+  // A new weighted search over the same terrain with the same target at the given cell
+  public IMazeTraverser reset(Cell start) {
+    return new DijkstraSearch(start, this.targetPosition, this.terrainCosts, this.columns);
+  }
+
+  // To implement the visitor pattern on weighted searches
+  public <R> R accept(IMazeTraverserVisitor<R> f) {
+    return f.visitDijkstraSearch(this);
+  }
+
+  // called only when a final solution has been found
+  // returns the total number of cells settled that are not a part of the solution path
+  public int wrongMoves() {
+    return this.result().getWrongMoves();
+  }
 }
 
 // A function with a single argument
@@ -310,6 +726,7 @@ interface IMazeTraverserVisitor<R> extends IFunc<IMazeTraverser, R> {
   
   R visitManualSearch(ManualSearch ms);
   R visitAutomaticSearch(AutomaticSearch as);
+  R visitDijkstraSearch(DijkstraSearch ds);
 }
 
 // To appropriately increment the traverser IF it is an automatic search
@@ -333,6 +750,14 @@ class OnTickTraverser implements IMazeTraverserVisitor<Void> {
     }
     return null;
   }
+
+  // Weighted search should be incremented on a tick
+  public Void visitDijkstraSearch(DijkstraSearch ds) {
+    if (! ds.searchComplete()) {
+      ds.incrementSearch();
+    }
+    return null;
+  }
 }
 
 // To appropriately tick the traverser when a key was pressed IF it is a manual search
@@ -363,4 +788,10 @@ class OnKeyTraverser implements IMazeTraverserVisitor<Void> {
     // do nothing
     return null;
   }
+
+  // Weighted search should not be affected
+  public Void visitDijkstraSearch(DijkstraSearch ds) {
+    // do nothing
+    return null;
+  }
 }
\ No newline at end of file
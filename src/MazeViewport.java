@@ -0,0 +1,652 @@
+import java.awt.Color;
+import java.util.ArrayList;
+
+import javalib.worldimages.ComputedPixelImage;
+import javalib.worldimages.Posn;
+import javalib.worldimages.WorldImage;
+
+// where a MazeWorld is looking at its maze from: the point of the maze at the center of
+// the window, and how far in or out it is zoomed
+// at zoom 0 a cell is CELL_WIDTH pixels wide; each step in doubles it, and each step out
+// halves it until a cell is a single pixel, after which each step out doubles the number
+// of cells every pixel stands for
+class Camera {
+
+  // the size of the window, in pixels
+  final int width;
+  final int height;
+
+  // the size of the maze being looked at, in pixels at zoom 0
+  private int worldWidth;
+  private int worldHeight;
+
+  // the point of the maze at the center of the window, in pixels at zoom 0
+  private int centerX;
+  private int centerY;
+
+  // how many steps in (positive) or out (negative) from CELL_WIDTH-wide cells
+  private int zoom;
+
+  // should the window stay centered on the player during a manual search?
+  private boolean following;
+
+  // constructor looks at the whole of a maze with the given dimensions, in grid cells,
+  // through a window of the given size
+  Camera(int width, int height, GridPosn mazeDimensions) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("The window must be at least 1 pixel wide and tall.");
+    }
+    this.width = width;
+    this.height = height;
+    this.fit(mazeDimensions);
+  }
+
+  // EFFECT: centers this camera on a maze with the given dimensions at zoom 0, following
+  // the player
+  void fit(GridPosn mazeDimensions) {
+    this.worldWidth = mazeDimensions.x * IConstant.CELL_WIDTH;
+    this.worldHeight = mazeDimensions.y * IConstant.CELL_WIDTH;
+    this.centerX = this.worldWidth / 2;
+    this.centerY = this.worldHeight / 2;
+    this.zoom = 0;
+    this.following = true;
+  }
+
+  // the number of times CELL_WIDTH can be halved before a cell is a single pixel
+  int halvingsToOnePixel() {
+    return 31 - Integer.numberOfLeadingZeros(IConstant.CELL_WIDTH);
+  }
+
+  // EFFECT: zooms in one step, unless already zoomed in all the way
+  void zoomIn() {
+    this.zoom = Math.min(this.zoom + 1, IConstant.MAX_ZOOM_IN);
+  }
+
+  // EFFECT: zooms out one step, unless already at the coarsest level of detail
+  void zoomOut() {
+    this.zoom = Math.max(this.zoom - 1, -(this.halvingsToOnePixel() + IConstant.MAX_LOD_LEVEL));
+  }
+
+  // EFFECT: moves the center of the window by the given number of quarter windows across
+  // and down, staying over the maze, and stops following the player
+  void pan(int quartersAcross, int quartersDown) {
+    this.centerX = Math.max(0, Math.min(this.worldWidth,
+        this.centerX + this.screenToWorld(quartersAcross * this.width / 4)));
+    this.centerY = Math.max(0, Math.min(this.worldHeight,
+        this.centerY + this.screenToWorld(quartersDown * this.height / 4)));
+    this.following = false;
+  }
+
+  // EFFECT: centers the window on the cell at the given grid coordinates
+  void centerOnCell(GridPosn cellCoord) {
+    this.centerX = cellCoord.x * IConstant.CELL_WIDTH + IConstant.CELL_WIDTH / 2;
+    this.centerY = cellCoord.y * IConstant.CELL_WIDTH + IConstant.CELL_WIDTH / 2;
+  }
+
+  // EFFECT: switches between following the player and staying put
+  void toggleFollowing() {
+    this.following = !this.following;
+  }
+
+  // the number of pixels at zoom 0 that the given number of pixels on screen cover
+  int screenToWorld(int screenPixels) {
+    int pixelsPerCell = this.pixelsPerCell();
+    if (this.zoom >= 0) {
+      return screenPixels >> this.zoom;
+    } else if (pixelsPerCell > 0) {
+      return screenPixels * IConstant.CELL_WIDTH / pixelsPerCell;
+    } else {
+      return screenPixels * (IConstant.CELL_WIDTH << this.lodLevel());
+    }
+  }
+
+  // the width of a cell on screen, in pixels, or 0 if a pixel covers more than one cell
+  int pixelsPerCell() {
+    if (this.zoom >= 0) {
+      return IConstant.CELL_WIDTH << this.zoom;
+    } else if (-this.zoom <= this.halvingsToOnePixel()) {
+      return IConstant.CELL_WIDTH >> -this.zoom;
+    } else {
+      return 0;
+    }
+  }
+
+  // each pixel on screen covers a square of 2^lodLevel cells on a side
+  // 0 unless zoomed out past single-pixel cells
+  int lodLevel() {
+    return Math.max(0, -this.zoom - this.halvingsToOnePixel());
+  }
+
+  // does the window show the whole maze, cell for cell at zoom 0?
+  boolean showsWholeMaze() {
+    return this.zoom == 0 && this.worldWidth <= this.width && this.worldHeight <= this.height;
+  }
+
+  // how many steps in (positive) or out (negative) from CELL_WIDTH-wide cells
+  int getZoom() {
+    return this.zoom;
+  }
+
+  // the point of the maze at the center of the window, in pixels at zoom 0
+  Posn getCenter() {
+    return new Posn(this.centerX, this.centerY);
+  }
+
+  // should the window stay centered on the player during a manual search?
+  boolean isFollowing() {
+    return this.following;
+  }
+}
+
+// To keep the camera centered on the player IF it is a following manual search
+class FollowPlayer implements IMazeTraverserVisitor<Void> {
+
+  // the camera to move
+  private final Camera camera;
+
+  // constructor
+  FollowPlayer(Camera camera) {
+    this.camera = camera;
+  }
+
+  // Apply this to the given IMazeTraverser
+  public Void apply(IMazeTraverser arg) {
+    return arg.accept(this);
+  }
+
+  // Center the camera on the player if it is following
+  public Void visitManualSearch(ManualSearch ms) {
+    if (this.camera.isFollowing()) {
+      this.camera.centerOnCell(ms.getPlayerPosition());
+    }
+    return null;
+  }
+
+  // Automatic search has no player to follow
+  public Void visitAutomaticSearch(AutomaticSearch as) {
+    return null;
+  }
+
+  // Weighted search has no player to follow
+  public Void visitDijkstraSearch(DijkstraSearch ds) {
+    return null;
+  }
+}
+
+// the average color of every square of 2^level cells on a side, for every level up to a
+// maximum, kept up to date as single cells change color
+// each level stores the sum of the red, green and blue of the cells in each square, so
+// a cell changing color only adds its difference to one square per level
+class LodPyramid {
+
+  // the number of columns and rows of cells
+  private final int columns;
+  private final int rows;
+
+  // the RGB color of every cell, indexed by (row * columns + column)
+  private final int[] cellColors;
+
+  // for every level from 1, the red, green and blue sums of every square, three ints per
+  // square, indexed by (row * squares per row + column) at that level
+  // level 0 is cellColors itself, so sums[0] is unused
+  private final int[][] sums;
+
+  // constructor builds every level, up to the given maximum, from the given cell colors
+  LodPyramid(int columns, int rows, int[] cellColors, int maxLevel) {
+    this.columns = columns;
+    this.rows = rows;
+    this.cellColors = cellColors;
+    int levels = 1;
+    while (levels <= maxLevel && (this.squaresAcross(levels - 1) > 1
+        || this.squaresDown(levels - 1) > 1)) {
+      levels += 1;
+    }
+    this.sums = new int[levels][];
+    for (int level = 1; level < levels; level += 1) {
+      int across = this.squaresAcross(level);
+      this.sums[level] = new int[3 * across * this.squaresDown(level)];
+      // each square is the sum of the up to four squares below it
+      for (int y = 0; y < this.squaresDown(level - 1); y += 1) {
+        for (int x = 0; x < this.squaresAcross(level - 1); x += 1) {
+          int slot = 3 * ((y >> 1) * across + (x >> 1));
+          for (int channel = 0; channel < 3; channel += 1) {
+            this.sums[level][slot + channel] += this.channelSum(level - 1, x, y, channel);
+          }
+        }
+      }
+    }
+  }
+
+  // the number of squares across at the given level
+  int squaresAcross(int level) {
+    return ((this.columns - 1) >> level) + 1;
+  }
+
+  // the number of squares down at the given level
+  int squaresDown(int level) {
+    return ((this.rows - 1) >> level) + 1;
+  }
+
+  // the number of levels, counting the cells themselves as level 0
+  int levels() {
+    return this.sums.length;
+  }
+
+  // the sum of one channel (0 red, 1 green, 2 blue) of the given square at the given level
+  private int channelSum(int level, int x, int y, int channel) {
+    if (level == 0) {
+      return (this.cellColors[y * this.columns + x] >> (16 - 8 * channel)) & 0xFF;
+    }
+    return this.sums[level][3 * (y * this.squaresAcross(level) + x) + channel];
+  }
+
+  // EFFECT: changes the color of the cell at the given index, and of every square it is in
+  void setCellColor(int index, int rgb) {
+    int old = this.cellColors[index];
+    if (old == rgb) {
+      return;
+    }
+    this.cellColors[index] = rgb;
+    int x = index % this.columns;
+    int y = index / this.columns;
+    int redChange = ((rgb >> 16) & 0xFF) - ((old >> 16) & 0xFF);
+    int greenChange = ((rgb >> 8) & 0xFF) - ((old >> 8) & 0xFF);
+    int blueChange = (rgb & 0xFF) - (old & 0xFF);
+    for (int level = 1; level < this.sums.length; level += 1) {
+      int slot = 3 * ((y >> level) * this.squaresAcross(level) + (x >> level));
+      this.sums[level][slot] += redChange;
+      this.sums[level][slot + 1] += greenChange;
+      this.sums[level][slot + 2] += blueChange;
+    }
+  }
+
+  // the average RGB color of the given square at the given level
+  // squares on the right and bottom edges may hang off the maze, so only the cells
+  // actually in them are averaged
+  int colorOf(int level, int x, int y) {
+    if (level == 0) {
+      return this.cellColors[y * this.columns + x];
+    }
+    int side = 1 << level;
+    int cells = Math.min(side, this.columns - x * side) * Math.min(side, this.rows - y * side);
+    int slot = 3 * (y * this.squaresAcross(level) + x);
+    return (this.sums[level][slot] / cells) << 16 | (this.sums[level][slot + 1] / cells) << 8
+        | (this.sums[level][slot + 2] / cells);
+  }
+}
+
+// what each cell of a maze looks like, as far as drawing it at any zoom is concerned:
+// which of its walls are open, what marks it with nothing drawn over it, and which tile a
+// traverser last drew over it
+// traversers draw onto this like any other canvas, so it stays up to date one changed
+// cell at a time
+class CellStates implements IRestorableCanvas {
+
+  // the bit set in passages when a cell has no wall to its right
+  static final int OPEN_RIGHT = 1;
+
+  // the bit set in passages when a cell has no wall below it
+  static final int OPEN_DOWN = 2;
+
+  // the number of columns and rows of cells
+  final int columns;
+  final int rows;
+
+  // where the tile for each image comes from
+  private final TileAtlas atlas;
+
+  // which walls of each cell are open, indexed by (row * columns + column)
+  private final byte[] passages;
+
+  // the id of the tile marking each cell with nothing drawn over it
+  private final int[] baseTiles;
+
+  // the id of the tile a traverser last drew over each cell, or 0 if none
+  private final int[] overlays;
+
+  // the average color of every cell and square of cells, for drawing zoomed out
+  private final LodPyramid pyramid;
+
+  // constructor reads the walls of the given maze, with nothing drawn over any cell
+  CellStates(Maze maze, TileAtlas atlas) {
+    GridPosn dimensions = maze.getDimensions();
+    this.columns = dimensions.x;
+    this.rows = dimensions.y;
+    this.atlas = atlas;
+    int cellCount = this.columns * this.rows;
+    this.passages = new byte[cellCount];
+    for (ArrayList<Cell> row : maze.getGrid()) {
+      for (Cell cell : row) {
+        GridPosn position = cell.getPosition();
+        int open = 0;
+        if (cell.hasNeighbor(Direction.RIGHT)) {
+          open |= OPEN_RIGHT;
+        }
+        if (cell.hasNeighbor(Direction.DOWN)) {
+          open |= OPEN_DOWN;
+        }
+        this.passages[position.y * this.columns + position.x] = (byte) open;
+      }
+    }
+    this.baseTiles = new int[cellCount];
+    int blank = atlas.tileFor(ISprite.BLANK_CELL_IMG).id;
+    for (int index = 0; index < cellCount; index += 1) {
+      this.baseTiles[index] = blank;
+    }
+    this.baseTiles[0] = atlas.tileFor(ISprite.START_IMG).id;
+    this.baseTiles[cellCount - 1] = atlas.tileFor(ISprite.END_IMG).id;
+    this.overlays = new int[cellCount];
+    int[] cellColors = new int[cellCount];
+    for (int index = 0; index < cellCount; index += 1) {
+      cellColors[index] = this.farColor(index);
+    }
+    this.pyramid = new LodPyramid(this.columns, this.rows, cellColors, IConstant.MAX_LOD_LEVEL);
+  }
+
+  // EFFECT: records that the given image was drawn over the given cell
+  public void drawAtCell(WorldImage img, GridPosn cellCoord) {
+    this.setOverlay(cellCoord.y * this.columns + cellCoord.x, this.atlas.tileFor(img).id);
+  }
+
+  // EFFECT: records that nothing is drawn over the given cell anymore
+  public void restoreCell(GridPosn cellCoord) {
+    this.setOverlay(cellCoord.y * this.columns + cellCoord.x, 0);
+  }
+
+  // EFFECT: records that nothing is drawn over any cell
+  void clearOverlays() {
+    for (int index = 0; index < this.overlays.length; index += 1) {
+      this.setOverlay(index, 0);
+    }
+  }
+
+  // EFFECT: records the given tile id as drawn over the cell at the given index
+  private void setOverlay(int index, int tileId) {
+    if (this.overlays[index] != tileId) {
+      this.overlays[index] = tileId;
+      this.pyramid.setCellColor(index, this.farColor(index));
+    }
+  }
+
+  // the id of the tile showing in the middle of the cell at the given index
+  int interiorTile(int index) {
+    if (this.overlays[index] != 0) {
+      return this.overlays[index];
+    }
+    return this.baseTiles[index];
+  }
+
+  // the id of the tile a traverser drew over the cell at the given index, or 0 if none
+  int overlayTile(int index) {
+    return this.overlays[index];
+  }
+
+  // which walls of the cell at the given index are open, as OPEN_RIGHT and OPEN_DOWN bits
+  int passagesOf(int index) {
+    return this.passages[index];
+  }
+
+  // the RGB color the cell at the given index averages out to from far away: its interior,
+  // plus the strips to its right and below, which are walls or passages, and the corner
+  // between them, which is always a wall
+  int farColor(int index) {
+    int interior = this.atlas.tileById(this.interiorTile(index)).color;
+    int passage = this.atlas.tileFor(ISprite.BLANK_CELL_IMG).color;
+    int wall = Color.DARK_GRAY.getRGB();
+    int right = ((this.passages[index] & OPEN_RIGHT) != 0) ? passage : wall;
+    int down = ((this.passages[index] & OPEN_DOWN) != 0) ? passage : wall;
+    int interiorArea = IConstant.INTERIOR_WIDTH * IConstant.INTERIOR_WIDTH;
+    int stripArea = IConstant.BORDER_SIZE * IConstant.INTERIOR_WIDTH;
+    int cornerArea = IConstant.BORDER_SIZE * IConstant.BORDER_SIZE;
+    int color = 0;
+    for (int shift = 0; shift <= 16; shift += 8) {
+      int channel = (((interior >> shift) & 0xFF) * interiorArea
+          + ((right >> shift) & 0xFF) * stripArea + ((down >> shift) & 0xFF) * stripArea
+          + ((wall >> shift) & 0xFF) * cornerArea) / (IConstant.CELL_WIDTH * IConstant.CELL_WIDTH);
+      color |= channel << shift;
+    }
+    return color;
+  }
+
+  // EFFECT: draws the given rectangle of cells at zoom 0 into the given buffer, whose
+  // top-left corner is at the given pixel of the whole maze, in the same order the full
+  // renderer paints the maze and its traverser so the pixels come out the same
+  // only reads this and the atlas, so different buffers can be painted at the same time
+  void paintCells(FrameBuffer target, int originX, int originY, int firstColumn,
+      int firstRow, int lastColumn, int lastRow) {
+    int scale = IConstant.CELL_WIDTH;
+    Tile cellTile = this.atlas.tileFor(ISprite.CELL_IMG);
+    for (int y = firstRow; y <= lastRow; y += 1) {
+      for (int x = firstColumn; x <= lastColumn; x += 1) {
+        target.blit(cellTile, x * scale - originX, y * scale - originY);
+      }
+    }
+    // the passages of the cells just above and to the left reach into the rectangle too
+    Tile blankTile = this.atlas.tileFor(ISprite.BLANK_CELL_IMG);
+    for (int y = Math.max(0, firstRow - 1); y <= lastRow; y += 1) {
+      for (int x = Math.max(0, firstColumn - 1); x <= lastColumn; x += 1) {
+        int open = this.passages[y * this.columns + x];
+        if ((open & OPEN_RIGHT) != 0) {
+          target.blit(blankTile, scale * (x + 1) - scale / 2 - originX,
+              (scale * (2 * y + 1)) / 2 - scale / 2 - originY);
+        }
+        if ((open & OPEN_DOWN) != 0) {
+          target.blit(blankTile, (scale * (2 * x + 1)) / 2 - scale / 2 - originX,
+              scale * (y + 1) - scale / 2 - originY);
+        }
+      }
+    }
+    for (int y = firstRow; y <= lastRow; y += 1) {
+      for (int x = firstColumn; x <= lastColumn; x += 1) {
+        int tileId = this.interiorTile(y * this.columns + x);
+        if (tileId != blankTile.id) {
+          target.blit(this.atlas.tileById(tileId), x * scale - originX, y * scale - originY);
+        }
+      }
+    }
+  }
+
+  // the average colors of every cell and square of cells
+  LodPyramid getPyramid() {
+    return this.pyramid;
+  }
+}
+
+// draws the part of a maze a camera is looking at into a window-sized pixel buffer
+// the cost of a frame depends on the size of the window, not of the maze: zoomed in, only
+// the cells in view are drawn from their tiles; zoomed out past single-pixel cells, each
+// pixel is the average color of the square of cells it covers, read off a pyramid that
+// is kept up to date as cells change
+class MazeViewport {
+
+  // the color drawn wherever the window shows something other than the maze
+  static final int BACKGROUND = Color.WHITE.getRGB();
+
+  // the tiles of every sprite drawn
+  private final TileAtlas atlas;
+
+  // what every cell of the maze looks like
+  private final CellStates states;
+
+  // the window's pixels
+  private final FrameBuffer screen;
+
+  // the window's pixels as a javalib image
+  private final ComputedPixelImage screenImage;
+
+  // the cells in view drawn at zoom 0, before being scaled up to the window; grows as
+  // needed and null until first needed
+  private FrameBuffer scratch;
+
+  // the traverser and view setting the cell states were drawn for, and how far it got
+  private IMazeTraverser drawnTraverser;
+  private boolean drawnViewVisited;
+  private DrawCursor cursor;
+
+  // the number of cells, or squares of cells when zoomed out past single-pixel cells,
+  // painted by the last call to render
+  private int cellsDrawn;
+
+  // constructor for a maze seen through a window of the given size, in pixels
+  MazeViewport(Maze maze, int width, int height) {
+    this.atlas = new TileAtlas();
+    this.states = new CellStates(maze, this.atlas);
+    this.screen = new FrameBuffer(width, height);
+    this.screenImage = new ComputedPixelImage(width, height);
+  }
+
+  // returns the window's view of the maze through the given camera, with the given
+  // traverser's state drawn over it, as a single javalib image
+  ComputedPixelImage render(Camera camera, IMazeTraverser traverser, boolean viewVisited) {
+    if (traverser != this.drawnTraverser || viewVisited != this.drawnViewVisited) {
+      this.states.clearOverlays();
+      this.drawnTraverser = traverser;
+      this.drawnViewVisited = viewVisited;
+      this.cursor = new DrawCursor();
+    }
+    new DrawTraverserChanges(this.states, viewVisited, this.cursor).apply(traverser);
+
+    this.screen.fillRect(0, 0, this.screen.width, this.screen.height, BACKGROUND);
+    int pixelsPerCell = camera.pixelsPerCell();
+    if (pixelsPerCell >= IConstant.CELL_WIDTH) {
+      this.cellsDrawn = this.paintTiles(camera);
+    } else if (pixelsPerCell > 0) {
+      this.cellsDrawn = this.paintBlocks(camera, pixelsPerCell);
+    } else {
+      this.cellsDrawn = this.paintAverages(camera, camera.lodLevel());
+    }
+    this.screen.publish(this.screenImage, 0, 0, this.screen.width, this.screen.height);
+    return this.screenImage;
+  }
+
+  // EFFECT: draws the cells in view from their tiles at zoom 0 into the scratch buffer,
+  // then copies them into the window, scaling each pixel up to a square if zoomed in
+  // returns the number of cells drawn
+  int paintTiles(Camera camera) {
+    int scale = IConstant.CELL_WIDTH;
+    int factor = camera.pixelsPerCell() / IConstant.CELL_WIDTH;
+    Posn center = camera.getCenter();
+    int left = center.x - this.screen.width / (2 * factor);
+    int top = center.y - this.screen.height / (2 * factor);
+    int firstColumn = Math.max(0, Math.floorDiv(left, scale));
+    int firstRow = Math.max(0, Math.floorDiv(top, scale));
+    int lastColumn = Math.min(this.states.columns - 1,
+        Math.floorDiv(left + (this.screen.width - 1) / factor, scale));
+    int lastRow = Math.min(this.states.rows - 1,
+        Math.floorDiv(top + (this.screen.height - 1) / factor, scale));
+    if (firstColumn > lastColumn || firstRow > lastRow) {
+      return 0;
+    }
+    int spanWidth = (lastColumn - firstColumn + 1) * scale;
+    int spanHeight = (lastRow - firstRow + 1) * scale;
+    if (this.scratch == null || this.scratch.width < spanWidth
+        || this.scratch.height < spanHeight) {
+      this.scratch = new FrameBuffer(spanWidth, spanHeight);
+    }
+    int originX = firstColumn * scale;
+    int originY = firstRow * scale;
+    this.states.paintCells(this.scratch, originX, originY, firstColumn, firstRow,
+        lastColumn, lastRow);
+
+    for (int y = 0; y < this.screen.height; y += 1) {
+      int worldY = top + y / factor - originY;
+      if (worldY < 0 || worldY >= spanHeight) {
+        continue;
+      }
+      for (int x = 0; x < this.screen.width; x += 1) {
+        int worldX = left + x / factor - originX;
+        if (worldX >= 0 && worldX < spanWidth) {
+          this.screen.setPixel(x, y, this.scratch.getPixel(worldX, worldY));
+        }
+      }
+    }
+    return (lastColumn - firstColumn + 1) * (lastRow - firstRow + 1);
+  }
+
+  // EFFECT: draws every cell in view as a small square of the given width: its interior
+  // color, with a one pixel wall or passage along its right and bottom once it's at least
+  // 3 pixels wide, or its averaged color if it's smaller than that
+  // returns the number of cells drawn
+  int paintBlocks(Camera camera, int pixelsPerCell) {
+    Posn center = camera.getCenter();
+    int left = center.x * pixelsPerCell / IConstant.CELL_WIDTH - this.screen.width / 2;
+    int top = center.y * pixelsPerCell / IConstant.CELL_WIDTH - this.screen.height / 2;
+    int firstColumn = Math.max(0, Math.floorDiv(left, pixelsPerCell));
+    int firstRow = Math.max(0, Math.floorDiv(top, pixelsPerCell));
+    int lastColumn = Math.min(this.states.columns - 1,
+        Math.floorDiv(left + this.screen.width - 1, pixelsPerCell));
+    int lastRow = Math.min(this.states.rows - 1,
+        Math.floorDiv(top + this.screen.height - 1, pixelsPerCell));
+    int wall = Color.DARK_GRAY.getRGB();
+    int passage = this.atlas.tileFor(ISprite.BLANK_CELL_IMG).color;
+    LodPyramid pyramid = this.states.getPyramid();
+    for (int y = firstRow; y <= lastRow; y += 1) {
+      for (int x = firstColumn; x <= lastColumn; x += 1) {
+        int index = y * this.states.columns + x;
+        int screenX = x * pixelsPerCell - left;
+        int screenY = y * pixelsPerCell - top;
+        if (pixelsPerCell < 3) {
+          this.screen.fillRect(screenX, screenY, pixelsPerCell, pixelsPerCell,
+              0xFF000000 | pyramid.colorOf(0, x, y));
+        } else {
+          int open = this.states.passagesOf(index);
+          int inner = pixelsPerCell - 1;
+          this.screen.fillRect(screenX, screenY, pixelsPerCell, pixelsPerCell, wall);
+          this.screen.fillRect(screenX, screenY, inner, inner,
+              this.atlas.tileById(this.states.interiorTile(index)).color);
+          if ((open & CellStates.OPEN_RIGHT) != 0) {
+            this.screen.fillRect(screenX + inner, screenY, 1, inner, passage);
+          }
+          if ((open & CellStates.OPEN_DOWN) != 0) {
+            this.screen.fillRect(screenX, screenY + inner, inner, 1, passage);
+          }
+        }
+      }
+    }
+    return Math.max(0, lastColumn - firstColumn + 1) * Math.max(0, lastRow - firstRow + 1);
+  }
+
+  // EFFECT: colors every pixel in the window with the average color of the square of
+  // 2^level cells on a side that it covers
+  // returns the number of squares drawn, one per pixel over the maze
+  int paintAverages(Camera camera, int level) {
+    int drawn = 0;
+    LodPyramid pyramid = this.states.getPyramid();
+    int useLevel = Math.min(level, pyramid.levels() - 1);
+    Posn center = camera.getCenter();
+    int cellsPerPixel = 1 << level;
+    int leftCell = center.x / IConstant.CELL_WIDTH - (this.screen.width / 2) * cellsPerPixel;
+    int topCell = center.y / IConstant.CELL_WIDTH - (this.screen.height / 2) * cellsPerPixel;
+    for (int y = 0; y < this.screen.height; y += 1) {
+      int cellY = topCell + y * cellsPerPixel;
+      if (cellY < 0 || cellY >= this.states.rows) {
+        continue;
+      }
+      for (int x = 0; x < this.screen.width; x += 1) {
+        int cellX = leftCell + x * cellsPerPixel;
+        if (cellX >= 0 && cellX < this.states.columns) {
+          this.screen.setPixel(x, y,
+              0xFF000000 | pyramid.colorOf(useLevel, cellX >> useLevel, cellY >> useLevel));
+          drawn += 1;
+        }
+      }
+    }
+    return drawn;
+  }
+
+  // the number of cells, or squares of cells when zoomed out past single-pixel cells,
+  // painted by the last call to render
+  int cellsDrawn() {
+    return this.cellsDrawn;
+  }
+
+  // returns the window's pixels
+  FrameBuffer getScreen() {
+    return this.screen;
+  }
+
+  // returns what every cell of the maze looks like
+  CellStates getStates() {
+    return this.states;
+  }
+}
@@ -1,8 +1,8 @@
-import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
 
 import javalib.impworld.*;
-import javalib.worldimages.Posn;
-import javalib.worldimages.TextImage;
 import javalib.worldimages.WorldEnd;
 
 // a world class that contains a maze that can be searched
@@ -18,43 +18,245 @@ class MazeWorld extends World {
   
   private double bias;
 
+  // the seed every maze in this world generates its terrain from, so that a weighted
+  // search reset onto a new maze still sees the same terrain
+  private final long terrainSeed;
+
+  // the finished scene, built once when the traverser completes its search and shown
+  // unchanged from then on; null while the search is still going
+  private WorldScene endScene;
+
+  // where the window is looking at the maze from
+  private final Camera camera;
+
+  // draws the part of the maze in view when the window can't show the whole maze at zoom 0
+  // created the first time it's needed for each maze; null until then
+  private MazeViewport viewport;
+
+  // draws the whole maze into a frame kept between calls when the window shows the whole
+  // maze at zoom 0
+  // created the first time it's needed for each maze; null until then
+  private MazeRenderer renderer;
+
+  // the end screen text of the traverser's finished search, made the first time it's
+  // drawn; remade whenever the traverser's result changes
+  private SearchSummary summary;
+
+  // how long each tick, frame and key press takes, how much each allocates, and how many
+  // cells each frame draws
+  private final WorldStats stats;
+
+  // are the stats drawn over the maze?
+  private boolean showStats;
+
+  // the stacked maze shown a level at a time instead of the maze, or null while the flat
+  // maze is shown
+  private LevelView levels;
+
   // convenience constructor which has no bias
   MazeWorld(int rows, int cols) {
     this(rows, cols, 0.0);
   }
   
-  // constructor is given dimensions and a bias and begins with a manual search by 
-  // default (since easy to change)
+  // convenience constructor for the default window size
   MazeWorld(int rows, int cols, double bias) {
-    this.maze = new Maze(rows, cols);
+    this(rows, cols, bias, IConstant.VIEWPORT_WIDTH, IConstant.VIEWPORT_HEIGHT);
+  }
+
+  // constructor is given dimensions, a bias and the size of the window, in pixels, and
+  // begins with a manual search by default (since easy to change)
+  MazeWorld(int rows, int cols, double bias, int width, int height) {
+    this(new Maze(rows, cols), bias, new Random().nextLong(), width, height);
+  }
+
+  // constructor is given the maze to show first, the bias of the mazes made after it, the
+  // seed of their terrain and the size of the window, in pixels, so a world can be made
+  // the same on every run
+  MazeWorld(Maze maze, double bias, long terrainSeed, int width, int height) {
+    this.terrainSeed = terrainSeed;
+    this.maze = maze;
+    this.maze.generateTerrain(this.terrainSeed, IConstant.MAX_TERRAIN_COST);
     this.traverser = this.maze.initializeManualSearch();
     this.viewVisited = true;
     this.bias = bias;
+    this.camera = new Camera(width, height, this.maze.getDimensions());
+    this.stats = new WorldStats();
+    this.showStats = false;
   }
 
   // draw this current state of this maze's traversal
+  // when the whole maze fits in the window at zoom 0, the frame is kept between calls and
+  // only the cells the traverser changed are redrawn; otherwise only the part of the maze
+  // in view is drawn, at the camera's level of detail
+  // once the search is complete the scene can't change until a new maze is made or the
+  // camera moves, so it is built once and reused for every later frame, unless the
+  // stats are shown over it
+  // a frame slower than the SlowFrameEvent threshold is recorded for the flight recorder
   public WorldScene makeScene() {
-    WorldScene scene = this.maze.makeScene();
-    this.traverser.drawOntoScene(scene, this.viewVisited);
-    if (this.traverser.searchComplete()) { // TODO: make this a variable for efficiency sake?
-      Posn dimensions = this.maze.getDimensions();
-      scene.placeImageXY(new TextImage("Search Complete", IConstant.TEXT_SIZE, Color.BLACK), 
-          dimensions.x * IConstant.CELL_WIDTH / 2, dimensions.y * IConstant.CELL_WIDTH / 4);
-      scene.placeImageXY(new TextImage("Number of wrong moves: " + 
-          Integer.toString(this.traverser.wrongMoves()), IConstant.TEXT_SIZE, Color.BLACK), 
-          dimensions.x * IConstant.CELL_WIDTH / 2, dimensions.y * IConstant.CELL_WIDTH / 2);
+    this.stats.begin();
+    SlowFrameEvent event = new SlowFrameEvent();
+    event.begin();
+    WorldScene scene;
+    int cellsDrawn = 0;
+    if (this.levels != null) {
+      scene = this.levels.drawScene();
+      cellsDrawn = this.levels.cellsDrawn();
+    } else if (this.endScene != null && !this.showStats) {
+      scene = this.endScene;
+    } else {
+      scene = this.drawScene();
+      cellsDrawn = this.camera.showsWholeMaze() ? this.renderer.cellsDrawn()
+          : this.viewport.cellsDrawn();
+      if (this.traverser.searchComplete() && !this.showStats) {
+        this.endScene = scene;
+      }
+    }
+    if (this.showStats) {
+      this.stats.drawOverlay(scene);
+    }
+    this.stats.endScene(cellsDrawn);
+    event.end();
+    if (event.shouldCommit()) {
+      event.cellsDrawn = cellsDrawn;
+      event.wholeMaze = this.camera.showsWholeMaze();
+      event.levels = this.levels != null;
+    }
+    event.commit();
+    return scene;
+  }
+
+  // draws a new scene of the current state of this maze's traversal
+  private WorldScene drawScene() {
+    WorldScene scene;
+    if (this.camera.showsWholeMaze()) {
+      if (this.renderer == null) {
+        this.renderer = new MazeRenderer(this.maze);
+      }
+      GridPosn dimensions = this.maze.getDimensions();
+      int width = dimensions.x * IConstant.CELL_WIDTH;
+      int height = dimensions.y * IConstant.CELL_WIDTH;
+      scene = new WorldScene(width, height);
+      scene.placeImageXY(this.renderer.updateFrame(this.traverser, this.viewVisited),
+          width / 2, height / 2);
+    } else {
+      if (this.viewport == null) {
+        this.viewport = new MazeViewport(this.maze, this.camera.width, this.camera.height);
+      }
+      new FollowPlayer(this.camera).apply(this.traverser);
+      scene = new WorldScene(this.camera.width, this.camera.height);
+      scene.placeImageXY(this.viewport.render(this.camera, this.traverser, this.viewVisited),
+          this.camera.width / 2, this.camera.height / 2);
+    }
+    if (this.traverser.searchComplete()) {
+      SearchResult result = this.traverser.result();
+      if (this.summary == null || this.summary.result != result) {
+        this.summary = new SearchSummary(result);
+      }
+      this.summary.drawSummary(scene);
     }
-    
     return scene;
   }
 
+  // EFFECT: moves the camera if the given key is one of its controls
+  // returns whether it was
+  // '=' and '-' zoom in and out, 'i', 'j', 'k' and 'l' pan up, left, down and right,
+  // 'f' toggles following the player, and '0' goes back to the whole maze at zoom 0
+  boolean moveCamera(String key) {
+    if (key.equals("=") || key.equals("+")) {
+      this.camera.zoomIn();
+    } else if (key.equals("-")) {
+      this.camera.zoomOut();
+    } else if (key.equals("i")) {
+      this.camera.pan(0, -1);
+    } else if (key.equals("j")) {
+      this.camera.pan(-1, 0);
+    } else if (key.equals("k")) {
+      this.camera.pan(0, 1);
+    } else if (key.equals("l")) {
+      this.camera.pan(1, 0);
+    } else if (key.equals("f")) {
+      this.camera.toggleFollowing();
+    } else if (key.equals("0")) {
+      this.camera.fit(this.maze.getDimensions());
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  // EFFECT: replaces the maze with a new random one with the same bias and terrain seed,
+  // looked at as a whole
+  private void newMaze() {
+    this.maze = this.maze.randomize(this.bias);
+    this.maze.generateTerrain(this.terrainSeed, IConstant.MAX_TERRAIN_COST);
+    this.viewport = null;
+    this.renderer = null;
+    this.camera.fit(this.maze.getDimensions());
+  }
+
   // update the player's position in the direction of the arrow key press if the maze 
   // is in manual traversal mode
   public void onKeyEvent(String key) {
-    if (this.traverser.searchComplete()) {
+    this.stats.begin();
+    this.handleKey(key);
+    this.stats.endKey();
+  }
+
+  // EFFECT: shows or hides the stats if the given key is 'p', or writes them to
+  // STATS_FILE if it is 'o'
+  // returns whether it was either
+  boolean useStatsKey(String key) {
+    if (key.equals("p")) {
+      this.showStats = !this.showStats;
+    } else if (key.equals("o")) {
+      try {
+        this.stats.dump(new File(IConstant.STATS_FILE));
+      } catch (IOException e) {
+        // a failed write shouldn't end the world
+        System.err.println("Couldn't write the stats: " + e.getMessage());
+      }
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  // EFFECT: switches between the flat maze and a new stacked maze with the same bias, and
+  // the rows and columns of the flat maze or of the window, whichever are fewer
+  // the stacked maze is shown a whole level at a time at zoom 0, so a level is never made
+  // larger than the window can show, however large the flat maze is
+  void toggleLevels() {
+    if (this.levels == null) {
+      GridPosn dimensions = this.maze.getDimensions();
+      int rows = Math.max(2, Math.min(dimensions.y, this.camera.height / IConstant.CELL_WIDTH));
+      int columns = Math.max(2, Math.min(dimensions.x,
+          this.camera.width / IConstant.CELL_WIDTH));
+      this.levels = new LevelView(IConstant.MAZE_LEVELS, rows, columns, this.bias,
+          new Random().nextLong());
+    } else {
+      this.levels = null;
+    }
+  }
+
+  // EFFECT: responds to the given key press
+  // '3' switches to and from the stacked maze, whose view takes every other key but the
+  // stats keys while it's shown
+  private void handleKey(String key) {
+    if (key.equals("3")) {
+      this.toggleLevels();
+      this.endScene = null;
+    } else if (this.levels != null) {
+      if (!this.useStatsKey(key)) {
+        this.levels.handleKey(key);
+      }
+    } else if (this.useStatsKey(key) || this.moveCamera(key)) {
+      // the end screen shows the old view and stats
+      this.endScene = null;
+    } else if (this.traverser.searchComplete()) {
       if (key.equals("n")) {
-        this.maze = this.maze.randomize(this.bias);
+        this.newMaze();
         this.traverser = this.maze.initializeManualSearch();
+        this.endScene = null;
 //        this.traverser = this.traverser.reset(this.maze.getStart());
       }
     } else {
@@ -70,7 +272,7 @@ class MazeWorld extends World {
       }
       // 'n' for new maze with the same bias
       else if (key.equals("n")) {
-        this.maze = this.maze.randomize(this.bias);
+        this.newMaze();
         this.traverser = this.traverser.reset(this.maze.getStart());
       }
       // 'd' for Depth First Search
@@ -81,6 +283,10 @@ class MazeWorld extends World {
       else if (key.equals("b")) {
         this.traverser = this.maze.initializeAutomaticSearch(true);
       }
+      // 'w' for a weighted (Dijkstra) search through the terrain
+      else if (key.equals("w")) {
+        this.traverser = this.maze.initializeDijkstraSearch();
+      }
       // 'v' to toggle whether the visited path is shown
       else if (key.equals("v")) {
         this.viewVisited = !this.viewVisited;
@@ -99,7 +305,13 @@ class MazeWorld extends World {
 
   // increment the maze search if the maze's traversal mode is currently in BFS or DFS mode
   public void onTick() {
-    new OnTickTraverser().apply(this.traverser);
+    this.stats.begin();
+    if (this.levels != null) {
+      this.levels.onTick();
+    } else {
+      new OnTickTraverser().apply(this.traverser);
+    }
+    this.stats.endTick();
   }
 
   // getter specifically for testing whether the viewVisited state changes upon the
@@ -114,6 +326,22 @@ class MazeWorld extends World {
     return this.maze;
   }
 
+  // getter specifically for testing that calls into this world are recorded
+  public WorldStats getStats() {
+    return this.stats;
+  }
+
+  // getter specifically for testing switching to the stacked maze; null while the flat
+  // maze is shown
+  public LevelView getLevels() {
+    return this.levels;
+  }
+
+  // getter specifically for testing that camera keys move the camera
+  public Camera getCamera() {
+    return this.camera;
+  }
+
   // getter specifically for testing whether the maze traverser is reset upon pressing
   // the "n" key
   public IMazeTraverser getTraverser() {
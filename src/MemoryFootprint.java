@@ -0,0 +1,433 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// measures the memory held by a maze and by each search state over it, for mazes of
+// several sizes and for each representation of a maze, and writes the bytes per cell of
+// each as a BenchmarkReport that later runs can be compared against
+// the representations are the maze of cells and edges, its renderer, its breadth first,
+// depth first, weighted and manual searches, the compressed sparse row maze with its
+// breadth first search, and a one-level packed maze with its breadth first search
+// each search state is measured without the maze it searches, since the maze is shared
+// with every other search over it
+// the sizes come from walking each object graph with a HeapWalker, which estimates every
+// object's size from the layout the JVM reports; run with
+//   --add-opens java.base/java.util=ALL-UNNAMED --add-opens java.base/java.lang=ALL-UNNAMED
+// to let it see inside the JDK's collections rather than estimating them from their size
+// usage: MemoryFootprint [--sizes 50,100,250,500] [--seed 1] [--out file.json]
+//   [--baseline file.json]
+class MemoryFootprint {
+
+  // the share of a representation's bytes a class must hold to be reported by itself
+  static final double CLASS_SHARE = 0.05;
+
+  // walks the object graphs
+  private final HeapWalker walker;
+
+  // the seed every maze is made from
+  private final long seed;
+
+  // constructor
+  MemoryFootprint(HeapWalker walker, long seed) {
+    this.walker = walker;
+    this.seed = seed;
+  }
+
+  // the name a measurement of the given representation is reported under, like
+  // "bfs 100x100 bytesPerCell"
+  static String resultName(String representation, int size, String measured) {
+    return representation + " " + size + "x" + size + " " + measured;
+  }
+
+  // a report with every representation at every given size
+  BenchmarkReport run(int[] sizes) {
+    BenchmarkReport report = new BenchmarkReport("footprint");
+    for (int size : sizes) {
+      this.measure(size, report);
+    }
+    return report;
+  }
+
+  // EFFECT: adds the memory held by every representation of a maze of the given size to
+  // the given report
+  void measure(int size, BenchmarkReport report) {
+    Maze maze = new Maze(size, size, 0, new Random(this.seed));
+    maze.generateTerrain(this.seed, IConstant.MAX_TERRAIN_COST);
+    HeapUsage mazeUsage = this.walker.measure(maze);
+    this.add("maze", size, mazeUsage, report);
+    this.add("renderer", size, this.walker.measure(new MazeRenderer(maze), mazeUsage), report);
+    for (String search : new String[] {"bfs", "dfs", "dijkstra", "manual"}) {
+      this.add(search, size, this.walker.measure(MemoryFootprint.finishedSearch(search, maze),
+          mazeUsage), report);
+    }
+
+    CsrMaze csr = new CsrMaze(new SquareTopology(size, size), 0, this.seed);
+    HeapUsage csrUsage = this.walker.measure(csr);
+    this.add("csrMaze", size, csrUsage, report);
+    CsrSearch csrSearch = new CsrSearch(csr, true);
+    csrSearch.runToCompletion();
+    this.add("csrBfs", size, this.walker.measure(csrSearch, csrUsage), report);
+
+    LayeredMaze layered = new LayeredMaze(1, size, size, 0, this.seed);
+    HeapUsage layeredUsage = this.walker.measure(layered);
+    this.add("layeredMaze", size, layeredUsage, report);
+    LayeredSearch layeredSearch = new LayeredSearch(layered, SearchOrder.BREADTH_FIRST);
+    layeredSearch.runToCompletion();
+    this.add("layeredBfs", size, this.walker.measure(layeredSearch, layeredUsage), report);
+  }
+
+  // EFFECT: adds the given memory held by the given representation of a maze of the
+  // given size to the given report: its bytes, objects and bytes per cell, and the bytes
+  // of every class holding at least CLASS_SHARE of them
+  void add(String representation, int size, HeapUsage usage, BenchmarkReport report) {
+    report.addValue(MemoryFootprint.resultName(representation, size, "bytes"), "bytes",
+        usage.bytes());
+    report.addValue(MemoryFootprint.resultName(representation, size, "objects"), "objects",
+        usage.objects());
+    report.addValue(MemoryFootprint.resultName(representation, size, "bytesPerCell"),
+        "bytes/cell", Math.rint(100.0 * usage.bytes() / ((long) size * size)) / 100);
+    for (Map.Entry<String, Long> bytes : usage.bytesByClass().entrySet()) {
+      if (bytes.getValue() >= CLASS_SHARE * usage.bytes()) {
+        report.addValue(MemoryFootprint.resultName(representation, size,
+            "in " + bytes.getKey()), "bytes", bytes.getValue());
+      }
+    }
+  }
+
+  // the named search over the given maze, run to completion
+  // the manual search is walked along the left wall
+  // throws an error if the name isn't a search
+  static IMazeTraverser finishedSearch(String search, Maze maze) {
+    IMazeTraverser traverser;
+    if (search.equals("bfs") || search.equals("dfs")) {
+      traverser = maze.initializeAutomaticSearch(search.equals("bfs"));
+    } else if (search.equals("dijkstra")) {
+      traverser = maze.initializeDijkstraSearch();
+    } else if (search.equals("manual")) {
+      traverser = maze.initializeManualSearch();
+      for (String key : SearchBenchmark.wallFollowerKeys(maze)) {
+        new OnKeyTraverser(key).apply(traverser);
+      }
+      return traverser;
+    } else {
+      throw new IllegalArgumentException("The search must be one of: bfs, dfs, dijkstra, "
+          + "manual");
+    }
+    while (!traverser.searchComplete()) {
+      new OnTickTraverser().apply(traverser);
+    }
+    return traverser;
+  }
+
+  // measures every representation with the given options and publishes the report
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    BenchmarkArgs options = new BenchmarkArgs(args);
+    HeapWalker walker = new HeapWalker();
+    System.out.println("Object layout: " + walker.describeLayout());
+    MemoryFootprint footprint = new MemoryFootprint(walker, options.integer("seed", 1));
+    BenchmarkReport report = footprint.run(
+        options.integers("sizes", new int[] {50, 100, 250, 500}));
+    report.publish(options.file("out"), options.file("baseline"));
+  }
+}
+
+// estimates the memory held by everything reachable from an object, by walking its
+// fields and array elements and adding up the size of every object found once
+// sizes follow the HotSpot layout: a header, then the fields packed together, rounded up
+// to the object alignment; arrays have their length after the header
+// objects of the JDK whose fields can't be read, because java.base isn't opened to this
+// code, are measured from their public methods instead: collections and maps by their
+// elements and a backing table sized to hold them, strings and bit sets by their length,
+// and anything else by its own fields alone
+// class objects and enum constants are shared by everything, so they aren't counted
+class HeapWalker {
+
+  // the bytes of an object's header, before its fields
+  private final int headerBytes;
+
+  // the bytes of a reference to an object
+  private final int referenceBytes;
+
+  // the multiple every object's size is rounded up to
+  private final int alignment;
+
+  // the size of an instance of every class measured so far, and its fields that refer to
+  // other objects, or null for a class whose fields can't be read
+  private final HashMap<Class<?>, Long> instanceSizes;
+  private final HashMap<Class<?>, Field[]> referenceFields;
+
+  // constructor with the layout this JVM reports
+  HeapWalker() {
+    this(HeapWalker.vmFlag("UseCompressedClassPointers", "true").equals("true") ? 12 : 16,
+        HeapWalker.vmFlag("UseCompressedOops", "true").equals("true") ? 4 : 8,
+        Integer.parseInt(HeapWalker.vmFlag("ObjectAlignmentInBytes", "8")));
+  }
+
+  // constructor with the given layout
+  HeapWalker(int headerBytes, int referenceBytes, int alignment) {
+    this.headerBytes = headerBytes;
+    this.referenceBytes = referenceBytes;
+    this.alignment = alignment;
+    this.instanceSizes = new HashMap<Class<?>, Long>();
+    this.referenceFields = new HashMap<Class<?>, Field[]>();
+  }
+
+  // the value of the given flag of this JVM, or the given default if it can't be read
+  static String vmFlag(String name, String otherwise) {
+    try {
+      return ManagementFactory.getPlatformMXBean(
+          com.sun.management.HotSpotDiagnosticMXBean.class).getVMOption(name).getValue();
+    } catch (RuntimeException e) {
+      return otherwise;
+    }
+  }
+
+  // the layout objects are measured with, like "header 12, reference 4, alignment 8"
+  String describeLayout() {
+    return "header " + this.headerBytes + ", reference " + this.referenceBytes
+        + ", alignment " + this.alignment;
+  }
+
+  // the memory held by everything reachable from the given object
+  HeapUsage measure(Object root) {
+    return this.measure(root, new HeapUsage());
+  }
+
+  // the memory held by everything reachable from the given object that wasn't already
+  // counted by the given usage, which is left as it is
+  HeapUsage measure(Object root, HeapUsage excluding) {
+    HeapUsage usage = new HeapUsage();
+    ArrayList<Object> pending = new ArrayList<Object>();
+    pending.add(root);
+    while (!pending.isEmpty()) {
+      Object next = pending.remove(pending.size() - 1);
+      if (next == null || next instanceof Class || next instanceof Enum
+          || excluding.counted(next) || !usage.markCounted(next)) {
+        continue;
+      }
+      usage.count(next.getClass(), this.sizeAndReferences(next, pending, usage));
+    }
+    return usage;
+  }
+
+  // the size of the given object, alone
+  // EFFECT: adds every object it refers to onto the given list, and counts any backing
+  // table its size is estimated with into the given usage
+  long sizeAndReferences(Object obj, ArrayList<Object> pending, HeapUsage usage) {
+    Class<?> type = obj.getClass();
+    if (type.isArray()) {
+      int length = Array.getLength(obj);
+      if (!type.getComponentType().isPrimitive()) {
+        Collections.addAll(pending, (Object[]) obj);
+      }
+      return this.arraySize(type.getComponentType(), length);
+    }
+    Field[] fields = this.fieldsOf(type);
+    if (fields != null) {
+      for (Field field : fields) {
+        try {
+          pending.add(field.get(obj));
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException("An opened field couldn't be read.", e);
+        }
+      }
+    } else {
+      usage.countOpaque(this.estimateOpaque(obj, pending));
+    }
+    return this.instanceSize(type);
+  }
+
+  // the bytes held behind the given object of the JDK, whose fields can't be read
+  // EFFECT: adds the elements of a collection, and the keys and values of a map, onto
+  // the given list
+  long estimateOpaque(Object obj, ArrayList<Object> pending) {
+    if (obj instanceof Collection) {
+      Collection<?> items = (Collection<?>) obj;
+      pending.addAll(items);
+      if (obj instanceof Set) {
+        return this.hashTableSize(items.size());
+      }
+      return this.arraySize(Object.class, items.size());
+    } else if (obj instanceof Map) {
+      Map<?, ?> entries = (Map<?, ?>) obj;
+      pending.addAll(entries.keySet());
+      pending.addAll(entries.values());
+      return this.hashTableSize(entries.size());
+    } else if (obj instanceof BitSet) {
+      return this.arraySize(long.class, ((BitSet) obj).size() / Long.SIZE);
+    } else if (obj instanceof String) {
+      return this.arraySize(byte.class, ((String) obj).length());
+    }
+    return 0;
+  }
+
+  // the bytes of a hash table holding the given number of entries: its table, at the
+  // default load factor, and a node for each entry
+  long hashTableSize(int entries) {
+    int capacity = 16;
+    while (capacity * 3 / 4 < entries) {
+      capacity *= 2;
+    }
+    long node = this.aligned(this.headerBytes + 4 + 3 * this.referenceBytes);
+    return this.arraySize(Object.class, capacity) + entries * node;
+  }
+
+  // the size of an array of the given length, holding the given type of element
+  long arraySize(Class<?> component, int length) {
+    int element = this.bytesOf(component);
+    long base = (this.headerBytes + 4 + element - 1) / element * element;
+    return this.aligned(base + (long) element * length);
+  }
+
+  // the size of an instance of the given class, with the fields of all its superclasses
+  long instanceSize(Class<?> type) {
+    Long size = this.instanceSizes.get(type);
+    if (size == null) {
+      long fields = 0;
+      for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers())) {
+            fields += this.bytesOf(field.getType());
+          }
+        }
+      }
+      size = this.aligned(this.headerBytes + fields);
+      this.instanceSizes.put(type, size);
+    }
+    return size;
+  }
+
+  // the fields of the given class and its superclasses that refer to other objects,
+  // opened for reading, or null if any of them can't be opened
+  Field[] fieldsOf(Class<?> type) {
+    if (this.referenceFields.containsKey(type)) {
+      return this.referenceFields.get(type);
+    }
+    ArrayList<Field> fields = new ArrayList<Field>();
+    boolean readable = true;
+    for (Class<?> c = type; c != null && readable; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+          readable = readable && field.trySetAccessible();
+          fields.add(field);
+        }
+      }
+    }
+    Field[] opened = readable ? fields.toArray(new Field[0]) : null;
+    this.referenceFields.put(type, opened);
+    return opened;
+  }
+
+  // the bytes a field or array element of the given type takes
+  int bytesOf(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else if (type == byte.class || type == boolean.class) {
+      return 1;
+    }
+    return this.referenceBytes;
+  }
+
+  // the given size rounded up to the object alignment
+  long aligned(long size) {
+    return (size + this.alignment - 1) / this.alignment * this.alignment;
+  }
+}
+
+// the memory held by an object graph: the bytes and number of its objects, and the bytes
+// held by each class of object
+class HeapUsage {
+
+  // every object counted, by identity
+  private final Set<Object> counted;
+
+  // the bytes held by the objects of each class, by the class's name
+  private final HashMap<String, Long> bytesByClass;
+
+  // the total bytes and objects counted
+  private long bytes;
+  private long objects;
+
+  // the bytes estimated behind objects whose fields couldn't be read
+  private long opaqueBytes;
+
+  // constructor with nothing counted
+  HeapUsage() {
+    this.counted = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    this.bytesByClass = new HashMap<String, Long>();
+  }
+
+  // has the given object been counted?
+  boolean counted(Object obj) {
+    return this.counted.contains(obj);
+  }
+
+  // EFFECT: marks the given object as counted
+  // returns whether it wasn't already
+  boolean markCounted(Object obj) {
+    return this.counted.add(obj);
+  }
+
+  // EFFECT: adds an object of the given class, of the given size
+  void count(Class<?> type, long size) {
+    this.bytes += size;
+    this.objects += 1;
+    this.addToClass(type.getSimpleName(), size);
+  }
+
+  // EFFECT: adds the given bytes estimated behind an object whose fields couldn't be read
+  void countOpaque(long size) {
+    this.bytes += size;
+    this.opaqueBytes += size;
+    this.addToClass("(estimated)", size);
+  }
+
+  // EFFECT: adds the given bytes to those held by the class with the given name
+  private void addToClass(String name, long size) {
+    this.bytesByClass.put(name, this.bytesByClass.getOrDefault(name, 0L) + size);
+  }
+
+  // the total bytes counted
+  long bytes() {
+    return this.bytes;
+  }
+
+  // the number of objects counted
+  long objects() {
+    return this.objects;
+  }
+
+  // the bytes estimated behind objects whose fields couldn't be read
+  long opaqueBytes() {
+    return this.opaqueBytes;
+  }
+
+  // the bytes held by the objects of each class, largest first
+  LinkedHashMap<String, Long> bytesByClass() {
+    ArrayList<Map.Entry<String, Long>> entries =
+        new ArrayList<Map.Entry<String, Long>>(this.bytesByClass.entrySet());
+    entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    LinkedHashMap<String, Long> sorted = new LinkedHashMap<String, Long>();
+    for (Map.Entry<String, Long> entry : entries) {
+      sorted.put(entry.getKey(), entry.getValue());
+    }
+    return sorted;
+  }
+}
@@ -0,0 +1,43 @@
+// helpers for a grid position packed into one long: the column in the high 32 bits and
+// the row in the low 32 bits
+// generation and searching compare and store positions as packed longs, which live in
+// fields and arrays without allocating; a Posn is only made where javalib needs one,
+// by the drawing code, so nothing here depends on javalib
+final class PackedPosn {
+
+  // there are no packed position objects, only the helpers
+  private PackedPosn() {
+  }
+
+  // the given column and row packed into one long
+  static long of(int x, int y) {
+    return ((long) x << 32) | (y & 0xFFFFFFFFL);
+  }
+
+  // the column of the given packed position
+  static int x(long packed) {
+    return (int) (packed >> 32);
+  }
+
+  // the row of the given packed position
+  static int y(long packed) {
+    return (int) packed;
+  }
+
+  // the packed position with the summed components of the two given ones
+  static long add(long p1, long p2) {
+    return PackedPosn.of(PackedPosn.x(p1) + PackedPosn.x(p2),
+        PackedPosn.y(p1) + PackedPosn.y(p2));
+  }
+
+  // the packed position with the components of the second subtracted from the first
+  static long subtract(long p1, long p2) {
+    return PackedPosn.of(PackedPosn.x(p1) - PackedPosn.x(p2),
+        PackedPosn.y(p1) - PackedPosn.y(p2));
+  }
+
+  // the index of the given packed position in a row-by-row array of the given width
+  static int indexIn(long packed, int columns) {
+    return PackedPosn.y(packed) * columns + PackedPosn.x(packed);
+  }
+}
@@ -0,0 +1,277 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Random;
+
+import javalib.impworld.WorldScene;
+import javalib.worldcanvas.WorldSceneBase;
+
+// times building frames of mazes of several sizes, at several points in a breadth first
+// search, and rasterizing them offscreen as the window would, and writes the results as
+// a BenchmarkReport that later runs can be compared against
+// every frame is timed and its allocation counted in two parts, building the scene and
+// rasterizing it, so a slower frame can be put down to one or the other
+// three kinds of frame are built:
+//   mazeScene: MazeRenderer.makeScene, the walls alone
+//   traverserScene: the walls with a DrawTraverser's drawing on top, the reference
+//     rendering out of nested javalib images
+//   worldScene: MazeWorld.makeScene, with a window showing the whole maze, after one
+//     untimed tick of its search, as in the running game
+// usage: RenderBenchmark [--sizes 25,50,100] [--progress 0,0.5,1] [--warmups 5]
+//   [--iterations 20] [--max-seconds 10] [--seed 1] [--out file.json]
+//   [--baseline file.json]
+class RenderBenchmark {
+
+  // the kinds of frame built, in the order they're reported
+  static final String[] SCENES = {"mazeScene", "traverserScene", "worldScene"};
+
+  // runs every case through its warmups and timed frames
+  private final BenchmarkHarness harness;
+
+  // counts the bytes each part of a frame allocates
+  private final ThreadAllocations allocations;
+
+  // draws the frames offscreen
+  private final SceneRasterizer rasterizer;
+
+  // constructor
+  RenderBenchmark(int warmups, int iterations, double maxSeconds, long seed) {
+    this.harness = new BenchmarkHarness(warmups, iterations, maxSeconds, seed);
+    this.allocations = new ThreadAllocations();
+    this.rasterizer = new SceneRasterizer();
+  }
+
+  // the name a part of a case is reported under, like "worldScene 50x50 at 50% build"
+  static String resultName(String scene, int size, double progress, String part) {
+    return scene + " " + size + "x" + size + " at " + Math.round(progress * 100) + "% "
+        + part;
+  }
+
+  // a report with every kind of frame of a maze of every given size, at every given
+  // fraction of the way through its search
+  BenchmarkReport run(int[] sizes, double[] progress) {
+    BenchmarkReport report = new BenchmarkReport("render");
+    for (int size : sizes) {
+      Maze maze = new Maze(size, size, 0, new Random(this.harness.seed));
+      MazeRenderer renderer = new MazeRenderer(maze);
+      for (double fraction : progress) {
+        for (String scene : SCENES) {
+          this.measure(scene, maze, renderer, fraction, report);
+        }
+      }
+    }
+    return report;
+  }
+
+  // EFFECT: times building and rasterizing the named kind of frame of the given maze, drawn
+  // by the given renderer, the given fraction of the way through a breadth first search,
+  // and adds the times and bytes allocated by each part to the given report
+  void measure(String scene, Maze maze, MazeRenderer renderer, double progress,
+      BenchmarkReport report) {
+    IMazeTraverser traverser = RenderBenchmark.advanced(maze.initializeAutomaticSearch(true),
+        maze, progress);
+    MazeWorld world = null;
+    if (scene.equals("worldScene")) {
+      world = RenderBenchmark.advancedWorld(maze, progress);
+    }
+    FrameCase measured = new FrameCase(this, scene, renderer, traverser, world);
+    this.harness.measure(measured);
+    int size = maze.getDimensions().x;
+    report.addHistogram(RenderBenchmark.resultName(scene, size, progress, "frame"), "ns",
+        measured.frameNanos);
+    report.addHistogram(RenderBenchmark.resultName(scene, size, progress, "build"), "ns",
+        measured.buildNanos);
+    report.addHistogram(RenderBenchmark.resultName(scene, size, progress, "raster"), "ns",
+        measured.rasterNanos);
+    if (this.allocations.isSupported()) {
+      report.addHistogram(RenderBenchmark.resultName(scene, size, progress, "build alloc"),
+          "bytes", measured.buildBytes);
+      report.addHistogram(RenderBenchmark.resultName(scene, size, progress, "raster alloc"),
+          "bytes", measured.rasterBytes);
+    }
+  }
+
+  // EFFECT: builds a frame of the named kind and rasterizes it, ticking the given world
+  // first if there is one
+  // returns the nanoseconds and bytes allocated building it, then the nanoseconds and
+  // bytes rasterizing it
+  long[] frame(String scene, MazeRenderer renderer, IMazeTraverser traverser,
+      MazeWorld world) {
+    if (world != null) {
+      world.onTick();
+    }
+    long beganBytes = this.allocations.allocatedBytes();
+    long began = System.nanoTime();
+    WorldScene built = this.buildScene(scene, renderer, traverser, world);
+    long builtAt = System.nanoTime();
+    long builtBytes = this.allocations.allocatedBytes();
+    this.rasterizer.rasterize(built);
+    long rasterizedAt = System.nanoTime();
+    long rasterizedBytes = this.allocations.allocatedBytes();
+    return new long[] {builtAt - began, builtBytes - beganBytes, rasterizedAt - builtAt,
+        rasterizedBytes - builtBytes};
+  }
+
+  // a new scene of the named kind
+  // throws an error if the name isn't one of SCENES
+  WorldScene buildScene(String scene, MazeRenderer renderer, IMazeTraverser traverser,
+      MazeWorld world) {
+    if (scene.equals("mazeScene")) {
+      return renderer.makeScene();
+    } else if (scene.equals("traverserScene")) {
+      WorldScene background = renderer.makeScene();
+      new DrawTraverser(background, true).apply(traverser);
+      return background;
+    } else if (scene.equals("worldScene")) {
+      return world.makeScene();
+    } else {
+      throw new IllegalArgumentException(
+          "The scene must be one of: mazeScene, traverserScene, worldScene");
+    }
+  }
+
+  // the given search of the given maze, stepped until it has processed the given
+  // fraction of the maze's cells or has finished
+  static IMazeTraverser advanced(IMazeTraverser traverser, Maze maze, double progress) {
+    long steps = RenderBenchmark.stepsFor(maze, progress);
+    for (long step = 0; step < steps && !traverser.searchComplete(); step += 1) {
+      new OnTickTraverser().apply(traverser);
+    }
+    return traverser;
+  }
+
+  // a new world showing the given maze, with a window showing all of it, whose breadth
+  // first search has been ticked until it has processed the given fraction of its cells
+  // or has finished
+  static MazeWorld advancedWorld(Maze maze, double progress) {
+    int size = maze.getDimensions().x;
+    MazeWorld world = new MazeWorld(maze, 0, 0, size * IConstant.CELL_WIDTH,
+        size * IConstant.CELL_WIDTH);
+    world.onKeyEvent("b");
+    long steps = RenderBenchmark.stepsFor(maze, progress);
+    for (long step = 0; step < steps && !world.getTraverser().searchComplete(); step += 1) {
+      world.onTick();
+    }
+    return world;
+  }
+
+  // the number of search steps that process the given fraction of the given maze's cells
+  static long stepsFor(Maze maze, double progress) {
+    GridPosn dimensions = maze.getDimensions();
+    return Math.round(progress * dimensions.x * dimensions.y);
+  }
+
+  // runs the benchmark with the given options and publishes its report
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    BenchmarkArgs options = new BenchmarkArgs(args);
+    RenderBenchmark benchmark = new RenderBenchmark(options.integer("warmups", 5),
+        options.integer("iterations", 20), options.number("max-seconds", 10),
+        options.integer("seed", 1));
+    BenchmarkReport report = benchmark.run(
+        options.integers("sizes", new int[] {25, 50, 100}),
+        options.numbers("progress", new double[] {0, 0.5, 1}));
+    report.publish(options.file("out"), options.file("baseline"));
+  }
+}
+
+// building and rasterizing one kind of frame for a RenderBenchmark, keeping the time and
+// bytes allocated by each part of each timed frame
+class FrameCase implements IBenchmarkCase {
+
+  // the benchmark the frames are built for
+  private final RenderBenchmark benchmark;
+
+  // the kind of frame, the renderer of the maze it shows, and the search and world it
+  // shows
+  private final String scene;
+  private final MazeRenderer renderer;
+  private final IMazeTraverser traverser;
+  private final MazeWorld world;
+
+  // the time and bytes allocated by each part of each timed frame, and the whole of it
+  final LatencyHistogram buildNanos;
+  final LatencyHistogram buildBytes;
+  final LatencyHistogram rasterNanos;
+  final LatencyHistogram rasterBytes;
+  final LatencyHistogram frameNanos;
+
+  // constructor
+  FrameCase(RenderBenchmark benchmark, String scene, MazeRenderer renderer,
+      IMazeTraverser traverser, MazeWorld world) {
+    this.benchmark = benchmark;
+    this.scene = scene;
+    this.renderer = renderer;
+    this.traverser = traverser;
+    this.world = world;
+    this.buildNanos = new LatencyHistogram();
+    this.buildBytes = new LatencyHistogram();
+    this.rasterNanos = new LatencyHistogram();
+    this.rasterBytes = new LatencyHistogram();
+    this.frameNanos = new LatencyHistogram();
+  }
+
+  // EFFECT: builds and rasterizes a frame, and records what each part took if the frame
+  // is timed
+  public void run(int run, boolean timed) {
+    long[] frame = this.benchmark.frame(this.scene, this.renderer, this.traverser,
+        this.world);
+    if (timed) {
+      this.buildNanos.record(frame[0]);
+      this.rasterNanos.record(frame[2]);
+      this.frameNanos.record(frame[0] + frame[2]);
+      this.buildBytes.record(frame[1]);
+      this.rasterBytes.record(frame[3]);
+    }
+  }
+}
+
+// draws scenes into an offscreen image the way the window draws them onto the screen
+// javalib only draws a whole scene through its protected draw method, which its own
+// canvas calls, so the method is looked up once and called through reflection
+class SceneRasterizer {
+
+  // the method javalib draws a scene with
+  private static final Method DRAW = SceneRasterizer.drawMethod();
+
+  // the image the last scene was drawn into, reused while scenes are the same size
+  private BufferedImage image;
+
+  // the method javalib draws a scene with, made callable from outside javalib
+  // throws an error if this version of javalib doesn't have it
+  static Method drawMethod() {
+    try {
+      Method draw = WorldSceneBase.class.getDeclaredMethod("draw", Graphics2D.class);
+      draw.setAccessible(true);
+      return draw;
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException("This javalib can't draw scenes offscreen.", e);
+    }
+  }
+
+  // EFFECT: clears the offscreen image, making a new one if the given scene is a
+  // different size than the last, and draws the given scene into it
+  // returns the image
+  BufferedImage rasterize(WorldScene scene) {
+    if (this.image == null || this.image.getWidth() != scene.width
+        || this.image.getHeight() != scene.height) {
+      this.image = new BufferedImage(scene.width, scene.height, BufferedImage.TYPE_INT_ARGB);
+    }
+    Graphics2D graphics = this.image.createGraphics();
+    try {
+      graphics.setBackground(new Color(0, 0, 0, 0));
+      graphics.clearRect(0, 0, scene.width, scene.height);
+      DRAW.invoke(scene, graphics);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("This javalib can't draw scenes offscreen.", e);
+    } catch (InvocationTargetException e) {
+      throw new RuntimeException("The scene couldn't be drawn.", e.getCause());
+    } finally {
+      graphics.dispose();
+    }
+    return this.image;
+  }
+}
@@ -0,0 +1,279 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Random;
+
+// times searches over fixed-seed mazes and the work-lists they run on, and writes the
+// results as a BenchmarkReport that later runs can be compared against
+// breadth and depth first searches run to completion on their Queue and Stack, the
+// manual search is driven through a scripted walk, and Deque, Stack and Queue are timed
+// filling and draining at several sizes
+// the searches are reported in cells expanded per second: the number of steps each took,
+// since a step processes one cell, over the time it took
+// usage: SearchBenchmark [--sizes 50,100,250,500] [--worklist-sizes 10,1000,100000]
+//   [--warmups 3] [--iterations 10] [--max-seconds 10] [--seed 1] [--out file.json]
+//   [--baseline file.json]
+class SearchBenchmark {
+
+  // the searches timed over every maze, in the order they're reported
+  static final String[] SEARCHES = {"bfs", "dfs", "manual"};
+
+  // the work-lists timed at every size, in the order they're reported
+  static final String[] WORKLISTS = {"Deque", "Stack", "Queue"};
+
+  // the fewest adds and removes a timed run of a work-list makes
+  static final int OPS_PER_RUN = 200000;
+
+  // runs every case through its warmups and timed runs
+  private final BenchmarkHarness harness;
+
+  // a value every timed run adds to, so the JIT can't drop work whose result isn't used
+  private long sink;
+
+  // constructor
+  SearchBenchmark(int warmups, int iterations, double maxSeconds, long seed) {
+    this.harness = new BenchmarkHarness(warmups, iterations, maxSeconds, seed);
+  }
+
+  // the name a case is reported under, like "bfs 100x100"
+  static String resultName(String measured, String size) {
+    return measured + " " + size;
+  }
+
+  // a report with every search over a maze of every given size, and every work-list at
+  // every given number of items
+  BenchmarkReport run(int[] sizes, int[] worklistSizes) {
+    BenchmarkReport report = new BenchmarkReport("search");
+    for (int size : sizes) {
+      Maze maze = new Maze(size, size, 0, new Random(this.harness.seed));
+      ArrayList<String> keys = SearchBenchmark.wallFollowerKeys(maze);
+      for (String search : SEARCHES) {
+        this.measureSearch(search, maze, keys, report);
+      }
+    }
+    for (int items : worklistSizes) {
+      for (String worklist : WORKLISTS) {
+        this.measureWorkList(worklist, items, report);
+      }
+    }
+    return report;
+  }
+
+  // EFFECT: times running the named search over the given maze to completion, and adds
+  // the times and the cells expanded per second to the given report
+  // the manual search is driven by the given keys
+  void measureSearch(String search, Maze maze, ArrayList<String> keys, BenchmarkReport report) {
+    SearchCase measured = new SearchCase(this, search, maze, keys);
+    this.harness.measure(measured);
+    LatencyHistogram times = measured.times;
+    long steps = measured.steps;
+    GridPosn dimensions = maze.getDimensions();
+    String size = dimensions.x + "x" + dimensions.y;
+    report.addHistogram(SearchBenchmark.resultName(search, size), "ns", times);
+    report.addValue(SearchBenchmark.resultName(search + " cellsPerSecond", size), "cells/s",
+        Math.rint(steps * 1e9 / Math.max(1, times.mean() * times.count())));
+  }
+
+  // runs the named search over the given maze to completion, and returns the number of
+  // steps it took
+  // the manual search is driven by the given keys, and each key pressed counts as a step
+  // throws an error if the name isn't one of SEARCHES, or the keys don't reach the end
+  int runSearch(String search, Maze maze, ArrayList<String> keys) {
+    int steps = 0;
+    if (search.equals("manual")) {
+      ManualSearch manual = (ManualSearch) maze.initializeManualSearch();
+      while (!manual.searchComplete()) {
+        if (steps >= keys.size()) {
+          throw new IllegalStateException("The keys didn't lead to the end of the maze.");
+        }
+        manual.incrementSearch(keys.get(steps));
+        steps += 1;
+      }
+      this.sink += manual.result().getSolutionPath().size();
+    } else if (search.equals("bfs") || search.equals("dfs")) {
+      AutomaticSearch automatic = (AutomaticSearch) maze.initializeAutomaticSearch(
+          search.equals("bfs"));
+      while (!automatic.searchComplete()) {
+        automatic.incrementSearch();
+        steps += 1;
+      }
+      this.sink += automatic.result().getSolutionPath().size();
+    } else {
+      throw new IllegalArgumentException("The search must be one of: bfs, dfs, manual");
+    }
+    return steps;
+  }
+
+  // EFFECT: times filling the named work-list with the given number of items and draining
+  // it, and adds the time per add or remove and the operations per second to the given
+  // report
+  // small work-lists are filled and drained over and over in each run, until the run
+  // covers OPS_PER_RUN operations, so the time isn't mostly the clock being read
+  void measureWorkList(String worklist, int items, BenchmarkReport report) {
+    WorkListCase measured = new WorkListCase(this, worklist, items,
+        Math.max(1, OPS_PER_RUN / (2 * items)));
+    this.harness.measure(measured);
+    LatencyHistogram times = measured.times;
+    String size = items + " items";
+    report.addHistogram(SearchBenchmark.resultName(worklist, size), "ns/op", times);
+    report.addValue(SearchBenchmark.resultName(worklist + " opsPerSecond", size), "ops/s",
+        Math.rint(1e9 / Math.max(1e-3, times.mean())));
+  }
+
+  // EFFECT: adds the given number of items to a new work-list of the named kind, then
+  // takes them all off again, checking isEmpty before each one
+  // a Deque is used as a queue, adding at the head and removing from the tail
+  // throws an error if the name isn't one of WORKLISTS
+  void fillAndDrain(String worklist, int items) {
+    Integer item = items;
+    if (worklist.equals("Deque")) {
+      Deque<Integer> deque = new Deque<Integer>();
+      for (int i = 0; i < items; i += 1) {
+        deque.addAtHead(item);
+      }
+      while (!deque.isEmpty()) {
+        this.sink += deque.removeFromTail();
+      }
+    } else if (worklist.equals("Stack") || worklist.equals("Queue")) {
+      IWorkList<Integer> list = worklist.equals("Stack") ? new Stack<Integer>()
+          : new Queue<Integer>();
+      for (int i = 0; i < items; i += 1) {
+        list.add(item);
+      }
+      while (!list.isEmpty()) {
+        this.sink += list.next();
+      }
+    } else {
+      throw new IllegalArgumentException("The work-list must be one of: Deque, Stack, Queue");
+    }
+  }
+
+  // the arrow keys that walk from the start of the given maze to its end keeping a hand
+  // on the left wall, which reaches the end of any maze without loops, taking wrong turns
+  // and backing out of dead ends on the way as a player would
+  static ArrayList<String> wallFollowerKeys(Maze maze) {
+    ArrayList<String> keys = new ArrayList<String>();
+    GridPosn dimensions = maze.getDimensions();
+    long target = PackedPosn.of(dimensions.x - 1, dimensions.y - 1);
+    Cell current = maze.getStart();
+    Direction facing = Direction.RIGHT;
+    long limit = 4L * dimensions.x * dimensions.y;
+    while (current.getPackedPosition() != target && keys.size() < limit) {
+      Direction[] tries = {SearchBenchmark.toTheLeft(facing), facing,
+          SearchBenchmark.toTheLeft(facing).opposite(), facing.opposite()};
+      for (Direction d : tries) {
+        if (current.hasNeighbor(d)) {
+          facing = d;
+          current = current.getNeighbor(d);
+          keys.add(d.name().toLowerCase());
+          break;
+        }
+      }
+    }
+    return keys;
+  }
+
+  // the direction to the left of the given one, as seen from above the maze
+  static Direction toTheLeft(Direction facing) {
+    switch (facing) {
+      case UP:
+        return Direction.LEFT;
+      case LEFT:
+        return Direction.DOWN;
+      case DOWN:
+        return Direction.RIGHT;
+      default:
+        return Direction.UP;
+    }
+  }
+
+  // runs the benchmark with the given options and publishes its report
+  public static void main(String[] args) throws IOException {
+    System.setProperty("java.awt.headless", "true");
+    BenchmarkArgs options = new BenchmarkArgs(args);
+    SearchBenchmark benchmark = new SearchBenchmark(options.integer("warmups", 3),
+        options.integer("iterations", 10), options.number("max-seconds", 10),
+        options.integer("seed", 1));
+    BenchmarkReport report = benchmark.run(
+        options.integers("sizes", new int[] {50, 100, 250, 500}),
+        options.integers("worklist-sizes", new int[] {10, 1000, 100000}));
+    report.publish(options.file("out"), options.file("baseline"));
+  }
+}
+
+// running one search over a maze to completion for a SearchBenchmark, keeping the time
+// each timed run took and the steps they took altogether
+class SearchCase implements IBenchmarkCase {
+
+  // the benchmark the search is run for
+  private final SearchBenchmark benchmark;
+
+  // the name of the search, the maze it runs over, and the keys that drive it if it's
+  // the manual one
+  private final String search;
+  private final Maze maze;
+  private final ArrayList<String> keys;
+
+  // the time each timed run took, and the steps they took altogether
+  final LatencyHistogram times;
+  long steps;
+
+  // constructor
+  SearchCase(SearchBenchmark benchmark, String search, Maze maze, ArrayList<String> keys) {
+    this.benchmark = benchmark;
+    this.search = search;
+    this.maze = maze;
+    this.keys = keys;
+    this.times = new LatencyHistogram();
+  }
+
+  // EFFECT: runs the search to completion, and records how long it took and its steps if
+  // the run is timed
+  public void run(int run, boolean timed) {
+    long before = System.nanoTime();
+    int taken = this.benchmark.runSearch(this.search, this.maze, this.keys);
+    long took = System.nanoTime() - before;
+    if (timed) {
+      this.times.record(took);
+      this.steps += taken;
+    }
+  }
+}
+
+// filling and draining one kind of work-list for a SearchBenchmark, keeping the time per
+// add or remove of each timed run
+class WorkListCase implements IBenchmarkCase {
+
+  // the benchmark the work-list is timed for
+  private final SearchBenchmark benchmark;
+
+  // the name of the work-list, the items it's filled with, and the times it's filled and
+  // drained in each run
+  private final String worklist;
+  private final int items;
+  private final int repeats;
+
+  // the time per add or remove of each timed run
+  final LatencyHistogram times;
+
+  // constructor
+  WorkListCase(SearchBenchmark benchmark, String worklist, int items, int repeats) {
+    this.benchmark = benchmark;
+    this.worklist = worklist;
+    this.items = items;
+    this.repeats = repeats;
+    this.times = new LatencyHistogram();
+  }
+
+  // EFFECT: fills and drains the work-list as many times as a run repeats it, and records
+  // the time per add or remove if the run is timed
+  public void run(int run, boolean timed) {
+    long before = System.nanoTime();
+    for (int repeat = 0; repeat < this.repeats; repeat += 1) {
+      this.benchmark.fillAndDrain(this.worklist, this.items);
+    }
+    long took = System.nanoTime() - before;
+    if (timed) {
+      this.times.record(took / (2L * this.items * this.repeats));
+    }
+  }
+}
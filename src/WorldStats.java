@@ -0,0 +1,139 @@
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javalib.impworld.WorldScene;
+import javalib.worldimages.TextImage;
+
+// the time, memory allocated and cells drawn by each call into a MazeWorld, recorded
+// into histograms
+// a MazeWorld runs on one thread, so a call's starting time and allocation are kept in
+// fields between begin and the matching end
+class WorldStats {
+
+  // nanoseconds spent in each call to onTick, makeScene and onKeyEvent
+  final LatencyHistogram tickNanos;
+  final LatencyHistogram sceneNanos;
+  final LatencyHistogram keyNanos;
+
+  // bytes allocated by each call to onTick, makeScene and onKeyEvent
+  final LatencyHistogram tickBytes;
+  final LatencyHistogram sceneBytes;
+  final LatencyHistogram keyBytes;
+
+  // the number of cells (or, zoomed out, squares of cells) drawn by each call to makeScene
+  final LatencyHistogram cellsDrawn;
+
+  // reads the bytes allocated by the current thread
+  private final ThreadAllocations allocations;
+
+  // the time and allocation when the call being measured began
+  private long beganNanos;
+  private long beganBytes;
+
+  // constructor with nothing recorded
+  WorldStats() {
+    this.tickNanos = new LatencyHistogram();
+    this.sceneNanos = new LatencyHistogram();
+    this.keyNanos = new LatencyHistogram();
+    this.tickBytes = new LatencyHistogram();
+    this.sceneBytes = new LatencyHistogram();
+    this.keyBytes = new LatencyHistogram();
+    this.cellsDrawn = new LatencyHistogram();
+    this.allocations = new ThreadAllocations();
+  }
+
+  // can the bytes allocated be measured on this JVM?
+  boolean measuresAllocation() {
+    return this.allocations.isSupported();
+  }
+
+  // the bytes allocated by the current thread so far, or 0 if they can't be measured
+  private long allocatedBytes() {
+    return this.allocations.allocatedBytes();
+  }
+
+  // EFFECT: marks the start of a call being measured
+  void begin() {
+    this.beganBytes = this.allocatedBytes();
+    this.beganNanos = System.nanoTime();
+  }
+
+  // EFFECT: records the time and allocation since begin into the given histograms
+  private void end(LatencyHistogram nanos, LatencyHistogram bytes) {
+    long elapsed = System.nanoTime() - this.beganNanos;
+    nanos.record(elapsed);
+    if (this.allocations.isSupported()) {
+      bytes.record(this.allocatedBytes() - this.beganBytes);
+    }
+  }
+
+  // EFFECT: records the call to onTick that began last
+  void endTick() {
+    this.end(this.tickNanos, this.tickBytes);
+  }
+
+  // EFFECT: records the call to makeScene that began last, which drew the given number
+  // of cells
+  void endScene(int cells) {
+    this.end(this.sceneNanos, this.sceneBytes);
+    this.cellsDrawn.record(cells);
+  }
+
+  // EFFECT: records the call to onKeyEvent that began last
+  void endKey() {
+    this.end(this.keyNanos, this.keyBytes);
+  }
+
+  // EFFECT: forgets everything recorded
+  void reset() {
+    this.tickNanos.reset();
+    this.sceneNanos.reset();
+    this.keyNanos.reset();
+    this.tickBytes.reset();
+    this.sceneBytes.reset();
+    this.keyBytes.reset();
+    this.cellsDrawn.reset();
+  }
+
+  // a line summarizing the given timing histogram and allocation histogram
+  String timingLine(String name, LatencyHistogram nanos, LatencyHistogram bytes) {
+    String line = String.format("%-10s n=%d p50=%.1fus p99=%.1fus max=%.1fus", name,
+        nanos.count(), nanos.valueAtPercentile(50) / 1000.0,
+        nanos.valueAtPercentile(99) / 1000.0, nanos.max() / 1000.0);
+    if (this.allocations.isSupported()) {
+      line += String.format(" alloc p50=%dB p99=%dB", bytes.valueAtPercentile(50),
+          bytes.valueAtPercentile(99));
+    }
+    return line;
+  }
+
+  // the lines of a report on everything recorded
+  String[] reportLines() {
+    return new String[] {
+        this.timingLine("onTick", this.tickNanos, this.tickBytes),
+        this.timingLine("makeScene", this.sceneNanos, this.sceneBytes),
+        this.timingLine("onKeyEvent", this.keyNanos, this.keyBytes),
+        String.format("%-10s p50=%d p99=%d max=%d", "cells",
+            this.cellsDrawn.valueAtPercentile(50), this.cellsDrawn.valueAtPercentile(99),
+            this.cellsDrawn.max())};
+  }
+
+  // EFFECT: places the report onto the top of the given scene, one line at a time
+  void drawOverlay(WorldScene scene) {
+    String[] lines = this.reportLines();
+    int textSize = IConstant.TEXT_SIZE * 2 / 3;
+    for (int line = 0; line < lines.length; line += 1) {
+      scene.placeImageXY(new TextImage(lines[line], textSize, Color.RED),
+          scene.width / 2, textSize * (line + 1));
+    }
+  }
+
+  // EFFECT: writes the report to the given file, replacing anything already in it
+  void dump(File file) throws IOException {
+    Files.write(file.toPath(), String.join(System.lineSeparator(), this.reportLines())
+        .concat(System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+  }
+}